@@ -19,6 +19,7 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -238,10 +239,12 @@ public class TaskController {
     @ResponseStatus(code = HttpStatus.OK)
     public ResponseEntity<?> createRunOfTaskByNamespaceAndVersion(
         @PathVariable String namespace,
-        @PathVariable String version
+        @PathVariable String version,
+        @RequestParam(required = false) Long project,
+        @RequestParam(required = false) Long user
     ) throws RunTaskServiceException {
         log.info("tasks/{namespace}/{version}/runs POST");
-        TaskRun taskRun = taskService.createRunForTask(namespace, version);
+        TaskRun taskRun = taskService.createRunForTask(namespace, version, project, user);
         log.info("tasks/{namespace}/{version}/runs POST Ended");
         return ResponseEntity.ok(taskRun);
     }
@@ -249,10 +252,12 @@ public class TaskController {
     @PostMapping(value = "tasks/{id}/runs")
     @ResponseStatus(code = HttpStatus.OK)
     public ResponseEntity<?> createRunOfTaskByNamespaceAndVersion(
-        @PathVariable String id
+        @PathVariable String id,
+        @RequestParam(required = false) Long project,
+        @RequestParam(required = false) Long user
     ) throws RunTaskServiceException {
         log.info("tasks/{id}/runs POST");
-        TaskRun taskRun = taskService.createRunForTask(id);
+        TaskRun taskRun = taskService.createRunForTask(id, project, user);
         log.info("tasks/{id}/runs POST Ended");
         return ResponseEntity.ok(taskRun);
     }
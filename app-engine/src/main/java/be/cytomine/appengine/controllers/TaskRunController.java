@@ -14,6 +14,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.core.io.FileSystemResource;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -46,6 +47,7 @@ import be.cytomine.appengine.models.task.Run;
 import be.cytomine.appengine.repositories.RunRepository;
 import be.cytomine.appengine.services.RunService;
 import be.cytomine.appengine.services.TaskProvisioningService;
+import be.cytomine.appengine.utils.StoredZipArchive;
 
 import static java.lang.String.format;
 
@@ -349,22 +351,15 @@ public class TaskRunController {
     }
 
     @GetMapping(value = "/task-runs/{run_id}/inputs.zip")
-    @ResponseStatus(code = HttpStatus.OK)
     public void getInputProvisionsArchives(
         @PathVariable("run_id") String runId,
+        HttpServletRequest request,
         HttpServletResponse response
     ) throws ProvisioningException, IOException, FileStorageException {
         log.info("/task-runs/{run_id}/inputs.zip GET");
 
-        // Set response headers for a file download
-        response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE); // Or "application/zip"
-        response.setHeader(
-            HttpHeaders.CONTENT_DISPOSITION,
-            "attachment; filename=\"inputs-" + runId + ".zip\""
-        );
-
-        taskRunService.retrieveIOZipArchive(runId, ParameterType.INPUT, response.getOutputStream());
-        response.flushBuffer();
+        StoredZipArchive archive = taskRunService.prepareIOZipArchive(runId, ParameterType.INPUT);
+        writeZipArchive(archive, "inputs-" + runId + ".zip", request, response);
 
         log.info("/task-runs/{run_id}/inputs.zip GET Ended");
     }
@@ -465,30 +460,71 @@ public class TaskRunController {
     }
 
     @GetMapping(value = "/task-runs/{run_id}/outputs.zip")
-    @ResponseStatus(code = HttpStatus.OK)
     public void getOutputsProvisionsArchives(
         @PathVariable("run_id") String runId,
+        HttpServletRequest request,
         HttpServletResponse response
     ) throws ProvisioningException, IOException, FileStorageException {
         log.info("/task-runs/{run_id}/outputs.zip GET");
 
-        // Set response headers for a file download
-        response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE); // Or "application/zip"
-        response.setHeader(
-            HttpHeaders.CONTENT_DISPOSITION,
-            "attachment; filename=\"outputs-" + runId + ".zip\""
-        );
-
-        taskRunService.retrieveIOZipArchive(
-            runId,
-            ParameterType.OUTPUT,
-            response.getOutputStream()
-        );
-        response.flushBuffer();
+        StoredZipArchive archive = taskRunService.prepareIOZipArchive(runId, ParameterType.OUTPUT);
+        writeZipArchive(archive, "outputs-" + runId + ".zip", request, response);
 
         log.info("/task-runs/{run_id}/outputs.zip GET Ended");
     }
 
+    /**
+     * Send the whole archive with its length, or the single range requested by a client resuming a download.
+     * A range is only sent if the archive still has the layout named by If-Range, when the client gives one.
+     */
+    private void writeZipArchive(
+        StoredZipArchive archive,
+        String filename,
+        HttpServletRequest request,
+        HttpServletResponse response
+    ) throws IOException {
+        long length = archive.getLength();
+        response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"");
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        String etag = archive.getETag();
+        response.setHeader(HttpHeaders.ETAG, etag);
+
+        List<HttpRange> ranges;
+        try {
+            ranges = HttpRange.parseRanges(request.getHeader(HttpHeaders.RANGE));
+        } catch (IllegalArgumentException e) {
+            ranges = List.of();
+        }
+
+        // multiple ranges are not supported and a range of another archive cannot be resumed,
+        // the whole archive is sent instead
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ranges.size() != 1 || (ifRange != null && !ifRange.equals(etag))) {
+            response.setStatus(HttpStatus.OK.value());
+            response.setContentLengthLong(length);
+            archive.writeTo(response.getOutputStream());
+            response.flushBuffer();
+            return;
+        }
+
+        // getRangeStart does not check the start of a range against the length
+        long start = ranges.get(0).getRangeStart(length);
+        long end = ranges.get(0).getRangeEnd(length);
+        if (start >= length || end < start) {
+            response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+            response.flushBuffer();
+            return;
+        }
+
+        response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+        response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+        response.setContentLengthLong(end - start + 1);
+        archive.writeTo(response.getOutputStream(), start, end);
+        response.flushBuffer();
+    }
+
     @PostMapping(value = "/task-runs/{run_id}/{secret}/outputs.zip")
     @ResponseStatus(code = HttpStatus.OK)
     public ResponseEntity<?> postOutputsProvisionsArchives(
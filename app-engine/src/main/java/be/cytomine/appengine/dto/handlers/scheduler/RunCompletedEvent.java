@@ -0,0 +1,8 @@
+package be.cytomine.appengine.dto.handlers.scheduler;
+
+import java.util.UUID;
+
+/**
+ * Published when the execution of a run stops and its resources are released
+ */
+public record RunCompletedEvent(UUID runId) {}
@@ -0,0 +1,17 @@
+package be.cytomine.appengine.dto.handlers.scheduler;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Resources declared by the task of a run, with the project and user the run is accounted to
+ */
+public record RunDemand(
+    UUID runId,
+    Long projectId,
+    Long userId,
+    LocalDateTime queuedAt,
+    int cpus,
+    String ram,
+    int gpus
+) {}
@@ -0,0 +1,12 @@
+package be.cytomine.appengine.dto.handlers.scheduler;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Published when the task of a run terminates, before its outputs are processed
+ *
+ * @param succeeded whether the task exited successfully
+ * @param terminatedAt when the task terminated, as reported by the execution environment
+ */
+public record RunTerminatedEvent(UUID runId, boolean succeeded, Instant terminatedAt) {}
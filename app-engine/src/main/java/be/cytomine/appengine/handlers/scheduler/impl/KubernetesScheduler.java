@@ -1,14 +1,22 @@
 package be.cytomine.appengine.handlers.scheduler.impl;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
 
 import io.fabric8.kubernetes.api.model.Container;
 import io.fabric8.kubernetes.api.model.ContainerBuilder;
-import io.fabric8.kubernetes.api.model.EnvVarBuilder;
 import io.fabric8.kubernetes.api.model.HostPathVolumeSourceBuilder;
 import io.fabric8.kubernetes.api.model.Pod;
 import io.fabric8.kubernetes.api.model.PodBuilder;
@@ -19,10 +27,15 @@ import io.fabric8.kubernetes.api.model.Volume;
 import io.fabric8.kubernetes.api.model.VolumeBuilder;
 import io.fabric8.kubernetes.client.KubernetesClient;
 import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.dsl.ExecWatch;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Service;
 import org.springframework.web.util.UriComponentsBuilder;
@@ -36,11 +49,11 @@ import be.cytomine.appengine.handlers.scheduler.impl.utils.PodInformer;
 import be.cytomine.appengine.models.task.Run;
 import be.cytomine.appengine.models.task.Task;
 import be.cytomine.appengine.repositories.RunRepository;
-import be.cytomine.appengine.states.TaskRunState;
 
 @Service
 @Slf4j
 @RequiredArgsConstructor
+@ConditionalOnProperty(name = "scheduler.impl", havingValue = "default", matchIfMissing = true)
 public class KubernetesScheduler implements SchedulerHandler {
 
     private final Environment environment;
@@ -49,6 +62,8 @@ public class KubernetesScheduler implements SchedulerHandler {
 
     private final RunRepository runRepository;
 
+    private final ApplicationEventPublisher eventPublisher;
+
     @Value("${scheduler.registry-advertised-url}")
     private String registryAdvertisedUrl;
 
@@ -70,8 +85,6 @@ public class KubernetesScheduler implements SchedulerHandler {
     @Value("${scheduler.datasets-path}")
     private String imagesDatasetsPath;
 
-    private PodInformer podInformer;
-
     @Value("${scheduler.advertised-url}")
     private String advertisedUrl;
 
@@ -89,6 +102,10 @@ public class KubernetesScheduler implements SchedulerHandler {
 
     @Value("${scheduler.tasks-runner-image}")
     private String taskRunnerImage;
+
+    @Value("${scheduler.outputs-retention}")
+    private long outputsRetention;
+
     private String baseInputPath;
 
     private String baseOutputPath;
@@ -118,7 +135,6 @@ public class KubernetesScheduler implements SchedulerHandler {
         Run run = schedule.getRun();
         String runId = run.getId().toString();
         Task task = run.getTask();
-        String runSecret = String.valueOf(run.getSecret());
 
         log.info("Schedule: create task pod...");
 
@@ -184,40 +200,14 @@ public class KubernetesScheduler implements SchedulerHandler {
             .endVolumeMount()
             .build();
 
-        String sendOutputs = "curl -X POST -F 'outputs=@outputs.zip' ";
-        sendOutputs += url + "/" + runSecret + "/outputs.zip";
-        String zipOutputs = "cd " + task.getOutputFolder() + and + "zip -0 -r outputs.zip .";
-        String wait = "export TOKEN=$(cat /var/run/secrets/kubernetes.io/serviceaccount/token); ";
-        wait += "while ! curl -vk -H \"Authorization: Bearer $TOKEN\" ";
-        wait +=
-            "https://${KUBERNETES_SERVICE_HOST}:${KUBERNETES_SERVICE_PORT_HTTPS}/api/v1/namespaces/" + tasksNamespace
-                + "/pods/${POD_NAME}/status ";
-        wait += "| jq '.status | .containerStatuses[] | select(.name == \"task\") | .state ";
-        wait += "| keys[0]' | grep -q -F \"terminated\"; do sleep 2; done";
-
-        String clusterOutputCommand = wait + and + zipOutputs + and + sendOutputs;
-        String updateAPIRequestJson = " '{ \"desired\" : \"FINISHED\" }' ";
-        String requestToUpdateRunStateToFinished = "curl -X POST -H 'Content-Type: application/json' -d";
-        requestToUpdateRunStateToFinished += updateAPIRequestJson;
-        requestToUpdateRunStateToFinished += url + "/" + "state-actions";
-        String localOutputCommand = wait + and + requestToUpdateRunStateToFinished;
-
-        String command = "";
-        if (runMode.equalsIgnoreCase("local")) {
-            command = localOutputCommand;
-        }
-        if (runMode.equalsIgnoreCase("cluster")) {
-            command = clusterOutputCommand;
-        }
-
-        Container outputContainer = new ContainerBuilder().withName("outputs-sending")
+        // holds the outputs volume once the task is done, until the outputs are collected and the pod deleted
+        String holdOutputs = "trap 'exit 0' TERM INT; sleep " + outputsRetention + " & wait";
+        Container outputContainer = new ContainerBuilder().withName("outputs")
             .withImage(taskRunnerImage)
             .withImagePullPolicy("IfNotPresent")
-            .withCommand("/bin/sh", "-c", command)
+            .withCommand("/bin/sh", "-c", holdOutputs)
             .withResources(helperContainersResources)
             .addNewVolumeMount().withName("outputs").withMountPath(task.getOutputFolder()).endVolumeMount()
-            .withEnv(new EnvVarBuilder().withName("POD_NAME").withNewValueFrom().withNewFieldRef()
-                .withFieldPath("metadata.name").endFieldRef().endValueFrom().build())
             .build();
 
         String permissions = "chmod -R 777 " + task.getInputFolder() + " " + task.getOutputFolder();
@@ -230,7 +220,7 @@ public class KubernetesScheduler implements SchedulerHandler {
 
         boolean isClusterMode = this.runMode.equalsIgnoreCase("cluster");
         // Defining the pod image to run
-        String podName = task.getName().toLowerCase().replaceAll("[^a-zA-Z0-9]", "") + "-" + runId;
+        String podName = getPodName(run);
         String imageName = registryAdvertisedUrl + "/" + task.getImageName();
 
         PodBuilder podBuilder = new PodBuilder().withNewMetadata().withName(podName).withNamespace(tasksNamespace)
@@ -272,9 +262,14 @@ public class KubernetesScheduler implements SchedulerHandler {
                 .addNewVolumeMount().withName("outputs").withMountPath(task.getOutputFolder()).endVolumeMount()
                 .build();
 
-        // Add taskContainer unconditionally
-        containers.add(taskContainer);
-        containers.add(outputContainer);
+        // On the cluster, the task runs as the last init container so that the outputs container only starts once
+        // the outputs are complete. Locally, the outputs are written directly in the storage of the app engine.
+        if (isClusterMode) {
+            initContainers.add(taskContainer);
+            containers.add(outputContainer);
+        } else {
+            containers.add(taskContainer);
+        }
 
         // Add inputs and outputs volumes conditionally
         volumes.add(new VolumeBuilder().withName("inputs")
@@ -298,9 +293,7 @@ public class KubernetesScheduler implements SchedulerHandler {
             throw new SchedulingException("Task Pod failed to be scheduled on the cluster");
         }
 
-        run.setState(TaskRunState.QUEUED);
-        runRepository.saveAndFlush(run);
-        log.info("Schedule: Task Pod queued for execution on the cluster");
+        log.info("Schedule: Task Pod submitted to the cluster");
 
         return schedule;
     }
@@ -325,14 +318,28 @@ public class KubernetesScheduler implements SchedulerHandler {
         }
 
         log.info("Monitor: add informer to the cluster");
+        PodInformer podInformer = new PodInformer(runRepository, eventPublisher);
         kubernetesClient.pods().inNamespace(tasksNamespace).inform(podInformer).run();
         log.info("Monitor: informer added");
     }
 
     @Override
     public void deleteRun(Run run) throws SchedulingException {
-        String taskName = run.getTask().getName().toLowerCase().replaceAll("[^a-zA-Z0-9]", "");
-        String podName = taskName + "-" + run.getId();
+        deletePod(run);
+
+        try {
+            Files.deleteIfExists(getLogFile(run));
+        } catch (IOException e) {
+            String errorMessage = String.format("Failed to delete logs of run '%s': %s", run.getId(), e.getMessage());
+            throw new SchedulingException(errorMessage);
+        }
+    }
+
+    /**
+     * Delete the pod of a run, its logs must be archived first to remain readable
+     */
+    public void deletePod(Run run) throws SchedulingException {
+        String podName = getPodName(run);
 
         log.info("Deleting pod '{}' for run '{}'", podName, run.getId());
 
@@ -348,6 +355,69 @@ public class KubernetesScheduler implements SchedulerHandler {
         }
     }
 
+    public String getPodName(Run run) {
+        return run.getTask().getName().toLowerCase().replaceAll("[^a-zA-Z0-9]", "") + "-" + run.getId();
+    }
+
+    /**
+     * Stream the outputs of a terminated task from the outputs container of its pod to the storage
+     *
+     * @return the CRC32 checksums of the collected files, by path relative to the destination,
+     *     computed while the files are written
+     */
+    public Map<String, Long> collectOutputs(Run run, Path destination) throws SchedulingException {
+        String podName = getPodName(run);
+        String archiveOutputs = "cd " + run.getTask().getOutputFolder() + " && tar -cf - .";
+
+        log.info("Collect Outputs: streaming outputs of pod '{}'", podName);
+        Map<String, Long> checksums = new HashMap<>();
+        long storedBytes = 0;
+        try (ExecWatch watch = kubernetesClient.pods()
+                .inNamespace(tasksNamespace)
+                .withName(podName)
+                .inContainer("outputs")
+                .redirectingOutput()
+                .exec("/bin/sh", "-c", archiveOutputs);
+             TarArchiveInputStream archive = new TarArchiveInputStream(watch.getOutput())) {
+            TarArchiveEntry entry;
+            while ((entry = archive.getNextTarEntry()) != null) {
+                Path target = destination.resolve(entry.getName()).normalize();
+                if (!target.startsWith(destination)) {
+                    throw new SchedulingException("Invalid output entry " + entry.getName());
+                }
+                if (entry.isDirectory()) {
+                    Files.createDirectories(target);
+                } else {
+                    Files.createDirectories(target.getParent());
+                    CheckedInputStream checkedInputStream = new CheckedInputStream(archive, new CRC32());
+                    storedBytes += Files.copy(checkedInputStream, target, StandardCopyOption.REPLACE_EXISTING);
+                    checksums.put(
+                        destination.relativize(target).toString(),
+                        checkedInputStream.getChecksum().getValue()
+                    );
+                }
+            }
+
+            Integer exitCode = watch.exitCode().get();
+            if (Objects.nonNull(exitCode) && exitCode != 0) {
+                throw new SchedulingException("Failed to archive the outputs of pod '" + podName + "'");
+            }
+        } catch (IOException | KubernetesClientException | ExecutionException e) {
+            log.error("Failed to collect outputs of pod '{}'", podName, e);
+            throw new SchedulingException("Failed to collect outputs of pod '" + podName + "': " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SchedulingException("Interrupted while collecting outputs of pod '" + podName + "'");
+        }
+        log.info(
+            "Collect Outputs: outputs of pod '{}' collected ({} files, {} bytes)",
+            podName,
+            checksums.size(),
+            storedBytes
+        );
+        return checksums;
+    }
+
     public String convertBracketsToPath(String input) {
         if (input == null || input.isEmpty()) {
             return "";
@@ -358,10 +428,41 @@ public class KubernetesScheduler implements SchedulerHandler {
         return temp.substring(1, temp.length() - 1);
     }
 
+    /**
+     * Copy the logs of the task container to the storage, so that they remain readable once the pod is deleted
+     */
+    public void archiveRunLogs(Run run) throws SchedulingException {
+        String logs = getPodLogs(run);
+        try {
+            Files.writeString(getLogFile(run), Objects.requireNonNullElse(logs, ""));
+        } catch (IOException e) {
+            String errorMessage = String.format("Failed to archive logs of run '%s': %s", run.getId(), e.getMessage());
+            throw new SchedulingException(errorMessage);
+        }
+    }
+
     @Override
     public String getRunLogs(Run run) throws SchedulingException {
-        String taskName = run.getTask().getName().toLowerCase().replaceAll("[^a-zA-Z0-9]", "");
-        String podName = taskName + "-" + run.getId();
+        Path logFile = getLogFile(run);
+        if (!Files.exists(logFile)) {
+            return getPodLogs(run);
+        }
+
+        try {
+            return Files.readString(logFile);
+        } catch (IOException e) {
+            log.error("Failed to get archived logs for run '{}'", run.getId(), e);
+            String errorMessage = String.format("Failed to get logs for run '%s': %s", run.getId(), e.getMessage());
+            throw new SchedulingException(errorMessage);
+        }
+    }
+
+    private Path getLogFile(Run run) {
+        return Paths.get(storageBasePath, "task-run-logs-" + run.getId() + ".log");
+    }
+
+    private String getPodLogs(Run run) throws SchedulingException {
+        String podName = getPodName(run);
 
         try {
             return kubernetesClient.pods()
@@ -0,0 +1,259 @@
+package be.cytomine.appengine.handlers.scheduler.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import be.cytomine.appengine.dto.handlers.scheduler.CollectionSymlink;
+import be.cytomine.appengine.dto.handlers.scheduler.RunCompletedEvent;
+import be.cytomine.appengine.dto.handlers.scheduler.Schedule;
+import be.cytomine.appengine.dto.handlers.scheduler.Symlink;
+import be.cytomine.appengine.exceptions.SchedulingException;
+import be.cytomine.appengine.handlers.SchedulerHandler;
+import be.cytomine.appengine.models.task.Run;
+import be.cytomine.appengine.models.task.Task;
+import be.cytomine.appengine.repositories.RunRepository;
+import be.cytomine.appengine.services.TaskProvisioningService;
+import be.cytomine.appengine.states.TaskRunState;
+
+/**
+ * Execute the runs as processes of the app engine host, on a bounded pool of workers.
+ * The process works directly in the input and output storages of the run, without the helper containers of the
+ * cluster, and the run goes through the same states as on the cluster.
+ * The command is configured with the placeholders {image}, {inputs}, {outputs}, {input_folder}, {output_folder},
+ * {cpus} and {run}, e.g. to run the task image with a container runtime or to run a local executable.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "scheduler.impl", havingValue = "process")
+public class LocalProcessScheduler implements SchedulerHandler {
+
+    private final RunRepository runRepository;
+
+    private final ObjectProvider<TaskProvisioningService> taskProvisioningService;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${storage.base-path}")
+    private String storageBasePath;
+
+    @Value("${scheduler.datasets-path}")
+    private String imagesDatasetsPath;
+
+    @Value("${scheduler.registry-advertised-url}")
+    private String registryAdvertisedUrl;
+
+    @Value("${scheduler.process.workers}")
+    private int workers;
+
+    @Value("${scheduler.process.command}")
+    private String command;
+
+    private final Map<UUID, Process> processes = new ConcurrentHashMap<>();
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void start() {
+        int threads = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+        executor = Executors.newFixedThreadPool(threads);
+        log.info("Local Process Scheduler: {} workers", threads);
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+        processes.values().forEach(Process::destroy);
+    }
+
+    @Override
+    public Schedule schedule(Schedule schedule) throws SchedulingException {
+        Run run = schedule.getRun();
+        Task task = run.getTask();
+        Path inputs = Paths.get(storageBasePath, "task-run-inputs-" + run.getId());
+        Path outputs = Paths.get(storageBasePath, "task-run-outputs-" + run.getId());
+
+        log.info("Schedule: create symlinks of the referenced inputs...");
+        try {
+            createSymlinks(inputs, schedule.getLinks());
+        } catch (IOException e) {
+            log.error("Schedule: failed to create the symlinks of run {} [{}]", run.getId(), e.getMessage());
+            throw new SchedulingException("Task process failed to be scheduled");
+        }
+
+        ProcessBuilder processBuilder = new ProcessBuilder(buildCommand(task, run.getId(), inputs, outputs))
+            .directory(outputs.toFile())
+            .redirectErrorStream(true)
+            .redirectOutput(getLogFile(run.getId()));
+        processBuilder.environment().put("INPUT_FOLDER", inputs.toString());
+        processBuilder.environment().put("OUTPUT_FOLDER", outputs.toString());
+
+        UUID runId = run.getId();
+        executor.execute(() -> execute(runId, processBuilder));
+        log.info("Schedule: Task process submitted to the workers");
+
+        return schedule;
+    }
+
+    private void execute(UUID runId, ProcessBuilder processBuilder) {
+        boolean succeeded;
+        try {
+            Process process = processBuilder.start();
+            processes.put(runId, process);
+            log.info("Execute: run {} started", runId);
+            succeeded = process.waitFor() == 0;
+        } catch (IOException e) {
+            log.error("Execute: run {} failed to start [{}]", runId, e.getMessage());
+            succeeded = false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            succeeded = false;
+        } finally {
+            processes.remove(runId);
+        }
+
+        try {
+            if (succeeded) {
+                // same transition as the outputs sent by the task on the cluster
+                taskProvisioningService.getObject().finishRun(runId);
+            }
+        } catch (Exception e) {
+            log.error("Execute: run {} failed to finish [{}]", runId, e.getMessage());
+            succeeded = false;
+        }
+
+        // a run left QUEUING would hold its share of the queue forever
+        if (!succeeded) {
+            runRepository.findById(runId)
+                .filter(run -> run.getState().equals(TaskRunState.QUEUING))
+                .ifPresent(run -> {
+                    run.setState(TaskRunState.FAILED);
+                    runRepository.saveAndFlush(run);
+                });
+        }
+        log.info("Execute: run {} ended", runId);
+
+        eventPublisher.publishEvent(new RunCompletedEvent(runId));
+    }
+
+    private List<String> buildCommand(Task task, UUID runId, Path inputs, Path outputs) {
+        List<String> arguments = new ArrayList<>();
+        for (String argument : command.trim().split("\\s+")) {
+            arguments.add(argument
+                .replace("{image}", registryAdvertisedUrl + "/" + task.getImageName())
+                .replace("{inputs}", inputs.toString())
+                .replace("{outputs}", outputs.toString())
+                .replace("{input_folder}", task.getInputFolder())
+                .replace("{output_folder}", task.getOutputFolder())
+                .replace("{cpus}", Integer.toString(task.getCpus()))
+                .replace("{run}", runId.toString()));
+        }
+        return arguments;
+    }
+
+    private void createSymlinks(Path inputs, List<Symlink> links) throws IOException {
+        if (Objects.isNull(links)) {
+            return;
+        }
+        for (Symlink link : links) {
+            if (link instanceof CollectionSymlink collectionSymlink) {
+                Path collection = inputs.resolve(collectionSymlink.getParameterName());
+                Files.createDirectories(collection);
+                for (Map.Entry<String, String> entry : collectionSymlink.getSymlinks().entrySet()) {
+                    Path item = collection.resolve(convertBracketsToPath(entry.getKey()));
+                    Files.createDirectories(item.getParent());
+                    Files.deleteIfExists(item);
+                    Files.createSymbolicLink(item, toHostPath(entry.getValue()));
+                }
+                Files.writeString(
+                    collection.resolve("array.yml"),
+                    "size: " + collectionSymlink.getSymlinks().size() + "\n"
+                );
+            }
+        }
+    }
+
+    /**
+     * The references point to the datasets as mounted in the task containers
+     */
+    private Path toHostPath(String reference) {
+        if (reference.startsWith("/datasets/")) {
+            return Paths.get(imagesDatasetsPath, reference.substring("/datasets/".length()));
+        }
+        return Paths.get(reference);
+    }
+
+    private static String convertBracketsToPath(String input) {
+        if (input == null || input.isEmpty()) {
+            return "";
+        }
+        String path = input.replace("][", "/");
+        return path.substring(1, path.length() - 1);
+    }
+
+    private File getLogFile(UUID runId) {
+        return Paths.get(storageBasePath, "task-run-logs-" + runId + ".log").toFile();
+    }
+
+    @Override
+    public void alive() throws SchedulingException {
+        log.info("Alive: check if the scheduler is up and running");
+
+        if (executor.isShutdown()) {
+            throw new SchedulingException("Scheduler is not alive");
+        }
+    }
+
+    @Override
+    public void monitor() throws SchedulingException {
+        log.info("Monitor: processes are monitored by the workers");
+    }
+
+    @Override
+    public void deleteRun(Run run) throws SchedulingException {
+        Process process = processes.remove(run.getId());
+        if (Objects.nonNull(process)) {
+            log.info("Deleting process of run '{}'", run.getId());
+            process.destroyForcibly();
+        }
+
+        try {
+            Files.deleteIfExists(getLogFile(run.getId()).toPath());
+        } catch (IOException e) {
+            String errorMessage = String.format("Failed to delete logs of run '%s': %s", run.getId(), e.getMessage());
+            throw new SchedulingException(errorMessage);
+        }
+    }
+
+    @Override
+    public String getRunLogs(Run run) throws SchedulingException {
+        try {
+            return Files.readString(getLogFile(run.getId()).toPath());
+        } catch (IOException e) {
+            log.error("Failed to get process logs for run '{}'", run.getId(), e);
+            String errorMessage = String.format("Failed to get logs for run '%s': %s", run.getId(), e.getMessage());
+            throw new SchedulingException(errorMessage);
+        }
+    }
+}
@@ -1,18 +1,25 @@
 package be.cytomine.appengine.handlers.scheduler.impl.utils;
 
-import java.util.HashMap;
+import java.time.Instant;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Stream;
 
+import io.fabric8.kubernetes.api.model.ContainerState;
+import io.fabric8.kubernetes.api.model.ContainerStateTerminated;
+import io.fabric8.kubernetes.api.model.ContainerStatus;
 import io.fabric8.kubernetes.api.model.Pod;
 import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
 import jakarta.persistence.OptimisticLockException;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 
+import be.cytomine.appengine.dto.handlers.scheduler.RunCompletedEvent;
+import be.cytomine.appengine.dto.handlers.scheduler.RunTerminatedEvent;
 import be.cytomine.appengine.models.task.Run;
 import be.cytomine.appengine.repositories.RunRepository;
 import be.cytomine.appengine.states.TaskRunState;
@@ -21,21 +28,19 @@ import be.cytomine.appengine.states.TaskRunState;
 @AllArgsConstructor
 public class PodInformer implements ResourceEventHandler<Pod> {
 
-    private static final Map<String, TaskRunState> STATUS =
-        new HashMap<>() {
-            {
-                put("Running", TaskRunState.RUNNING);
-                put("Succeeded", TaskRunState.FINISHED);
-                put("Failed", TaskRunState.FAILED);
-                put("Unknown", TaskRunState.FAILED);
-            }
-        };
+    private static final String OUTPUTS_CONTAINER = "outputs";
+
+    private static final Set<String> FAILED_PHASES = Set.of("Failed", "Unknown");
+
+    private static final Set<String> TERMINATED_PHASES = Set.of("Succeeded", "Failed", "Unknown");
 
     private static final Set<TaskRunState> FINAL_STATES =
         Set.of(TaskRunState.FAILED, TaskRunState.FINISHED);
 
     private final RunRepository runRepository;
 
+    private final ApplicationEventPublisher eventPublisher;
+
     private Run getRun(Pod pod) {
         Map<String, String> labels = pod.getMetadata().getLabels();
 
@@ -61,6 +66,10 @@ public class PodInformer implements ResourceEventHandler<Pod> {
                 }
 
                 if (run.getState().equals(TaskRunState.QUEUING)) {
+                    // the task terminated while the app engine was not watching
+                    if (isCompletable(pod)) {
+                        publishTermination(run, getTaskTermination(pod));
+                    }
                     return;
                 }
 
@@ -97,17 +106,23 @@ public class PodInformer implements ResourceEventHandler<Pod> {
                     return;
                 }
 
-                boolean isFinalState = FINAL_STATES.contains(run.getState());
-                boolean isPending = newPod.getStatus().getPhase().equals("Pending");
-                boolean isRunning = newPod.getStatus().getPhase().equals("Running");
-                if (isFinalState || isPending || isRunning) {
-                    return;
+                // the task is done, the run is finished centrally once its outputs can be collected
+                if (!isCompletable(oldPod) && isCompletable(newPod)) {
+                    publishTermination(run, getTaskTermination(newPod));
                 }
 
-                run.setState(
-                    STATUS.getOrDefault(newPod.getStatus().getPhase(), TaskRunState.FAILED));
-                run = runRepository.saveAndFlush(run);
-                log.info("Pod Informer: update Run {} to {}", run.getId(), run.getState());
+                String phase = newPod.getStatus().getPhase();
+                if (FAILED_PHASES.contains(phase) && !FINAL_STATES.contains(run.getState())) {
+                    run.setState(TaskRunState.FAILED);
+                    run = runRepository.saveAndFlush(run);
+                    log.info("Pod Informer: update Run {} to {}", run.getId(), run.getState());
+                }
+
+                // the pod is terminated, its resources can be given to the queued runs
+                boolean phaseChanged = !Objects.equals(oldPod.getStatus().getPhase(), phase);
+                if (TERMINATED_PHASES.contains(phase) && phaseChanged) {
+                    eventPublisher.publishEvent(new RunCompletedEvent(run.getId()));
+                }
                 return;
             } catch (OptimisticLockException ex) {
                 attempts++;
@@ -127,8 +142,73 @@ public class PodInformer implements ResourceEventHandler<Pod> {
         throw new IllegalStateException("Failed to update run after retries");
     }
 
+    private void publishTermination(Run run, ContainerStateTerminated terminated) {
+        if (Objects.isNull(terminated)) {
+            return;
+        }
+        Instant terminatedAt = Objects.isNull(terminated.getFinishedAt())
+            ? Instant.now()
+            : Instant.parse(terminated.getFinishedAt());
+        boolean succeeded = Objects.equals(terminated.getExitCode(), 0);
+        eventPublisher.publishEvent(new RunTerminatedEvent(run.getId(), succeeded, terminatedAt));
+    }
+
+    /**
+     * A run can be completed once its task terminated and, when it succeeded on the cluster,
+     * once the outputs container holding its outputs is running
+     */
+    private boolean isCompletable(Pod pod) {
+        ContainerStateTerminated terminated = getTaskTermination(pod);
+        if (Objects.isNull(terminated)) {
+            return false;
+        }
+        if (!Objects.equals(terminated.getExitCode(), 0)) {
+            return true;
+        }
+
+        boolean hasOutputsContainer = pod.getSpec()
+            .getContainers()
+            .stream()
+            .anyMatch(container -> container.getName().equals(OUTPUTS_CONTAINER));
+        if (!hasOutputsContainer) {
+            return true;
+        }
+        return pod.getStatus()
+            .getContainerStatuses()
+            .stream()
+            .filter(status -> status.getName().equals(OUTPUTS_CONTAINER))
+            .map(ContainerStatus::getState)
+            .filter(Objects::nonNull)
+            .anyMatch(state -> Objects.nonNull(state.getRunning()));
+    }
+
+    /**
+     * @return the terminated state of the task container, null if it is not terminated
+     */
+    private ContainerStateTerminated getTaskTermination(Pod pod) {
+        if (Objects.isNull(pod.getStatus())) {
+            return null;
+        }
+        return Stream.concat(
+                pod.getStatus().getInitContainerStatuses().stream(),
+                pod.getStatus().getContainerStatuses().stream()
+            )
+            .filter(status -> status.getName().equals("task"))
+            .map(ContainerStatus::getState)
+            .filter(Objects::nonNull)
+            .map(ContainerState::getTerminated)
+            .filter(Objects::nonNull)
+            .findFirst()
+            .orElse(null);
+    }
+
     @Override
     public void onDelete(Pod pod, boolean deletedFinalStateUnknown) {
         log.info("Pod Informer: Pod deleted");
+        // the resources of the run are released, even if it was deleted before completing
+        String runId = pod.getMetadata().getLabels().get("runId");
+        if (Objects.nonNull(runId)) {
+            eventPublisher.publishEvent(new RunCompletedEvent(UUID.fromString(runId)));
+        }
     }
 }
@@ -0,0 +1,160 @@
+package be.cytomine.appengine.handlers.scheduler.impl.utils;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import be.cytomine.appengine.dto.handlers.scheduler.RunCompletedEvent;
+import be.cytomine.appengine.dto.handlers.scheduler.RunTerminatedEvent;
+import be.cytomine.appengine.exceptions.ProvisioningException;
+import be.cytomine.appengine.handlers.scheduler.impl.KubernetesScheduler;
+import be.cytomine.appengine.models.task.Run;
+import be.cytomine.appengine.repositories.RunRepository;
+import be.cytomine.appengine.services.TaskProvisioningService;
+import be.cytomine.appengine.states.TaskRunState;
+
+/**
+ * Finish the runs whose task terminated, as reported by the pod informer.
+ * On the cluster, the outputs are first streamed from the pod to the storage,
+ * then the logs of the task are archived in the storage and the pod is deleted.
+ * The time between the end of the task and the end of the run is recorded as the completion latency.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Component
+@ConditionalOnProperty(name = "scheduler.impl", havingValue = "default", matchIfMissing = true)
+public class RunCompletionHandler {
+
+    private final RunRepository runRepository;
+
+    private final KubernetesScheduler kubernetesScheduler;
+
+    private final ObjectProvider<TaskProvisioningService> taskProvisioningService;
+
+    private final MeterRegistry meterRegistry;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${scheduler.run.mode}")
+    private String runMode;
+
+    @Value("${storage.base-path}")
+    private String storageBasePath;
+
+    @Value("${scheduler.completion-workers}")
+    private int completionWorkers;
+
+    private final Set<UUID> completing = ConcurrentHashMap.newKeySet();
+
+    private ExecutorService executor;
+
+    private Timer completionLatency;
+
+    @PostConstruct
+    public void start() {
+        executor = Executors.newFixedThreadPool(completionWorkers);
+        completionLatency = Timer.builder("appengine.run.completion.latency")
+            .description("Time from the end of the task to the end of the run, outputs processing included")
+            .tag("mode", runMode)
+            .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * The informer must not be blocked, the outputs are processed by the completion workers
+     */
+    @EventListener
+    public void onRunTerminated(RunTerminatedEvent event) {
+        if (completing.add(event.runId())) {
+            executor.execute(() -> {
+                try {
+                    complete(event);
+                } finally {
+                    completing.remove(event.runId());
+                }
+            });
+        }
+    }
+
+    private void complete(RunTerminatedEvent event) {
+        Run run = runRepository.findById(event.runId()).orElse(null);
+        if (Objects.isNull(run) || !run.getState().equals(TaskRunState.QUEUING)) {
+            return;
+        }
+
+        boolean isClusterMode = runMode.equalsIgnoreCase("cluster");
+        try {
+            if (!event.succeeded()) {
+                log.info("Completion: task of run {} failed", run.getId());
+                run.setState(TaskRunState.FAILED);
+                runRepository.saveAndFlush(run);
+                return;
+            }
+
+            Map<String, Long> checksums = Map.of();
+            if (isClusterMode) {
+                Path outputs = Paths.get(storageBasePath, "task-run-outputs-" + run.getId());
+                checksums = kubernetesScheduler.collectOutputs(run, outputs);
+            }
+
+            taskProvisioningService.getObject().finishRun(run.getId(), checksums);
+            log.info("Completion: run {} finished", run.getId());
+        } catch (Exception e) {
+            if (e instanceof ProvisioningException) {
+                log.info("Completion: outputs of run {} are invalid [{}]", run.getId(), e.getMessage());
+            } else {
+                log.error("Completion: run {} failed to complete [{}]", run.getId(), e.getMessage());
+            }
+            // the pod is deleted, a run left QUEUING would hold its share of the queue forever
+            runRepository.findById(run.getId())
+                .filter(current -> current.getState().equals(TaskRunState.QUEUING))
+                .ifPresent(current -> {
+                    current.setState(TaskRunState.FAILED);
+                    runRepository.saveAndFlush(current);
+                });
+        } finally {
+            completionLatency.record(Duration.between(event.terminatedAt(), Instant.now()));
+            if (isClusterMode) {
+                archiveLogsAndDeletePod(run);
+            }
+            eventPublisher.publishEvent(new RunCompletedEvent(run.getId()));
+        }
+    }
+
+    /**
+     * The pod is only deleted once the logs of its task are archived, otherwise it is kept until the run is deleted
+     */
+    private void archiveLogsAndDeletePod(Run run) {
+        try {
+            kubernetesScheduler.archiveRunLogs(run);
+            kubernetesScheduler.deletePod(run);
+        } catch (Exception e) {
+            log.warn("Completion: pod of run {} could not be deleted [{}]", run.getId(), e.getMessage());
+        }
+    }
+}
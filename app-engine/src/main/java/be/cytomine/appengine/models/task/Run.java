@@ -42,6 +42,12 @@ public class Run extends BaseEntity {
 
     private String secret;
 
+    private Long projectId;
+
+    private Long userId;
+
+    private LocalDateTime queuedAt;
+
     @ManyToOne
     private Task task;
 
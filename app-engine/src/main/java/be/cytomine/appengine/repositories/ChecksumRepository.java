@@ -1,5 +1,7 @@
 package be.cytomine.appengine.repositories;
 
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -9,5 +11,7 @@ import be.cytomine.appengine.models.task.Checksum;
 
 @Repository
 public interface ChecksumRepository extends JpaRepository<Checksum, UUID> {
-    Checksum findByReference(String reference);
+    Optional<Checksum> findFirstByReferenceOrderByCreatedDateDesc(String reference);
+
+    List<Checksum> findByReferenceStartingWithOrderByCreatedDate(String prefix);
 }
@@ -1,15 +1,25 @@
 package be.cytomine.appengine.repositories;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import be.cytomine.appengine.dto.handlers.scheduler.RunDemand;
 import be.cytomine.appengine.models.task.Run;
 import be.cytomine.appengine.models.task.Task;
+import be.cytomine.appengine.states.TaskRunState;
 
 @Repository
 public interface RunRepository extends JpaRepository<Run, UUID> {
     List<Run> findAllByTask(Task task);
+
+    @Query("SELECT new be.cytomine.appengine.dto.handlers.scheduler.RunDemand("
+        + "r.id, r.projectId, r.userId, r.queuedAt, t.cpus, t.ram, t.gpus) "
+        + "FROM Run r JOIN r.task t WHERE r.state IN :states ORDER BY r.queuedAt")
+    List<RunDemand> findDemandsByStateIn(@Param("states") Collection<TaskRunState> states);
 }
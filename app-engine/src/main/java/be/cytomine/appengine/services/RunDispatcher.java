@@ -0,0 +1,115 @@
+package be.cytomine.appengine.services;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import be.cytomine.appengine.dto.handlers.scheduler.RunCompletedEvent;
+import be.cytomine.appengine.dto.handlers.scheduler.Schedule;
+import be.cytomine.appengine.exceptions.SchedulingException;
+import be.cytomine.appengine.handlers.SchedulerHandler;
+import be.cytomine.appengine.states.TaskRunState;
+
+/**
+ * Hand the runs admitted by the queue to the scheduler.
+ * A dispatch is triggered when a run is queued and when a run completes, the periodic dispatch only catches up with
+ * the completions that were missed (e.g. while the app engine was down).
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Component
+public class RunDispatcher {
+
+    private final RunQueueService runQueueService;
+
+    private final SchedulerHandler schedulerHandler;
+
+    @Value("${scheduler.queue.dispatch-interval}")
+    private long dispatchInterval;
+
+    private final AtomicBoolean dispatchRequested = new AtomicBoolean();
+
+    private ScheduledExecutorService executor;
+
+    @PostConstruct
+    public void start() {
+        executor = Executors.newSingleThreadScheduledExecutor();
+        if (dispatchInterval > 0) {
+            executor.scheduleWithFixedDelay(
+                this::dispatchSafely,
+                dispatchInterval,
+                dispatchInterval,
+                TimeUnit.MILLISECONDS
+            );
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    @EventListener
+    public void onRunCompleted(RunCompletedEvent event) {
+        log.info("Dispatcher: run {} completed", event.runId());
+        requestDispatch();
+    }
+
+    /**
+     * Dispatch in the background, the requests received while a dispatch is waiting are merged into it
+     */
+    public void requestDispatch() {
+        if (dispatchRequested.compareAndSet(false, true)) {
+            executor.execute(() -> {
+                dispatchRequested.set(false);
+                dispatchSafely();
+            });
+        }
+    }
+
+    /**
+     * Schedule the admitted runs
+     *
+     * @return the state of the runs that were admitted
+     */
+    public synchronized Map<UUID, TaskRunState> dispatch() {
+        Map<UUID, TaskRunState> dispatched = new HashMap<>();
+        for (UUID runId : runQueueService.selectAdmissions()) {
+            Schedule schedule = runQueueService.admit(runId);
+            if (Objects.isNull(schedule)) {
+                continue;
+            }
+
+            try {
+                schedulerHandler.schedule(schedule);
+                dispatched.put(runId, TaskRunState.QUEUING);
+            } catch (SchedulingException e) {
+                log.error("Dispatcher: run {} failed to be scheduled [{}]", runId, e.getMessage());
+                runQueueService.fail(runId);
+                dispatched.put(runId, TaskRunState.FAILED);
+            }
+        }
+        return dispatched;
+    }
+
+    private void dispatchSafely() {
+        try {
+            dispatch();
+        } catch (Exception e) {
+            log.error("Dispatcher: dispatch failed [{}]", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package be.cytomine.appengine.services;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+
+import io.fabric8.kubernetes.api.model.Quantity;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import be.cytomine.appengine.dto.handlers.scheduler.CollectionSymlink;
+import be.cytomine.appengine.dto.handlers.scheduler.RunDemand;
+import be.cytomine.appengine.dto.handlers.scheduler.Schedule;
+import be.cytomine.appengine.dto.handlers.scheduler.Symlink;
+import be.cytomine.appengine.models.task.Parameter;
+import be.cytomine.appengine.models.task.ParameterType;
+import be.cytomine.appengine.models.task.Run;
+import be.cytomine.appengine.models.task.TypePersistence;
+import be.cytomine.appengine.models.task.collection.CollectionPersistence;
+import be.cytomine.appengine.models.task.collection.CollectionType;
+import be.cytomine.appengine.models.task.collection.ReferencePersistence;
+import be.cytomine.appengine.repositories.RunRepository;
+import be.cytomine.appengine.repositories.collection.CollectionPersistenceRepository;
+import be.cytomine.appengine.states.TaskRunState;
+
+/**
+ * Queue of the runs waiting for resources in the QUEUED state.
+ * A queued run is admitted when the resources declared by its task fit in the configured capacity and the limits of
+ * its project and user. The runs of the projects, then of the users, using the smallest dominant share of the
+ * capacity are admitted first, so that a user launching many runs cannot starve the others.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Service
+public class RunQueueService {
+
+    static final Set<TaskRunState> ACTIVE_STATES =
+        Set.of(TaskRunState.QUEUING, TaskRunState.PENDING, TaskRunState.RUNNING);
+
+    private final RunRepository runRepository;
+
+    private final CollectionPersistenceRepository collectionPersistenceRepository;
+
+    @Value("${scheduler.queue.capacity.cpus}")
+    private int capacityCpus;
+
+    @Value("${scheduler.queue.capacity.ram}")
+    private String capacityRam;
+
+    @Value("${scheduler.queue.capacity.gpus}")
+    private int capacityGpus;
+
+    @Value("${scheduler.queue.max-runs-per-project}")
+    private int maxRunsPerProject;
+
+    @Value("${scheduler.queue.max-runs-per-user}")
+    private int maxRunsPerUser;
+
+    /**
+     * Select the queued runs to admit, in admission order
+     */
+    public List<UUID> selectAdmissions() {
+        return selectAdmissions(
+            runRepository.findDemandsByStateIn(ACTIVE_STATES),
+            runRepository.findDemandsByStateIn(Set.of(TaskRunState.QUEUED))
+        );
+    }
+
+    List<UUID> selectAdmissions(List<RunDemand> active, List<RunDemand> queued) {
+        Resources capacity = new Resources(capacityCpus, toBytes(capacityRam), capacityGpus);
+        Resources used = new Resources();
+        Map<Long, Resources> usedByProject = new HashMap<>();
+        Map<Long, Resources> usedByUser = new HashMap<>();
+        for (RunDemand demand : active) {
+            charge(demand, used, usedByProject, usedByUser);
+        }
+
+        Comparator<RunDemand> fairShare = Comparator
+            .comparingDouble((RunDemand demand) -> usage(usedByProject, demand.projectId()).share(capacity))
+            .thenComparingDouble(demand -> usage(usedByUser, demand.userId()).share(capacity))
+            .thenComparing(RunDemand::queuedAt, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+        List<UUID> admitted = new ArrayList<>();
+        List<RunDemand> candidates = new ArrayList<>(queued);
+        while (!candidates.isEmpty()) {
+            RunDemand next = candidates.stream().min(fairShare).get();
+            candidates.remove(next);
+
+            // a run that does not fit is skipped so that smaller runs can use the remaining capacity
+            if (fits(next, capacity, used, usedByProject, usedByUser)) {
+                charge(next, used, usedByProject, usedByUser);
+                admitted.add(next.runId());
+            }
+        }
+
+        if (!admitted.isEmpty()) {
+            log.info("Run Queue: {} of {} queued runs admitted", admitted.size(), queued.size());
+        }
+        return admitted;
+    }
+
+    /**
+     * Move an admitted run to QUEUING and build its schedule
+     *
+     * @return null if the run is no longer queued
+     */
+    @Transactional
+    public Schedule admit(UUID runId) {
+        Run run = runRepository.findById(runId).orElse(null);
+        if (Objects.isNull(run) || !run.getState().equals(TaskRunState.QUEUED)) {
+            return null;
+        }
+
+        Schedule schedule = new Schedule();
+        schedule.setRun(run);
+        schedule.setLinks(buildLinks(run));
+
+        run.setState(TaskRunState.QUEUING);
+        runRepository.saveAndFlush(run);
+        log.info("Run Queue: run {} admitted", runId);
+
+        return schedule;
+    }
+
+    @Transactional
+    public void fail(UUID runId) {
+        runRepository.findById(runId).ifPresent(run -> {
+            run.setState(TaskRunState.FAILED);
+            runRepository.saveAndFlush(run);
+        });
+    }
+
+    /**
+     * Symlinks of the inputs passed as a reference
+     */
+    private List<Symlink> buildLinks(Run run) {
+        List<Symlink> links = new ArrayList<>();
+        for (Parameter parameter : run.getTask().getParameters()) {
+            if (!parameter.getParameterType().equals(ParameterType.INPUT)) {
+                continue;
+            }
+            // todo: handle file and image refs
+            if (parameter.getType() instanceof CollectionType) {
+                // if referenced, fetch the paths from the database
+                CollectionPersistence collectionPersistence = collectionPersistenceRepository
+                    .findCollectionPersistenceByParameterNameAndRunId(parameter.getName(), run.getId());
+                if (collectionPersistence.isReferenced()) {
+                    CollectionSymlink collectionSymlink = new CollectionSymlink();
+                    collectionSymlink.setParameterName(parameter.getName());
+                    collectionSymlink.setSymlinks(new HashMap<>());
+                    for (TypePersistence ref : collectionPersistence.getItems()) {
+                        ReferencePersistence referencePersistence = (ReferencePersistence) ref;
+                        collectionSymlink
+                            .getSymlinks()
+                            .put(referencePersistence.getCollectionIndex(), referencePersistence.getValue());
+                    }
+                    links.add(collectionSymlink);
+                }
+            }
+        }
+        return links;
+    }
+
+    private boolean fits(
+        RunDemand demand,
+        Resources capacity,
+        Resources used,
+        Map<Long, Resources> usedByProject,
+        Map<Long, Resources> usedByUser
+    ) {
+        // a run larger than the capacity is admitted alone rather than waiting forever
+        if (used.runs == 0) {
+            return true;
+        }
+        if (maxRunsPerProject > 0 && usage(usedByProject, demand.projectId()).runs >= maxRunsPerProject) {
+            return false;
+        }
+        if (maxRunsPerUser > 0 && usage(usedByUser, demand.userId()).runs >= maxRunsPerUser) {
+            return false;
+        }
+        return capacity.admits(used, demand.cpus(), toBytes(demand.ram()), demand.gpus());
+    }
+
+    private void charge(
+        RunDemand demand,
+        Resources used,
+        Map<Long, Resources> usedByProject,
+        Map<Long, Resources> usedByUser
+    ) {
+        long ram = toBytes(demand.ram());
+        used.add(demand.cpus(), ram, demand.gpus());
+        usedByProject.computeIfAbsent(demand.projectId(), id -> new Resources()).add(demand.cpus(), ram, demand.gpus());
+        usedByUser.computeIfAbsent(demand.userId(), id -> new Resources()).add(demand.cpus(), ram, demand.gpus());
+    }
+
+    private static Resources usage(Map<Long, Resources> usage, Long owner) {
+        return usage.getOrDefault(owner, Resources.NONE);
+    }
+
+    private static long toBytes(String quantity) {
+        if (Objects.isNull(quantity) || quantity.isBlank()) {
+            return 0;
+        }
+        try {
+            return Quantity.getAmountInBytes(new Quantity(quantity)).longValue();
+        } catch (IllegalArgumentException | ArithmeticException e) {
+            log.warn("Run Queue: invalid ram quantity '{}'", quantity);
+            return 0;
+        }
+    }
+
+    /**
+     * Resources in use, a capacity of 0 stands for an unlimited resource
+     */
+    private static class Resources {
+
+        static final Resources NONE = new Resources();
+
+        private int runs;
+
+        private long cpus;
+
+        private long ram;
+
+        private long gpus;
+
+        Resources() {}
+
+        Resources(long cpus, long ram, long gpus) {
+            this.cpus = cpus;
+            this.ram = ram;
+            this.gpus = gpus;
+        }
+
+        void add(long cpus, long ram, long gpus) {
+            this.runs++;
+            this.cpus += cpus;
+            this.ram += ram;
+            this.gpus += gpus;
+        }
+
+        boolean admits(Resources used, long cpus, long ram, long gpus) {
+            return (this.cpus == 0 || used.cpus + cpus <= this.cpus)
+                && (this.ram == 0 || used.ram + ram <= this.ram)
+                && (this.gpus == 0 || used.gpus + gpus <= this.gpus);
+        }
+
+        /**
+         * Largest fraction of a limited resource of the capacity, the number of runs when nothing is limited
+         */
+        double share(Resources capacity) {
+            double share = 0;
+            boolean limited = false;
+            if (capacity.cpus > 0) {
+                share = Math.max(share, (double) cpus / capacity.cpus);
+                limited = true;
+            }
+            if (capacity.ram > 0) {
+                share = Math.max(share, (double) ram / capacity.ram);
+                limited = true;
+            }
+            if (capacity.gpus > 0) {
+                share = Math.max(share, (double) gpus / capacity.gpus);
+                limited = true;
+            }
+            return limited ? share : runs;
+        }
+    }
+}
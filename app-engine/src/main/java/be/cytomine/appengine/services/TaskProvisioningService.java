@@ -6,27 +6,31 @@ import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
 import java.util.UUID;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
@@ -40,6 +44,7 @@ import jakarta.validation.constraints.NotNull;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
 import org.apache.commons.compress.archivers.zip.ZipArchiveInputStream;
 import org.apache.commons.fileupload2.core.DiskFileItem;
 import org.apache.commons.fileupload2.core.DiskFileItemFactory;
@@ -52,9 +57,6 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import be.cytomine.appengine.dto.handlers.filestorage.Storage;
-import be.cytomine.appengine.dto.handlers.scheduler.CollectionSymlink;
-import be.cytomine.appengine.dto.handlers.scheduler.Schedule;
-import be.cytomine.appengine.dto.handlers.scheduler.Symlink;
 import be.cytomine.appengine.dto.inputs.task.GenericParameterCollectionItemProvision;
 import be.cytomine.appengine.dto.inputs.task.GenericParameterProvision;
 import be.cytomine.appengine.dto.inputs.task.Resource;
@@ -71,7 +73,6 @@ import be.cytomine.appengine.exceptions.FileStorageException;
 import be.cytomine.appengine.exceptions.ProvisioningException;
 import be.cytomine.appengine.exceptions.SchedulingException;
 import be.cytomine.appengine.exceptions.TypeValidationException;
-import be.cytomine.appengine.handlers.SchedulerHandler;
 import be.cytomine.appengine.handlers.StorageData;
 import be.cytomine.appengine.handlers.StorageDataEntry;
 import be.cytomine.appengine.handlers.StorageDataType;
@@ -87,15 +88,13 @@ import be.cytomine.appengine.models.task.Type;
 import be.cytomine.appengine.models.task.TypePersistence;
 import be.cytomine.appengine.models.task.collection.CollectionPersistence;
 import be.cytomine.appengine.models.task.collection.CollectionType;
-import be.cytomine.appengine.models.task.collection.ReferencePersistence;
-import be.cytomine.appengine.models.task.file.FileType;
-import be.cytomine.appengine.models.task.image.ImageType;
 import be.cytomine.appengine.repositories.ChecksumRepository;
 import be.cytomine.appengine.repositories.RunRepository;
 import be.cytomine.appengine.repositories.TypePersistenceRepository;
 import be.cytomine.appengine.repositories.collection.CollectionPersistenceRepository;
 import be.cytomine.appengine.states.TaskRunState;
 import be.cytomine.appengine.utils.FileHelper;
+import be.cytomine.appengine.utils.StoredZipArchive;
 
 @Slf4j
 @RequiredArgsConstructor
@@ -111,7 +110,7 @@ public class TaskProvisioningService {
 
     private final StorageHandler fileStorageHandler;
 
-    private final SchedulerHandler schedulerHandler;
+    private final RunDispatcher runDispatcher;
 
     private final TaskService taskService;
 
@@ -465,10 +464,13 @@ public class TaskProvisioningService {
         return type;
     }
 
-    public void retrieveIOZipArchive(
+    /**
+     * Lay out the archive of the inputs or outputs of a run, without reading the files.
+     * The checksums of the files are fetched at once, so the archive can be served with its length and by ranges.
+     */
+    public StoredZipArchive prepareIOZipArchive(
         String runId,
-        ParameterType type,
-        OutputStream outputStream
+        ParameterType type
     ) throws ProvisioningException, FileStorageException, IOException {
         log.info("Retrieving IO Archive: retrieving...");
         Run run = getRunIfValid(runId);
@@ -488,10 +490,12 @@ public class TaskProvisioningService {
             throw new ProvisioningException(error);
         }
 
-        log.info("Retrieving IO Archive: zipping...");
-
         String io = type.equals(ParameterType.INPUT) ? "inputs" : "outputs";
-        ZipOutputStream zipOut = new ZipOutputStream(outputStream);
+        String storageId = "task-run-" + io + "-" + run.getId();
+        Map<String, Long> checksums = getChecksumsCRC32(storageId);
+
+        log.info("Retrieving IO Archive: zipping...");
+        StoredZipArchive archive = new StoredZipArchive();
         for (TypePersistence provision : provisions) {
             // check that this type persistence is actually associated with a parameter
             Parameter parameter = getParameter(provision.getParameterName(), provision.getParameterType(), run);
@@ -499,45 +503,63 @@ public class TaskProvisioningService {
                 continue;
             }
             StorageData provisionFileData = fileStorageHandler.readStorageData(
-                new StorageData(provision.getParameterName(), "task-run-" + io + "-" + run.getId())
+                new StorageData(provision.getParameterName(), storageId)
             );
 
             for (StorageDataEntry current : provisionFileData.getEntryList()) {
-                String entryName;
-                if (current.getStorageDataType().equals(StorageDataType.FILE)) {
-                    entryName = current.getName();
-                } else {
-                    entryName = current.getName() + "/";
+                if (!current.getStorageDataType().equals(StorageDataType.FILE)) {
+                    continue;
                 }
 
-                if (current.getStorageDataType().equals(StorageDataType.FILE)) {
-                    ZipEntry zipEntry = new ZipEntry(entryName);
-                    zipEntry.setMethod(ZipEntry.STORED);
-                    zipEntry.setSize(current.getData().length());
-                    zipEntry.setCompressedSize(current.getData().length());
-                    zipEntry.setCrc(getChecksumCRC32("task-run-" + io + "-" + run.getId(), current.getName()));
-                    zipOut.putNextEntry(zipEntry);
-                    Files.copy(current.getData().toPath(), zipOut);
+                Long checksum = checksums.get(current.getName());
+                if (Objects.isNull(checksum)) {
+                    log.info("Retrieving IO Archive: no checksum stored for {}, calculating...", current.getName());
+                    checksum = calculateFileCRC32(current.getData());
                 }
-
-                zipOut.closeEntry();
+                archive.addFile(current.getName(), current.getData(), checksum);
             }
-
         }
-        zipOut.close();
+        archive.finish();
 
-        log.info("Retrieving IO Archive: zipped...");
+        return archive;
+    }
+
+    /**
+     * @return the checksums of the files of a storage, by file name
+     */
+    private Map<String, Long> getChecksumsCRC32(String identifier) {
+        Map<String, Long> checksums = new HashMap<>();
+        findChecksums(identifier).forEach((name, checksum) -> checksums.put(name, checksum.getChecksumCRC32()));
+        return checksums;
+    }
+
+    /**
+     * @return the checksums of the files of a storage, by file name, the newest one if a file has several
+     */
+    private Map<String, Checksum> findChecksums(String identifier) {
+        String prefix = identifier + "-";
+        Map<String, Checksum> checksums = new HashMap<>();
+        for (Checksum checksum : checksumRepository.findByReferenceStartingWithOrderByCreatedDate(prefix)) {
+            checksums.put(checksum.getReference().substring(prefix.length()), checksum);
+        }
+        return checksums;
     }
 
     public long getChecksumCRC32(String identifier, String name) {
         String reference = identifier + "-" + name;
-        Checksum crc32 = checksumRepository.findByReference(reference);
-        return crc32.getChecksumCRC32();
+        return checksumRepository.findFirstByReferenceOrderByCreatedDateDesc(reference)
+            .map(Checksum::getChecksumCRC32)
+            .orElseThrow();
     }
 
+    /**
+     * Save the checksum of a file, the checksum of a file provisioned again is updated
+     */
     public void setChecksumCRC32(String identifier, long checksumCRC32, String name) {
         String reference = identifier + "-" + name;
-        Checksum crc32 = new Checksum(UUID.randomUUID(), reference, checksumCRC32);
+        Checksum crc32 = checksumRepository.findFirstByReferenceOrderByCreatedDateDesc(reference)
+            .orElseGet(() -> new Checksum(UUID.randomUUID(), reference, checksumCRC32));
+        crc32.setChecksumCRC32(checksumCRC32);
         checksumRepository.save(crc32);
     }
 
@@ -584,79 +606,36 @@ public class TaskProvisioningService {
         Set<Parameter> runTaskOutputs,
         Run run
     ) throws IOException, ProvisioningException {
-        // read files from the archive
+        Path outputsPath = Paths.get(basePath, "task-run-outputs-" + run.getId()).toAbsolutePath().normalize();
+        Map<String, Parameter> outputsByName = runTaskOutputs
+            .stream()
+            .collect(Collectors.toMap(Parameter::getName, Function.identity()));
+        // the entries of each output, sorted by name so that a directory comes before its contents
+        Map<String, SortedMap<String, StorageDataEntry>> entriesByOutput = new HashMap<>();
+        // the checksums of outputs posted again are updated
+        Map<String, Checksum> existingChecksums = findChecksums("task-run-outputs-" + run.getId());
+        Map<String, Checksum> checksums = new HashMap<>();
+        long storedBytes = 0;
+
+        // read files from the archive, in a single pass
         try (ZipArchiveInputStream zais = new ZipArchiveInputStream(outputsInputStream)) {
             log.info("Posting Outputs Archive: unzipped");
-            List<Parameter> remainingOutputs = new ArrayList<>(runTaskOutputs);
             List<TaskRunParameterValue> taskRunParameterValues = new ArrayList<>();
-            List<StorageData> contentsOfZip = new ArrayList<>();
-            List<Parameter> remainingUnStoredOutputs = new ArrayList<>(runTaskOutputs);
-            boolean remainingOutputsAreCollections = true;
-            ZipEntry ze;
+            ZipArchiveEntry ze;
             while ((ze = zais.getNextZipEntry()) != null) {
-                // look for output matching file name
-                Parameter currentOutput = null;
-                for (int i = 0; i < remainingOutputs.size(); i++) {
-                    currentOutput = remainingOutputs.get(i);
-                    if (currentOutput.getName().equals(ze.getName())) { // assuming it's a file
-                        remainingOutputs.remove(i);
-                        StorageData parameterZipEntryStorageData;
-                        String outputName = currentOutput.getName();
-                        Path filePath = Path.of(basePath, "/", "task-run-outputs-" + run.getId(), outputName);
-                        log.info("Posting Outputs Archive: storing {} in storage...", currentOutput);
-                        Files.createDirectories(filePath.getParent());
-                        Files.copy(zais, filePath, StandardCopyOption.REPLACE_EXISTING);
-                        log.info("Posting Outputs Archive: stored ");
-                        parameterZipEntryStorageData = new StorageData(filePath.toFile(), outputName);
-                        // calculate CRC32 for all storage data entry and save it in the database
-                        log.info("Posting Outputs Archive: calculating CRC32 checksum for zip entry {}", ze.getName());
-                        calculateCRC32Checksum(run, contentsOfZip, parameterZipEntryStorageData);
-                        break;
-                    }
-                    // assuming it's the main directory of a collection parameter
-                    if (ze.getName().startsWith(currentOutput.getName() + "/")) {
-                        StorageData partialParameterZipEntryStorageData;
-                        if (ze.isDirectory()) {
-                            partialParameterZipEntryStorageData = new StorageData(ze.getName());
-                            contentsOfZip.add(partialParameterZipEntryStorageData);
-                            log.info("Posting Outputs Archive: creating directory {} in storage...", ze.getName());
-                            Path directoryPath = Path.of(
-                                basePath,
-                                "/",
-                                "task-run-outputs-" + run.getId(), ze.getName());
-                            log.info("Posting Outputs Archive: created");
-                            Files.createDirectories(directoryPath);
-                        } else {
-                            Path filePath = Path.of(
-                                basePath,
-                                "/",
-                                "task-run-outputs-" + run.getId(),
-                                ze
-                                .getName()
-                                .replace("/", ""));
-                            Files.createDirectories(filePath);
-                            log.info("Posting Outputs Archive: storing {} in storage...", ze.getName());
-                            Files.copy(zais, filePath, StandardCopyOption.REPLACE_EXISTING);
-                            log.info("Posting Outputs Archive: stored ");
-                            partialParameterZipEntryStorageData = new StorageData(
-                                filePath.toFile(),
-                                ze.getName());
-                            log.info("Posting Outputs Archive: "
-                                + "calculating CRC32 checksum for zip entry {}",
-                                ze.getName());
-                            calculateCRC32Checksum(
-                                run,
-                                contentsOfZip,
-                                partialParameterZipEntryStorageData);
-                        }
-                        break;
-                    }
-
-                    currentOutput = null;
-                }
+                // the output is named by the first segment of the entry, the rest is a collection structure
+                String entryName = ze.getName();
+                int separatorIndex = entryName.indexOf('/');
+                boolean isOutputFile = separatorIndex < 0;
+                String outputName = isOutputFile ? entryName : entryName.substring(0, separatorIndex);
+                Parameter currentOutput = outputsByName.get(outputName);
+                SortedMap<String, StorageDataEntry> outputEntries = entriesByOutput.get(outputName);
+                Path entryPath = outputsPath.resolve(entryName).normalize();
 
                 // there's a file that does not match any output parameter
-                if (currentOutput == null) {
+                if (currentOutput == null
+                    || (isOutputFile && outputEntries != null && outputEntries.containsKey(entryName))
+                    || !entryPath.startsWith(outputsPath)) {
                     AppEngineError error = ErrorBuilder.build(ErrorCode.INTERNAL_UNKNOWN_OUTPUT);
                     log.info("Posting Outputs Archive: output invalid (unknown output)");
                     run.setState(TaskRunState.FAILED);
@@ -664,17 +643,49 @@ public class TaskProvisioningService {
                     log.info("Posting Outputs Archive: updated Run state to FAILED");
                     throw new ProvisioningException(error);
                 }
+
+                if (outputEntries == null) {
+                    outputEntries = new TreeMap<>();
+                    entriesByOutput.put(outputName, outputEntries);
+                }
+
+                if (ze.isDirectory()) {
+                    log.debug("Posting Outputs Archive: creating directory {} in storage...", entryName);
+                    Files.createDirectories(entryPath);
+                    outputEntries.put(entryName, new StorageDataEntry(entryName));
+                    continue;
+                }
+
+                // the checksum is computed while the entry is written to the storage
+                log.debug("Posting Outputs Archive: storing {} in storage...", entryName);
+                Files.createDirectories(entryPath.getParent());
+                CheckedInputStream checkedInputStream = new CheckedInputStream(zais, new CRC32());
+                storedBytes += Files.copy(checkedInputStream, entryPath, StandardCopyOption.REPLACE_EXISTING);
+                Checksum checksum = existingChecksums.getOrDefault(
+                    entryName,
+                    new Checksum(UUID.randomUUID(), "task-run-outputs-" + run.getId() + "-" + entryName, 0)
+                );
+                checksum.setChecksumCRC32(checkedInputStream.getChecksum().getValue());
+                checksums.put(entryName, checksum);
+                outputEntries.put(
+                    entryName,
+                    new StorageDataEntry(entryPath.toFile(), entryName, StorageDataType.FILE)
+                );
             }
+            log.info(
+                "Posting Outputs Archive: stored {} files ({} bytes)",
+                checksums.size(),
+                storedBytes
+            );
+            checksumRepository.saveAll(new ArrayList<>(checksums.values()));
 
-            // check if remaining outputs are all collections
-            int numberOfCollections = remainingOutputs
+            // the outputs that are not collections must be in the archive as files
+            boolean someOutputsAreMissing = runTaskOutputs
                 .stream()
-                .filter(parameter -> parameter.getType() instanceof CollectionType)
-                .toList()
-                .size();
-            remainingOutputsAreCollections = numberOfCollections > 0 && numberOfCollections == remainingOutputs.size();
-
-            if (!remainingOutputs.isEmpty() && !remainingOutputsAreCollections) {
+                .filter(parameter -> !(parameter.getType() instanceof CollectionType))
+                .anyMatch(parameter -> !entriesByOutput.containsKey(parameter.getName())
+                    || !entriesByOutput.get(parameter.getName()).containsKey(parameter.getName()));
+            if (someOutputsAreMissing) {
                 AppEngineError error = ErrorBuilder.build(ErrorCode.INTERNAL_MISSING_OUTPUTS);
                 log.info("Posting Outputs Archive: output invalid (missing outputs)");
                 run.setState(TaskRunState.FAILED);
@@ -683,51 +694,15 @@ public class TaskProvisioningService {
                 throw new ProvisioningException(error);
             }
 
-            // a compaction step
-            // order by the length of name
-            // to make sure deeper files and directories are merged first
-            contentsOfZip = contentsOfZip
-                .stream()
-                .sorted((s1, s2) -> Integer.compare(
-                    s2.peek().getName().length(),
-                    s1.peek().getName().length())
-                )
-                .toList(); // now immutable
-            List<StorageData> sortedContentsOfZip = new CopyOnWriteArrayList<>(contentsOfZip);
-            // merge StorageData objects together
-            for (StorageData storageData : sortedContentsOfZip) {
-                for (StorageData compared : sortedContentsOfZip) {
-                    if (storageData.equals(compared)) {
-                        continue;
-                    }
-                    if (compared
-                        .peek()
-                        .getName()
-                        .startsWith(storageData.peek().getName())) {
-                        storageData.merge(compared);
-                        sortedContentsOfZip.remove(compared);
-                    }
-                }
-            }
-
             // prepare an error list just in case
             List<AppEngineError> multipleErrors = new ArrayList<>();
 
             // processing of files
-            for (Parameter currentOutput : remainingUnStoredOutputs) {
-                Optional<StorageData> currentOutputStorageDataOptional = sortedContentsOfZip
-                    .stream()
-                    .filter(s -> s
-                    .peek()
-                    .getName()
-                    .equals(
-                    currentOutput.getType() instanceof CollectionType
-                    ? currentOutput.getName() + "/" : currentOutput.getName()))
-                    .findFirst();
-                StorageData currentOutputStorageData = null;
-                if (currentOutputStorageDataOptional.isPresent()) {
-                    currentOutputStorageData = currentOutputStorageDataOptional.get();
-                }
+            for (Parameter currentOutput : runTaskOutputs) {
+                StorageData currentOutputStorageData = buildOutputStorageData(
+                    currentOutput,
+                    entriesByOutput.get(currentOutput.getName())
+                );
                 // read the file
                 String outputName = currentOutput.getName();
                 // validate files/directories contents and structure
@@ -788,21 +763,21 @@ public class TaskProvisioningService {
         }
     }
 
-    private void calculateCRC32Checksum(
-        Run run,
-        List<StorageData> contentsOfZip,
-        StorageData partialParameterZipEntryStorageData
-    ) throws ProvisioningException {
-        for (StorageDataEntry current : partialParameterZipEntryStorageData.getEntryList()) {
-            try {
-                setChecksumCRC32("task-run-outputs-" + run.getId(),
-                    calculateFileCRC32(current.getData()), current.getName());
-            } catch (IOException e) {
-                AppEngineError error = ErrorBuilder.build(ErrorCode.INTERNAL_CRC32_CALC_FAILED);
-                throw new ProvisioningException(error);
-            }
+    /**
+     * The storage data of an output is rooted at the output file, or at the main directory of a collection
+     */
+    private static StorageData buildOutputStorageData(
+        Parameter output,
+        SortedMap<String, StorageDataEntry> outputEntries
+    ) {
+        String rootName = output.getType() instanceof CollectionType ? output.getName() + "/" : output.getName();
+        if (Objects.isNull(outputEntries) || !outputEntries.containsKey(rootName)) {
+            return null;
         }
-        contentsOfZip.add(partialParameterZipEntryStorageData);
+
+        StorageData storageData = new StorageData();
+        outputEntries.values().forEach(storageData::add);
+        return storageData;
     }
 
     private void validateFiles(
@@ -1058,11 +1033,34 @@ public class TaskProvisioningService {
         return switch (state.desired()) {
             case PROVISIONED -> updateToProvisioned(run);
             case RUNNING -> run(run);
-            case FINISHED -> updateToFinished(run);
+            case FINISHED -> updateToFinished(run, Map.of());
             default -> throw new ProvisioningException(ErrorBuilder.build(ErrorCode.UNKNOWN_STATE));
         };
     }
 
+    /**
+     * Finish a run executed by the scheduler itself, as if the task had requested the FINISHED state
+     */
+    @Transactional
+    public StateAction finishRun(UUID runId)
+        throws SchedulingException, ProvisioningException, FileStorageException {
+        return finishRun(runId, Map.of());
+    }
+
+    /**
+     * Finish a run executed by the scheduler itself, whose outputs were collected with their checksums
+     *
+     * @param collectedChecksums the CRC32 checksums of the output files, by file name,
+     *     the files without one are read again to compute it
+     */
+    @Transactional
+    public StateAction finishRun(UUID runId, Map<String, Long> collectedChecksums)
+        throws SchedulingException, ProvisioningException, FileStorageException {
+        log.info("Finish Run: validating Run...");
+        Run run = getRunIfValid(runId.toString());
+        return updateToFinished(run, collectedChecksums);
+    }
+
     private StateAction createStateAction(Run run, TaskRunState state) {
         TaskDescription description = taskService.makeTaskDescription(run.getTask());
         Resource resource = new Resource(
@@ -1095,61 +1093,14 @@ public class TaskProvisioningService {
 
         checkBeforeExecutionMatches(run);
 
-        log.info("Running Task: contacting scheduler...");
-        Schedule schedule = new Schedule();
-        schedule.setRun(run);
-        // todo : set the symlinks for any collection or item passed as a reference
-        // list all outputs of the task
-        Set<Parameter> inputs = run
-            .getTask()
-            .getParameters()
-            .stream()
-            .filter(parameter -> parameter.getParameterType().equals(ParameterType.INPUT))
-            .collect(Collectors.toSet());
-
-        // loop input parameters
-        List<Symlink> links = new ArrayList<>();
-        for (Parameter parameter : inputs) {
-            if (parameter.getType() instanceof CollectionType) {
-                // if referenced, fetch the paths from the database
-                CollectionPersistence collectionPersistence = collectionPersistenceRepository
-                    .findCollectionPersistenceByParameterNameAndRunId(parameter.getName(), run.getId());
-                if (collectionPersistence.isReferenced()) {
-                    CollectionSymlink collectionSymlink = new CollectionSymlink();
-                    collectionSymlink.setParameterName(parameter.getName());
-                    collectionSymlink.setSymlinks(new HashMap<>());
-                    for (TypePersistence ref : collectionPersistence.getItems()) {
-                        ReferencePersistence referencePersistence = (ReferencePersistence) ref;
-                        collectionSymlink
-                            .getSymlinks()
-                            .put(
-                            referencePersistence.getCollectionIndex(),
-                            referencePersistence.getValue()
-                            );
-
-                    }
-                    links.add(collectionSymlink);
-                }
-            }
-            if (parameter.getType() instanceof FileType fileType) {
-                // todo: handle file refs
-
-            }
-            if (parameter.getType() instanceof ImageType imageType) {
-                // todo: handle image refs
-            }
-        }
-
-        // populate schedule object
-        schedule.setLinks(links);
-        schedulerHandler.schedule(schedule);
-        log.info("Running Task: scheduling done");
-
-        run.setState(TaskRunState.QUEUING);
+        log.info("Running Task: queuing...");
+        run.setState(TaskRunState.QUEUED);
+        run.setQueuedAt(LocalDateTime.now());
         runRepository.saveAndFlush(run);
-        log.info("Running Task: updated Run state to QUEUING");
+        TaskRunState state = runDispatcher.dispatch().getOrDefault(run.getId(), TaskRunState.QUEUED);
+        log.info("Running Task: Run state is {}", state);
 
-        StateAction action = createStateAction(run, TaskRunState.QUEUING);
+        StateAction action = createStateAction(run, state);
         log.info("Running Task: scheduled");
 
         return action;
@@ -1260,7 +1211,8 @@ public class TaskProvisioningService {
         return createStateAction(run, TaskRunState.PROVISIONED);
     }
 
-    private StateAction updateToFinished(Run run) throws ProvisioningException, FileStorageException {
+    private StateAction updateToFinished(Run run, Map<String, Long> collectedChecksums)
+        throws ProvisioningException, FileStorageException {
         log.info("Provisioning: processing outputs...");
         if (!run.getState().equals(TaskRunState.QUEUING)) {
             AppEngineError error = ErrorBuilder.build(ErrorCode.INTERNAL_INVALID_TASK_RUN_STATE);
@@ -1273,11 +1225,15 @@ public class TaskProvisioningService {
             .filter(parameter -> parameter.getParameterType().equals(ParameterType.OUTPUT))
             .collect(Collectors.toSet());
 
+        String storageId = "task-run-outputs-" + run.getId();
+        Map<String, Checksum> existingChecksums = findChecksums(storageId);
+        List<Checksum> checksums = new ArrayList<>();
+
         log.info("Provisioning: reading outputs...");
         List<AppEngineError> multipleErrors = new ArrayList<>();
         for (Parameter parameter : outputs) {
             StorageData provisionFileData = fileStorageHandler.readStorageData(
-                new StorageData(parameter.getName(), "task-run-outputs-" + run.getId())
+                new StorageData(parameter.getName(), storageId)
             );
             if (provisionFileData == null || provisionFileData.getEntryList().isEmpty()) {
                 if (!parameter.isOptional()) {
@@ -1304,16 +1260,24 @@ public class TaskProvisioningService {
 
             log.info("Provisioning: calculating CRC32 checksum for zip entry {}", parameter.getName());
             for (StorageDataEntry current : provisionFileData.getEntryList()) {
-                try {
-                    setChecksumCRC32(
-                        "task-run-outputs-" + run.getId(),
-                        calculateFileCRC32(current.getData()), current.getName());
-                } catch (IOException e) {
-                    AppEngineError error = ErrorBuilder.build(ErrorCode.INTERNAL_CRC32_CALC_FAILED);
-                    throw new ProvisioningException(error);
+                Long crc32 = collectedChecksums.get(current.getName());
+                if (Objects.isNull(crc32)) {
+                    try {
+                        crc32 = calculateFileCRC32(current.getData());
+                    } catch (IOException e) {
+                        AppEngineError error = ErrorBuilder.build(ErrorCode.INTERNAL_CRC32_CALC_FAILED);
+                        throw new ProvisioningException(error);
+                    }
                 }
+                Checksum checksum = existingChecksums.getOrDefault(
+                    current.getName(),
+                    new Checksum(UUID.randomUUID(), storageId + "-" + current.getName(), 0)
+                );
+                checksum.setChecksumCRC32(crc32);
+                checksums.add(checksum);
             }
         }
+        checksumRepository.saveAll(checksums);
 
         multipleErrors.addAll(checkAfterExecutionMatches(run));
 
@@ -1463,12 +1427,7 @@ public class TaskProvisioningService {
             Files.writeString(arrayYmlPath, newContent, Charset.defaultCharset());
             // update CRC32 checksum for it
             long updatedChecksum = calculateFileCRC32(arrayYmlPath.toFile());
-            Checksum checksum = checksumRepository.findByReference(
-                runStorage.id()
-                + "-"
-                + arrayYmlFilePath);
-            checksum.setChecksumCRC32(updatedChecksum);
-            checksumRepository.saveAndFlush(checksum);
+            setChecksumCRC32(runStorage.id(), updatedChecksum, arrayYmlFilePath);
         } else {
             // create the array.yml metadata file
             log.info("provisioning collection item streaming: creating collection array.yml...");
@@ -644,8 +644,16 @@ public class TaskService {
         return Optional.ofNullable(task);
     }
 
+    public TaskRun createRunForTask(String namespace, String version) throws RunTaskServiceException {
+        return createRunForTask(namespace, version, null, null);
+    }
+
+    /**
+     * @param projectId the project the run is accounted to when sharing the resources, may be null
+     * @param userId the user the run is accounted to when sharing the resources, may be null
+     */
     @Transactional
-    public TaskRun createRunForTask(String namespace, String version)
+    public TaskRun createRunForTask(String namespace, String version, Long projectId, Long userId)
         throws RunTaskServiceException {
         log.info("tasks/{namespace}/{version}/runs: creating run...");
         // find associated task
@@ -670,6 +678,8 @@ public class TaskService {
         log.info("tasks/{namespace}/{version}/runs: retrieved task...");
         Run run = new Run(taskRunID, TaskRunState.CREATED, task, LocalDateTime.now());
         run.setSecret(String.valueOf(UUID.randomUUID()));
+        run.setProjectId(projectId);
+        run.setUserId(userId);
         runRepository.saveAndFlush(run);
         // create a storage for the inputs and outputs
         createRunStorages(taskRunID);
@@ -678,8 +688,12 @@ public class TaskService {
         return new TaskRun(taskRunID, makeTaskDescription(task), TaskRunState.CREATED);
     }
 
-    @Transactional
     public TaskRun createRunForTask(String taskId) throws RunTaskServiceException {
+        return createRunForTask(taskId, null, null);
+    }
+
+    @Transactional
+    public TaskRun createRunForTask(String taskId, Long projectId, Long userId) throws RunTaskServiceException {
         log.info("tasks/{id}/runs : creating run...");
         // find associated task
         log.info("tasks/{namespace}/{version}/runs : retrieving associated task...");
@@ -701,6 +715,8 @@ public class TaskService {
         log.info("tasks/{namespace}/{version}/runs : retrieved task...");
         Run run = new Run(taskRunID, TaskRunState.CREATED, task.get(), LocalDateTime.now());
         run.setSecret(String.valueOf(UUID.randomUUID()));
+        run.setProjectId(projectId);
+        run.setUserId(userId);
         runRepository.saveAndFlush(run);
         // create a storage for the inputs and outputs
         createRunStorages(taskRunID);
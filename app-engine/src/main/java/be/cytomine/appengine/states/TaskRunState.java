@@ -4,7 +4,7 @@ public enum TaskRunState {
     CREATED,     // created but not all inputs provisioned
     PROVISIONED, // ready to be executed, all inputs have been provisioned
     QUEUING,     // submitting the task to the execution environment
-    QUEUED,      // evaluated successfully by execution environment
+    QUEUED,      // waiting in the run queue for the resources declared by the task
     RUNNING,     // task running in the execution environment
     FAILED,      // an error occurred and stopped the process of executing the task (terminal state)
     PENDING,     // pending execution on the execution environment
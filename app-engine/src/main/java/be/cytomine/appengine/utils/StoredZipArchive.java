@@ -0,0 +1,279 @@
+package be.cytomine.appengine.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * A zip archive of stored (uncompressed) files whose layout is computed before any byte is written.
+ * The headers and the central directory are built from the known sizes and checksums of the files,
+ * so the length of the archive is known up front and any range of it can be written on its own.
+ * The contents of the files are transferred from the storage with {@link FileChannel#transferTo}.
+ * The zip64 extensions are used when the sizes, offsets or number of entries require them.
+ */
+public class StoredZipArchive {
+
+    private static final long MAX_32 = 0xFFFFFFFFL;
+
+    private static final int MAX_16 = 0xFFFF;
+
+    private static final int UTF8_FLAG = 1 << 11;
+
+    private final List<Part> parts = new ArrayList<>();
+
+    private final List<Entry> entries = new ArrayList<>();
+
+    private long length;
+
+    private boolean finished;
+
+    /**
+     * Add a file to the archive
+     *
+     * @param name the name of the entry in the archive
+     * @param file the file in the storage
+     * @param crc32 the CRC32 checksum of the contents of the file
+     */
+    public void addFile(String name, File file, long crc32) {
+        if (finished) {
+            throw new IllegalStateException("archive is already finished");
+        }
+
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        Entry entry = new Entry(nameBytes, file.length(), crc32, length, toDosTime(file.lastModified()));
+        entries.add(entry);
+
+        boolean zip64 = entry.size() >= MAX_32;
+        ByteBuffer header = allocate(30 + nameBytes.length + (zip64 ? 20 : 0));
+        header.putInt(0x04034b50);
+        header.putShort((short) (zip64 ? 45 : 10));
+        header.putShort((short) UTF8_FLAG);
+        header.putShort((short) 0); // stored
+        header.putInt((int) entry.dosTime());
+        header.putInt((int) entry.crc32());
+        header.putInt((int) (zip64 ? MAX_32 : entry.size()));
+        header.putInt((int) (zip64 ? MAX_32 : entry.size()));
+        header.putShort((short) nameBytes.length);
+        header.putShort((short) (zip64 ? 20 : 0));
+        header.put(nameBytes);
+        if (zip64) {
+            header.putShort((short) 0x0001);
+            header.putShort((short) 16);
+            header.putLong(entry.size());
+            header.putLong(entry.size());
+        }
+
+        addPart(new Part(header.array(), null, length, header.capacity()));
+        addPart(new Part(null, file, length, entry.size()));
+    }
+
+    /**
+     * Build the central directory, no entry can be added afterwards
+     */
+    public void finish() {
+        if (finished) {
+            return;
+        }
+        finished = true;
+
+        long centralDirectoryOffset = length;
+        for (Entry entry : entries) {
+            boolean zip64Size = entry.size() >= MAX_32;
+            boolean zip64Offset = entry.offset() >= MAX_32;
+            int extraLength = (zip64Size || zip64Offset) ? 4 + (zip64Size ? 16 : 0) + (zip64Offset ? 8 : 0) : 0;
+
+            ByteBuffer header = allocate(46 + entry.name().length + extraLength);
+            header.putInt(0x02014b50);
+            header.putShort((short) 45);
+            header.putShort((short) (extraLength > 0 ? 45 : 10));
+            header.putShort((short) UTF8_FLAG);
+            header.putShort((short) 0); // stored
+            header.putInt((int) entry.dosTime());
+            header.putInt((int) entry.crc32());
+            header.putInt((int) (zip64Size ? MAX_32 : entry.size()));
+            header.putInt((int) (zip64Size ? MAX_32 : entry.size()));
+            header.putShort((short) entry.name().length);
+            header.putShort((short) extraLength);
+            header.putShort((short) 0); // comment
+            header.putShort((short) 0); // disk
+            header.putShort((short) 0); // internal attributes
+            header.putInt(0); // external attributes
+            header.putInt((int) (zip64Offset ? MAX_32 : entry.offset()));
+            header.put(entry.name());
+            if (extraLength > 0) {
+                header.putShort((short) 0x0001);
+                header.putShort((short) (extraLength - 4));
+                if (zip64Size) {
+                    header.putLong(entry.size());
+                    header.putLong(entry.size());
+                }
+                if (zip64Offset) {
+                    header.putLong(entry.offset());
+                }
+            }
+            addPart(new Part(header.array(), null, length, header.capacity()));
+        }
+        long centralDirectorySize = length - centralDirectoryOffset;
+
+        boolean zip64 = entries.size() >= MAX_16
+            || centralDirectorySize >= MAX_32
+            || centralDirectoryOffset >= MAX_32;
+        ByteBuffer end = allocate((zip64 ? 56 + 20 : 0) + 22);
+        if (zip64) {
+            long zip64EndOffset = length;
+            end.putInt(0x06064b50);
+            end.putLong(44);
+            end.putShort((short) 45);
+            end.putShort((short) 45);
+            end.putInt(0);
+            end.putInt(0);
+            end.putLong(entries.size());
+            end.putLong(entries.size());
+            end.putLong(centralDirectorySize);
+            end.putLong(centralDirectoryOffset);
+
+            end.putInt(0x07064b50);
+            end.putInt(0);
+            end.putLong(zip64EndOffset);
+            end.putInt(1);
+        }
+        end.putInt(0x06054b50);
+        end.putShort((short) 0);
+        end.putShort((short) 0);
+        end.putShort((short) Math.min(entries.size(), MAX_16));
+        end.putShort((short) Math.min(entries.size(), MAX_16));
+        end.putInt((int) Math.min(centralDirectorySize, MAX_32));
+        end.putInt((int) Math.min(centralDirectoryOffset, MAX_32));
+        end.putShort((short) 0); // comment
+        addPart(new Part(end.array(), null, length, end.capacity()));
+    }
+
+    /**
+     * @return the length in bytes of the finished archive
+     */
+    public long getLength() {
+        finish();
+        return length;
+    }
+
+    /**
+     * The bytes of the archive only depend on the name, size, CRC32 checksum and modification time of its entries,
+     * so a hash of them identifies the archive without reading the files.
+     *
+     * @return the strong entity tag of the archive, quoted
+     */
+    public String getETag() {
+        finish();
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+
+        ByteBuffer layout = allocate(3 * Long.BYTES);
+        for (Entry entry : entries) {
+            digest.update(allocate(Integer.BYTES).putInt(entry.name().length).array());
+            digest.update(entry.name());
+            layout.clear();
+            layout.putLong(entry.size()).putLong(entry.crc32()).putLong(entry.dosTime());
+            digest.update(layout.array());
+        }
+        return "\"" + HexFormat.of().formatHex(digest.digest()) + "\"";
+    }
+
+    public void writeTo(OutputStream outputStream) throws IOException {
+        writeTo(outputStream, 0, getLength() - 1);
+    }
+
+    /**
+     * Write a range of the archive
+     *
+     * @param outputStream the stream to write to
+     * @param start the first byte to write
+     * @param end the last byte to write, inclusive
+     */
+    public void writeTo(OutputStream outputStream, long start, long end) throws IOException {
+        finish();
+        if (start < 0 || end >= length || start > end) {
+            throw new IllegalArgumentException("invalid range [" + start + ", " + end + "]");
+        }
+
+        WritableByteChannel channel = Channels.newChannel(outputStream);
+        for (Part part : parts) {
+            long partEnd = part.offset() + part.length() - 1;
+            if (part.length() == 0 || partEnd < start || part.offset() > end) {
+                continue;
+            }
+
+            long from = Math.max(start, part.offset()) - part.offset();
+            long to = Math.min(end, partEnd) - part.offset();
+            if (part.bytes() != null) {
+                outputStream.write(part.bytes(), (int) from, (int) (to - from + 1));
+                continue;
+            }
+
+            outputStream.flush();
+            try (FileChannel fileChannel = FileChannel.open(part.file().toPath(), StandardOpenOption.READ)) {
+                long position = from;
+                while (position <= to) {
+                    long transferred = fileChannel.transferTo(position, to - position + 1, channel);
+                    if (transferred <= 0) {
+                        throw new IOException("file " + part.file() + " is shorter than its zip entry");
+                    }
+                    position += transferred;
+                }
+            }
+        }
+        outputStream.flush();
+    }
+
+    private void addPart(Part part) {
+        parts.add(part);
+        length += part.length();
+    }
+
+    private static ByteBuffer allocate(int capacity) {
+        return ByteBuffer.allocate(capacity).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static long toDosTime(long epochMillis) {
+        LocalDateTime time = LocalDateTime.ofInstant(
+            Instant.ofEpochMilli(epochMillis),
+            ZoneId.systemDefault()
+        );
+        if (time.getYear() < 1980) {
+            return (1 << 21) | (1 << 16);
+        }
+        return ((long) (time.getYear() - 1980) << 25)
+            | ((long) time.getMonthValue() << 21)
+            | ((long) time.getDayOfMonth() << 16)
+            | ((long) time.getHour() << 11)
+            | ((long) time.getMinute() << 5)
+            | ((long) time.getSecond() >> 1);
+    }
+
+    private record Entry(byte[] name, long size, long crc32, long offset, long dosTime) {
+    }
+
+    /**
+     * A contiguous part of the archive, either bytes built in memory or the contents of a file
+     */
+    private record Part(byte[] bytes, File file, long offset, long length) {
+    }
+}
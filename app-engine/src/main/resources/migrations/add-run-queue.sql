@@ -0,0 +1,6 @@
+ALTER TABLE public.run
+    ADD COLUMN IF NOT EXISTS project_id bigint,
+    ADD COLUMN IF NOT EXISTS user_id bigint,
+    ADD COLUMN IF NOT EXISTS queued_at timestamp(6) without time zone;
+
+CREATE INDEX IF NOT EXISTS run_state_queued_at_idx ON public.run (state, queued_at);
@@ -1,18 +1,26 @@
 package be.cytomine.appengine.controller;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Instant;
+import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Stream;
+import java.util.zip.CRC32;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.webmvc.test.autoconfigure.WebMvcTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.json.JsonCompareMode;
@@ -33,10 +41,12 @@ import be.cytomine.appengine.dto.responses.errors.ErrorBuilder;
 import be.cytomine.appengine.dto.responses.errors.ErrorCode;
 import be.cytomine.appengine.exceptions.ProvisioningException;
 import be.cytomine.appengine.handlers.SchedulerHandler;
+import be.cytomine.appengine.models.task.ParameterType;
 import be.cytomine.appengine.models.task.ValueType;
 import be.cytomine.appengine.repositories.RunRepository;
 import be.cytomine.appengine.services.RunService;
 import be.cytomine.appengine.services.TaskProvisioningService;
+import be.cytomine.appengine.utils.StoredZipArchive;
 
 import static java.util.UUID.randomUUID;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -44,6 +54,7 @@ import static org.hamcrest.Matchers.hasSize;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -68,6 +79,9 @@ class TaskRunControllerTest {
     @MockitoBean
     private TaskProvisioningService taskProvisioningService;
 
+    @TempDir
+    private Path storage;
+
     @Value("${app-engine.api_prefix}")
     private String apiPrefix;
 
@@ -78,6 +92,24 @@ class TaskRunControllerTest {
         return apiPrefix + apiVersion + "/task-runs";
     }
 
+    private StoredZipArchive buildOutputsArchive(String runId) throws Exception {
+        byte[] content = "output".repeat(100).getBytes(StandardCharsets.UTF_8);
+        Path file = Files.write(storage.resolve("output"), content);
+        CRC32 crc32 = new CRC32();
+        crc32.update(content);
+
+        StoredZipArchive archive = new StoredZipArchive();
+        archive.addFile("output", file.toFile(), crc32.getValue());
+        when(taskProvisioningService.prepareIOZipArchive(runId, ParameterType.OUTPUT)).thenReturn(archive);
+        return archive;
+    }
+
+    private static byte[] toByteArray(StoredZipArchive archive) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        archive.writeTo(out);
+        return out.toByteArray();
+    }
+
     private static TaskRunParameterValue buildOutput(TaskRunParameterValue value, ValueType type) {
         value.setTaskRunId(randomUUID());
         value.setParameterName(randomUUID().toString());
@@ -226,4 +258,80 @@ class TaskRunControllerTest {
             .andExpect(jsonPath("$.errorCode").value("APPE-internal-run-not-found-error"))
             .andExpect(jsonPath("$.message").value(error.getMessage()));
     }
+
+    @Test
+    void getOutputsArchiveShouldReturnOkWithWholeArchive() throws Exception {
+        String runId = randomUUID().toString();
+        StoredZipArchive archive = buildOutputsArchive(runId);
+
+        mockMvc.perform(get(baseUrl() + "/" + runId + "/outputs.zip"))
+            .andExpect(status().isOk())
+            .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, archive.getLength()))
+            .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+            .andExpect(header().string(HttpHeaders.ETAG, archive.getETag()))
+            .andExpect(content().bytes(toByteArray(archive)));
+    }
+
+    @Test
+    void getOutputsArchiveShouldReturnPartialContentWithRange() throws Exception {
+        String runId = randomUUID().toString();
+        StoredZipArchive archive = buildOutputsArchive(runId);
+
+        mockMvc.perform(get(baseUrl() + "/" + runId + "/outputs.zip").header(HttpHeaders.RANGE, "bytes=10-99"))
+            .andExpect(status().isPartialContent())
+            .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 10-99/" + archive.getLength()))
+            .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 90))
+            .andExpect(header().string(HttpHeaders.ETAG, archive.getETag()))
+            .andExpect(content().bytes(Arrays.copyOfRange(toByteArray(archive), 10, 100)));
+    }
+
+    @Test
+    void getOutputsArchiveShouldReturnPartialContentWhenIfRangeMatches() throws Exception {
+        String runId = randomUUID().toString();
+        StoredZipArchive archive = buildOutputsArchive(runId);
+
+        mockMvc.perform(get(baseUrl() + "/" + runId + "/outputs.zip")
+                .header(HttpHeaders.RANGE, "bytes=10-99")
+                .header(HttpHeaders.IF_RANGE, archive.getETag()))
+            .andExpect(status().isPartialContent())
+            .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 10-99/" + archive.getLength()))
+            .andExpect(content().bytes(Arrays.copyOfRange(toByteArray(archive), 10, 100)));
+    }
+
+    @Test
+    void getOutputsArchiveShouldReturnOkWithWholeArchiveWhenIfRangeDoesNotMatch() throws Exception {
+        String runId = randomUUID().toString();
+        StoredZipArchive archive = buildOutputsArchive(runId);
+
+        mockMvc.perform(get(baseUrl() + "/" + runId + "/outputs.zip")
+                .header(HttpHeaders.RANGE, "bytes=10-99")
+                .header(HttpHeaders.IF_RANGE, "\"previous-layout\""))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist(HttpHeaders.CONTENT_RANGE))
+            .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, archive.getLength()))
+            .andExpect(header().string(HttpHeaders.ETAG, archive.getETag()))
+            .andExpect(content().bytes(toByteArray(archive)));
+    }
+
+    @Test
+    void getOutputsArchiveShouldReturnRangeNotSatisfiableWhenRangeStartsAfterArchive() throws Exception {
+        String runId = randomUUID().toString();
+        StoredZipArchive archive = buildOutputsArchive(runId);
+
+        mockMvc.perform(get(baseUrl() + "/" + runId + "/outputs.zip")
+                .header(HttpHeaders.RANGE, "bytes=" + archive.getLength() + "-"))
+            .andExpect(status().isRequestedRangeNotSatisfiable())
+            .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */" + archive.getLength()));
+    }
+
+    @Test
+    void getOutputsArchiveShouldReturnOkWithWholeArchiveWhenMultipleRanges() throws Exception {
+        String runId = randomUUID().toString();
+        StoredZipArchive archive = buildOutputsArchive(runId);
+
+        mockMvc.perform(get(baseUrl() + "/" + runId + "/outputs.zip").header(HttpHeaders.RANGE, "bytes=0-9,20-29"))
+            .andExpect(status().isOk())
+            .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, archive.getLength()))
+            .andExpect(content().bytes(toByteArray(archive)));
+    }
 }
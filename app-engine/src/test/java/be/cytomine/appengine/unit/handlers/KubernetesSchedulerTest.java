@@ -0,0 +1,180 @@
+package be.cytomine.appengine.unit.handlers;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.zip.CRC32;
+
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.PodList;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.dsl.ContainerResource;
+import io.fabric8.kubernetes.client.dsl.ExecWatch;
+import io.fabric8.kubernetes.client.dsl.MixedOperation;
+import io.fabric8.kubernetes.client.dsl.NonNamespaceOperation;
+import io.fabric8.kubernetes.client.dsl.PodResource;
+import io.fabric8.kubernetes.client.dsl.TtyExecErrorable;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import be.cytomine.appengine.exceptions.SchedulingException;
+import be.cytomine.appengine.handlers.scheduler.impl.KubernetesScheduler;
+import be.cytomine.appengine.models.task.Run;
+import be.cytomine.appengine.utils.TaskUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class KubernetesSchedulerTest {
+
+    @Mock
+    private KubernetesClient kubernetesClient;
+
+    @Mock
+    private MixedOperation<Pod, PodList, PodResource> pods;
+
+    @Mock
+    private NonNamespaceOperation<Pod, PodList, PodResource> namespacedPods;
+
+    @Mock
+    private PodResource podResource;
+
+    @Mock
+    private ContainerResource containerResource;
+
+    @Mock
+    private TtyExecErrorable execable;
+
+    @Mock
+    private ExecWatch execWatch;
+
+    @InjectMocks
+    private KubernetesScheduler kubernetesScheduler;
+
+    @TempDir
+    private Path storage;
+
+    private Run run;
+
+    @BeforeEach
+    public void setUp() {
+        ReflectionTestUtils.setField(kubernetesScheduler, "tasksNamespace", "tasks");
+        ReflectionTestUtils.setField(kubernetesScheduler, "storageBasePath", storage.toString());
+
+        run = TaskUtils.createTestRun(false);
+        run.getTask().setName("Test Task");
+        run.getTask().setOutputFolder("/outputs");
+
+        when(kubernetesClient.pods()).thenReturn(pods);
+        when(pods.inNamespace("tasks")).thenReturn(namespacedPods);
+        when(namespacedPods.withName(kubernetesScheduler.getPodName(run))).thenReturn(podResource);
+    }
+
+    @DisplayName("Successfully collect the outputs streamed from the pod with their checksums")
+    @Test
+    public void collectOutputsShouldStoreFilesWithChecksums() throws Exception {
+        givenStreamedOutputs(
+            "./", null,
+            "./out", "42",
+            "./collection/", null,
+            "./collection/0", "item"
+        );
+        when(execWatch.exitCode()).thenReturn(CompletableFuture.completedFuture(0));
+
+        Path destination = storage.resolve("task-run-outputs-" + run.getId());
+        Map<String, Long> checksums = kubernetesScheduler.collectOutputs(run, destination);
+
+        assertEquals("42", Files.readString(destination.resolve("out")));
+        assertEquals("item", Files.readString(destination.resolve("collection/0")));
+        assertEquals(Map.of("out", crc32("42"), "collection/0", crc32("item")), checksums);
+    }
+
+    @DisplayName("Failed to collect an output entry outside of the destination")
+    @Test
+    public void collectOutputsShouldRejectEntryOutsideDestination() throws Exception {
+        givenStreamedOutputs("./../escaped", "42");
+
+        Path destination = storage.resolve("task-run-outputs-" + run.getId());
+        assertThrows(SchedulingException.class, () -> kubernetesScheduler.collectOutputs(run, destination));
+        assertFalse(Files.exists(storage.resolve("escaped")));
+    }
+
+    @DisplayName("Successfully read the archived logs once the pod is deleted")
+    @Test
+    public void getRunLogsShouldReadArchivedLogs() throws Exception {
+        when(podResource.inContainer("task")).thenReturn(containerResource);
+        when(containerResource.getLog(true)).thenReturn("task logs");
+
+        kubernetesScheduler.archiveRunLogs(run);
+        kubernetesScheduler.deletePod(run);
+
+        assertEquals("task logs", kubernetesScheduler.getRunLogs(run));
+        verify(podResource, times(1)).inContainer("task");
+        verify(podResource).delete();
+    }
+
+    @DisplayName("Successfully delete the archived logs with the run")
+    @Test
+    public void deleteRunShouldDeleteArchivedLogs() throws Exception {
+        when(podResource.inContainer("task")).thenReturn(containerResource);
+        when(containerResource.getLog(true)).thenReturn("task logs");
+        kubernetesScheduler.archiveRunLogs(run);
+
+        kubernetesScheduler.deleteRun(run);
+
+        assertFalse(Files.exists(storage.resolve("task-run-logs-" + run.getId() + ".log")));
+    }
+
+    /**
+     * @param entries the names and contents of the entries, a null content for a directory
+     */
+    private void givenStreamedOutputs(String... entries) throws IOException {
+        ByteArrayOutputStream tar = new ByteArrayOutputStream();
+        try (TarArchiveOutputStream archive = new TarArchiveOutputStream(tar)) {
+            for (int i = 0; i < entries.length; i += 2) {
+                TarArchiveEntry entry = new TarArchiveEntry(entries[i]);
+                byte[] content = entries[i + 1] != null ? entries[i + 1].getBytes(StandardCharsets.UTF_8) : null;
+                if (content != null) {
+                    entry.setSize(content.length);
+                }
+                archive.putArchiveEntry(entry);
+                if (content != null) {
+                    archive.write(content);
+                }
+                archive.closeArchiveEntry();
+            }
+        }
+
+        when(podResource.inContainer("outputs")).thenReturn(containerResource);
+        when(containerResource.redirectingOutput()).thenReturn(execable);
+        when(execable.exec(eq("/bin/sh"), eq("-c"), anyString())).thenReturn(execWatch);
+        when(execWatch.getOutput()).thenReturn(new ByteArrayInputStream(tar.toByteArray()));
+    }
+
+    private static long crc32(String content) {
+        CRC32 crc32 = new CRC32();
+        crc32.update(content.getBytes(StandardCharsets.UTF_8));
+        return crc32.getValue();
+    }
+}
@@ -0,0 +1,124 @@
+package be.cytomine.appengine.unit.handlers;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import be.cytomine.appengine.dto.handlers.scheduler.RunCompletedEvent;
+import be.cytomine.appengine.dto.handlers.scheduler.Schedule;
+import be.cytomine.appengine.exceptions.ProvisioningException;
+import be.cytomine.appengine.handlers.scheduler.impl.LocalProcessScheduler;
+import be.cytomine.appengine.models.task.Run;
+import be.cytomine.appengine.repositories.RunRepository;
+import be.cytomine.appengine.services.TaskProvisioningService;
+import be.cytomine.appengine.states.TaskRunState;
+import be.cytomine.appengine.utils.TaskUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class LocalProcessSchedulerTest {
+
+    @Mock
+    private RunRepository runRepository;
+
+    @Mock
+    private ObjectProvider<TaskProvisioningService> taskProvisioningServiceProvider;
+
+    @Mock
+    private TaskProvisioningService taskProvisioningService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private LocalProcessScheduler localProcessScheduler;
+
+    @TempDir
+    private Path basePath;
+
+    private Run run;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        ReflectionTestUtils.setField(localProcessScheduler, "storageBasePath", basePath.toString());
+        ReflectionTestUtils.setField(localProcessScheduler, "imagesDatasetsPath", basePath.toString());
+        ReflectionTestUtils.setField(localProcessScheduler, "registryAdvertisedUrl", "registry");
+        ReflectionTestUtils.setField(localProcessScheduler, "workers", 1);
+        localProcessScheduler.start();
+
+        run = TaskUtils.createTestRun(false);
+        run.getTask().setInputFolder("/inputs");
+        run.getTask().setOutputFolder("/outputs");
+        run.setState(TaskRunState.QUEUING);
+        Files.createDirectories(basePath.resolve("task-run-inputs-" + run.getId()));
+        Files.createDirectories(basePath.resolve("task-run-outputs-" + run.getId()));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        localProcessScheduler.stop();
+    }
+
+    private Schedule schedule(String command) throws Exception {
+        ReflectionTestUtils.setField(localProcessScheduler, "command", command);
+        Schedule schedule = new Schedule();
+        schedule.setRun(run);
+        return localProcessScheduler.schedule(schedule);
+    }
+
+    @DisplayName("Successfully finish the run when its process succeeds")
+    @Test
+    public void scheduleShouldFinishRunWhenProcessSucceeds() throws Exception {
+        when(taskProvisioningServiceProvider.getObject()).thenReturn(taskProvisioningService);
+
+        schedule("true");
+
+        verify(taskProvisioningService, timeout(5000)).finishRun(run.getId());
+        ArgumentCaptor<RunCompletedEvent> event = ArgumentCaptor.forClass(RunCompletedEvent.class);
+        verify(eventPublisher, timeout(5000)).publishEvent(event.capture());
+        assertEquals(run.getId(), event.getValue().runId());
+    }
+
+    @DisplayName("Successfully fail the run when its process fails")
+    @Test
+    public void scheduleShouldFailRunWhenProcessFails() throws Exception {
+        when(runRepository.findById(run.getId())).thenReturn(Optional.of(run));
+
+        schedule("false");
+
+        verify(runRepository, timeout(5000)).saveAndFlush(run);
+        assertEquals(TaskRunState.FAILED, run.getState());
+    }
+
+    @DisplayName("Successfully fail the run when its outputs are invalid")
+    @Test
+    public void scheduleShouldFailRunWhenOutputsAreInvalid() throws Exception {
+        when(taskProvisioningServiceProvider.getObject()).thenReturn(taskProvisioningService);
+        when(taskProvisioningService.finishRun(run.getId()))
+            .thenThrow(new ProvisioningException("missing output"));
+        when(runRepository.findById(run.getId())).thenReturn(Optional.of(run));
+
+        schedule("true");
+
+        verify(runRepository, timeout(5000)).saveAndFlush(run);
+        assertEquals(TaskRunState.FAILED, run.getState());
+    }
+}
@@ -0,0 +1,154 @@
+package be.cytomine.appengine.unit.handlers;
+
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import be.cytomine.appengine.dto.handlers.scheduler.RunCompletedEvent;
+import be.cytomine.appengine.dto.handlers.scheduler.RunTerminatedEvent;
+import be.cytomine.appengine.exceptions.ProvisioningException;
+import be.cytomine.appengine.exceptions.SchedulingException;
+import be.cytomine.appengine.handlers.scheduler.impl.KubernetesScheduler;
+import be.cytomine.appengine.handlers.scheduler.impl.utils.RunCompletionHandler;
+import be.cytomine.appengine.models.task.Run;
+import be.cytomine.appengine.repositories.RunRepository;
+import be.cytomine.appengine.services.TaskProvisioningService;
+import be.cytomine.appengine.states.TaskRunState;
+import be.cytomine.appengine.utils.TaskUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class RunCompletionHandlerTest {
+
+    @Mock
+    private RunRepository runRepository;
+
+    @Mock
+    private KubernetesScheduler kubernetesScheduler;
+
+    @Mock
+    private ObjectProvider<TaskProvisioningService> taskProvisioningServiceProvider;
+
+    @Mock
+    private TaskProvisioningService taskProvisioningService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private RunCompletionHandler runCompletionHandler;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private Run run;
+
+    @BeforeEach
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        ReflectionTestUtils.setField(runCompletionHandler, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(runCompletionHandler, "runMode", "local");
+        ReflectionTestUtils.setField(runCompletionHandler, "storageBasePath", "/tmp");
+        ReflectionTestUtils.setField(runCompletionHandler, "completionWorkers", 1);
+        runCompletionHandler.start();
+
+        run = TaskUtils.createTestRun(false);
+        run.setState(TaskRunState.QUEUING);
+        when(runRepository.findById(run.getId())).thenReturn(Optional.of(run));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        runCompletionHandler.stop();
+    }
+
+    @DisplayName("Successfully finish the run when its task succeeds")
+    @Test
+    public void onRunTerminatedShouldFinishRunWhenTaskSucceeds() throws Exception {
+        when(taskProvisioningServiceProvider.getObject()).thenReturn(taskProvisioningService);
+
+        runCompletionHandler.onRunTerminated(new RunTerminatedEvent(run.getId(), true, Instant.now()));
+
+        verify(taskProvisioningService, timeout(5000)).finishRun(run.getId(), Map.of());
+        verify(eventPublisher, timeout(5000)).publishEvent(new RunCompletedEvent(run.getId()));
+        verify(kubernetesScheduler, never()).collectOutputs(any(), any());
+        assertEquals(1, meterRegistry.get("appengine.run.completion.latency").timer().count());
+    }
+
+    @DisplayName("Successfully fail the run when its task fails")
+    @Test
+    public void onRunTerminatedShouldFailRunWhenTaskFails() {
+        runCompletionHandler.onRunTerminated(new RunTerminatedEvent(run.getId(), false, Instant.now()));
+
+        verify(eventPublisher, timeout(5000)).publishEvent(new RunCompletedEvent(run.getId()));
+        verify(runRepository).saveAndFlush(run);
+        assertEquals(TaskRunState.FAILED, run.getState());
+    }
+
+    @DisplayName("Successfully fail the run when its outputs are invalid")
+    @Test
+    public void onRunTerminatedShouldFailRunWhenOutputsAreInvalid() throws Exception {
+        when(taskProvisioningServiceProvider.getObject()).thenReturn(taskProvisioningService);
+        when(taskProvisioningService.finishRun(run.getId(), Map.of()))
+            .thenThrow(new ProvisioningException("missing output"));
+
+        runCompletionHandler.onRunTerminated(new RunTerminatedEvent(run.getId(), true, Instant.now()));
+
+        verify(eventPublisher, timeout(5000)).publishEvent(new RunCompletedEvent(run.getId()));
+        verify(runRepository).saveAndFlush(run);
+        assertEquals(TaskRunState.FAILED, run.getState());
+    }
+
+    @DisplayName("Successfully finish the run with the collected outputs and archive its logs on the cluster")
+    @Test
+    public void onRunTerminatedShouldCollectOutputsAndArchiveLogsInClusterMode() throws Exception {
+        ReflectionTestUtils.setField(runCompletionHandler, "runMode", "cluster");
+        Map<String, Long> checksums = Map.of("out", 42L);
+        when(kubernetesScheduler.collectOutputs(run, Paths.get("/tmp", "task-run-outputs-" + run.getId())))
+            .thenReturn(checksums);
+        when(taskProvisioningServiceProvider.getObject()).thenReturn(taskProvisioningService);
+
+        runCompletionHandler.onRunTerminated(new RunTerminatedEvent(run.getId(), true, Instant.now()));
+
+        verify(eventPublisher, timeout(5000)).publishEvent(new RunCompletedEvent(run.getId()));
+        verify(taskProvisioningService).finishRun(run.getId(), checksums);
+        InOrder order = inOrder(kubernetesScheduler);
+        order.verify(kubernetesScheduler).archiveRunLogs(run);
+        order.verify(kubernetesScheduler).deletePod(run);
+    }
+
+    @DisplayName("Successfully keep the pod when the logs of its task could not be archived")
+    @Test
+    public void onRunTerminatedShouldKeepPodWhenLogsAreNotArchived() throws Exception {
+        ReflectionTestUtils.setField(runCompletionHandler, "runMode", "cluster");
+        when(taskProvisioningServiceProvider.getObject()).thenReturn(taskProvisioningService);
+        doThrow(new SchedulingException("no logs")).when(kubernetesScheduler).archiveRunLogs(run);
+
+        runCompletionHandler.onRunTerminated(new RunTerminatedEvent(run.getId(), true, Instant.now()));
+
+        verify(eventPublisher, timeout(5000)).publishEvent(new RunCompletedEvent(run.getId()));
+        verify(kubernetesScheduler, never()).deletePod(any());
+    }
+}
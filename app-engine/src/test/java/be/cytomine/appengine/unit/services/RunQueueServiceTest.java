@@ -0,0 +1,115 @@
+package be.cytomine.appengine.unit.services;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import be.cytomine.appengine.dto.handlers.scheduler.RunDemand;
+import be.cytomine.appengine.repositories.RunRepository;
+import be.cytomine.appengine.repositories.collection.CollectionPersistenceRepository;
+import be.cytomine.appengine.services.RunQueueService;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class RunQueueServiceTest {
+
+    @Mock
+    private RunRepository runRepository;
+
+    @Mock
+    private CollectionPersistenceRepository collectionPersistenceRepository;
+
+    @InjectMocks
+    private RunQueueService runQueueService;
+
+    private final LocalDateTime now = LocalDateTime.now();
+
+    @BeforeEach
+    public void setUp() {
+        ReflectionTestUtils.setField(runQueueService, "capacityCpus", 0);
+        ReflectionTestUtils.setField(runQueueService, "capacityRam", "0");
+        ReflectionTestUtils.setField(runQueueService, "capacityGpus", 0);
+        ReflectionTestUtils.setField(runQueueService, "maxRunsPerProject", 0);
+        ReflectionTestUtils.setField(runQueueService, "maxRunsPerUser", 0);
+    }
+
+    private RunDemand demand(Long projectId, Long userId, int age, int cpus) {
+        return new RunDemand(UUID.randomUUID(), projectId, userId, now.minusMinutes(age), cpus, "1Gi", 0);
+    }
+
+    @DisplayName("Successfully admit all the queued runs when nothing is limited")
+    @Test
+    public void selectAdmissionsShouldAdmitAllRunsWithoutLimits() {
+        RunDemand older = demand(1L, 1L, 10, 1);
+        RunDemand newer = demand(1L, 1L, 5, 1);
+
+        when(runRepository.findDemandsByStateIn(any()))
+            .thenReturn(List.of())
+            .thenReturn(List.of(newer, older));
+
+        List<UUID> admitted = runQueueService.selectAdmissions();
+
+        assertEquals(List.of(older.runId(), newer.runId()), admitted);
+    }
+
+    @DisplayName("Successfully admit first the runs of the project using the smallest share of the capacity")
+    @Test
+    public void selectAdmissionsShouldFavourProjectWithSmallestShare() {
+        ReflectionTestUtils.setField(runQueueService, "capacityCpus", 3);
+        RunDemand busyProjectRun = demand(1L, 1L, 10, 1);
+        RunDemand idleProjectRun = demand(2L, 2L, 5, 1);
+
+        when(runRepository.findDemandsByStateIn(any()))
+            .thenReturn(List.of(demand(1L, 1L, 20, 1), demand(1L, 1L, 20, 1)))
+            .thenReturn(List.of(busyProjectRun, idleProjectRun));
+
+        List<UUID> admitted = runQueueService.selectAdmissions();
+
+        assertEquals(List.of(idleProjectRun.runId()), admitted);
+    }
+
+    @DisplayName("Successfully admit the runs within the limit of their project")
+    @Test
+    public void selectAdmissionsShouldRespectProjectLimit() {
+        ReflectionTestUtils.setField(runQueueService, "maxRunsPerProject", 1);
+        RunDemand first = demand(1L, 1L, 10, 1);
+        RunDemand second = demand(1L, 1L, 9, 1);
+        RunDemand otherProject = demand(2L, 1L, 8, 1);
+
+        when(runRepository.findDemandsByStateIn(any()))
+            .thenReturn(List.of())
+            .thenReturn(List.of(first, second, otherProject));
+
+        List<UUID> admitted = runQueueService.selectAdmissions();
+
+        assertEquals(List.of(first.runId(), otherProject.runId()), admitted);
+    }
+
+    @DisplayName("Successfully admit a run larger than the capacity when no run is active")
+    @Test
+    public void selectAdmissionsShouldAdmitLargeRunAlone() {
+        ReflectionTestUtils.setField(runQueueService, "capacityCpus", 2);
+        RunDemand large = demand(1L, 1L, 10, 4);
+        RunDemand small = demand(2L, 2L, 5, 1);
+
+        when(runRepository.findDemandsByStateIn(any()))
+            .thenReturn(List.of())
+            .thenReturn(List.of(large, small));
+
+        List<UUID> admitted = runQueueService.selectAdmissions();
+
+        assertEquals(List.of(large.runId()), admitted);
+    }
+}
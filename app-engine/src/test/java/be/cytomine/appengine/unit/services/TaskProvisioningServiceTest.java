@@ -9,10 +9,13 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Random;
 import java.util.UUID;
 import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -21,6 +24,7 @@ import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -33,7 +37,6 @@ import be.cytomine.appengine.dto.inputs.task.TaskRunParameterValue;
 import be.cytomine.appengine.dto.inputs.task.TaskRunResponse;
 import be.cytomine.appengine.exceptions.FileStorageException;
 import be.cytomine.appengine.exceptions.ProvisioningException;
-import be.cytomine.appengine.handlers.SchedulerHandler;
 import be.cytomine.appengine.handlers.StorageData;
 import be.cytomine.appengine.handlers.StorageHandler;
 import be.cytomine.appengine.models.task.Checksum;
@@ -49,6 +52,7 @@ import be.cytomine.appengine.repositories.RunRepository;
 import be.cytomine.appengine.repositories.TypePersistenceRepository;
 import be.cytomine.appengine.repositories.file.FilePersistenceRepository;
 import be.cytomine.appengine.repositories.integer.IntegerPersistenceRepository;
+import be.cytomine.appengine.services.RunDispatcher;
 import be.cytomine.appengine.services.TaskProvisioningService;
 import be.cytomine.appengine.services.TaskService;
 import be.cytomine.appengine.states.TaskRunState;
@@ -71,7 +75,7 @@ public class TaskProvisioningServiceTest {
     private AppEngineApplicationContext appEngineApplicationContext;
 
     @Mock
-    private SchedulerHandler schedulerHandler;
+    private RunDispatcher runDispatcher;
 
     @Mock
     private StorageHandler storageHandler;
@@ -263,9 +267,9 @@ public class TaskProvisioningServiceTest {
         verify(storageHandler, times(0)).saveStorageData(any(Storage.class), any(StorageData.class));
     }
 
-    @DisplayName("Successfully retrieve a zip archive")
+    @DisplayName("Successfully prepare a zip archive")
     @Test
-    public void retrieveIOZipArchiveShouldReturnStorageData() throws Exception {
+    public void prepareIOZipArchiveShouldReturnStorageData() throws Exception {
         Run run = TaskUtils.createTestRun(false);
 
         String name = run.getTask()
@@ -295,14 +299,15 @@ public class TaskProvisioningServiceTest {
 
         Checksum crc32 = new Checksum(
             UUID.randomUUID(),
-            storageId,
+            "task-run-inputs-" + run.getId() + "-" + mockStorageData.peek().getName(),
             calculateFileCRC32(mockStorageData.peek().getData())
         );
-        when(checksumRepository.findByReference(any(String.class))).thenReturn(crc32);
+        when(checksumRepository.findByReferenceStartingWithOrderByCreatedDate("task-run-inputs-" + run.getId() + "-"))
+            .thenReturn(List.of(crc32));
 
         ByteArrayOutputStream out = new ByteArrayOutputStream();
 
-        taskProvisioningService.retrieveIOZipArchive(run.getId().toString(), ParameterType.INPUT, out);
+        taskProvisioningService.prepareIOZipArchive(run.getId().toString(), ParameterType.INPUT).writeTo(out);
 
         verify(runRepository, times(1)).findById(run.getId());
         verify(storageHandler, times(1)).readStorageData(any(StorageData.class));
@@ -310,31 +315,33 @@ public class TaskProvisioningServiceTest {
             run.getId(),
             ParameterType.INPUT
         );
+        verify(checksumRepository, times(1)).findByReferenceStartingWithOrderByCreatedDate(any(String.class));
+        try (ZipInputStream zipInputStream = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            ZipEntry entry = zipInputStream.getNextEntry();
+            assertNotNull(entry);
+            assertEquals(mockStorageData.peek().getName(), entry.getName());
+            assertEquals(mockStorageData.peek().getData().length(), zipInputStream.readAllBytes().length);
+        }
     }
 
-    @DisplayName("Failed to retrieve a zip archive and throw 'ProvisioningException' when run state is invalid")
+    @DisplayName("Failed to prepare a zip archive and throw 'ProvisioningException' when run state is invalid")
     @Test
-    public void retrieveIOZipArchiveShouldThrowProvisioningExceptionWhenInvalidRunState() {
+    public void prepareIOZipArchiveShouldThrowProvisioningExceptionWhenInvalidRunState() {
         Run localRun = TaskUtils.createTestRun(false);
         localRun.setState(TaskRunState.CREATED);
 
         when(runRepository.findById(localRun.getId())).thenReturn(Optional.of(localRun));
 
-        ByteArrayOutputStream out = new ByteArrayOutputStream();
-
         ProvisioningException exception = assertThrows(
             ProvisioningException.class,
-            () -> taskProvisioningService.retrieveIOZipArchive(
-                localRun.getId().toString(), ParameterType.INPUT,
-                out
-            )
+            () -> taskProvisioningService.prepareIOZipArchive(localRun.getId().toString(), ParameterType.INPUT)
         );
         assertEquals("run is in invalid state", exception.getMessage());
     }
 
-    @DisplayName("Failed to retrieve a zip archive and throw 'ProvisioningException' when provisions are empty")
+    @DisplayName("Failed to prepare a zip archive and throw 'ProvisioningException' when provisions are empty")
     @Test
-    public void retrieveIOZipArchiveShouldThrowProvisioningExceptionWhenEmptyProvisions() {
+    public void prepareIOZipArchiveShouldThrowProvisioningExceptionWhenEmptyProvisions() {
         Run run = TaskUtils.createTestRun(false);
         run.setState(TaskRunState.PROVISIONED);
 
@@ -342,14 +349,9 @@ public class TaskProvisioningServiceTest {
         when(typePersistenceRepository.findTypePersistenceByRunIdAndParameterType(run.getId(), ParameterType.INPUT))
             .thenReturn(List.of());
 
-        ByteArrayOutputStream out = new ByteArrayOutputStream();
-
         ProvisioningException exception = assertThrows(
             ProvisioningException.class,
-            () -> taskProvisioningService.retrieveIOZipArchive(
-                run.getId().toString(), ParameterType.INPUT,
-                out
-            )
+            () -> taskProvisioningService.prepareIOZipArchive(run.getId().toString(), ParameterType.INPUT)
         );
         assertEquals("provisions not found", exception.getMessage());
     }
@@ -382,6 +384,32 @@ public class TaskProvisioningServiceTest {
         verify(runRepository, times(1)).saveAndFlush(any(Run.class));
     }
 
+    @DisplayName("Successfully save the checksums of the outputs computed while storing them")
+    @Test
+    public void postOutputsZipArchiveShouldSaveChecksumsOfStoredOutputs() throws Exception {
+        Task task = TaskUtils.createTestTask(false);
+        task.setMatches(new ArrayList<>());
+        Run localRun = TaskUtils.createTestRun(false);
+        localRun.setTask(task);
+        localRun.setState(TaskRunState.RUNNING);
+
+        when(runRepository.findById(localRun.getId())).thenReturn(Optional.of(localRun));
+        taskProvisioningService.setBasePath("/tmp/appengine/storage");
+
+        taskProvisioningService.postOutputsZipArchive(
+            localRun.getId().toString(), localRun.getSecret(),
+            new ByteArrayInputStream(TaskUtils.createFakeOutputsZip("out"))
+        );
+
+        CRC32 expected = new CRC32();
+        expected.update("42".getBytes());
+        ArgumentCaptor<List<Checksum>> checksums = ArgumentCaptor.forClass(List.class);
+        verify(checksumRepository, times(1)).saveAll(checksums.capture());
+        assertEquals(1, checksums.getValue().size());
+        assertEquals("task-run-outputs-" + localRun.getId() + "-out", checksums.getValue().get(0).getReference());
+        assertEquals(expected.getValue(), checksums.getValue().get(0).getChecksumCRC32());
+    }
+
     @DisplayName("Failed to save the outputs archive and throw 'ProvisioningException' when not authenticated")
     @Test
     public void postOutputsZipArchiveShouldThrowProvisioningExceptionWhenNotAuth() {
@@ -645,7 +673,7 @@ public class TaskProvisioningServiceTest {
         verify(runRepository, times(1)).saveAndFlush(any(Run.class));
     }
 
-    @DisplayName("Successfully update the run state to RUNNING")
+    @DisplayName("Successfully update the run state to RUNNING and queue the run")
     @Test
     public void updateRunStateShouldUpdateStateToRunning() throws Exception {
         Task localTask = TaskUtils.createTestTask(false);
@@ -661,9 +689,30 @@ public class TaskProvisioningServiceTest {
 
         assertEquals("success", result.status());
         assertEquals(localRun.getId(), result.resource().id());
-        assertEquals(TaskRunState.QUEUING, result.resource().state());
+        assertEquals(TaskRunState.QUEUED, result.resource().state());
+        assertNotNull(localRun.getQueuedAt());
         verify(runRepository, times(1)).findById(localRun.getId());
         verify(runRepository, times(1)).saveAndFlush(any(Run.class));
+        verify(runDispatcher, times(1)).dispatch();
+    }
+
+    @DisplayName("Successfully update the run state to RUNNING and dispatch the run")
+    @Test
+    public void updateRunStateShouldDispatchAdmittedRun() throws Exception {
+        Task localTask = TaskUtils.createTestTask(false);
+        localTask.setMatches(new ArrayList<>());
+        Run localRun = TaskUtils.createTestRun(false);
+        localRun.setTask(localTask);
+        localRun.setState(TaskRunState.PROVISIONED);
+        State desiredState = new State(TaskRunState.RUNNING);
+
+        when(runRepository.findById(localRun.getId())).thenReturn(Optional.of(localRun));
+        when(runDispatcher.dispatch()).thenReturn(Map.of(localRun.getId(), TaskRunState.QUEUING));
+
+        StateAction result = taskProvisioningService.updateRunState(localRun.getId().toString(), desiredState);
+
+        assertEquals("success", result.status());
+        assertEquals(TaskRunState.QUEUING, result.resource().state());
     }
 
     @DisplayName("Failed to update the run state and throw 'ProvisioningException'")
@@ -0,0 +1,107 @@
+package be.cytomine.appengine.unit.utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import be.cytomine.appengine.utils.StoredZipArchive;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class StoredZipArchiveTest {
+
+    @TempDir
+    private Path storage;
+
+    private final Map<String, byte[]> contents = new LinkedHashMap<>();
+
+    private StoredZipArchive archive;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        contents.put("integer", "42".getBytes(StandardCharsets.UTF_8));
+        contents.put("empty", new byte[0]);
+        contents.put("collection/0", "item".repeat(1000).getBytes(StandardCharsets.UTF_8));
+
+        archive = new StoredZipArchive();
+        for (Map.Entry<String, byte[]> content : contents.entrySet()) {
+            Path file = storage.resolve(content.getKey().replace("/", "-"));
+            Files.write(file, content.getValue());
+            CRC32 crc32 = new CRC32();
+            crc32.update(content.getValue());
+            archive.addFile(content.getKey(), file.toFile(), crc32.getValue());
+        }
+    }
+
+    @DisplayName("Successfully write an archive of the announced length readable as a zip")
+    @Test
+    public void writeToShouldWriteValidArchive() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        archive.writeTo(out);
+
+        assertEquals(archive.getLength(), out.size());
+        try (ZipInputStream zipInputStream = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            for (Map.Entry<String, byte[]> content : contents.entrySet()) {
+                ZipEntry entry = zipInputStream.getNextEntry();
+                assertEquals(content.getKey(), entry.getName());
+                assertArrayEquals(content.getValue(), zipInputStream.readAllBytes());
+            }
+            assertNull(zipInputStream.getNextEntry());
+        }
+    }
+
+    @DisplayName("Successfully write a range of the archive")
+    @Test
+    public void writeToShouldWriteRange() throws Exception {
+        ByteArrayOutputStream whole = new ByteArrayOutputStream();
+        archive.writeTo(whole);
+
+        ByteArrayOutputStream range = new ByteArrayOutputStream();
+        archive.writeTo(range, 40, 2000);
+
+        assertArrayEquals(Arrays.copyOfRange(whole.toByteArray(), 40, 2001), range.toByteArray());
+    }
+
+    @DisplayName("Failed to write a range outside of the archive")
+    @Test
+    public void writeToShouldRejectRangeOutsideArchive() {
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> archive.writeTo(new ByteArrayOutputStream(), 0, archive.getLength())
+        );
+    }
+
+    @DisplayName("Successfully derive the same entity tag from the same layout")
+    @Test
+    public void getETagShouldOnlyDependOnLayout() {
+        StoredZipArchive sameLayout = new StoredZipArchive();
+        StoredZipArchive otherChecksum = new StoredZipArchive();
+        for (Map.Entry<String, byte[]> content : contents.entrySet()) {
+            Path file = storage.resolve(content.getKey().replace("/", "-"));
+            CRC32 crc32 = new CRC32();
+            crc32.update(content.getValue());
+            sameLayout.addFile(content.getKey(), file.toFile(), crc32.getValue());
+            otherChecksum.addFile(content.getKey(), file.toFile(), crc32.getValue() + 1);
+        }
+
+        assertEquals(archive.getETag(), sameLayout.getETag());
+        assertNotEquals(archive.getETag(), otherChecksum.getETag());
+    }
+}
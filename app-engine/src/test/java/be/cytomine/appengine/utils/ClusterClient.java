@@ -2,6 +2,7 @@ package be.cytomine.appengine.utils;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.stream.Stream;
 
 import io.fabric8.kubernetes.api.model.Container;
 import io.fabric8.kubernetes.api.model.Pod;
@@ -26,9 +27,9 @@ public class ClusterClient {
     public Map<String, String> getAllocatedResources(String uuid) {
         Pod pod = kubernetesClient.pods().inNamespace(tasksNamespace).withName(uuid).get();
 
-        Container task = pod.getSpec()
-            .getContainers()
-            .stream()
+        // on the cluster, the task runs as the last init container
+        Container task = Stream
+            .concat(pod.getSpec().getInitContainers().stream(), pod.getSpec().getContainers().stream())
             .filter(container -> container.getName().equals("task"))
             .findFirst()
             .orElse(null);
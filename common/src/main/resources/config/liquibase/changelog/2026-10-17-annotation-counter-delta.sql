@@ -0,0 +1,271 @@
+--liquibase formatted sql
+--changeset cytomine:2026-10-17-annotation-counter-delta
+-- Annotation counter changes not yet folded into the project and image_instance totals.
+-- Writers only append rows, so that concurrent annotation writes do not wait on the project and image row locks.
+CREATE TABLE annotation_counter_delta (
+    id BIGSERIAL PRIMARY KEY,
+    project_id BIGINT NOT NULL,
+    image_id BIGINT NOT NULL,
+    annotations INTEGER NOT NULL DEFAULT 0,
+    job_annotations INTEGER NOT NULL DEFAULT 0,
+    reviewed_annotations INTEGER NOT NULL DEFAULT 0
+);
+
+--changeset cytomine:2026-10-17-annotation-counter-delta-triggers splitStatements:false
+CREATE OR REPLACE FUNCTION addAnnotationCounterDelta(
+    projectId BIGINT, imageId BIGINT, annotations INTEGER, jobAnnotations INTEGER, reviewedAnnotations INTEGER
+) RETURNS VOID AS $addAnnotationCounterDelta$
+BEGIN
+    INSERT INTO annotation_counter_delta(project_id, image_id, annotations, job_annotations, reviewed_annotations)
+    VALUES (projectId, imageId, annotations, jobAnnotations, reviewedAnnotations);
+END;
+$addAnnotationCounterDelta$ LANGUAGE plpgsql;
+
+-- The project and image rows are not updated anymore: they no longer need to be locked before the annotation
+DROP TRIGGER IF EXISTS beforeInsertUserAnnotationTrigger ON user_annotation;
+DROP FUNCTION IF EXISTS beforeInsertUserAnnotation();
+DROP TRIGGER IF EXISTS beforeDeleteUserAnnotationTrigger ON user_annotation;
+DROP FUNCTION IF EXISTS beforeDeleteUserAnnotation();
+DROP TRIGGER IF EXISTS beforeInsertAlgoAnnotationTrigger ON algo_annotation;
+DROP FUNCTION IF EXISTS beforeInsertAlgoAnnotation();
+DROP TRIGGER IF EXISTS beforeDeleteAlgoAnnotation ON algo_annotation;
+DROP FUNCTION IF EXISTS beforeDeleteAlgoAnnotation();
+
+-------------------------------------------------------------------------------------
+CREATE OR REPLACE FUNCTION afterInsertUserAnnotation() RETURNS TRIGGER AS $incUserAnnAfter$
+DECLARE
+    alreadyExist INTEGER;
+BEGIN
+    PERFORM addAnnotationCounterDelta(NEW.project_id, NEW.image_id, 1, 0, 0);
+
+    SELECT count(*) INTO alreadyExist FROM annotation_index WHERE user_id = NEW.user_id AND slice_id = NEW.slice_id;
+    IF (alreadyExist=0) THEN
+        INSERT INTO annotation_index(user_id, slice_id, count_annotation, count_reviewed_annotation, version, id)
+        VALUES(NEW.user_id,NEW.slice_id,0,0,0,nextval('hibernate_sequence'));
+    END IF;
+    UPDATE annotation_index SET count_annotation = count_annotation+1, version = version+1
+    WHERE user_id = NEW.user_id AND slice_id = NEW.slice_id;
+    RETURN NEW;
+END;
+$incUserAnnAfter$ LANGUAGE plpgsql;
+
+-------------------------------------------------------------------------------------
+CREATE OR REPLACE FUNCTION afterUpdateUserAnnotation() RETURNS TRIGGER AS $incUserAnnAfter$
+DECLARE
+    alreadyExist INTEGER;
+BEGIN
+    IF(NEW.user_id<>OLD.user_id) THEN
+        SELECT count(*) INTO alreadyExist FROM annotation_index WHERE user_id = NEW.user_id AND slice_id = NEW.slice_id;
+        IF (alreadyExist=0) THEN
+            INSERT INTO annotation_index(user_id, slice_id, count_annotation, count_reviewed_annotation, version, id)
+            VALUES(NEW.user_id,NEW.slice_id,0,0,0,nextval('hibernate_sequence'));
+        END IF;
+        UPDATE annotation_index SET count_annotation = count_annotation+1, version = version+1
+        WHERE user_id = NEW.user_id AND slice_id = NEW.slice_id;
+
+        UPDATE annotation_index SET count_annotation = count_annotation-1, version = version+1
+        WHERE user_id = OLD.user_id AND slice_id = OLD.slice_id;
+    END IF;
+    IF NEW.deleted IS NULL AND OLD.deleted IS NOT NULL THEN
+        PERFORM addAnnotationCounterDelta(OLD.project_id, OLD.image_id, 1, 0, 0);
+
+        UPDATE annotation_index SET count_annotation = count_annotation+1, version = version+1
+        WHERE user_id = OLD.user_id AND slice_id = OLD.slice_id;
+    ELSEIF NEW.deleted IS NOT NULL AND OLD.deleted IS NULL THEN
+        PERFORM addAnnotationCounterDelta(OLD.project_id, OLD.image_id, -1, 0, 0);
+
+        UPDATE annotation_index SET count_annotation = count_annotation-1, version = version+1
+        WHERE user_id = OLD.user_id AND slice_id = OLD.slice_id;
+    END IF;
+    RETURN NEW;
+END;
+$incUserAnnAfter$ LANGUAGE plpgsql;
+
+-------------------------------------------------------------------------------------
+CREATE OR REPLACE FUNCTION afterDeleteUserAnnotation() RETURNS TRIGGER AS $decUserAnnAfter$
+BEGIN
+    PERFORM addAnnotationCounterDelta(OLD.project_id, OLD.image_id, -1, 0, 0);
+
+    UPDATE annotation_index SET count_annotation = count_annotation-1, version = version+1
+    WHERE user_id = OLD.user_id AND slice_id = OLD.slice_id;
+    RETURN OLD;
+END;
+$decUserAnnAfter$ LANGUAGE plpgsql;
+
+-------------------------------------------------------------------------------------
+CREATE OR REPLACE FUNCTION afterInsertAlgoAnnotation() RETURNS TRIGGER AS $incAlgoAnnAfter$
+DECLARE
+    alreadyExist INTEGER;
+BEGIN
+    PERFORM addAnnotationCounterDelta(NEW.project_id, NEW.image_id, 0, 1, 0);
+
+    SELECT count(*) INTO alreadyExist FROM annotation_index WHERE user_id = NEW.user_id AND slice_id = NEW.slice_id;
+    IF (alreadyExist=0) THEN
+        INSERT INTO annotation_index(user_id, slice_id, count_annotation, count_reviewed_annotation, version, id)
+        VALUES(NEW.user_id,NEW.slice_id,0,0,0,nextval('hibernate_sequence'));
+    END IF;
+    UPDATE annotation_index SET count_annotation = count_annotation+1, version = version+1
+    WHERE user_id = NEW.user_id AND slice_id = NEW.slice_id;
+    RETURN NEW;
+END;
+$incAlgoAnnAfter$ LANGUAGE plpgsql;
+
+-------------------------------------------------------------------------------------
+CREATE OR REPLACE FUNCTION afterUpdateAlgoAnnotation() RETURNS TRIGGER AS $incUserAnnAfter$
+BEGIN
+    IF NEW.deleted IS NULL AND OLD.deleted IS NOT NULL THEN
+        PERFORM addAnnotationCounterDelta(OLD.project_id, OLD.image_id, 0, 1, 0);
+
+        UPDATE annotation_index SET count_annotation = count_annotation+1, version = version+1
+        WHERE user_id = OLD.user_id AND slice_id = OLD.slice_id;
+    ELSEIF NEW.deleted IS NOT NULL AND OLD.deleted IS NULL THEN
+        PERFORM addAnnotationCounterDelta(OLD.project_id, OLD.image_id, 0, -1, 0);
+
+        UPDATE annotation_index SET count_annotation = count_annotation-1, version = version+1
+        WHERE user_id = OLD.user_id AND slice_id = OLD.slice_id;
+    END IF;
+    RETURN NEW;
+END;
+$incUserAnnAfter$ LANGUAGE plpgsql;
+
+-------------------------------------------------------------------------------------
+CREATE OR REPLACE FUNCTION afterDeleteAlgoAnnotation() RETURNS TRIGGER AS $decAlgoAnnAfter$
+BEGIN
+    PERFORM addAnnotationCounterDelta(OLD.project_id, OLD.image_id, 0, -1, 0);
+
+    UPDATE annotation_index SET count_annotation = count_annotation-1, version = version+1
+    WHERE user_id = OLD.user_id AND slice_id = OLD.slice_id;
+    RETURN OLD;
+END;
+$decAlgoAnnAfter$ LANGUAGE plpgsql;
+
+-------------------------------------------------------------------------------------
+CREATE OR REPLACE FUNCTION beforeInsertReviewedAnnotation() RETURNS trigger as $incAnnRevAnn$
+DECLARE
+    algo_class reviewed_annotation.parent_class_name%TYPE := 'be.cytomine.domain.ontology.AlgoAnnotation';
+    user_class reviewed_annotation.parent_class_name%TYPE := 'be.cytomine.domain.ontology.UserAnnotation';
+    currentUserAnnotation user_annotation%ROWTYPE;
+    currentAlgoAnnotation algo_annotation%ROWTYPE;
+BEGIN
+    IF NEW.parent_class_name = user_class THEN
+        SELECT * INTO currentUserAnnotation FROM user_annotation WHERE id = NEW.parent_ident FOR UPDATE;
+    ELSEIF NEW.parent_class_name = algo_class THEN
+        SELECT * INTO currentAlgoAnnotation FROM algo_annotation WHERE id = NEW.parent_ident FOR UPDATE;
+    END IF;
+    RETURN NEW;
+END;
+$incAnnRevAnn$ LANGUAGE plpgsql;
+
+-------------------------------------------------------------------------------------
+CREATE OR REPLACE FUNCTION incrementAnnotationReviewedAnnotation() RETURNS trigger as $incAnnRevAnn$
+DECLARE
+    algo_class reviewed_annotation.parent_class_name%TYPE := 'be.cytomine.domain.ontology.AlgoAnnotation';
+    user_class reviewed_annotation.parent_class_name%TYPE := 'be.cytomine.domain.ontology.UserAnnotation';
+    alreadyExist INTEGER;
+BEGIN
+    PERFORM addAnnotationCounterDelta(NEW.project_id, NEW.image_id, 0, 0, 1);
+
+    SELECT count(*) INTO alreadyExist FROM annotation_index
+    WHERE user_id = NEW.review_user_id AND slice_id = NEW.slice_id;
+    IF (alreadyExist=0) THEN
+        INSERT INTO annotation_index(user_id, slice_id, count_annotation, count_reviewed_annotation, version, id)
+        VALUES(NEW.review_user_id,NEW.slice_id,0,0,0,nextval('hibernate_sequence'));
+    END IF;
+    UPDATE annotation_index SET count_reviewed_annotation = count_reviewed_annotation+1, version = version+1
+    WHERE user_id = NEW.review_user_id AND slice_id = NEW.slice_id;
+
+    IF NEW.parent_class_name = user_class THEN
+        UPDATE user_annotation
+        SET count_reviewed_annotations = count_reviewed_annotations + 1
+        WHERE user_annotation.id = NEW.parent_ident;
+    ELSEIF NEW.parent_class_name = algo_class THEN
+        UPDATE algo_annotation
+        SET count_reviewed_annotations = count_reviewed_annotations + 1
+        WHERE algo_annotation.id = NEW.parent_ident;
+    END IF;
+    RETURN NEW;
+END;
+$incAnnRevAnn$ LANGUAGE plpgsql;
+
+-------------------------------------------------------------------------------------
+CREATE OR REPLACE FUNCTION updateAnnotationReviewedAnnotation() RETURNS trigger as $incAnnRevAnn$
+DECLARE
+    algo_class reviewed_annotation.parent_class_name%TYPE := 'be.cytomine.domain.ontology.AlgoAnnotation';
+    user_class reviewed_annotation.parent_class_name%TYPE := 'be.cytomine.domain.ontology.UserAnnotation';
+    alreadyExist INTEGER;
+    delta INTEGER;
+BEGIN
+    IF NEW.deleted IS NULL AND OLD.deleted IS NOT NULL THEN
+        delta := 1;
+    ELSEIF NEW.deleted IS NOT NULL AND OLD.deleted IS NULL THEN
+        delta := -1;
+    ELSE
+        RETURN NEW;
+    END IF;
+
+    PERFORM addAnnotationCounterDelta(NEW.project_id, NEW.image_id, 0, 0, delta);
+
+    SELECT count(*) INTO alreadyExist FROM annotation_index
+    WHERE user_id = NEW.review_user_id AND slice_id = NEW.slice_id;
+    IF (alreadyExist=0) THEN
+        INSERT INTO annotation_index(user_id, slice_id, count_annotation, count_reviewed_annotation, version, id)
+        VALUES(NEW.review_user_id,NEW.slice_id,0,0,0,nextval('hibernate_sequence'));
+    END IF;
+    UPDATE annotation_index SET count_reviewed_annotation = count_reviewed_annotation+delta, version = version+1
+    WHERE user_id = NEW.review_user_id AND slice_id = NEW.slice_id;
+
+    IF NEW.parent_class_name = user_class THEN
+        UPDATE user_annotation
+        SET count_reviewed_annotations = count_reviewed_annotations + delta
+        WHERE user_annotation.id = NEW.parent_ident;
+    ELSEIF NEW.parent_class_name = algo_class THEN
+        UPDATE algo_annotation
+        SET count_reviewed_annotations = count_reviewed_annotations + delta
+        WHERE algo_annotation.id = NEW.parent_ident;
+    END IF;
+    RETURN NEW;
+END;
+$incAnnRevAnn$ LANGUAGE plpgsql;
+
+-------------------------------------------------------------------------------------
+CREATE OR REPLACE FUNCTION beforeDeleteReviewedAnnotation() RETURNS trigger as $incAnnRevAnn$
+DECLARE
+    algo_class reviewed_annotation.parent_class_name%TYPE := 'be.cytomine.domain.ontology.AlgoAnnotation';
+    user_class reviewed_annotation.parent_class_name%TYPE := 'be.cytomine.domain.ontology.UserAnnotation';
+    currentUserAnnotation user_annotation%ROWTYPE;
+    currentAlgoAnnotation algo_annotation%ROWTYPE;
+BEGIN
+    IF OLD.parent_class_name = user_class THEN
+        SELECT * INTO currentUserAnnotation FROM user_annotation WHERE id = OLD.parent_ident FOR UPDATE;
+    ELSEIF OLD.parent_class_name = algo_class THEN
+        SELECT * INTO currentAlgoAnnotation FROM algo_annotation WHERE id = OLD.parent_ident FOR UPDATE;
+    END IF;
+    RETURN OLD;
+END;
+$incAnnRevAnn$ LANGUAGE plpgsql;
+
+-------------------------------------------------------------------------------------
+CREATE OR REPLACE FUNCTION afterDeleteReviewedAnnotation() RETURNS trigger as $incAnnRevAnn$
+DECLARE
+    algo_class reviewed_annotation.parent_class_name%TYPE := 'be.cytomine.domain.ontology.AlgoAnnotation';
+    user_class reviewed_annotation.parent_class_name%TYPE := 'be.cytomine.domain.ontology.UserAnnotation';
+BEGIN
+    PERFORM addAnnotationCounterDelta(OLD.project_id, OLD.image_id, 0, 0, -1);
+
+    UPDATE annotation_index
+    SET count_reviewed_annotation = count_reviewed_annotation-1, version = version+1
+    WHERE user_id = OLD.user_id
+      AND slice_id = OLD.slice_id;
+
+    IF OLD.parent_class_name = user_class THEN
+        UPDATE user_annotation
+        SET count_reviewed_annotations = count_reviewed_annotations - 1
+        WHERE user_annotation.id = OLD.parent_ident;
+    ELSEIF OLD.parent_class_name = algo_class THEN
+        UPDATE algo_annotation
+        SET count_reviewed_annotations = count_reviewed_annotations - 1
+        WHERE algo_annotation.id = OLD.parent_ident;
+    END IF;
+    RETURN OLD;
+END;
+$incAnnRevAnn$ LANGUAGE plpgsql;
@@ -0,0 +1,161 @@
+--liquibase formatted sql
+--changeset cytomine:2026-10-17-annotation-daily-count
+-- Number of annotations created per project and per day, used by the annotation evolution stats.
+-- term_id = 0 counts all the annotations, other rows count the annotations associated with the term.
+CREATE TABLE annotation_daily_count (
+    project_id BIGINT NOT NULL,
+    reviewed BOOLEAN NOT NULL,
+    term_id BIGINT NOT NULL,
+    day DATE NOT NULL,
+    count BIGINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (project_id, reviewed, term_id, day)
+);
+
+INSERT INTO annotation_daily_count(project_id, reviewed, term_id, day, count)
+SELECT project_id, FALSE, 0, created::date, count(*)
+FROM user_annotation
+WHERE created IS NOT NULL
+GROUP BY project_id, created::date;
+
+INSERT INTO annotation_daily_count(project_id, reviewed, term_id, day, count)
+SELECT ua.project_id, FALSE, at.term_id, ua.created::date, count(DISTINCT ua.id)
+FROM user_annotation ua
+JOIN annotation_term at ON at.user_annotation_id = ua.id
+WHERE ua.created IS NOT NULL
+GROUP BY ua.project_id, at.term_id, ua.created::date;
+
+INSERT INTO annotation_daily_count(project_id, reviewed, term_id, day, count)
+SELECT project_id, TRUE, 0, created::date, count(*)
+FROM reviewed_annotation
+WHERE created IS NOT NULL
+GROUP BY project_id, created::date;
+
+INSERT INTO annotation_daily_count(project_id, reviewed, term_id, day, count)
+SELECT ra.project_id, TRUE, rat.term_id, ra.created::date, count(*)
+FROM reviewed_annotation ra
+JOIN reviewed_annotation_term rat ON rat.reviewed_annotation_terms_id = ra.id
+WHERE ra.created IS NOT NULL
+GROUP BY ra.project_id, rat.term_id, ra.created::date;
+
+--changeset cytomine:2026-10-17-annotation-daily-count-triggers splitStatements:false
+CREATE OR REPLACE FUNCTION addAnnotationDailyCount(
+    projectId BIGINT, isReviewed BOOLEAN, termId BIGINT, createdAt TIMESTAMP, delta BIGINT
+) RETURNS VOID AS $addAnnotationDailyCount$
+BEGIN
+    IF projectId IS NULL OR createdAt IS NULL THEN
+        RETURN;
+    END IF;
+    INSERT INTO annotation_daily_count(project_id, reviewed, term_id, day, count)
+    VALUES (projectId, isReviewed, termId, createdAt::date, delta)
+    ON CONFLICT (project_id, reviewed, term_id, day)
+        DO UPDATE SET count = annotation_daily_count.count + EXCLUDED.count;
+END;
+$addAnnotationDailyCount$ LANGUAGE plpgsql;
+
+-------------------------------------------------------------------------------------
+CREATE OR REPLACE FUNCTION userAnnotationDailyCount() RETURNS TRIGGER AS $userAnnotationDailyCount$
+DECLARE
+    currentTerm BIGINT;
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        PERFORM addAnnotationDailyCount(NEW.project_id, FALSE, 0, NEW.created, 1);
+    ELSEIF TG_OP = 'DELETE' THEN
+        PERFORM addAnnotationDailyCount(OLD.project_id, FALSE, 0, OLD.created, -1);
+    ELSEIF NEW.project_id IS DISTINCT FROM OLD.project_id OR NEW.created::date IS DISTINCT FROM OLD.created::date THEN
+        PERFORM addAnnotationDailyCount(OLD.project_id, FALSE, 0, OLD.created, -1);
+        PERFORM addAnnotationDailyCount(NEW.project_id, FALSE, 0, NEW.created, 1);
+        FOR currentTerm IN SELECT DISTINCT term_id FROM annotation_term WHERE user_annotation_id = NEW.id LOOP
+            PERFORM addAnnotationDailyCount(OLD.project_id, FALSE, currentTerm, OLD.created, -1);
+            PERFORM addAnnotationDailyCount(NEW.project_id, FALSE, currentTerm, NEW.created, 1);
+        END LOOP;
+    END IF;
+    RETURN NULL;
+END;
+$userAnnotationDailyCount$ LANGUAGE plpgsql;
+DROP TRIGGER IF EXISTS userAnnotationDailyCountTrigger ON user_annotation;
+CREATE TRIGGER userAnnotationDailyCountTrigger AFTER INSERT OR UPDATE OR DELETE ON user_annotation
+    FOR EACH ROW EXECUTE PROCEDURE userAnnotationDailyCount();
+
+-------------------------------------------------------------------------------------
+-- The same term may be associated with an annotation by several users: the annotation is only counted once per term
+CREATE OR REPLACE FUNCTION annotationTermDailyCount() RETURNS TRIGGER AS $annotationTermDailyCount$
+DECLARE
+    annotation user_annotation%ROWTYPE;
+BEGIN
+    IF TG_OP = 'UPDATE' AND NEW.user_annotation_id = OLD.user_annotation_id AND NEW.term_id = OLD.term_id THEN
+        RETURN NULL;
+    END IF;
+    IF TG_OP IN ('DELETE', 'UPDATE') AND NOT EXISTS (
+        SELECT 1 FROM annotation_term WHERE user_annotation_id = OLD.user_annotation_id AND term_id = OLD.term_id
+    ) THEN
+        SELECT * INTO annotation FROM user_annotation WHERE id = OLD.user_annotation_id;
+        IF FOUND THEN
+            PERFORM addAnnotationDailyCount(annotation.project_id, FALSE, OLD.term_id, annotation.created, -1);
+        END IF;
+    END IF;
+    IF TG_OP IN ('INSERT', 'UPDATE') AND (
+        SELECT count(*) FROM annotation_term WHERE user_annotation_id = NEW.user_annotation_id AND term_id = NEW.term_id
+    ) = 1 THEN
+        SELECT * INTO annotation FROM user_annotation WHERE id = NEW.user_annotation_id;
+        IF FOUND THEN
+            PERFORM addAnnotationDailyCount(annotation.project_id, FALSE, NEW.term_id, annotation.created, 1);
+        END IF;
+    END IF;
+    RETURN NULL;
+END;
+$annotationTermDailyCount$ LANGUAGE plpgsql;
+DROP TRIGGER IF EXISTS annotationTermDailyCountTrigger ON annotation_term;
+CREATE TRIGGER annotationTermDailyCountTrigger AFTER INSERT OR DELETE OR UPDATE OF user_annotation_id, term_id
+    ON annotation_term FOR EACH ROW EXECUTE PROCEDURE annotationTermDailyCount();
+
+-------------------------------------------------------------------------------------
+CREATE OR REPLACE FUNCTION reviewedAnnotationDailyCount() RETURNS TRIGGER AS $reviewedAnnotationDailyCount$
+DECLARE
+    currentTerm BIGINT;
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        PERFORM addAnnotationDailyCount(NEW.project_id, TRUE, 0, NEW.created, 1);
+    ELSEIF TG_OP = 'DELETE' THEN
+        PERFORM addAnnotationDailyCount(OLD.project_id, TRUE, 0, OLD.created, -1);
+    ELSEIF NEW.project_id IS DISTINCT FROM OLD.project_id OR NEW.created::date IS DISTINCT FROM OLD.created::date THEN
+        PERFORM addAnnotationDailyCount(OLD.project_id, TRUE, 0, OLD.created, -1);
+        PERFORM addAnnotationDailyCount(NEW.project_id, TRUE, 0, NEW.created, 1);
+        FOR currentTerm IN SELECT term_id FROM reviewed_annotation_term WHERE reviewed_annotation_terms_id = NEW.id LOOP
+            PERFORM addAnnotationDailyCount(OLD.project_id, TRUE, currentTerm, OLD.created, -1);
+            PERFORM addAnnotationDailyCount(NEW.project_id, TRUE, currentTerm, NEW.created, 1);
+        END LOOP;
+    END IF;
+    RETURN NULL;
+END;
+$reviewedAnnotationDailyCount$ LANGUAGE plpgsql;
+DROP TRIGGER IF EXISTS reviewedAnnotationDailyCountTrigger ON reviewed_annotation;
+CREATE TRIGGER reviewedAnnotationDailyCountTrigger AFTER INSERT OR UPDATE OR DELETE ON reviewed_annotation
+    FOR EACH ROW EXECUTE PROCEDURE reviewedAnnotationDailyCount();
+
+-------------------------------------------------------------------------------------
+CREATE OR REPLACE FUNCTION reviewedAnnotationTermDailyCount() RETURNS TRIGGER AS $reviewedAnnotationTermDailyCount$
+DECLARE
+    annotation reviewed_annotation%ROWTYPE;
+BEGIN
+    IF TG_OP = 'UPDATE'
+        AND NEW.reviewed_annotation_terms_id = OLD.reviewed_annotation_terms_id AND NEW.term_id = OLD.term_id THEN
+        RETURN NULL;
+    END IF;
+    IF TG_OP IN ('DELETE', 'UPDATE') THEN
+        SELECT * INTO annotation FROM reviewed_annotation WHERE id = OLD.reviewed_annotation_terms_id;
+        IF FOUND THEN
+            PERFORM addAnnotationDailyCount(annotation.project_id, TRUE, OLD.term_id, annotation.created, -1);
+        END IF;
+    END IF;
+    IF TG_OP IN ('INSERT', 'UPDATE') THEN
+        SELECT * INTO annotation FROM reviewed_annotation WHERE id = NEW.reviewed_annotation_terms_id;
+        IF FOUND THEN
+            PERFORM addAnnotationDailyCount(annotation.project_id, TRUE, NEW.term_id, annotation.created, 1);
+        END IF;
+    END IF;
+    RETURN NULL;
+END;
+$reviewedAnnotationTermDailyCount$ LANGUAGE plpgsql;
+DROP TRIGGER IF EXISTS reviewedAnnotationTermDailyCountTrigger ON reviewed_annotation_term;
+CREATE TRIGGER reviewedAnnotationTermDailyCountTrigger AFTER INSERT OR DELETE OR UPDATE
+    ON reviewed_annotation_term FOR EACH ROW EXECUTE PROCEDURE reviewedAnnotationTermDailyCount();
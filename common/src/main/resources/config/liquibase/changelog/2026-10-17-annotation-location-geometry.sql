@@ -0,0 +1,12 @@
+--liquibase formatted sql
+--changeset cytomine:2026-10-17-annotation-location-geometry
+ALTER TABLE annotation ADD COLUMN geometry geometry;
+UPDATE annotation SET geometry = CASE
+    WHEN convert_from(location, 'UTF8') LIKE '{%' THEN ST_GeomFromGeoJSON(convert_from(location, 'UTF8'))
+    ELSE ST_GeomFromText(convert_from(location, 'UTF8'))
+END;
+ALTER TABLE annotation DROP COLUMN location;
+ALTER TABLE annotation RENAME COLUMN geometry TO location;
+ALTER TABLE annotation ALTER COLUMN location SET NOT NULL;
+CREATE INDEX annotation_location_index ON annotation USING GIST (location);
+CREATE INDEX annotation_layer_id_index ON annotation (layer_id);
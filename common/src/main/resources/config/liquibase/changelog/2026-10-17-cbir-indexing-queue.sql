@@ -0,0 +1,12 @@
+--liquibase formatted sql
+--changeset cytomine:2026-10-17-cbir-indexing-queue
+CREATE TABLE cbir_indexing_task (
+    annotation_id BIGINT PRIMARY KEY,
+    project_id BIGINT NOT NULL,
+    attempts INTEGER NOT NULL DEFAULT 0,
+    next_attempt TIMESTAMP WITHOUT TIME ZONE NOT NULL DEFAULT now(),
+    last_error TEXT,
+    created TIMESTAMP WITHOUT TIME ZONE NOT NULL DEFAULT now()
+);
+CREATE INDEX cbir_indexing_task_next_attempt_index ON cbir_indexing_task (next_attempt);
+CREATE INDEX cbir_indexing_task_project_id_index ON cbir_indexing_task (project_id);
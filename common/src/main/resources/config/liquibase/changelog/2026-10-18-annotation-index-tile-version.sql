@@ -0,0 +1,94 @@
+--liquibase formatted sql
+--changeset cytomine:2026-10-18-annotation-index-tile-version splitStatements:false
+-- The annotation_index version is part of the fingerprint of the annotation vector tiles.
+-- Besides the inserts and deletes, it is now also incremented when an annotation is moved
+-- and when the terms of an annotation change, as both change the content of the tiles.
+CREATE OR REPLACE FUNCTION incrementAnnotationIndexVersion(userId BIGINT, sliceId BIGINT)
+RETURNS VOID AS $incAnnIndexVersion$
+BEGIN
+    UPDATE annotation_index SET version = version+1
+    WHERE user_id = userId AND slice_id = sliceId;
+END;
+$incAnnIndexVersion$ LANGUAGE plpgsql;
+
+-------------------------------------------------------------------------------------
+CREATE OR REPLACE FUNCTION userAnnotationIndexVersion() RETURNS TRIGGER AS $userAnnotationIndexVersion$
+BEGIN
+    IF NEW.location IS DISTINCT FROM OLD.location OR NEW.slice_id <> OLD.slice_id THEN
+        PERFORM incrementAnnotationIndexVersion(OLD.user_id, OLD.slice_id);
+        IF NEW.slice_id <> OLD.slice_id THEN
+            PERFORM incrementAnnotationIndexVersion(NEW.user_id, NEW.slice_id);
+        END IF;
+    END IF;
+    RETURN NULL;
+END;
+$userAnnotationIndexVersion$ LANGUAGE plpgsql;
+DROP TRIGGER IF EXISTS userAnnotationIndexVersionTrigger ON user_annotation;
+CREATE TRIGGER userAnnotationIndexVersionTrigger AFTER UPDATE OF location, slice_id
+    ON user_annotation FOR EACH ROW EXECUTE PROCEDURE userAnnotationIndexVersion();
+
+-------------------------------------------------------------------------------------
+CREATE OR REPLACE FUNCTION reviewedAnnotationIndexVersion() RETURNS TRIGGER AS $reviewedAnnotationIndexVersion$
+BEGIN
+    IF NEW.location IS DISTINCT FROM OLD.location OR NEW.slice_id <> OLD.slice_id THEN
+        PERFORM incrementAnnotationIndexVersion(OLD.review_user_id, OLD.slice_id);
+        IF NEW.slice_id <> OLD.slice_id THEN
+            PERFORM incrementAnnotationIndexVersion(NEW.review_user_id, NEW.slice_id);
+        END IF;
+    END IF;
+    RETURN NULL;
+END;
+$reviewedAnnotationIndexVersion$ LANGUAGE plpgsql;
+DROP TRIGGER IF EXISTS reviewedAnnotationIndexVersionTrigger ON reviewed_annotation;
+CREATE TRIGGER reviewedAnnotationIndexVersionTrigger AFTER UPDATE OF location, slice_id
+    ON reviewed_annotation FOR EACH ROW EXECUTE PROCEDURE reviewedAnnotationIndexVersion();
+
+-------------------------------------------------------------------------------------
+CREATE OR REPLACE FUNCTION annotationTermIndexVersion() RETURNS TRIGGER AS $annotationTermIndexVersion$
+DECLARE
+    annotation user_annotation%ROWTYPE;
+BEGIN
+    IF TG_OP IN ('DELETE', 'UPDATE') THEN
+        SELECT * INTO annotation FROM user_annotation WHERE id = OLD.user_annotation_id;
+        IF FOUND THEN
+            PERFORM incrementAnnotationIndexVersion(annotation.user_id, annotation.slice_id);
+        END IF;
+    END IF;
+    IF TG_OP = 'INSERT' OR (TG_OP = 'UPDATE' AND NEW.user_annotation_id <> OLD.user_annotation_id) THEN
+        SELECT * INTO annotation FROM user_annotation WHERE id = NEW.user_annotation_id;
+        IF FOUND THEN
+            PERFORM incrementAnnotationIndexVersion(annotation.user_id, annotation.slice_id);
+        END IF;
+    END IF;
+    RETURN NULL;
+END;
+$annotationTermIndexVersion$ LANGUAGE plpgsql;
+DROP TRIGGER IF EXISTS annotationTermIndexVersionTrigger ON annotation_term;
+CREATE TRIGGER annotationTermIndexVersionTrigger AFTER INSERT OR DELETE
+    OR UPDATE OF user_annotation_id, term_id, deleted
+    ON annotation_term FOR EACH ROW EXECUTE PROCEDURE annotationTermIndexVersion();
+
+-------------------------------------------------------------------------------------
+CREATE OR REPLACE FUNCTION reviewedAnnotationTermIndexVersion() RETURNS TRIGGER AS $reviewedAnnotationTermIndexVersion$
+DECLARE
+    annotation reviewed_annotation%ROWTYPE;
+BEGIN
+    IF TG_OP IN ('DELETE', 'UPDATE') THEN
+        SELECT * INTO annotation FROM reviewed_annotation WHERE id = OLD.reviewed_annotation_terms_id;
+        IF FOUND THEN
+            PERFORM incrementAnnotationIndexVersion(annotation.review_user_id, annotation.slice_id);
+        END IF;
+    END IF;
+    IF TG_OP = 'INSERT'
+        OR (TG_OP = 'UPDATE' AND NEW.reviewed_annotation_terms_id <> OLD.reviewed_annotation_terms_id) THEN
+        SELECT * INTO annotation FROM reviewed_annotation WHERE id = NEW.reviewed_annotation_terms_id;
+        IF FOUND THEN
+            PERFORM incrementAnnotationIndexVersion(annotation.review_user_id, annotation.slice_id);
+        END IF;
+    END IF;
+    RETURN NULL;
+END;
+$reviewedAnnotationTermIndexVersion$ LANGUAGE plpgsql;
+DROP TRIGGER IF EXISTS reviewedAnnotationTermIndexVersionTrigger ON reviewed_annotation_term;
+CREATE TRIGGER reviewedAnnotationTermIndexVersionTrigger AFTER INSERT OR DELETE OR UPDATE
+    ON reviewed_annotation_term FOR EACH ROW EXECUTE PROCEDURE reviewedAnnotationTermIndexVersion();
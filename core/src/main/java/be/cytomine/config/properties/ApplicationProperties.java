@@ -64,11 +64,118 @@ public class ApplicationProperties {
 
     private Annotation annotation;
 
+    private Acl acl = new Acl();
+
+    private UserPosition userPosition = new UserPosition();
+
+    private ImageCache imageCache = new ImageCache();
+
+    private RetrievalIndexing retrievalIndexing = new RetrievalIndexing();
+
+    private AnnotationCounters annotationCounters = new AnnotationCounters();
+
     @ToString
     @Getter
     @Setter
     public static class Annotation {
         int maxNumberOfPoint;
 
+        /**
+         * Number of threads preparing the annotation geometries (0 to use one thread per CPU)
+         */
+        int geometryThreads = 0;
+    }
+
+    @ToString
+    @Getter
+    @Setter
+    public static class Acl {
+        /**
+         * How long (ms) the ACL masks of a user on a domain are kept in memory
+         */
+        long cacheTimeToLive = 30000;
+
+        int cacheMaxSize = 10000;
+    }
+
+    @ToString
+    @Getter
+    @Setter
+    public static class UserPosition {
+        /**
+         * Delay (ms) between two bulk writes of the user positions, 0 to write them synchronously
+         */
+        long flushInterval = 1000;
+
+        int batchSize = 500;
+
+        int queueCapacity = 10000;
+
+        /**
+         * How long (ms) the latest position of a user is served from memory to its followers
+         */
+        long liveTimeToLive = 60000;
+    }
+
+    @ToString
+    @Getter
+    @Setter
+    public static class ImageCache {
+        /**
+         * Disabled by default: the image server and the reverse proxy usually cache the images already
+         */
+        boolean enabled = false;
+
+        /**
+         * Memory budget (bytes) of the cached tiles, thumbs, crops and windows
+         */
+        long memorySize = 32L * 1024 * 1024;
+
+        /**
+         * Larger responses are never cached
+         */
+        long maxEntrySize = 4L * 1024 * 1024;
+
+        long timeToLive = 3600000;
+
+        /**
+         * Directory of the disk tier, the disk tier is disabled if empty
+         */
+        String diskPath;
+
+        long diskSize = 2L * 1024 * 1024 * 1024;
+    }
+
+    @ToString
+    @Getter
+    @Setter
+    public static class RetrievalIndexing {
+        /**
+         * Number of annotations cropped and sent to the CBIR in parallel, 0 to disable indexing workers
+         */
+        int workers = 4;
+
+        int batchSize = 32;
+
+        long pollInterval = 2000;
+
+        int maxAttempts = 8;
+
+        /**
+         * Delay (ms) before the first retry, doubled after each failure
+         */
+        long retryDelay = 5000;
+    }
+
+    @ToString
+    @Getter
+    @Setter
+    public static class AnnotationCounters {
+        /**
+         * Delay (ms) between two folds of the annotation counter deltas into the totals, 0 to disable folding
+         */
+        long foldInterval = 1000;
+
+        int batchSize = 10000;
     }
 }
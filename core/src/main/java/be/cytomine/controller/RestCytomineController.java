@@ -4,9 +4,11 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.net.URLDecoder;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
@@ -18,7 +20,6 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
-import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -35,9 +36,9 @@ import be.cytomine.service.ModelService;
 import be.cytomine.service.UrlApi;
 import be.cytomine.service.command.TransactionService;
 import be.cytomine.utils.CommandResponse;
+import be.cytomine.utils.JsonCollectionWriter;
 import be.cytomine.utils.JsonObject;
 import be.cytomine.utils.OffsetBasedPageRequest;
-import be.cytomine.utils.ReportType;
 import be.cytomine.utils.RequestParams;
 import be.cytomine.utils.Task;
 import be.cytomine.utils.filters.SearchParameterEntry;
@@ -319,6 +320,25 @@ public abstract class RestCytomineController {
             .body(buildJsonList(list, offsetParameter, maxParameter).toJsonString());
     }
 
+    /**
+     * Write a list with the same envelope as responseSuccess(List, Long, Long), but item by item as the producer
+     * emits them, so that the whole list is never built in memory.
+     */
+    protected void responseSuccessStream(Long offsetParameter, Long maxParameter, Consumer<Consumer<Object>> producer)
+        throws IOException {
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+
+        JsonCollectionWriter writer = new JsonCollectionWriter(
+            response.getOutputStream(),
+            offsetParameter,
+            maxParameter
+        );
+        producer.accept(writer);
+        writer.finish();
+    }
+
     protected ResponseEntity<String> buildJson(Map<String, Object> response, int code) {
         return ResponseEntity.status(code).body(convertObjectToJSON(response));
     }
@@ -499,22 +519,17 @@ public abstract class RestCytomineController {
         }
     }
 
-    protected ResponseEntity<byte[]> buildReportResponse(String filename, byte[] content, ReportType reportType) {
-        MediaType mediaType = switch (reportType) {
-            case PDF -> MediaType.APPLICATION_PDF;
-            case CSV -> MediaType.parseMediaType("text/csv");
-            case EXCEL -> MediaType.APPLICATION_OCTET_STREAM;
-            case GEOJSON -> MediaType.parseMediaType("application/geo+json");
-        };
-
-        return ResponseEntity.ok()
-            .contentType(mediaType)
-            .contentLength(content.length)
-            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename)
-            .body(content);
+    protected void responseReportFile(String name, byte[] array, String format) throws IOException {
+        try (OutputStream os = openReportFile(name, format)) {
+            os.write(array, 0, array.length);
+            os.flush();
+        }
     }
 
-    protected void responseReportFile(String name, byte[] array, String format) throws IOException {
+    /**
+     * Start a report file response, the report is then written on the returned stream while it is generated
+     */
+    protected OutputStream openReportFile(String name, String format) throws IOException {
         response.setStatus(200);
         switch (format) {
             case "pdf" -> response.setHeader("Content-Type", "application/pdf");
@@ -523,9 +538,6 @@ public abstract class RestCytomineController {
             default -> throw new RuntimeException("Unsupported format: " + format);
         }
         response.setHeader("Content-disposition", "attachment; filename=" + name);
-        try (OutputStream os = response.getOutputStream()) {
-            os.write(array, 0, array.length);
-            os.flush();
-        }
+        return response.getOutputStream();
     }
 }
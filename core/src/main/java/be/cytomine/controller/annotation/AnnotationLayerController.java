@@ -1,13 +1,14 @@
 package be.cytomine.controller.annotation;
 
+import java.util.List;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import be.cytomine.domain.annotation.AnnotationLayer;
@@ -15,6 +16,7 @@ import be.cytomine.dto.annotation.AnnotationLayerResponse;
 import be.cytomine.dto.annotation.AnnotationResponse;
 import be.cytomine.dto.appengine.task.TaskRunLayerValue;
 import be.cytomine.exceptions.ObjectNotFoundException;
+import be.cytomine.exceptions.WrongArgumentException;
 import be.cytomine.repository.annotation.AnnotationRepository;
 import be.cytomine.repository.appengine.TaskRunLayerRepository;
 import be.cytomine.service.annotation.AnnotationLayerService;
@@ -37,22 +39,26 @@ public class AnnotationLayerController {
         return annotationLayerService.findByTaskRunLayer(id);
     }
 
+    /**
+     * List the annotations of a layer, or only the ones intersecting the bbox "left,bottom,right,top" if given
+     */
     @GetMapping("/annotation-layers/{id}/annotations")
-    public Set<AnnotationResponse> getAnnotationsByLayer(@PathVariable Long id) {
+    public List<AnnotationResponse> getAnnotationsByLayer(
+        @PathVariable Long id,
+        @RequestParam(required = false) String bbox
+    ) {
         log.info("GET /annotation-layers/{}/annotations", id);
 
         AnnotationLayer layer = annotationLayerService
             .find(id)
             .orElseThrow(() -> new ObjectNotFoundException("AnnotationLayer " + id + " not found"));
 
-        return annotationRepository.findAllByAnnotationLayer(layer)
-            .stream()
-            .map(annotation -> new AnnotationResponse(
-                annotation.getId(),
-                annotation.getAnnotationLayer().getId(),
-                annotation.getLocation()
-            ))
-            .collect(Collectors.toSet());
+        if (bbox == null) {
+            return annotationRepository.listByLayer(layer.getId());
+        }
+
+        double[] box = parseBbox(bbox);
+        return annotationRepository.listByLayerInBox(layer.getId(), box[0], box[1], box[2], box[3]);
     }
 
     @GetMapping("/annotation-layers/{id}/task-run-layer")
@@ -66,4 +72,20 @@ public class AnnotationLayerController {
             ))
             .orElseThrow(() -> new ObjectNotFoundException("TaskRunLayer", id));
     }
+
+    private static double[] parseBbox(String bbox) {
+        String[] bounds = bbox.split(",");
+        if (bounds.length != 4) {
+            throw new WrongArgumentException("bbox must be 'left,bottom,right,top': " + bbox);
+        }
+        try {
+            double[] box = new double[4];
+            for (int i = 0; i < 4; i++) {
+                box[i] = Double.parseDouble(bounds[i].trim());
+            }
+            return box;
+        } catch (NumberFormatException e) {
+            throw new WrongArgumentException("bbox must be 'left,bottom,right,top': " + bbox);
+        }
+    }
 }
@@ -6,6 +6,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.locationtech.jts.io.ParseException;
 import org.springframework.cloud.gateway.mvc.ProxyExchange;
+import org.springframework.core.io.Resource;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -114,7 +115,7 @@ public class RestAbstractImageController extends RestCytomineController {
 
     // TODO:MIGRATION GET params vs POST params!
     @RequestMapping(value = "/abstractimage/{id}/thumb.{format}", method = {RequestMethod.GET, RequestMethod.POST})
-    public ResponseEntity<byte[]> thumb(
+    public ResponseEntity<Resource> thumb(
         @PathVariable Long id,
         @PathVariable String format,
         @RequestParam(required = false) Boolean refresh,
@@ -149,7 +150,7 @@ public class RestAbstractImageController extends RestCytomineController {
     }
 
     @RequestMapping(value = "/abstractimage/{id}/preview.{format}", method = {RequestMethod.GET, RequestMethod.POST})
-    public ResponseEntity<byte[]> preview(
+    public ResponseEntity<Resource> preview(
         @PathVariable Long id,
         @PathVariable String format,
         @RequestParam(defaultValue = "1024", required = false) Integer maxSize,
@@ -214,7 +215,7 @@ public class RestAbstractImageController extends RestCytomineController {
 
     @SuppressWarnings("checkstyle:VariableDeclarationUsageDistance")
     @RequestMapping(value = "/abstractimage/{id}/crop.{format}", method = {RequestMethod.GET, RequestMethod.POST})
-    public ResponseEntity<byte[]> crop(
+    public ResponseEntity<Resource> crop(
         @PathVariable Long id,
         @PathVariable String format,
         @RequestParam(defaultValue = "256") Integer maxSize,
@@ -285,7 +286,7 @@ public class RestAbstractImageController extends RestCytomineController {
     @RequestMapping(
         value = "/abstractimage/{id}/window-{x}-{y}-{w}-{h}.{format}", method = {RequestMethod.GET, RequestMethod.POST}
     )
-    public ResponseEntity<byte[]> window(
+    public ResponseEntity<Resource> window(
         @PathVariable Long id,
         @PathVariable String format,
         @PathVariable Integer x,
@@ -315,7 +316,7 @@ public class RestAbstractImageController extends RestCytomineController {
     @RequestMapping(
         value = "/abstractimage/{id}/camera-{x}-{y}-{w}-{h}.{format}", method = {RequestMethod.GET, RequestMethod.POST}
     )
-    public ResponseEntity<byte[]> camera(
+    public ResponseEntity<Resource> camera(
         @PathVariable Long id,
         @PathVariable String format,
         @PathVariable Integer x,
@@ -6,6 +6,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.locationtech.jts.io.ParseException;
 import org.springframework.cloud.gateway.mvc.ProxyExchange;
+import org.springframework.core.io.Resource;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -128,7 +129,7 @@ public class RestAbstractSliceController extends RestCytomineController {
 
     @SuppressWarnings("checkstyle:VariableDeclarationUsageDistance")
     @GetMapping("/abstractslice/{id}/normalized-tile/zoom/{z}/tx/{tx}/ty/{ty}.{format}")
-    public ResponseEntity<byte[]> tile(
+    public ResponseEntity<Resource> tile(
         @PathVariable Long id,
         @PathVariable Long z,
         @PathVariable Long tx,
@@ -174,7 +175,7 @@ public class RestAbstractSliceController extends RestCytomineController {
 
     // TODO:MIGRATION GET params vs POST params!
     @RequestMapping(value = "/abstractslice/{id}/thumb.{format}", method = {RequestMethod.GET, RequestMethod.POST})
-    public ResponseEntity<byte[]> thumb(
+    public ResponseEntity<Resource> thumb(
         @PathVariable Long id,
         @PathVariable String format,
         @RequestParam(required = false) Boolean refresh,
@@ -207,7 +208,7 @@ public class RestAbstractSliceController extends RestCytomineController {
 
     @SuppressWarnings("checkstyle:VariableDeclarationUsageDistance")
     @RequestMapping(value = "/abstractslice/{id}/crop.{format}", method = {RequestMethod.GET, RequestMethod.POST})
-    public ResponseEntity<byte[]> crop(
+    public ResponseEntity<Resource> crop(
         @PathVariable Long id,
         @PathVariable String format,
         @RequestParam(defaultValue = "256") Integer maxSize,
@@ -276,7 +277,7 @@ public class RestAbstractSliceController extends RestCytomineController {
     @RequestMapping(
         value = "/abstractslice/{id}/window-{x}-{y}-{w}-{h}.{format}", method = {RequestMethod.GET, RequestMethod.POST}
     )
-    public ResponseEntity<byte[]> window(
+    public ResponseEntity<Resource> window(
         @PathVariable Long id,
         @PathVariable String format,
         @PathVariable Integer x,
@@ -304,7 +305,7 @@ public class RestAbstractSliceController extends RestCytomineController {
     @RequestMapping(
         value = "/abstractslice/{id}/camera-{x}-{y}-{w}-{h}.{format}", method = {RequestMethod.GET, RequestMethod.POST}
     )
-    public ResponseEntity<byte[]> camera(
+    public ResponseEntity<Resource> camera(
         @PathVariable Long id,
         @PathVariable String format,
         @PathVariable Integer x,
@@ -8,6 +8,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.locationtech.jts.io.ParseException;
 import org.springframework.cloud.gateway.mvc.ProxyExchange;
+import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -231,7 +232,7 @@ public class RestImageInstanceController extends RestCytomineController {
 
     //    // TODO:MIGRATION GET params vs POST params!
     @RequestMapping(value = "/imageinstance/{id}/thumb.{format}", method = {RequestMethod.GET, RequestMethod.POST})
-    public ResponseEntity<byte[]> thumb(
+    public ResponseEntity<Resource> thumb(
         @PathVariable Long id,
         @PathVariable String format,
         @RequestParam(defaultValue = "512", required = false) Integer maxSize,
@@ -263,7 +264,7 @@ public class RestImageInstanceController extends RestCytomineController {
 
 
     @RequestMapping(value = "/imageinstance/{id}/preview.{format}", method = {RequestMethod.GET, RequestMethod.POST})
-    public ResponseEntity<byte[]> preview(
+    public ResponseEntity<Resource> preview(
         @PathVariable Long id,
         @PathVariable String format,
         @RequestParam(defaultValue = "1024", required = false) Integer maxSize,
@@ -374,7 +375,7 @@ public class RestImageInstanceController extends RestCytomineController {
 
     @SuppressWarnings("checkstyle:VariableDeclarationUsageDistance")
     @RequestMapping(value = "/imageinstance/{id}/crop.{format}", method = {RequestMethod.GET, RequestMethod.POST})
-    public ResponseEntity<byte[]> crop(
+    public ResponseEntity<Resource> crop(
         @PathVariable Long id,
         @PathVariable String format,
         @RequestParam(defaultValue = "256") Integer maxSize,
@@ -446,7 +447,7 @@ public class RestImageInstanceController extends RestCytomineController {
     @RequestMapping(
         value = "/imageinstance/{id}/window-{x}-{y}-{w}-{h}.{format}", method = {RequestMethod.GET, RequestMethod.POST}
     )
-    public ResponseEntity<byte[]> window(
+    public ResponseEntity<Resource> window(
         @PathVariable Long id,
         @PathVariable String format,
         @PathVariable Integer x,
@@ -478,7 +479,7 @@ public class RestImageInstanceController extends RestCytomineController {
     @RequestMapping(
         value = "/imageinstance/{id}/camera-{x}-{y}-{w}-{h}.{format}", method = {RequestMethod.GET, RequestMethod.POST}
     )
-    public ResponseEntity<byte[]> camera(
+    public ResponseEntity<Resource> camera(
         @PathVariable Long id,
         @PathVariable String format,
         @PathVariable Integer x,
@@ -6,6 +6,10 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.locationtech.jts.io.ParseException;
 import org.springframework.cloud.gateway.mvc.ProxyExchange;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -21,6 +25,7 @@ import org.springframework.web.bind.annotation.RestController;
 import be.cytomine.controller.RestCytomineController;
 import be.cytomine.domain.image.ImageInstance;
 import be.cytomine.domain.image.SliceInstance;
+import be.cytomine.dto.annotation.AnnotationTileParameters;
 import be.cytomine.dto.image.CropParameter;
 import be.cytomine.dto.image.ImageParameter;
 import be.cytomine.dto.image.TileParameters;
@@ -29,7 +34,9 @@ import be.cytomine.exceptions.ObjectNotFoundException;
 import be.cytomine.service.image.ImageInstanceService;
 import be.cytomine.service.image.SliceInstanceService;
 import be.cytomine.service.middleware.ImageServerService;
+import be.cytomine.service.ontology.AnnotationTileService;
 import be.cytomine.utils.JsonObject;
+import be.cytomine.utils.StringUtils;
 
 @RestController
 @RequestMapping("/api")
@@ -43,6 +50,8 @@ public class RestSliceInstanceController extends RestCytomineController {
 
     private final ImageServerService imageServerService;
 
+    private final AnnotationTileService annotationTileService;
+
     @GetMapping("/imageinstance/{id}/sliceinstance.json")
     public ResponseEntity<String> listByImageInstance(
         @PathVariable Long id
@@ -103,7 +112,7 @@ public class RestSliceInstanceController extends RestCytomineController {
 
     @SuppressWarnings("checkstyle:VariableDeclarationUsageDistance")
     @GetMapping("/sliceinstance/{id}/normalized-tile/zoom/{z}/tx/{tx}/ty/{ty}.{format}")
-    public ResponseEntity<byte[]> tile(
+    public ResponseEntity<Resource> tile(
         @PathVariable Long id,
         @PathVariable Long z,
         @PathVariable Long tx,
@@ -147,9 +156,45 @@ public class RestSliceInstanceController extends RestCytomineController {
         return imageServerService.normalizedTile(sliceInstance, tileParameters, etag, proxy);
     }
 
+    /**
+     * Annotations of a slice as a Mapbox Vector Tile, on the same tile grid as normalized tiles
+     */
+    @GetMapping("/sliceinstance/{id}/annotations/tile/{z}/{tx}/{ty}.mvt")
+    public ResponseEntity<byte[]> annotationTile(
+        @PathVariable Long id,
+        @PathVariable Long z,
+        @PathVariable Long tx,
+        @PathVariable Long ty,
+        @RequestParam(required = false) String users,
+        @RequestParam(defaultValue = "false") Boolean reviewed
+    ) {
+        log.debug("REST request to get annotation tile {}/{}/{} for slice {}", z, tx, ty, id);
+        SliceInstance sliceInstance = sliceInstanceService.find(id)
+            .orElseThrow(() -> new ObjectNotFoundException("SliceInstance", id));
+
+        AnnotationTileParameters tile = new AnnotationTileParameters(
+            z,
+            tx,
+            ty,
+            StringUtils.extractListFromParameter(users),
+            reviewed
+        );
+
+        String etag = annotationTileService.getTileETag(sliceInstance, tile);
+        if (etag.equals(getRequestETag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+
+        return ResponseEntity.ok()
+            .contentType(MediaType.parseMediaType(AnnotationTileService.MVT_CONTENT_TYPE))
+            .cacheControl(CacheControl.noCache().cachePrivate())
+            .eTag(etag)
+            .body(annotationTileService.getTile(sliceInstance, tile));
+    }
+
     //    // TODO:MIGRATION GET params vs POST params!
     @RequestMapping(value = "/sliceinstance/{id}/thumb.{format}", method = {RequestMethod.GET, RequestMethod.POST})
-    public ResponseEntity<byte[]> thumb(
+    public ResponseEntity<Resource> thumb(
         @PathVariable Long id,
         @PathVariable String format,
         @RequestParam(required = false) Boolean refresh,
@@ -183,7 +228,7 @@ public class RestSliceInstanceController extends RestCytomineController {
 
     @SuppressWarnings("checkstyle:VariableDeclarationUsageDistance")
     @RequestMapping(value = "/sliceinstance/{id}/crop.{format}", method = {RequestMethod.GET, RequestMethod.POST})
-    public ResponseEntity<byte[]> crop(
+    public ResponseEntity<Resource> crop(
         @PathVariable Long id,
         @PathVariable String format,
         @RequestParam(defaultValue = "256") Integer maxSize,
@@ -254,7 +299,7 @@ public class RestSliceInstanceController extends RestCytomineController {
     @RequestMapping(
         value = "/sliceinstance/{id}/window-{x}-{y}-{w}-{h}.{format}", method = {RequestMethod.GET, RequestMethod.POST}
     )
-    public ResponseEntity<byte[]> window(
+    public ResponseEntity<Resource> window(
         @PathVariable Long id,
         @PathVariable String format,
         @PathVariable Integer x,
@@ -288,7 +333,7 @@ public class RestSliceInstanceController extends RestCytomineController {
     @RequestMapping(
         value = "/sliceinstance/{id}/camera-{x}-{y}-{w}-{h}.{format}", method = {RequestMethod.GET, RequestMethod.POST}
     )
-    public ResponseEntity<byte[]> camera(
+    public ResponseEntity<Resource> camera(
         @PathVariable Long id,
         @PathVariable String format,
         @PathVariable Integer x,
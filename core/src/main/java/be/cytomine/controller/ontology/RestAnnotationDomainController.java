@@ -1,13 +1,15 @@
 package be.cytomine.controller.ontology;
 
 import java.io.IOException;
-import java.io.UnsupportedEncodingException;
+import java.io.OutputStream;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
 
 import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
@@ -18,8 +20,10 @@ import org.locationtech.jts.io.geojson.GeoJsonReader;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cloud.gateway.mvc.ProxyExchange;
 import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.util.LinkedMultiValueMap;
@@ -76,6 +80,8 @@ import be.cytomine.utils.ReportType;
 @RestController
 public class RestAnnotationDomainController extends RestCytomineController {
 
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+
     private final AnnotationListingService annotationListingService;
 
     private final AnnotationReportService annotationReportService;
@@ -118,38 +124,56 @@ public class RestAnnotationDomainController extends RestCytomineController {
     private String samUrl;
 
     @RequestMapping(value = {"/annotation/search.json"}, method = {RequestMethod.GET, RequestMethod.POST})
-    public ResponseEntity<String> searchSpecified() throws IOException {
-        return search();
+    public void searchSpecified() throws IOException {
+        search();
     }
 
     @RequestMapping(value = {"/annotation.json"}, method = {RequestMethod.GET})
-    public ResponseEntity<String> search() throws IOException {
+    public void search() throws IOException {
         JsonObject params = mergeQueryParamsAndBodyParams();
         AnnotationListing annotationListing = annotationListingBuilder.buildAnnotationListing(params);
-        List annotations = annotationListingService.listGeneric(annotationListing);
 
-        return responseSuccess(annotations, params.getJSONAttrLong("offset", 0L), params.getJSONAttrLong("max", 0L));
+        responseSuccessStream(
+            params.getJSONAttrLong("offset", 0L),
+            params.getJSONAttrLong("max", 0L),
+            consumer -> annotationListingService.streamGeneric(annotationListing, consumer)
+        );
     }
 
     @GetMapping(value = "/project/{projectId}/annotations/export", produces = "application/geo+json")
-    public ResponseEntity<Map<String, Object>> export(@PathVariable Long projectId) {
+    public void export(@PathVariable Long projectId) throws IOException {
         log.info("GET /project/{}/annotations/export", projectId);
         Project project = projectService.find(projectId)
             .orElseThrow(() -> new ObjectNotFoundException("Project", projectId));
 
         String filename = reportService.getAnnotationReportFileName(ReportType.GEOJSON.getLabel(), project.getName());
-        Map<String, Object> geoJson = annotationReportService.exportAnnotations(
-            projectId,
-            currentUserService.getCurrentUser().id()
+        annotationReportService.exportAnnotations(
+            project,
+            currentUserService.getCurrentUser().id(),
+            () -> openExport(filename)
         );
+    }
 
-        return ResponseEntity.ok()
-            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename)
-            .body(geoJson);
+    /**
+     * Start the export response, compressed with gzip when the client accepts it
+     */
+    private OutputStream openExport(String filename) throws IOException {
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType("application/geo+json");
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename);
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (acceptEncoding == null || !acceptEncoding.contains("gzip")) {
+            return response.getOutputStream();
+        }
+        response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        return new GZIPOutputStream(response.getOutputStream(), GZIP_BUFFER_SIZE);
     }
 
     @PostMapping("/project/{projectId}/annotation/download")
-    public ResponseEntity<byte[]> download(@PathVariable Long projectId, @RequestBody AnnotationReportParams params)
+    public void download(@PathVariable Long projectId, @RequestBody AnnotationReportParams params)
         throws IOException {
         ReportType reportType = ReportType.fromLabel(params.format());
         String users = JsonNodeUtils.csvFromStringList(params.users());
@@ -174,16 +198,14 @@ public class RestAnnotationDomainController extends RestCytomineController {
         bodyMap.put("afterThan", afterThan);
 
         JsonObject parameters = new JsonObject(bodyMap);
-        byte[] report = annotationReportService.downloadDocumentByProject(parameters, project,
-            currentUserService.getCurrentUser().id());
         String filename = reportService.getAnnotationReportFileName(reportType.getLabel(), project.getName());
-
-        return buildReportResponse(filename, report, reportType);
+        annotationReportService.writeDocumentByProject(parameters, project,
+            currentUserService.getCurrentUser().id(), openReportFile(filename, reportType.getLabel()));
     }
 
     @SuppressWarnings("checkstyle:VariableDeclarationUsageDistance")
     @RequestMapping(value = "/annotation/{id}/crop.{format}", method = {RequestMethod.GET, RequestMethod.POST})
-    public ResponseEntity<byte[]> crop(
+    public ResponseEntity<Resource> crop(
         @PathVariable Long id,
         @PathVariable String format,
         @RequestParam(required = false) Integer maxSize,
@@ -489,7 +511,7 @@ public class RestAnnotationDomainController extends RestCytomineController {
     @PostMapping("/annotations/{id}/refine")
     public ResponseEntity<String> processAnnotationWithSam(
         @PathVariable Long id
-    ) throws UnsupportedEncodingException, ParseException {
+    ) throws IOException, ParseException {
         log.info("POST /annotations/{}/refine", id);
         AnnotationDomain annotation = AnnotationDomain.getAnnotationDomain(entityManager, id);
         if (!annotation.isUserAnnotation()) {
@@ -502,8 +524,8 @@ public class RestAnnotationDomainController extends RestCytomineController {
         cropParameter.setLocation(annotation.getLocation().toString());
         cropParameter.setDraw(true);
         cropParameter.setSquare(true);
-        ResponseEntity<byte[]> response = imageServerService.crop(annotation, cropParameter, null, null);
-        ByteArrayResource resource = new ByteArrayResource(response.getBody()) {
+        ResponseEntity<Resource> response = imageServerService.crop(annotation, cropParameter, null, null);
+        ByteArrayResource resource = new ByteArrayResource(response.getBody().getContentAsByteArray()) {
             @Override
             public String getFilename() {
                 return annotation.getId().toString() + ".jpg";
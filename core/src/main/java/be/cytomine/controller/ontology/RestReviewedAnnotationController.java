@@ -11,6 +11,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.locationtech.jts.io.ParseException;
 import org.springframework.cloud.gateway.mvc.ProxyExchange;
+import org.springframework.core.io.Resource;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -286,14 +287,14 @@ public class RestReviewedAnnotationController extends RestCytomineController {
 
         JsonObject params = mergeQueryParamsAndBodyParams();
         params.put("reviewed", true);
-        byte[] report = annotationListingBuilder.buildAnnotationReport(idProject, users, params, terms, format,
-            currentUserService.getCurrentUser().id());
-        responseReportFile(reportService.getAnnotationReportFileName(format, idProject), report, format);
+        annotationListingBuilder.writeAnnotationReport(idProject, users, params, terms, format,
+            currentUserService.getCurrentUser().id(),
+            openReportFile(reportService.getAnnotationReportFileName(format, idProject), format));
     }
 
     @SuppressWarnings("checkstyle:VariableDeclarationUsageDistance")
     @RequestMapping(value = "/reviewedannotation/{id}/crop.{format}", method = {GET, POST})
-    public ResponseEntity<byte[]> crop(
+    public ResponseEntity<Resource> crop(
         @PathVariable Long id,
         @PathVariable String format,
         @RequestParam(required = false) Integer maxSize,
@@ -361,7 +362,7 @@ public class RestReviewedAnnotationController extends RestCytomineController {
 
     @SuppressWarnings("checkstyle:VariableDeclarationUsageDistance")
     @RequestMapping(value = "/reviewedannotation/{id}/mask.{format}", method = {GET, POST})
-    public ResponseEntity<byte[]> cropMask(
+    public ResponseEntity<Resource> cropMask(
         @PathVariable Long id,
         @PathVariable String format,
         @RequestParam(required = false) Integer maxSize,
@@ -427,7 +428,7 @@ public class RestReviewedAnnotationController extends RestCytomineController {
 
     @SuppressWarnings("checkstyle:VariableDeclarationUsageDistance")
     @RequestMapping(value = "/reviewedannotation/{id}/alphamask.{format}", method = {GET, POST})
-    public ResponseEntity<byte[]> cropAlphaMask(
+    public ResponseEntity<Resource> cropAlphaMask(
         @PathVariable Long id,
         @PathVariable String format,
         @RequestParam(required = false) Integer maxSize,
@@ -11,6 +11,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.locationtech.jts.io.ParseException;
 import org.springframework.cloud.gateway.mvc.ProxyExchange;
+import org.springframework.core.io.Resource;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -130,9 +131,9 @@ public class RestUserAnnotationController extends RestCytomineController {
                     Collectors.joining(",")) :
                 terms;
         JsonObject params = mergeQueryParamsAndBodyParams();
-        byte[] report = annotationListingBuilder.buildAnnotationReport(idProject, userIds, params, terms, format,
-            currentUserService.getCurrentUser().id());
-        responseReportFile(reportService.getAnnotationReportFileName(format, idProject), report, format);
+        annotationListingBuilder.writeAnnotationReport(idProject, userIds, params, terms, format,
+            currentUserService.getCurrentUser().id(),
+            openReportFile(reportService.getAnnotationReportFileName(format, idProject), format));
     }
 
     /**
@@ -256,7 +257,7 @@ public class RestUserAnnotationController extends RestCytomineController {
 
     @SuppressWarnings("checkstyle:VariableDeclarationUsageDistance")
     @RequestMapping(value = "/userannotation/{id}/crop.{format}", method = {RequestMethod.GET, RequestMethod.POST})
-    public ResponseEntity<byte[]> crop(
+    public ResponseEntity<Resource> crop(
         @PathVariable Long id,
         @PathVariable String format,
         @RequestParam(required = false) Integer maxSize,
@@ -323,7 +324,7 @@ public class RestUserAnnotationController extends RestCytomineController {
 
     @SuppressWarnings("checkstyle:VariableDeclarationUsageDistance")
     @RequestMapping(value = "/userannotation/{id}/mask.{format}", method = {RequestMethod.GET, RequestMethod.POST})
-    public ResponseEntity<byte[]> cropMask(
+    public ResponseEntity<Resource> cropMask(
         @PathVariable Long id,
         @PathVariable String format,
         @RequestParam(required = false) Integer maxSize,
@@ -389,7 +390,7 @@ public class RestUserAnnotationController extends RestCytomineController {
 
     @SuppressWarnings("checkstyle:VariableDeclarationUsageDistance")
     @RequestMapping(value = "/userannotation/{id}/alphamask.{format}", method = {RequestMethod.GET, RequestMethod.POST})
-    public ResponseEntity<byte[]> cropAlphaMask(
+    public ResponseEntity<Resource> cropAlphaMask(
         @PathVariable Long id,
         @PathVariable String format,
         @RequestParam(required = false) Integer maxSize,
@@ -6,24 +6,39 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import be.cytomine.controller.RestCytomineController;
 import be.cytomine.domain.ontology.AnnotationDomain;
+import be.cytomine.domain.project.Project;
 import be.cytomine.dto.search.SearchResponse;
+import be.cytomine.exceptions.ObjectNotFoundException;
+import be.cytomine.service.project.ProjectService;
+import be.cytomine.service.search.RetrievalIndexingService;
 import be.cytomine.service.search.RetrievalService;
+import be.cytomine.service.security.SecurityACLService;
+
+import static org.springframework.security.acls.domain.BasePermission.READ;
 
 @Slf4j
 @RequiredArgsConstructor
 @RequestMapping("/api")
 @RestController
-public class RetrievalController {
+public class RetrievalController extends RestCytomineController {
 
     private final EntityManager entityManager;
 
     private final RetrievalService retrievalService;
 
+    private final RetrievalIndexingService retrievalIndexingService;
+
+    private final ProjectService projectService;
+
+    private final SecurityACLService securityACLService;
+
     @GetMapping("/retrieval/index/{id}")
     public ResponseEntity<String> indexAnnotation(@PathVariable Long id) {
         log.debug("Create index for annotation {}", id);
@@ -44,4 +59,26 @@ public class RetrievalController {
 
         return retrievalService.retrieveSimilarImages(annotation, nearestNeighbours);
     }
+
+    @PostMapping("/project/{id}/retrieval/index.json")
+    public ResponseEntity<String> indexProject(@PathVariable Long id) {
+        log.debug("Queue the annotations of project {} for indexing", id);
+
+        Project project = projectService.find(id)
+            .orElseThrow(() -> new ObjectNotFoundException("Project", id));
+        securityACLService.checkIsAdminContainer(project);
+
+        return responseSuccess(retrievalIndexingService.enqueueProject(project));
+    }
+
+    @GetMapping("/project/{id}/retrieval/index.json")
+    public ResponseEntity<String> indexingProgress(@PathVariable Long id) {
+        log.debug("Get the indexing progress of project {}", id);
+
+        Project project = projectService.find(id)
+            .orElseThrow(() -> new ObjectNotFoundException("Project", id));
+        securityACLService.check(project, READ);
+
+        return responseSuccess(retrievalIndexingService.progress(project));
+    }
 }
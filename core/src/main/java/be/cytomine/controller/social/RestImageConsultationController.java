@@ -126,12 +126,9 @@ public class RestImageConsultationController extends RestCytomineController {
             User user = userService.findUser(userId)
                 .orElseThrow(() -> new ObjectNotFoundException("User", userId));
 
-            byte[] report = reportService.generateImageConsultationReport(
-                project.getName(), user.getUsername(), results
-            );
-            responseReportFile(
-                reportService.getImageConsultationReportFileName(
-                    export, projectId, userId), report, export
+            reportService.writeImageConsultationReport(
+                project.getName(), user.getUsername(), results.stream(),
+                openReportFile(reportService.getImageConsultationReportFileName(export, projectId, userId), export)
             );
             return null;
         } else {
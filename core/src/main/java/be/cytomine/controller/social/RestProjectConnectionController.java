@@ -1,7 +1,6 @@
 package be.cytomine.controller.social;
 
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.List;
 
 import lombok.RequiredArgsConstructor;
@@ -219,17 +218,10 @@ public class RestProjectConnectionController extends RestCytomineController {
 
         if (export != null && export.equals("csv")) {
 
-            List<JsonObject> projectConnectionDataList = new ArrayList<>();
-            for (PersistentProjectConnection projectConnection : page) {
-                projectConnectionDataList.add(PersistentProjectConnection.getDataFromDomain(projectConnection));
-            }
-
-            byte[] report = reportService.generateConnectionHistoryReport(
-                project.getName(), user.getUsername(), projectConnectionDataList
-            );
-            responseReportFile(
-                reportService.getConnectionHistoryReportFileName(
-                    export, projectId, userId), report, export
+            reportService.writeConnectionHistoryReport(
+                project.getName(), user.getUsername(),
+                page.stream().map(PersistentProjectConnection::getDataFromDomain),
+                openReportFile(reportService.getConnectionHistoryReportFileName(export, projectId, userId), export)
             );
             return null;
         } else {
@@ -27,9 +27,12 @@ import be.cytomine.domain.project.Project;
 import be.cytomine.domain.security.User;
 import be.cytomine.exceptions.ObjectNotFoundException;
 import be.cytomine.service.CurrentUserService;
+import be.cytomine.service.middleware.ImageResponseCache;
 import be.cytomine.service.project.ProjectService;
+import be.cytomine.service.security.AclDecisionCache;
 import be.cytomine.service.security.SecurityACLService;
 import be.cytomine.service.social.ProjectConnectionService;
+import be.cytomine.service.social.UserPositionWriter;
 import be.cytomine.service.stats.StatsService;
 import be.cytomine.utils.JsonObject;
 
@@ -53,6 +56,12 @@ public class RestStatsController extends RestCytomineController {
 
     private final ProjectConnectionService projectConnectionService;
 
+    private final AclDecisionCache aclDecisionCache;
+
+    private final UserPositionWriter userPositionWriter;
+
+    private final ImageResponseCache imageResponseCache;
+
     @GetMapping("/project/{project}/stats/term.json")
     public ResponseEntity<String> statTerm(@PathVariable("project") Long projectId,
                                            @RequestParam(value = "startDate", required = false) Long startDateLong,
@@ -216,6 +225,24 @@ public class RestStatsController extends RestCytomineController {
         return responseSuccess(statsService.statUsedStorage());
     }
 
+    @GetMapping("/stats/aclcache.json")
+    public ResponseEntity<String> statAclCache() {
+        securityACLService.checkAdmin(currentUserService.getCurrentUser());
+        return responseSuccess(aclDecisionCache.getStatistics());
+    }
+
+    @GetMapping("/stats/userposition.json")
+    public ResponseEntity<String> statUserPositionWriter() {
+        securityACLService.checkAdmin(currentUserService.getCurrentUser());
+        return responseSuccess(userPositionWriter.getStatistics());
+    }
+
+    @GetMapping("/stats/imagecache.json")
+    public ResponseEntity<String> statImageCache() {
+        securityACLService.checkAdmin(currentUserService.getCurrentUser());
+        return responseSuccess(imageResponseCache.getStatistics());
+    }
+
     @GetMapping("/project/{project}/stats/connectionsevolution.json")
     public ResponseEntity<String> statConnectionsEvolution(
         @PathVariable(value = "project") Long projectId,
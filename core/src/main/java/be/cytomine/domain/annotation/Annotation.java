@@ -1,16 +1,15 @@
 package be.cytomine.domain.annotation;
 
-import java.sql.Types;
-
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.JoinColumn;
-import jakarta.persistence.Lob;
 import jakarta.persistence.ManyToOne;
+import jakarta.validation.constraints.NotNull;
 import lombok.Getter;
 import lombok.Setter;
-import org.hibernate.annotations.JdbcTypeCode;
+import org.locationtech.jts.geom.Geometry;
 
 import be.cytomine.domain.CytomineDomain;
 import be.cytomine.service.UrlApi;
@@ -25,15 +24,15 @@ public class Annotation extends CytomineDomain {
     @JoinColumn(name = "layer_id")
     private AnnotationLayer annotationLayer;
 
-    @Lob
-    @JdbcTypeCode(Types.BINARY)
-    private byte[] location;
+    @NotNull
+    @Column(columnDefinition = "geometry")
+    private Geometry location;
 
     public static JsonObject getDataFromDomain(CytomineDomain domain) {
         Annotation annotation = (Annotation) domain;
         JsonObject domainData = CytomineDomain.getDataFromDomain(domain);
         domainData.put("annotationLayer", annotation.getAnnotationLayer().getId());
-        domainData.put("location", annotation.getLocation());
+        domainData.put("location", annotation.getLocation().toText());
 
         return domainData;
     }
@@ -41,10 +41,17 @@ public class ImageInstance extends CytomineDomain {
 
     private String instanceFilename;
 
+    /**
+     * The annotation counters are maintained in the database by the annotation triggers and
+     * AnnotationCounterService, they are never written from the entity.
+     */
+    @Column(updatable = false)
     private Long countImageAnnotations = 0L;
 
+    @Column(updatable = false)
     private Long countImageJobAnnotations = 0L;
 
+    @Column(updatable = false)
     private Long countImageReviewedAnnotations = 0L;
 
     private Date reviewStart;
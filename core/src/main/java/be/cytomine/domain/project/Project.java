@@ -2,6 +2,7 @@ package be.cytomine.domain.project;
 
 import java.util.Set;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.EnumType;
@@ -36,12 +37,19 @@ public class Project extends CytomineDomain {
 
     private Boolean areImagesDownloadable = false;
 
+    /**
+     * The annotation counters are maintained in the database by the annotation triggers and
+     * AnnotationCounterService, they are never written from the entity.
+     */
+    @Column(updatable = false)
     private long countAnnotations;
 
+    @Column(updatable = false)
     private long countJobAnnotations;
 
     private long countImages;
 
+    @Column(updatable = false)
     private long countReviewedAnnotations;
 
     private boolean isClosed = false;
@@ -9,4 +9,6 @@ public interface AnnotationIndexLightDTO {
     Long getCountAnnotation();
 
     Long getCountReviewedAnnotation();
+
+    Long getVersion();
 }
@@ -0,0 +1,15 @@
+package be.cytomine.dto.annotation;
+
+import java.util.List;
+
+/**
+ * Coordinates and layer filters of an annotation vector tile.
+ * Tiles follow the normalized image tile grid: zoom 0 holds the whole image in one tile, the origin is top-left.
+ */
+public record AnnotationTileParameters(
+    long zoom,
+    long tx,
+    long ty,
+    List<Long> users,
+    boolean reviewed
+) {}
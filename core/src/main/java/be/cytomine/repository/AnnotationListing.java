@@ -5,6 +5,8 @@ import java.util.Date;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 import jakarta.persistence.EntityManager;
@@ -32,6 +34,16 @@ public abstract class AnnotationListing {
      */
     public static final List<String> availableColumnsDefault = List.of("basic", "meta", "term");
 
+    /**
+     * Upper bound on the number of distinct request shapes kept compiled
+     */
+    private static final int MAX_COMPILED_REQUESTS = 1024;
+
+    /**
+     * Compiled SQL request for each request shape
+     */
+    private static final Map<String, String> compiledRequests = new ConcurrentHashMap<>();
+
     /**
      * all properties group available, each value is a list of assoc [propertyName, SQL columnName/methodName) If value
      * start with #, don't use SQL column, its a "trensiant property"
@@ -107,6 +119,11 @@ public abstract class AnnotationListing {
 
     LinkedHashMap<String, String> orderBy = new LinkedHashMap<>();
 
+    /**
+     * Values to bind to the named parameters of the last generated request
+     */
+    Map<String, Object> parameters = new LinkedHashMap<>();
+
     public AnnotationListing(EntityManager entityManager) {
         this.entityManager = entityManager;
     }
@@ -188,13 +205,46 @@ public abstract class AnnotationListing {
     }
 
     /**
-     * Generate SQL request string
+     * Generate SQL request string.
+     * Filter values are not part of the request but bound as parameters (see getParameters), so that the request
+     * only depends on the shape of the listing (columns, filters set, flags) and is compiled once per shape.
      */
     public String getAnnotationsRequest() {
 
         buildExtraRequest();
 
         Map<String, String> columns = buildColumnToPrint();
+
+        parameters = new LinkedHashMap<>();
+        bindFilters();
+
+        String shape = getRequestShape(columns);
+        String request = compiledRequests.get(shape);
+        if (request == null) {
+            request = compileRequest(columns);
+            if (compiledRequests.size() >= MAX_COMPILED_REQUESTS) {
+                compiledRequests.clear();
+            }
+            compiledRequests.put(shape, request);
+        }
+        return request;
+    }
+
+    /**
+     * Key identifying every request that compiles to the same SQL text
+     */
+    String getRequestShape(Map<String, String> columns) {
+        return getClass().getSimpleName()
+            + "|" + kmeansValue
+            + "|" + columns
+            + "|" + new TreeSet<>(columnsToPrint)
+            + "|" + new TreeSet<>(parameters.keySet())
+            + "|" + notReviewedOnly + "," + noTerm + "," + noTag + "," + multipleTerm
+            + "," + noTrack + "," + multipleTrack + "," + avoidEmptyCentroid
+            + "|" + orderBy;
+    }
+
+    String compileRequest(Map<String, String> columns) {
         Map<String, String> sqlColumns = new LinkedHashMap<>();
         Map<String, String> postComputedColumns = new LinkedHashMap<>();
 
@@ -340,288 +390,333 @@ public abstract class AnnotationListing {
         }
     }
 
-    String joinValues(List list) {
-        return (String) list.stream().map(String::valueOf).collect(Collectors.joining(", "));
-    }
-
-    String getProjectConst() {
-        return (project != null ? "AND a.project_id = " + project + "\n" : "");
+    /**
+     * Check the filters and collect the values to bind to the request.
+     * A filter takes part in the request if and only if one of its parameters is bound.
+     */
+    void bindFilters() {
+        bind("project", project);
+        bindUserFilter();
+        bind("users", users);
+        bindImageFilter();
+        bindImagesFilter();
+        bindSlicesFilter();
+        bindSliceFilter();
+        bind("tag", tag);
+        bind("tags", tags);
+        bindTermFilter();
+        bindTermsFilter();
+        bindTrackFilter();
+        bindTracksFilter();
+        bindBeforeOrAfterSliceFilter();
+        bindGroupFilter();
+        bindGroupsFilter();
+        bindUsersForTermFilter();
+        bind("parents", parents);
+        bind("reviewUsers", reviewUsers);
+        bind("bbox", bbox);
+        bind("bboxAnnotation", bboxAnnotation);
+        bindMaxDistanceAnnotationFilter();
+        bind("excludedAnnotation", excludedAnnotation);
+        bind("beforeThan", beforeThan);
+        bind("afterThan", afterThan);
+    }
+
+    void bind(String name, Object value) {
+        if (value != null) {
+            parameters.put(name, value);
+        }
     }
 
-    String getUsersConst() {
-        return (users != null ? "AND a.user_id IN (" + joinValues(users) + ")\n" : "");
+    boolean isBound(String name) {
+        return parameters.containsKey(name);
     }
 
-    String getReviewUsersConst() {
-        return (reviewUsers != null ? "AND a.review_user_id IN (" + joinValues(reviewUsers) + ")\n" : "");
+    void bindUserFilter() {
+        if (user != null) {
+            if (entityManager.find(User.class, user) == null) {
+                throw new ObjectNotFoundException("User " + user + " not exist!");
+            }
+            bind("user", user);
+        }
     }
 
-
-    String getUsersForTermConst() {
-        if (usersForTerm != null) {
-            addIfMissingColumn("term");
-            return "AND at.user_id IN (" + joinValues(usersForTerm) + ")\n";
-        } else {
-            return "";
+    void bindImageFilter() {
+        if (image != null) {
+            ImageInstance imageInstance = entityManager.find(ImageInstance.class, image);
+            if (imageInstance == null) {
+                throw new ObjectNotFoundException("Image " + image + " not exist!");
+            }
+            bind("image", imageInstance.getId());
         }
     }
 
-    String getImagesConst() {
+    void bindImagesFilter() {
         if (images != null && project != null && images.size() == entityManager.find(Project.class, project)
             .getCountImages()) {
-            return ""; //images number equals to project image number, no const needed
+            return; //images number equals to project image number, no const needed
         } else if (images != null && images.isEmpty()) {
             throw new ObjectNotFoundException("The image has been deleted!");
-        } else {
-            return (images != null ? "AND a.image_id IN (" + joinValues(images) + ")\n" : "");
         }
+        bind("images", images);
+    }
 
+    void bindSlicesFilter() {
+        if (slices != null && slices.isEmpty()) {
+            throw new ObjectNotFoundException("The slice has been deleted!");
+        }
+        bind("slices", slices);
     }
 
-    String getImageConst() {
-        if (image != null) {
-            ImageInstance imageInstance = entityManager.find(ImageInstance.class, image);
-            if (imageInstance == null) {
-                throw new ObjectNotFoundException("Image " + image + " not exist!");
+    void bindSliceFilter() {
+        if (slice != null) {
+            if (entityManager.find(SliceInstance.class, slice) == null) {
+                throw new ObjectNotFoundException("Slice " + slice + " not exist!");
             }
-            return "AND a.image_id = " + imageInstance.getId() + "\n";
-        } else {
-            return "";
+            bind("slice", slice);
         }
     }
 
-    String getSlicesConst() {
-        if (slices != null && slices.isEmpty()) {
-            throw new ObjectNotFoundException("The slice has been deleted!");
-        } else {
-            return (slices != null ? "AND a.slice_id IN (" + joinValues(slices) + ")\n" : "");
+    void bindTermFilter() {
+        if (term != null) {
+            if (entityManager.find(Term.class, term) == null) {
+                throw new ObjectNotFoundException("Term " + term + "not exist!");
+            }
+            addIfMissingColumn("term");
+            bind("term", term);
         }
+    }
 
+    void bindTermsFilter() {
+        if (terms != null) {
+            addIfMissingColumn("term");
+            bind("terms", terms);
+        }
     }
 
-    String getSliceConst() {
-        if (slice != null) {
-            if (entityManager.find(SliceInstance.class, slice) == null) {
-                throw new ObjectNotFoundException("Slice " + slice + " not exist!");
+    void bindTrackFilter() {
+        if (track != null) {
+            if (entityManager.find(Track.class, track) != null) {
+                throw new ObjectNotFoundException("Track " + track + " not exists !");
             }
-            return "AND a.slice_id = " + slice + "\n";
-        } else {
-            return "";
+            addIfMissingColumn("track");
+            bind("track", track);
         }
     }
 
-    String getUserConst() {
-        if (user != null) {
-            if (entityManager.find(User.class, user) == null) {
-                throw new ObjectNotFoundException("User " + user + " not exist!");
+    void bindTracksFilter() {
+        if (tracks != null) {
+            addIfMissingColumn("track");
+            bind("tracks", tracks);
+        }
+    }
+
+    void bindBeforeOrAfterSliceFilter() {
+        if ((track != null || tracks != null) && (beforeSlice != null || afterSlice != null)) {
+            addIfMissingColumn("slice");
+            Long sliceId = (beforeSlice != null) ? beforeSlice : afterSlice;
+            SliceInstance sliceInstance = entityManager.find(SliceInstance.class, sliceId);
+            if (sliceInstance == null) {
+                throw new ObjectNotFoundException("Slice " + sliceId + " not exists !");
             }
-            return "AND a.user_id = " + user + "\n";
-        } else {
-            return "";
+            bind(beforeSlice != null ? "beforeSliceRank" : "afterSliceRank", sliceInstance.getBaseSlice().getRank());
         }
     }
 
-    abstract String getNotReviewedOnlyConst();
+    void bindGroupFilter() {
+        if (annotationGroup != null) {
+            if (entityManager.find(AnnotationGroup.class, annotationGroup) != null) {
+                throw new ObjectNotFoundException("Annotation group  " + annotationGroup + " does not exists!");
+            }
+            addIfMissingColumn("group");
+            bind("annotationGroup", annotationGroup);
+        }
+    }
 
-    String getIntersectConst() {
-        return (bbox != null ? "AND ST_Intersects(a.location,ST_GeometryFromText('" + bbox.toString() + "',0))\n" : "");
+    void bindGroupsFilter() {
+        if (annotationGroups != null) {
+            addIfMissingColumn("group");
+            bind("annotationGroups", annotationGroups);
+        }
     }
 
-    String getIntersectAnnotationConst() {
-        return (bboxAnnotation != null ? "AND ST_Intersects(a.location,ST_GeometryFromText('"
-            + bboxAnnotation.toString()
-            + "',0))\n" : "");
+    void bindUsersForTermFilter() {
+        if (usersForTerm != null) {
+            addIfMissingColumn("term");
+            bind("usersForTerm", usersForTerm);
+        }
     }
 
-    String getMaxDistanceAnnotationConst() {
+    void bindMaxDistanceAnnotationFilter() {
         if (maxDistanceBaseAnnotation != null) {
             if (baseAnnotation == null) {
                 throw new ObjectNotFoundException(
                     "You need to provide a 'baseAnnotation' parameter (annotation id/location = "
                         + baseAnnotation
                         + ")!");
-            } else {
-                try {
-                    AnnotationDomain base = AnnotationDomain.getAnnotationDomain(
-                        entityManager,
-                        ((Long) baseAnnotation),
-                        null
-                    );
-                    //ST_distance(a.location,ST_GeometryFromText('POINT (0 0)'))
-                    return "AND ST_distance(a.location,ST_GeometryFromText('"
-                        + base.getWktLocation()
-                        + "')) <= "
-                        + maxDistanceBaseAnnotation
-                        + "\n";
-                } catch (Exception e) {
-                    return "AND ST_distance(a.location,ST_GeometryFromText('"
-                        + baseAnnotation
-                        + "')) <= "
-                        + maxDistanceBaseAnnotation
-                        + "\n";
-                }
             }
-        } else {
-            return "";
+            String baseLocation;
+            try {
+                AnnotationDomain base = AnnotationDomain.getAnnotationDomain(
+                    entityManager,
+                    ((Long) baseAnnotation),
+                    null
+                );
+                baseLocation = base.getWktLocation();
+            } catch (Exception e) {
+                baseLocation = String.valueOf(baseAnnotation);
+            }
+            bind("baseAnnotationLocation", baseLocation);
+            bind("maxDistanceBaseAnnotation", maxDistanceBaseAnnotation);
         }
     }
 
+    String getProjectConst() {
+        return (isBound("project") ? "AND a.project_id = :project\n" : "");
+    }
+
+    String getUsersConst() {
+        return (isBound("users") ? "AND a.user_id IN (:users)\n" : "");
+    }
+
+    String getReviewUsersConst() {
+        return (isBound("reviewUsers") ? "AND a.review_user_id IN (:reviewUsers)\n" : "");
+    }
+
+    String getUsersForTermConst() {
+        return (isBound("usersForTerm") ? "AND at.user_id IN (:usersForTerm)\n" : "");
+    }
+
+    String getImagesConst() {
+        return (isBound("images") ? "AND a.image_id IN (:images)\n" : "");
+    }
+
+    String getImageConst() {
+        return (isBound("image") ? "AND a.image_id = :image\n" : "");
+    }
+
+    String getSlicesConst() {
+        return (isBound("slices") ? "AND a.slice_id IN (:slices)\n" : "");
+    }
+
+    String getSliceConst() {
+        return (isBound("slice") ? "AND a.slice_id = :slice\n" : "");
+    }
+
+    String getUserConst() {
+        return (isBound("user") ? "AND a.user_id = :user\n" : "");
+    }
+
+    abstract String getNotReviewedOnlyConst();
+
+    String getIntersectConst() {
+        return (isBound("bbox") ? "AND ST_Intersects(a.location,ST_GeometryFromText(:bbox,0))\n" : "");
+    }
+
+    String getIntersectAnnotationConst() {
+        return (isBound("bboxAnnotation")
+            ? "AND ST_Intersects(a.location,ST_GeometryFromText(:bboxAnnotation,0))\n"
+            : "");
+    }
+
+    String getMaxDistanceAnnotationConst() {
+        return (isBound("maxDistanceBaseAnnotation")
+            ? "AND ST_distance(a.location,ST_GeometryFromText(:baseAnnotationLocation)) <= :maxDistanceBaseAnnotation\n"
+            : "");
+    }
+
     String getAvoidEmptyCentroidConst() {
         return (avoidEmptyCentroid ? "AND ST_IsEmpty(st_centroid(a.location))=false\n" : "");
     }
 
     String getTermConst() {
-        if (term != null) {
-            if (entityManager.find(Term.class, term) == null) {
-                throw new ObjectNotFoundException("Term " + term + "not exist!");
-            }
-            addIfMissingColumn("term");
-
-            if (this instanceof ReviewedAnnotationListing) {
-                return " AND (at.term_id = " + term + ((noTerm) ? " OR at.term_id IS NULL" : "") + ")\n";
-            } else {
-                return " AND ((at.term_id = " + term + ")" + ((noTerm) ? " OR at.term_id IS NULL" : "") + ")\n";
-            }
-        } else {
+        if (!isBound("term")) {
             return "";
         }
-    }
-
-    String getParentsConst() {
-        if (parents != null) {
-            return " AND a.parent_ident IN (" + joinValues(parents) + ")\n";
+        if (this instanceof ReviewedAnnotationListing) {
+            return " AND (at.term_id = :term" + ((noTerm) ? " OR at.term_id IS NULL" : "") + ")\n";
         } else {
-            return "";
+            return " AND ((at.term_id = :term)" + ((noTerm) ? " OR at.term_id IS NULL" : "") + ")\n";
         }
     }
 
+    String getParentsConst() {
+        return (isBound("parents") ? " AND a.parent_ident IN (:parents)\n" : "");
+    }
 
     String getTermsConst() {
-        if (terms != null) {
-            addIfMissingColumn("term");
-            if (this instanceof ReviewedAnnotationListing) {
-                return " AND (at.term_id IN ("
-                    + joinValues(terms)
-                    + ")"
-                    + ((noTerm) ? " OR at.term_id IS NULL" : "")
-                    + ")\n";
-            } else {
-                return " AND ((at.term_id IN ("
-                    + joinValues(terms)
-                    + "))"
-                    + ((noTerm) ? " OR at.term_id IS NULL" : "")
-                    + ")\n";
-            }
-        } else {
+        if (!isBound("terms")) {
             return "";
         }
+        if (this instanceof ReviewedAnnotationListing) {
+            return " AND (at.term_id IN (:terms)" + ((noTerm) ? " OR at.term_id IS NULL" : "") + ")\n";
+        } else {
+            return " AND ((at.term_id IN (:terms))" + ((noTerm) ? " OR at.term_id IS NULL" : "") + ")\n";
+        }
     }
 
     String getTrackConst() {
-        if (track != null) {
-            if (entityManager.find(Track.class, track) != null) {
-                throw new ObjectNotFoundException("Track " + track + " not exists !");
-            }
-            addIfMissingColumn("track");
-            return " AND (atr.track_id = " + track + ((noTrack) ? " OR atr.track_id IS NULL" : "") + ")\n";
-        } else {
-            return "";
-        }
+        return (isBound("track")
+            ? " AND (atr.track_id = :track" + ((noTrack) ? " OR atr.track_id IS NULL" : "") + ")\n"
+            : "");
     }
 
     String getTracksConst() {
-        if (tracks != null) {
-            addIfMissingColumn("track");
-            return "AND (atr.track_id IN ("
-                + joinValues(tracks)
-                + ") "
-                + ((noTrack) ? " OR atr.track_id IS NULL" : "")
-                + ")\n";
-        } else {
-            return "";
-        }
+        return (isBound("tracks")
+            ? "AND (atr.track_id IN (:tracks) " + ((noTrack) ? " OR atr.track_id IS NULL" : "") + ")\n"
+            : "");
     }
 
     String getGroupConst() {
-        if (annotationGroup == null) {
-            return "";
-        }
-
-        if (entityManager.find(AnnotationGroup.class, annotationGroup) != null) {
-            throw new ObjectNotFoundException("Annotation group  " + annotationGroup + " does not exists!");
-        }
-
-        addIfMissingColumn("group");
-        return " AND al1.group_id = " + annotationGroup + "\n";
+        return (isBound("annotationGroup") ? " AND al1.group_id = :annotationGroup\n" : "");
     }
 
     String getGroupsConst() {
-        if (annotationGroups == null) {
-            return "";
-        }
-
-        addIfMissingColumn("group");
-        return " AND al1.group_id IN (" + joinValues(annotationGroups) + ")\n";
+        return (isBound("annotationGroups") ? " AND al1.group_id IN (:annotationGroups)\n" : "");
     }
 
     String getTagConst() {
-        if (tag != null && noTag) {
-            return "AND (tda.tag_id = " + tag + " OR tda.tag_id IS NULL)\n";
-        } else if (tag != null) {
-            return "AND tda.tag_id = " + tag + "\n";
+        if (isBound("tag") && noTag) {
+            return "AND (tda.tag_id = :tag OR tda.tag_id IS NULL)\n";
+        } else if (isBound("tag")) {
+            return "AND tda.tag_id = :tag\n";
         } else {
             return "";
         }
     }
 
     String getTagsConst() {
-        if (tags != null && noTag) {
-            return "AND (tda.tag_id IN (" + joinValues(tags) + ") OR tda.tag_id IS NULL)\n";
-        } else if (tags != null) {
-            return "AND tda.tag_id IN (" + joinValues(tags) + ")\n";
+        if (isBound("tags") && noTag) {
+            return "AND (tda.tag_id IN (:tags) OR tda.tag_id IS NULL)\n";
+        } else if (isBound("tags")) {
+            return "AND tda.tag_id IN (:tags)\n";
         } else {
             return "";
         }
     }
 
     String getBeforeOrAfterSliceConst() {
-        if ((track != null || tracks != null) && (beforeSlice != null || afterSlice != null)) {
-            addIfMissingColumn("slice");
-            Long sliceId = (beforeSlice != null) ? beforeSlice : afterSlice;
-            SliceInstance sliceInstance = entityManager.find(SliceInstance.class, sliceId);
-            if (sliceInstance == null) {
-                throw new ObjectNotFoundException("Slice " + sliceId + " not exists !");
-            }
-            String sign = (beforeSlice != null) ? "<" : ">";
-            return "AND (asl.channel + ai.channels * (asl.z_stack + ai.depth * asl.time)) "
-                + sign
-                + " "
-                + sliceInstance.getBaseSlice().getRank()
-                + "\n";
+        String rank = "(asl.channel + ai.channels * (asl.z_stack + ai.depth * asl.time))";
+        if (isBound("beforeSliceRank")) {
+            return "AND " + rank + " < :beforeSliceRank\n";
+        } else if (isBound("afterSliceRank")) {
+            return "AND " + rank + " > :afterSliceRank\n";
         } else {
             return "";
         }
     }
 
     String getExcludedAnnotationConst() {
-        return (excludedAnnotation != null ? "AND a.id <> " + excludedAnnotation + "\n" : "");
+        return (isBound("excludedAnnotation") ? "AND a.id <> :excludedAnnotation\n" : "");
     }
 
     abstract String createOrderBy();
 
     String getBeforeThan() {
-        if (beforeThan != null) {
-            return "AND a.created < '" + beforeThan + "'\n";
-        } else {
-            return "";
-        }
+        return (isBound("beforeThan") ? "AND a.created < :beforeThan\n" : "");
     }
 
     String getAfterThan() {
-        if (afterThan != null) {
-            return "AND a.created > '" + afterThan + "'\n";
-        } else {
-            return "";
-        }
+        return (isBound("afterThan") ? "AND a.created > :afterThan\n" : "");
     }
 }
@@ -172,8 +172,8 @@ public class ReviewedAnnotationListing extends AnnotationListing {
     }
 
     @Override
-    String getUsersForTermConst() {
-        return "";
+    void bindUsersForTermFilter() {
+        // the term of a reviewed annotation is always added by its reviewer
     }
 
     String buildExtraRequest() {
@@ -129,8 +129,8 @@ public class UserAnnotationListing extends AnnotationListing {
                     " AND at2.deleted IS NULL\n"*/
 
         } else if (noTerm && !(term != null || terms != null)) {
-            from += "LEFT JOIN (SELECT * from annotation_term x " + (users != null
-                ? "where x.deleted IS NULL AND x.user_id IN (" + joinValues(users) + ")"
+            from += "LEFT JOIN (SELECT * from annotation_term x " + (isBound("users")
+                ? "where x.deleted IS NULL AND x.user_id IN (:users)"
                 : "") + " ) at ON a.id = at.user_annotation_id ";
             where = where + " AND (at.id IS NULL OR at.deleted IS NOT NULL) \n";
         } else if (columnsToPrint.contains("term")) {
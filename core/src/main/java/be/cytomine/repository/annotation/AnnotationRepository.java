@@ -1,14 +1,55 @@
 package be.cytomine.repository.annotation;
 
+import java.nio.charset.StandardCharsets;
+import java.util.List;
 import java.util.Set;
 
+import jakarta.persistence.Tuple;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import be.cytomine.domain.annotation.Annotation;
 import be.cytomine.domain.annotation.AnnotationLayer;
+import be.cytomine.dto.annotation.AnnotationResponse;
 
 @Repository
 public interface AnnotationRepository extends JpaRepository<Annotation, Long> {
     Set<Annotation> findAllByAnnotationLayer(AnnotationLayer layer);
+
+    @Query(value = "SELECT id, layer_id, ST_AsText(location) FROM annotation WHERE layer_id = :layerId",
+        nativeQuery = true)
+    List<Tuple> listLocationsByLayerId(Long layerId);
+
+    /**
+     * List the annotations whose bounding box intersects the given box, using the spatial index
+     */
+    @Query(value = "SELECT id, layer_id, ST_AsText(location) FROM annotation WHERE layer_id = :layerId "
+        + "AND location && ST_MakeEnvelope(:left, :bottom, :right, :top)",
+        nativeQuery = true)
+    List<Tuple> listLocationsByLayerIdInBox(Long layerId, double left, double bottom, double right, double top);
+
+    default List<AnnotationResponse> listByLayer(Long layerId) {
+        return listLocationsByLayerId(layerId).stream().map(AnnotationRepository::toResponse).toList();
+    }
+
+    default List<AnnotationResponse> listByLayerInBox(
+        Long layerId,
+        double left,
+        double bottom,
+        double right,
+        double top
+    ) {
+        return listLocationsByLayerIdInBox(layerId, left, bottom, right, top).stream()
+            .map(AnnotationRepository::toResponse)
+            .toList();
+    }
+
+    private static AnnotationResponse toResponse(Tuple tuple) {
+        return new AnnotationResponse(
+            ((Number) tuple.get(0)).longValue(),
+            ((Number) tuple.get(1)).longValue(),
+            ((String) tuple.get(2)).getBytes(StandardCharsets.UTF_8)
+        );
+    }
 }
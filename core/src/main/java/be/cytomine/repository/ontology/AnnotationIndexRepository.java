@@ -21,7 +21,8 @@ public interface AnnotationIndexRepository
             + " user_id AS user,"
             + " slice_id AS slice,"
             + " count_annotation AS countAnnotation,"
-            + " count_reviewed_annotation AS countReviewedAnnotation"
+            + " count_reviewed_annotation AS countReviewedAnnotation,"
+            + " version AS version"
             + " FROM annotation_index"
             + " WHERE slice_id = :slice",
         nativeQuery = true)
@@ -6,6 +6,8 @@ import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.Query;
@@ -13,6 +15,7 @@ import jakarta.persistence.Tuple;
 import jakarta.persistence.TupleElement;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.stereotype.Service;
 
 import be.cytomine.dto.annotation.AnnotationResult;
@@ -32,6 +35,16 @@ import static org.springframework.security.acls.domain.BasePermission.READ;
 @Service
 public class AnnotationListingService {
 
+    /**
+     * Number of rows fetched per round-trip when reading annotations through a cursor
+     */
+    private static final int STREAM_FETCH_SIZE = 1000;
+
+    private static final List<String> EXCLUDED_COLUMNS = List.of(
+        "annotationTerms", "annotationTracks", "userTerm", "x", "y",
+        "annotationLinks", "linkedAnnotations", "linkedImages", "linkedUpdated"
+    );
+
     private final EntityManager entityManager;
 
     private final KmeansGeometryService kmeansGeometryService;
@@ -41,6 +54,24 @@ public class AnnotationListingService {
     private final UrlApi urlApi;
 
     public List listGeneric(AnnotationListing al) {
+        prepareRequest(al);
+        return executeRequest(al);
+    }
+
+    /**
+     * Same as listGeneric but each annotation is given to the consumer as soon as it is read,
+     * so that full listings never hold the whole result set in memory.
+     */
+    public void streamGeneric(AnnotationListing al, Consumer<Object> consumer) {
+        prepareRequest(al);
+        if (al.getKmeansValue() == KmeansGeometryService.FULL) {
+            streamGenericAnnotation(al, consumer);
+        } else {
+            executeRequest(al).forEach(consumer);
+        }
+    }
+
+    private void prepareRequest(AnnotationListing al) {
         securityACLService.check(al.container(), READ);
         if ((al.getKmeans() != null && al.getKmeans()) && al.getKmeansValue() == null) {
             if (al.getBbox() == null) {
@@ -60,16 +91,15 @@ public class AnnotationListingService {
             //no kmeans
             al.setKmeansValue(KmeansGeometryService.FULL);
         }
-        return executeRequest(al);
     }
 
     public List executeRequest(AnnotationListing al) {
         if (al.getKmeansValue() == KmeansGeometryService.FULL) {
             return selectGenericAnnotation(al);
         } else if (al.getKmeansValue() == KmeansGeometryService.KMEANSFULL) {
-            return kmeansGeometryService.doKeamsFullRequest(al.getAnnotationsRequest());
+            return kmeansGeometryService.doKeamsFullRequest(al.getAnnotationsRequest(), al.getParameters());
         } else {
-            return kmeansGeometryService.doKeamsSoftRequest(al.getAnnotationsRequest());
+            return kmeansGeometryService.doKeamsSoftRequest(al.getAnnotationsRequest(), al.getParameters());
         }
     }
 
@@ -77,41 +107,71 @@ public class AnnotationListingService {
      * Execute request and format result into a list of map
      */
     private List<AnnotationResult> selectGenericAnnotation(AnnotationListing al) {
-
         List<AnnotationResult> data = new ArrayList<>();
-        long lastAnnotationId = -1;
-        long lastTermId = -1;
-        long lastTrackId = -1;
-        long lastGroupId = -1;
-
-        boolean first = true;
-
-        List<String> realColumn = new ArrayList<>();
-        String request = al.getAnnotationsRequest();
-
-        boolean termAsked = false;
-        boolean trackAsked = false;
-        boolean groupAsked = false;
-        List<Long> annotationLinksIds = new ArrayList<>();
-
-        List<String> excludedColumns = List.of(
-            "annotationTerms", "annotationTracks", "userTerm", "x", "y",
-            "annotationLinks", "linkedAnnotations", "linkedImages", "linkedUpdated"
-        );
-
-        Query nativeQuery = entityManager.createNativeQuery(request, Tuple.class);
-        List<Tuple> resultList = nativeQuery.getResultList();
-
-        for (Tuple rowResult : resultList) {
-            Map<String, Object> tuple = new LinkedHashMap<>();
-            for (TupleElement<?> element : rowResult.getElements()) {
-                Object value = rowResult.get(element.getAlias());
-                if (value instanceof BigInteger) {
-                    value = ((BigInteger) value).longValue();
-                }
-                tuple.put(element.getAlias(), value);
+        streamGenericAnnotation(al, data::add);
+        return data;
+    }
+
+    /**
+     * Execute request through a forward-only cursor and hand each annotation to the consumer
+     * as soon as all its rows (terms, tracks, links) have been read
+     */
+    private void streamGenericAnnotation(AnnotationListing al, Consumer<? super AnnotationResult> consumer) {
+        AnnotationRowFolder folder = new AnnotationRowFolder(al, consumer);
+
+        Query nativeQuery = entityManager.createNativeQuery(al.getAnnotationsRequest(), Tuple.class);
+        al.getParameters().forEach(nativeQuery::setParameter);
+        nativeQuery.setHint(HibernateHints.HINT_FETCH_SIZE, STREAM_FETCH_SIZE);
+        try (Stream<Tuple> rows = nativeQuery.getResultStream()) {
+            rows.forEach(row -> folder.accept(toMap(row)));
+        }
+        folder.flush();
+    }
+
+    private Map<String, Object> toMap(Tuple rowResult) {
+        Map<String, Object> tuple = new LinkedHashMap<>();
+        for (TupleElement<?> element : rowResult.getElements()) {
+            Object value = rowResult.get(element.getAlias());
+            if (value instanceof BigInteger) {
+                value = ((BigInteger) value).longValue();
             }
+            tuple.put(element.getAlias(), value);
+        }
+        return tuple;
+    }
+
+    /**
+     * Fold the rows of an annotation listing request into annotation results.
+     * Rows of the same annotation are consecutive, so an annotation is complete once a row with another id arrives.
+     */
+    private final class AnnotationRowFolder {
+
+        private final AnnotationListing al;
+
+        private final Consumer<? super AnnotationResult> consumer;
 
+        private final List<String> realColumn = new ArrayList<>();
+
+        private AnnotationResult current;
+
+        private long lastAnnotationId = -1;
+        private long lastTermId = -1;
+        private long lastTrackId = -1;
+        private long lastGroupId = -1;
+
+        private boolean first = true;
+
+        private boolean termAsked = false;
+        private boolean trackAsked = false;
+        private boolean groupAsked = false;
+        private List<Long> annotationLinksIds = new ArrayList<>();
+
+        AnnotationRowFolder(AnnotationListing al, Consumer<? super AnnotationResult> consumer) {
+            this.al = al;
+            this.consumer = consumer;
+        }
+
+        void accept(Map<String, Object> tuple) {
             /**
              * If an annotation has n multiple term, it will be on "n" lines.
              * For the first line for this annotation (it.id!=lastAnnotationId), add the annotation data,
@@ -125,7 +185,7 @@ public class AnnotationListingService {
 
                 if (first) {
                     for (String columnName : al.getAllPropertiesName()) {
-                        if (columnExists(tuple, columnName) && !excludedColumns.contains(columnName)) {
+                        if (columnExists(tuple, columnName) && !EXCLUDED_COLUMNS.contains(columnName)) {
                             realColumn.add(columnName);
                         }
                     }
@@ -247,9 +307,10 @@ public class AnnotationListingService {
                         );
                     }
                 }
-                data.add(item);
+                flush();
+                current = item;
             } else {
-                AnnotationResult lastResult = data.get(data.size() - 1);
+                AnnotationResult lastResult = current;
                 if (termAsked && tuple.get("term") != null) {
                     List lasResultUserByTerm = (List) lastResult.get("userByTerm");
                     Map userByTerm = (Map) (lasResultUserByTerm).get(lasResultUserByTerm.size() - 1);
@@ -313,7 +374,12 @@ public class AnnotationListingService {
             lastAnnotationId = (long) tuple.get("id");
         }
 
-        return data;
+        void flush() {
+            if (current != null) {
+                consumer.accept(current);
+                current = null;
+            }
+        }
     }
 
     private boolean columnExists(Map<String, Object> tuple, String columnName) {
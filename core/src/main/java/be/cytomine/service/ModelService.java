@@ -3,9 +3,11 @@ package be.cytomine.service;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.FlushModeType;
 import jakarta.persistence.OptimisticLockException;
 import lombok.extern.slf4j.Slf4j;
 import org.hibernate.ReplicationMode;
@@ -102,7 +104,10 @@ public abstract class ModelService<T extends CytomineDomain> {
             if (!alreadyPersisted && !entityManager.contains(newObject)) {
                 entityManager.persist(newObject);
             }
-            entityManager.flush();
+            // a caller writing a batch of domains defers the flush to write them with JDBC batches
+            if (entityManager.getFlushMode() != FlushModeType.COMMIT) {
+                entityManager.flush();
+            }
         } catch (OptimisticLockException e) {
             log.error(String.format("CANNOT SAVE OBJECT %s", e));
             Session session = entityManager.unwrap(Session.class);
@@ -505,37 +510,66 @@ public abstract class ModelService<T extends CytomineDomain> {
     }
 
     public JsonObject addMultiple(List<JsonObject> json) {
+        return addMultiple(json, this::addOne);
+    }
+
+    /**
+     * Add each entry with the given method and report the entries that could not be added
+     */
+    protected JsonObject addMultiple(List<JsonObject> json, Function<JsonObject, CommandResponse> addOne) {
         List<JsonObject> result = new ArrayList<>();
         List errors = new ArrayList();
-        JsonObject resp;
         for (JsonObject jsonObject : json) {
-            try {
-                CommandResponse commandResponse = addOne(jsonObject);
-
-                String objectName;
-                if (currentDomain() == UserAnnotation.class) {
-                    objectName = "annotation";
-                } else {
-                    String[] split = currentDomain().toString().toLowerCase().split("\\.");
-                    objectName = split[split.length - 1];
-                }
-                resp = JsonObject.of(
-                    "domain",
-                    ((Map<String, Object>) commandResponse.getData().get(objectName)).get("id"),
-                    "status", commandResponse.getStatus()
-                );
-            } catch (CytomineException e) {
-                log.info(e.getMessage());
-                errors.add(JsonObject.of("data", jsonObject, "message", e.msg));
-                resp = JsonObject.of("message", e.msg, "status", e.code);
-            } catch (Exception e) {
-                log.info(e.toString());
-                resp = JsonObject.of("message", e.toString(), "status", 500);
-            }
+            result.add(addEntry(jsonObject, addOne, errors));
+        }
+        return multipleResponse(result, errors);
+    }
 
-            result.add(resp);
+    /**
+     * Add an entry with the given method
+     *
+     * @param errors the list the error of the entry is appended to
+     *
+     * @return the id of the added domain and the status, or the error message and status
+     */
+    protected JsonObject addEntry(
+        JsonObject jsonObject,
+        Function<JsonObject, CommandResponse> addOne,
+        List errors
+    ) {
+        try {
+            CommandResponse commandResponse = addOne.apply(jsonObject);
+
+            String objectName;
+            if (currentDomain() == UserAnnotation.class) {
+                objectName = "annotation";
+            } else {
+                String[] split = currentDomain().toString().toLowerCase().split("\\.");
+                objectName = split[split.length - 1];
+            }
+            return JsonObject.of(
+                "domain",
+                ((Map<String, Object>) commandResponse.getData().get(objectName)).get("id"),
+                "status", commandResponse.getStatus()
+            );
+        } catch (CytomineException e) {
+            return failedEntry(jsonObject, e, errors);
+        } catch (Exception e) {
+            log.info(e.toString());
+            return JsonObject.of("message", e.toString(), "status", 500);
         }
+    }
+
+    protected JsonObject failedEntry(JsonObject jsonObject, CytomineException e, List errors) {
+        log.info(e.getMessage());
+        errors.add(JsonObject.of("data", jsonObject, "message", e.msg));
+        return JsonObject.of("message", e.msg, "status", e.code);
+    }
 
+    /**
+     * Build the response of addMultiple from the result of each entry
+     */
+    protected JsonObject multipleResponse(List<JsonObject> result, List errors) {
         JsonObject response = new JsonObject();
 
         List<JsonObject> succeeded = result.stream()
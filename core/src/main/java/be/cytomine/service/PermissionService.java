@@ -14,6 +14,7 @@ import org.springframework.transaction.annotation.Transactional;
 import be.cytomine.domain.CytomineDomain;
 import be.cytomine.exceptions.ObjectNotFoundException;
 import be.cytomine.repository.security.AclRepository;
+import be.cytomine.service.security.AclDecisionCache;
 
 @Slf4j
 @RequiredArgsConstructor
@@ -25,6 +26,8 @@ public class PermissionService {
 
     private final AclRepository aclRepository;
 
+    private final AclDecisionCache aclDecisionCache;
+
     public boolean hasACLPermission(CytomineDomain domain, String username, Permission permission) {
         List<Integer> masks = getPermissionInACL(domain, username);
         return masks.stream().max(Integer::compare).orElse(-1) >= permission.getMask();
@@ -44,7 +47,11 @@ public class PermissionService {
     }
 
     List<Integer> getPermissionInACL(CytomineDomain domain, String username) {
-        return aclRepository.listMaskForUsers(domain.getId(), username);
+        return aclDecisionCache.getMasks(
+            domain.getId(),
+            username,
+            () -> aclRepository.listMaskForUsers(domain.getId(), username)
+        );
     }
 
     public void deletePermission(CytomineDomain domain, String username, Permission permission) {
@@ -69,6 +76,7 @@ public class PermissionService {
                     + " are not in ACL");
             }
             aclRepository.deleteAclEntry(aclObjectIdentity, mask, sid);
+            aclDecisionCache.invalidate(domain.getId(), username);
 
             log.info("User "
                 + username
@@ -115,6 +123,7 @@ public class PermissionService {
 
             //get acl entry
             createAclEntry(aclObjectIdentity, sid, permission.getMask());
+            aclDecisionCache.invalidate(domain.getId(), username);
         }
     }
 
@@ -122,6 +131,7 @@ public class PermissionService {
         //get acl sid for the user
         Long sid = getAclSid(username);
         aclRepository.insertAclEntry(index, aclObjectIdentity, permission.getMask(), sid);
+        aclDecisionCache.invalidateAll();
     }
 
     public Long createAclEntry(Long aoi, Long sid, Integer mask) {
@@ -0,0 +1,49 @@
+package be.cytomine.service.annotation;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.util.List;
+
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Session;
+import org.springframework.stereotype.Component;
+
+import be.cytomine.domain.annotation.AnnotationLayer;
+import be.cytomine.service.database.SequenceService;
+
+/**
+ * Insert annotations with JDBC batches, each call in its own transaction.
+ */
+@RequiredArgsConstructor
+@Component
+public class AnnotationBulkWriter {
+
+    private static final String INSERT_ANNOTATION =
+        "INSERT INTO annotation(id, version, created, layer_id, location) VALUES (?, 0, ?, ?, ST_GeomFromWKB(?))";
+
+    private final EntityManager entityManager;
+
+    private final SequenceService sequenceService;
+
+    /**
+     * @param locations the annotation geometries, as WKB
+     */
+    @Transactional
+    public void insert(AnnotationLayer layer, List<byte[]> locations) {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_ANNOTATION)) {
+                for (byte[] location : locations) {
+                    statement.setLong(1, sequenceService.generateID());
+                    statement.setTimestamp(2, now);
+                    statement.setLong(3, layer.getId());
+                    statement.setBytes(4, location);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+        });
+    }
+}
@@ -1,49 +1,73 @@
 package be.cytomine.service.annotation;
 
-import java.util.HashMap;
-import java.util.List;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.locationtech.jts.geom.Geometry;
-import org.locationtech.jts.io.ParseException;
-import org.locationtech.jts.io.WKTReader;
-import org.locationtech.jts.io.geojson.GeoJsonWriter;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.util.function.ThrowingSupplier;
 
 import be.cytomine.common.repository.http.TermHttpContract;
 import be.cytomine.common.repository.model.command.payload.response.TermResponse;
 import be.cytomine.domain.project.Project;
-import be.cytomine.dto.annotation.AnnotationResult;
-import be.cytomine.repository.AnnotationListing;
-import be.cytomine.service.AnnotationListingService;
 import be.cytomine.service.project.ProjectService;
+import be.cytomine.service.security.SecurityACLService;
 import be.cytomine.utils.AnnotationListingBuilder;
 import be.cytomine.utils.JsonObject;
 
+import static org.springframework.security.acls.domain.BasePermission.READ;
+
 @Slf4j
 @RequiredArgsConstructor
 @Service
 public class AnnotationReportService {
 
-    private final GeoJsonWriter geoJsonWriter;
+    /**
+     * Number of rows fetched per round-trip when exporting annotations
+     */
+    private static final int EXPORT_FETCH_SIZE = 1000;
 
-    private final WKTReader wktReader;
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
 
-    private final AnnotationListingBuilder annotationListingBuilder;
+    private static final String USER_ANNOTATION_FEATURES = "SELECT ST_AsGeoJSON(a.location) AS geometry, ("
+        + "SELECT at.term_id FROM annotation_term at "
+        + "WHERE at.user_annotation_id = a.id AND at.deleted IS NULL ORDER BY at.id LIMIT 1"
+        + ") AS term "
+        + "FROM user_annotation a "
+        + "WHERE a.project_id = :project AND a.deleted IS NULL AND a.location IS NOT NULL";
+
+    private static final String REVIEWED_ANNOTATION_FEATURES = "SELECT ST_AsGeoJSON(a.location) AS geometry, ("
+        + "SELECT at.term_id FROM reviewed_annotation_term at "
+        + "WHERE at.reviewed_annotation_terms_id = a.id ORDER BY at.term_id LIMIT 1"
+        + ") AS term "
+        + "FROM reviewed_annotation a "
+        + "WHERE a.project_id = :project AND a.deleted IS NULL AND a.location IS NOT NULL";
 
-    private final AnnotationListingService annotationListingService;
+    private final EntityManager entityManager;
+
+    private final SecurityACLService securityACLService;
+
+    private final AnnotationListingBuilder annotationListingBuilder;
 
     private final ProjectService projectService;
 
     private final TermHttpContract termHttpContract;
 
-    public byte[] downloadDocumentByProject(JsonObject params, Project project, long userId) {
+    public void writeDocumentByProject(JsonObject params, Project project, long userId, OutputStream output) {
 
         Long idProject = params.getJSONAttrLong("project");
         boolean reviewed = params.getJSONAttrBoolean("reviewed", false);
@@ -70,68 +94,103 @@ public class AnnotationReportService {
 
         log.info("Download report for project {} with users {} and terms {}", idProject, userIds, terms);
 
-        return annotationListingBuilder.buildAnnotationReport(idProject, userIds, params, terms, format, userId);
+        annotationListingBuilder.writeAnnotationReport(idProject, userIds, params, terms, format, userId, output);
     }
 
-    public Map<String, Object> exportAnnotations(Long projectId, long userId) {
-        JsonObject params = JsonObject.of("project", projectId);
-        params.put("showDefault", true);
-        params.put("showWKT", true);
-        params.put("showGIS", true);
-
-        Map<Long, String> termNames = termHttpContract.findTermsByProject(projectId, userId, Pageable.unpaged())
+    /**
+     * Write the user and reviewed annotations of the project as a GeoJSON FeatureCollection.
+     * Rows are read through a forward-only cursor and the geometries are encoded by PostGIS,
+     * so that the export does not depend on the number of annotations of the project.
+     * The output is only opened once the first feature is read (or at the end), so that errors raised before
+     * can still be answered with a regular error response. It is closed at the end of the export.
+     */
+    @Transactional
+    public void exportAnnotations(Project project, long userId, ThrowingSupplier<OutputStream> output)
+        throws IOException {
+        securityACLService.check(project, READ);
+
+        Map<Long, String> termNames = termHttpContract.findTermsByProject(project.getId(), userId, Pageable.unpaged())
             .stream()
             .collect(Collectors.toMap(TermResponse::id, TermResponse::name));
 
-        AnnotationListing userListing = annotationListingBuilder.buildAnnotationListing(params);
-        List<AnnotationResult> userAnnotations = annotationListingService.listGeneric(userListing);
-
-        JsonObject reviewedParams = new JsonObject(params);
-        reviewedParams.put("reviewed", true);
-        AnnotationListing reviewedListing = annotationListingBuilder.buildAnnotationListing(reviewedParams);
-        List<AnnotationResult> reviewedAnnotations = annotationListingService.listGeneric(reviewedListing);
-
-        return Map.of(
-            "type", "FeatureCollection",
-            "features", Stream.concat(
-                userAnnotations.stream().map(a -> toGeoJsonFeature(a, termNames)).flatMap(Optional::stream),
-                reviewedAnnotations.stream().map(a -> toGeoJsonFeature(a, termNames)).flatMap(Optional::stream)
-            )
-        );
+        GeoJsonFeatureWriter writer = new GeoJsonFeatureWriter(output, termNames);
+        writer.writeAll(streamFeatureRows(USER_ANNOTATION_FEATURES, project));
+        writer.writeAll(streamFeatureRows(REVIEWED_ANNOTATION_FEATURES, project));
+        writer.finish();
+    }
+
+    private Stream<Tuple> streamFeatureRows(String request, Project project) {
+        return entityManager.createNativeQuery(request, Tuple.class)
+            .setParameter("project", project.getId())
+            .setHint(HibernateHints.HINT_FETCH_SIZE, EXPORT_FETCH_SIZE)
+            .getResultStream();
     }
 
-    private Optional<Map<String, Object>> toGeoJsonFeature(AnnotationResult annotation, Map<Long, String> termNames) {
-        Object location = annotation.get("location");
-        if (location == null) {
-            return Optional.empty();
+    /**
+     * Write features as they are read, with the GeoJSON geometry from PostGIS copied as is
+     */
+    private static final class GeoJsonFeatureWriter {
+
+        private final ThrowingSupplier<OutputStream> output;
+
+        private final Map<Long, String> termNames;
+
+        private JsonGenerator generator;
+
+        GeoJsonFeatureWriter(ThrowingSupplier<OutputStream> output, Map<Long, String> termNames) {
+            this.output = output;
+            this.termNames = termNames;
         }
 
-        String wkt = location.toString();
-        try {
-            Geometry geometry = wktReader.read(wkt);
-            return Optional.ofNullable(JsonObject.toMap(geoJsonWriter.write(geometry)))
-                .map(geometryJson -> Map.of(
-                    "type", "Feature",
-                    "geometry", geometryJson,
-                    "properties", buildProperties(annotation, termNames)
-                ));
-        } catch (ParseException e) {
-            log.warn("Unable to parse WKT for annotation {}: {}", annotation.get("id"), e.getMessage());
-            return Optional.empty();
+        void writeAll(Stream<Tuple> rows) throws IOException {
+            try (rows) {
+                Iterator<Tuple> iterator = rows.iterator();
+                while (iterator.hasNext()) {
+                    write(iterator.next());
+                }
+            }
         }
-    }
 
-    private Map<String, Object> buildProperties(AnnotationResult annotation, Map<Long, String> termNames) {
-        Map<String, Object> properties = new HashMap<>();
+        void finish() throws IOException {
+            start();
+            generator.writeEndArray();
+            generator.writeEndObject();
+            generator.close();
+        }
 
-        Object terms = annotation.get("term");
-        if (terms instanceof List<?> termList && !termList.isEmpty()) {
-            String termName = termNames.get(((Number) termList.getFirst()).longValue());
+        private void write(Tuple row) throws IOException {
+            start();
+            generator.writeStartObject();
+            generator.writeStringField("type", "Feature");
+            generator.writeFieldName("geometry");
+            generator.writeRawValue((String) row.get("geometry"));
+            generator.writeObjectFieldStart("properties");
+            Number term = (Number) row.get("term");
+            String termName = term != null ? termNames.get(term.longValue()) : null;
             if (termName != null) {
-                properties.put("path_class_name", termName);
+                generator.writeStringField("path_class_name", termName);
             }
+            generator.writeEndObject();
+            generator.writeEndObject();
         }
 
-        return properties;
+        private void start() throws IOException {
+            if (generator == null) {
+                generator = JSON_FACTORY.createGenerator(openOutput(), JsonEncoding.UTF8);
+                generator.writeStartObject();
+                generator.writeStringField("type", "FeatureCollection");
+                generator.writeArrayFieldStart("features");
+            }
+        }
+
+        private OutputStream openOutput() throws IOException {
+            try {
+                return output.getWithException();
+            } catch (IOException | RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IOException(e);
+            }
+        }
     }
 }
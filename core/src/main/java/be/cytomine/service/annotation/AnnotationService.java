@@ -1,29 +1,75 @@
 package be.cytomine.service.annotation;
 
-import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.io.ParseException;
+import org.locationtech.jts.io.WKBWriter;
+import org.locationtech.jts.io.WKTReader;
 import org.springframework.stereotype.Service;
 
 import be.cytomine.domain.annotation.Annotation;
 import be.cytomine.domain.annotation.AnnotationLayer;
+import be.cytomine.exceptions.WrongArgumentException;
 import be.cytomine.repository.annotation.AnnotationRepository;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class AnnotationService {
 
+    /**
+     * Number of annotations inserted in a single transaction by createAnnotations
+     */
+    public static final int BULK_CHUNK_SIZE = 5000;
+
     private final AnnotationRepository annotationRepository;
 
+    private final AnnotationBulkWriter annotationBulkWriter;
+
     public Annotation createAnnotation(AnnotationLayer layer, String geometry) {
         Annotation annotation = new Annotation();
         annotation.setAnnotationLayer(layer);
-        annotation.setLocation(geometry.getBytes(StandardCharsets.UTF_8));
+        try {
+            annotation.setLocation(new WKTReader().read(geometry));
+        } catch (ParseException e) {
+            throw new WrongArgumentException("Annotation location is not a valid WKT geometry: " + geometry);
+        }
 
         return annotationRepository.saveAndFlush(annotation);
     }
 
+    /**
+     * Create an annotation for each geometry of the stream, by chunks of BULK_CHUNK_SIZE geometries.
+     * The geometries of a chunk are serialized to WKB in parallel and inserted in one transaction.
+     *
+     * @return the number of created annotations
+     */
+    public long createAnnotations(AnnotationLayer layer, Stream<Geometry> geometries) {
+        long created = 0;
+        Iterator<Geometry> iterator = geometries.iterator();
+        List<Geometry> chunk = new ArrayList<>(BULK_CHUNK_SIZE);
+        while (iterator.hasNext()) {
+            chunk.add(iterator.next());
+            if (chunk.size() == BULK_CHUNK_SIZE || !iterator.hasNext()) {
+                List<byte[]> locations = chunk.parallelStream()
+                    .map(geometry -> new WKBWriter().write(geometry))
+                    .toList();
+                annotationBulkWriter.insert(layer, locations);
+                created += locations.size();
+                chunk.clear();
+                log.info("{} annotations created in layer {}", created, layer.getName());
+            }
+        }
+        return created;
+    }
+
     public Optional<Annotation> find(Long id) {
         return annotationRepository.findById(id);
     }
@@ -17,6 +17,8 @@ import java.util.Set;
 import java.util.UUID;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
@@ -30,6 +32,7 @@ import org.locationtech.jts.geom.Envelope;
 import org.locationtech.jts.geom.Geometry;
 import org.springframework.core.io.ByteArrayResource;
 import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -53,6 +56,7 @@ import be.cytomine.domain.image.ImageInstance;
 import be.cytomine.domain.ontology.AnnotationDomain;
 import be.cytomine.domain.ontology.UserAnnotation;
 import be.cytomine.domain.project.Project;
+import be.cytomine.domain.security.User;
 import be.cytomine.dto.UserSummary;
 import be.cytomine.dto.appengine.task.TaskRunDetail;
 import be.cytomine.dto.appengine.task.TaskRunOutputResponse;
@@ -130,10 +134,13 @@ public class TaskRunService {
         securityACLService.check(project, READ);
         securityACLService.checkIsNotReadOnly(project);
 
-        String appEngineResponse = appEngineService.post(
+        User user = currentUserService.getCurrentUserOld();
+        // the project and the user are used by the app engine to share the cluster fairly between them
+        String appEngineResponse = appEngineService.postWithParams(
             "/tasks/" + taskId + "/runs",
             null,
-            MediaType.APPLICATION_JSON
+            MediaType.APPLICATION_JSON,
+            Map.of("project", String.valueOf(project.getId()), "user", String.valueOf(user.getId()))
         );
 
         TaskRunResponse taskRunResponse;
@@ -145,7 +152,7 @@ public class TaskRunService {
         ImageInstance image = imageInstanceService.get(body.get("image").asLong());
 
         TaskRun taskRun = new TaskRun();
-        taskRun.setUser(currentUserService.getCurrentUserOld());
+        taskRun.setUser(user);
         taskRun.setProject(project);
         taskRun.setTaskRunId(taskRunResponse.id());
         taskRun.setImage(image);
@@ -265,13 +272,13 @@ public class TaskRunService {
         parameters.setLocation(annotation.getWktLocation());
 
         try {
-            ResponseEntity<byte[]> response = imageServerService.crop(annotation, parameters, null, null);
+            ResponseEntity<Resource> response = imageServerService.crop(annotation, parameters, null, null);
 
             if (!response.getStatusCode().is2xxSuccessful()) {
                 throw new RuntimeException("Image server returned error status: " + response.getStatusCode());
             }
 
-            byte[] imageData = response.getBody();
+            byte[] imageData = response.getBody() != null ? response.getBody().getContentAsByteArray() : null;
             if (imageData == null || imageData.length == 0) {
                 throw new RuntimeException("Image server returned empty response for annotation " + annotation.getId());
             }
@@ -527,43 +534,40 @@ public class TaskRunService {
         return appEngineService.post("task-runs/" + taskRunId + "/state-actions", body, MediaType.APPLICATION_JSON);
     }
 
-    private void processGeometryValue(
+    /**
+     * Lazily flatten the geometries of a (nested) geometry collection, with the offset of their crop
+     */
+    private Stream<Geometry> collectGeometries(
         CollectionOutput collection,
-        AnnotationLayer annotationLayer,
         TaskRunLayer taskRunLayer,
         int index
     ) {
         List<CollectionOutput.IndexedTaskRunOutput> items = collection.value();
         if (items == null || items.isEmpty()) {
-            return;
+            return Stream.empty();
         }
 
-        switch (collection.subType()) {
+        return switch (collection.subType()) {
             case "GEOMETRY" -> {
                 List<CropOffset> offsets = taskRunLayer.getOffsets();
                 CropOffset offset = index < offsets.size() ? offsets.get(index) : new CropOffset();
 
-                for (CollectionOutput.IndexedTaskRunOutput item : items) {
-                    if (item.value() instanceof GeometryOutput geometryOutput) {
-                        Geometry parsedGeometry = geometryService.addOffset(
-                                geometryOutput.value(),
-                                offset.getX(),
-                                offset.getY()
-                            )
-                            .orElseThrow(() -> new IllegalStateException("Invalid WKT geometry"));
-                        annotationService.createAnnotation(annotationLayer, parsedGeometry.toString());
-                    }
-                }
-            }
-            case "ARRAY" -> {
-                for (int i = 0; i < items.size(); i++) {
-                    if (items.get(i).value() instanceof CollectionOutput nestedCollection) {
-                        processGeometryValue(nestedCollection, annotationLayer, taskRunLayer, i);
-                    }
-                }
+                yield items.stream()
+                    .map(CollectionOutput.IndexedTaskRunOutput::value)
+                    .filter(GeometryOutput.class::isInstance)
+                    .map(item -> addOffset((GeometryOutput) item, offset));
             }
+            case "ARRAY" -> IntStream.range(0, items.size())
+                .filter(i -> items.get(i).value() instanceof CollectionOutput)
+                .boxed()
+                .flatMap(i -> collectGeometries((CollectionOutput) items.get(i).value(), taskRunLayer, i));
             default -> throw new IllegalArgumentException("Unsupported collection subtype: " + collection.subType());
-        }
+        };
+    }
+
+    private Geometry addOffset(GeometryOutput geometry, CropOffset offset) {
+        return geometryService.addOffset(geometry.value(), offset.getX(), offset.getY())
+            .orElseThrow(() -> new IllegalStateException("Invalid WKT geometry"));
     }
 
     private boolean hasGeometrySubType(TaskRunOutput output) {
@@ -626,25 +630,28 @@ public class TaskRunService {
             .map(GeometryOutput.class::cast)
             .collect(Collectors.toSet());
 
-        for (GeometryOutput geometry : geometries) {
-            CropOffset offset = Optional.ofNullable(layersByParameterName.get(geometry.parameterName()))
+        Stream<Geometry> singleGeometries = geometries.stream().map(geometry -> addOffset(
+            geometry,
+            Optional.ofNullable(layersByParameterName.get(geometry.parameterName()))
                 .filter(layer -> !layer.getOffsets().isEmpty())
                 .map(layer -> layer.getOffsets().getFirst())
-                .orElseGet(() -> new CropOffset(0, 0));
-            Geometry parsedGeometry = geometryService.addOffset(geometry.value(), offset.getX(), offset.getY())
-                .orElseThrow(() -> new IllegalStateException("Invalid WKT geometry"));
-            annotationService.createAnnotation(annotationLayer, parsedGeometry.toString());
-        }
+                .orElseGet(() -> new CropOffset(0, 0))
+        ));
 
-        List<CollectionOutput> arrays = taskRunOutputs.stream()
+        Stream<Geometry> collectionGeometries = taskRunOutputs.stream()
             .filter(this::hasGeometrySubType)
             .map(CollectionOutput.class::cast)
-            .toList();
-
-        for (CollectionOutput geometryCollection : arrays) {
-            TaskRunLayer matchedLayer = layersByParameterName.get(geometryCollection.parameterName());
-            processGeometryValue(geometryCollection, annotationLayer, matchedLayer, 0);
-        }
+            .flatMap(collection -> collectGeometries(
+                collection,
+                layersByParameterName.get(collection.parameterName()),
+                0
+            ));
+
+        long created = annotationService.createAnnotations(
+            annotationLayer,
+            Stream.concat(singleGeometries, collectionGeometries)
+        );
+        log.info("{} annotations created from the outputs of task run {}", created, taskRunId);
 
         return response;
     }
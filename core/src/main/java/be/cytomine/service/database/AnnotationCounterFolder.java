@@ -0,0 +1,62 @@
+package be.cytomine.service.database;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import be.cytomine.config.properties.ApplicationProperties;
+
+/**
+ * Periodically fold the annotation counter deltas into the project and image totals.
+ * The totals lag behind the annotation writes by at most the fold interval.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Component
+public class AnnotationCounterFolder {
+
+    private final AnnotationCounterService annotationCounterService;
+
+    private final ApplicationProperties applicationProperties;
+
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    public void start() {
+        long foldInterval = applicationProperties.getAnnotationCounters().getFoldInterval();
+        if (foldInterval <= 0) {
+            log.info("Annotation counter folding is disabled");
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+        scheduler.scheduleWithFixedDelay(this::foldPendingDeltas, foldInterval, foldInterval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Fold batches of deltas until no delta is left
+     */
+    void foldPendingDeltas() {
+        int batchSize = applicationProperties.getAnnotationCounters().getBatchSize();
+        try {
+            int folded;
+            do {
+                folded = annotationCounterService.fold(batchSize);
+            } while (folded == batchSize && !Thread.currentThread().isInterrupted());
+        } catch (Exception e) {
+            log.error("Annotation counter folding failed: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package be.cytomine.service.database;
+
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+/**
+ * Fold the annotation counter deltas appended by the annotation triggers into the project and image totals
+ * (countAnnotations, countImageAnnotations...).
+ * The totals are updated once per project and image for a whole batch of deltas instead of once per annotation.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Service
+@Transactional
+public class AnnotationCounterService {
+
+    /**
+     * Advisory lock key allowing a single folder at a time (e.g. when several core instances are running)
+     */
+    static final long FOLD_LOCK = 0x636f756e746572L;
+
+    private final EntityManager entityManager;
+
+    /**
+     * Fold the oldest deltas into the totals
+     *
+     * @return the number of folded deltas, 0 if another folder is running
+     */
+    public int fold(int max) {
+        Boolean locked = (Boolean) entityManager.createNativeQuery("SELECT pg_try_advisory_xact_lock(:key)")
+            .setParameter("key", FOLD_LOCK)
+            .getSingleResult();
+        if (!Boolean.TRUE.equals(locked)) {
+            return 0;
+        }
+
+        Number folded = (Number) entityManager.createNativeQuery(
+                "WITH folded AS ("
+                    + "DELETE FROM annotation_counter_delta WHERE id IN ("
+                    + "SELECT id FROM annotation_counter_delta ORDER BY id LIMIT :max"
+                    + ") RETURNING project_id, image_id, annotations, job_annotations, reviewed_annotations"
+                    + "), projects AS ("
+                    + "UPDATE project p SET count_annotations = p.count_annotations + d.annotations, "
+                    + "count_job_annotations = p.count_job_annotations + d.job_annotations, "
+                    + "count_reviewed_annotations = p.count_reviewed_annotations + d.reviewed_annotations "
+                    + "FROM (SELECT project_id, sum(annotations) AS annotations, "
+                    + "sum(job_annotations) AS job_annotations, sum(reviewed_annotations) AS reviewed_annotations "
+                    + "FROM folded GROUP BY project_id) d WHERE p.id = d.project_id"
+                    + "), images AS ("
+                    + "UPDATE image_instance i "
+                    + "SET count_image_annotations = i.count_image_annotations + d.annotations, "
+                    + "count_image_job_annotations = i.count_image_job_annotations + d.job_annotations, "
+                    + "count_image_reviewed_annotations = "
+                    + "i.count_image_reviewed_annotations + d.reviewed_annotations "
+                    + "FROM (SELECT image_id, sum(annotations) AS annotations, "
+                    + "sum(job_annotations) AS job_annotations, sum(reviewed_annotations) AS reviewed_annotations "
+                    + "FROM folded GROUP BY image_id) d WHERE i.id = d.image_id"
+                    + ") SELECT count(*) FROM folded"
+            )
+            .setParameter("max", max)
+            .getSingleResult();
+
+        if (folded.intValue() > 0) {
+            log.debug("{} annotation counter deltas folded", folded);
+        }
+        return folded.intValue();
+    }
+}
@@ -1,5 +1,9 @@
 package be.cytomine.service.database;
 
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.Query;
 import jakarta.transaction.Transactional;
@@ -13,15 +17,42 @@ public class SequenceService {
 
     public static final String SEQ_NAME = "hibernate_sequence";
 
+    /**
+     * Number of ids reserved from the sequence with a single request
+     */
+    public static final int ID_BLOCK_SIZE = 50;
+
     private final EntityManager entityManager;
 
+    private final Queue<Long> reservedIds = new ConcurrentLinkedQueue<>();
+
     /**
-     * Get a new id number
+     * Get a new id number.
+     * Ids are taken from a block reserved in the sequence, a new block is only reserved when the previous one is used.
+     * Each id of a block comes from nextval, so blocks stay unique between several core instances
+     * and the entities inserted by Hibernate or SQL scripts that use the same sequence.
      */
     public Long generateID() {
+        Long id = reservedIds.poll();
+        while (id == null) {
+            reserveIds();
+            id = reservedIds.poll();
+        }
+        return id;
+    }
+
+    private synchronized void reserveIds() {
+        if (!reservedIds.isEmpty()) {
+            return;
+        }
         try {
-            Query query = entityManager.createNativeQuery("select nextval('" + SEQ_NAME + "');");
-            return (Long) query.getSingleResult();
+            Query query = entityManager.createNativeQuery(
+                "select nextval('" + SEQ_NAME + "') from generate_series(1, " + ID_BLOCK_SIZE + ");"
+            );
+            List<?> ids = query.getResultList();
+            for (Object id : ids) {
+                reservedIds.add(((Number) id).longValue());
+            }
         } catch (Exception e) {
             throw new RuntimeException("Cannot generate ID with sequence: " + e, e);
         }
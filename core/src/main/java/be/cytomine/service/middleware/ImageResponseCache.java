@@ -0,0 +1,487 @@
+package be.cytomine.service.middleware;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.cloud.gateway.mvc.ProxyExchange;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import be.cytomine.config.properties.ApplicationProperties;
+import be.cytomine.utils.PreparedRequest;
+
+/**
+ * Cache of the images (tiles, thumbs, crops, windows) returned by the image server.
+ * <p>
+ * The key is built from the prepared request (slice path, image parameters, body and accepted format).
+ * Responses are kept in memory within a byte budget (least recently used first out), and optionally in a disk
+ * tier whose entries are streamed from memory-mapped files, without being copied on the heap.
+ * Identical requests in flight share a single image server call, and conditional requests (If-None-Match)
+ * are answered from the cached ETag.
+ */
+@Slf4j
+@Component
+public class ImageResponseCache {
+
+    private static final List<String> CACHED_REQUEST_HEADERS = List.of(
+        HttpHeaders.ACCEPT,
+        "X-Image-Size-Safety",
+        "X-Annotation-Origin"
+    );
+
+    private static final List<String> UNCACHED_RESPONSE_HEADERS = List.of(
+        HttpHeaders.TRANSFER_ENCODING,
+        HttpHeaders.CONNECTION,
+        HttpHeaders.SET_COOKIE,
+        HttpHeaders.DATE
+    );
+
+    private final boolean enabled;
+
+    private final long memorySize;
+
+    private final long maxEntrySize;
+
+    private final long timeToLive;
+
+    private final Path diskPath;
+
+    private final long diskSize;
+
+    private final LinkedHashMap<String, CachedResponse> memory = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long memoryUsage = 0;
+
+    private final AtomicLong diskUsage = new AtomicLong();
+
+    private final Object diskLock = new Object();
+
+    private final Map<String, CompletableFuture<CachedResponse>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong diskHits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final AtomicLong collapsed = new AtomicLong();
+
+    private final AtomicLong notModified = new AtomicLong();
+
+    public ImageResponseCache(ApplicationProperties applicationProperties) {
+        ApplicationProperties.ImageCache properties = applicationProperties.getImageCache();
+        this.enabled = properties.isEnabled();
+        this.memorySize = properties.getMemorySize();
+        this.maxEntrySize = properties.getMaxEntrySize();
+        this.timeToLive = properties.getTimeToLive();
+        this.diskSize = properties.getDiskSize();
+        this.diskPath = enabled && StringUtils.isNotBlank(properties.getDiskPath())
+            ? initDiskTier(Path.of(properties.getDiskPath()))
+            : null;
+    }
+
+    /**
+     * Get the image server response of the request, from the cache if possible
+     *
+     * @param etag ETag sent by the client (If-None-Match), may be null
+     */
+    public ResponseEntity<Resource> fetch(PreparedRequest request, String etag, ProxyExchange<byte[]> proxy) {
+        if (!enabled) {
+            if (etag != null) {
+                request.getHeaders().add(HttpHeaders.IF_NONE_MATCH, etag);
+            }
+            ResponseEntity<byte[]> response = request.toResponseEntity(proxy, byte[].class);
+            return new ResponseEntity<>(
+                response.getBody() != null ? new ByteArrayResource(response.getBody()) : null,
+                response.getHeaders(),
+                response.getStatusCode()
+            );
+        }
+
+        String key = getKey(request);
+        CachedResponse response = getFromMemory(key);
+        if (response != null) {
+            hits.incrementAndGet();
+        } else {
+            // disk entries are not moved to the memory tier, their pages are already cached by the system
+            response = getFromDisk(key);
+            if (response != null) {
+                diskHits.incrementAndGet();
+            } else {
+                response = load(key, request, proxy);
+            }
+        }
+
+        if (response.matches(etag)) {
+            notModified.incrementAndGet();
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).headers(response.getValidators()).build();
+        }
+        return response.toResponseEntity();
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("enabled", enabled);
+        synchronized (this) {
+            statistics.put("entries", memory.size());
+            statistics.put("memoryUsage", memoryUsage);
+        }
+        statistics.put("memorySize", memorySize);
+        statistics.put("diskEnabled", diskPath != null);
+        statistics.put("diskUsage", diskUsage.get());
+        statistics.put("diskSize", diskSize);
+        statistics.put("hits", hits.get());
+        statistics.put("diskHits", diskHits.get());
+        statistics.put("misses", misses.get());
+        statistics.put("collapsed", collapsed.get());
+        statistics.put("notModified", notModified.get());
+        return statistics;
+    }
+
+    String getKey(PreparedRequest request) {
+        StringBuilder key = new StringBuilder()
+            .append(request.getMethod()).append(' ').append(request.getURI());
+        for (String header : CACHED_REQUEST_HEADERS) {
+            key.append('\n').append(header).append(':').append(request.getHeaders().get(header));
+        }
+        if (request.getBody() != null) {
+            key.append('\n').append(request.getBody());
+        }
+        return DigestUtils.sha256Hex(key.toString());
+    }
+
+    private CachedResponse load(String key, PreparedRequest request, ProxyExchange<byte[]> proxy) {
+        CompletableFuture<CachedResponse> future = new CompletableFuture<>();
+        CompletableFuture<CachedResponse> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            collapsed.incrementAndGet();
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+
+        misses.incrementAndGet();
+        try {
+            CachedResponse response = CachedResponse.of(request.toResponseEntity(proxy, byte[].class));
+            if (isCacheable(response)) {
+                putInMemory(key, response);
+                putOnDisk(key, response);
+            }
+            future.complete(response);
+            return response;
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    private boolean isCacheable(CachedResponse response) {
+        String cacheControl = response.headers().getCacheControl();
+        return response.status() == HttpStatus.OK.value()
+            && response.body() != null
+            && response.size() <= maxEntrySize
+            && (cacheControl == null || !cacheControl.contains("no-store"));
+    }
+
+    private synchronized CachedResponse getFromMemory(String key) {
+        CachedResponse response = memory.get(key);
+        if (response != null && response.isExpired(timeToLive)) {
+            memory.remove(key);
+            memoryUsage -= response.size();
+            return null;
+        }
+        return response;
+    }
+
+    private synchronized void putInMemory(String key, CachedResponse response) {
+        if (response.size() > memorySize) {
+            return;
+        }
+        CachedResponse previous = memory.put(key, response);
+        if (previous != null) {
+            memoryUsage -= previous.size();
+        }
+        memoryUsage += response.size();
+
+        Iterator<CachedResponse> eldest = memory.values().iterator();
+        while (memoryUsage > memorySize && eldest.hasNext()) {
+            memoryUsage -= eldest.next().size();
+            eldest.remove();
+        }
+    }
+
+    private Path initDiskTier(Path directory) {
+        try {
+            Files.createDirectories(directory);
+            try (Stream<Path> files = Files.list(directory)) {
+                diskUsage.set(files.mapToLong(file -> file.toFile().length()).sum());
+            }
+            return directory;
+        } catch (IOException e) {
+            log.error("Cannot use {} for the image cache disk tier: {}", directory, e.getMessage());
+            return null;
+        }
+    }
+
+    private CachedResponse getFromDisk(String key) {
+        if (diskPath == null) {
+            return null;
+        }
+        Path file = diskPath.resolve(key);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (Files.getLastModifiedTime(file).toMillis() + timeToLive < System.currentTimeMillis()) {
+                deleteFromDisk(file);
+                return null;
+            }
+            // the mapping stays valid once the channel is closed, and even if the entry is evicted meanwhile
+            return CachedResponse.read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private void putOnDisk(String key, CachedResponse response) {
+        if (diskPath == null) {
+            return;
+        }
+        try {
+            byte[] content = response.write();
+            Path temporary = Files.createTempFile(diskPath, key, ".tmp");
+            Files.write(temporary, content);
+            Files.move(temporary, diskPath.resolve(key), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+            if (diskUsage.addAndGet(content.length) > diskSize) {
+                evictFromDisk();
+            }
+        } catch (IOException e) {
+            log.warn("Cannot write image cache entry on disk: {}", e.getMessage());
+        }
+    }
+
+    private void evictFromDisk() {
+        long target = diskSize * 9 / 10;
+        synchronized (diskLock) {
+            try (Stream<Path> files = Files.list(diskPath)) {
+                Iterator<Path> oldest = files
+                    .sorted(Comparator.comparingLong(file -> file.toFile().lastModified()))
+                    .iterator();
+                while (diskUsage.get() > target && oldest.hasNext()) {
+                    deleteFromDisk(oldest.next());
+                }
+            } catch (IOException e) {
+                log.warn("Cannot evict image cache entries from disk: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void deleteFromDisk(Path file) {
+        long size = file.toFile().length();
+        try {
+            if (Files.deleteIfExists(file)) {
+                diskUsage.addAndGet(-size);
+            }
+        } catch (IOException e) {
+            log.warn("Cannot delete image cache entry {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * @param body the body of the response, on the heap or mapped from the disk tier
+     */
+    record CachedResponse(int status, HttpHeaders headers, ByteBuffer body, long created) {
+
+        static CachedResponse of(ResponseEntity<byte[]> response) {
+            HttpHeaders headers = new HttpHeaders();
+            response.getHeaders().forEach((name, values) -> {
+                if (UNCACHED_RESPONSE_HEADERS.stream().noneMatch(name::equalsIgnoreCase)) {
+                    headers.addAll(name, values);
+                }
+            });
+            return new CachedResponse(
+                response.getStatusCode().value(),
+                headers,
+                response.getBody() != null ? ByteBuffer.wrap(response.getBody()) : null,
+                System.currentTimeMillis()
+            );
+        }
+
+        long size() {
+            return body != null ? body.remaining() : 0;
+        }
+
+        ResponseEntity<Resource> toResponseEntity() {
+            Resource resource = null;
+            if (body != null) {
+                resource = body.hasArray() ? new ByteArrayResource(body.array()) : new MappedResource(body);
+            }
+            return new ResponseEntity<>(resource, headers, HttpStatus.valueOf(status));
+        }
+
+        boolean isExpired(long timeToLive) {
+            return created + timeToLive < System.currentTimeMillis();
+        }
+
+        HttpHeaders getValidators() {
+            HttpHeaders validators = new HttpHeaders();
+            for (String name : List.of(HttpHeaders.ETAG, HttpHeaders.CACHE_CONTROL, HttpHeaders.LAST_MODIFIED)) {
+                if (headers.containsKey(name)) {
+                    validators.addAll(name, headers.get(name));
+                }
+            }
+            return validators;
+        }
+
+        boolean matches(String etag) {
+            String current = headers.getETag();
+            if (etag == null || current == null) {
+                return false;
+            }
+            return Arrays.stream(etag.split(","))
+                .map(String::trim)
+                .anyMatch(candidate -> candidate.equals("*") || candidate.equals(current));
+        }
+
+        byte[] write() throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (DataOutputStream output = new DataOutputStream(bytes)) {
+                output.writeInt(status);
+                output.writeLong(created);
+                output.writeInt(headers.size());
+                for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+                    output.writeUTF(header.getKey());
+                    output.writeInt(header.getValue().size());
+                    for (String value : header.getValue()) {
+                        output.writeUTF(value);
+                    }
+                }
+                output.writeInt(body.remaining());
+                output.write(body.array(), body.arrayOffset() + body.position(), body.remaining());
+            }
+            return bytes.toByteArray();
+        }
+
+        static CachedResponse read(ByteBuffer content) throws IOException {
+            try (DataInputStream input = new DataInputStream(new ByteBufferInputStream(content))) {
+                int status = input.readInt();
+                long created = input.readLong();
+                HttpHeaders headers = new HttpHeaders();
+                int headerCount = input.readInt();
+                for (int i = 0; i < headerCount; i++) {
+                    String name = input.readUTF();
+                    int valueCount = input.readInt();
+                    for (int j = 0; j < valueCount; j++) {
+                        headers.add(name, input.readUTF());
+                    }
+                }
+                int length = input.readInt();
+                if (length > content.remaining()) {
+                    throw new IOException("Truncated image cache entry");
+                }
+                ByteBuffer body = content.slice(content.position(), length);
+                return new CachedResponse(status, headers, body, created);
+            }
+        }
+    }
+
+    /**
+     * Body of a disk tier entry, streamed from its mapped file
+     */
+    private static class MappedResource extends AbstractResource {
+
+        private final ByteBuffer body;
+
+        MappedResource(ByteBuffer body) {
+            this.body = body;
+        }
+
+        @Override
+        public String getDescription() {
+            return "Image cache entry [" + body.remaining() + " bytes]";
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return new ByteBufferInputStream(body.duplicate());
+        }
+
+        @Override
+        public long contentLength() {
+            return body.remaining();
+        }
+
+        @Override
+        public boolean exists() {
+            return true;
+        }
+    }
+
+    /**
+     * Read a buffer from its position, the position moves forward as bytes are read
+     */
+    private static class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
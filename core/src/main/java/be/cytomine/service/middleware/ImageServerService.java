@@ -19,6 +19,7 @@ import org.locationtech.jts.io.ParseException;
 import org.locationtech.jts.io.WKTReader;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cloud.gateway.mvc.ProxyExchange;
+import org.springframework.core.io.Resource;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -71,6 +72,8 @@ public class ImageServerService {
 
     private final RestTemplate restTemplate;
 
+    private final ImageResponseCache imageResponseCache;
+
     @Value("${application.pimsURL}")
     private String pimsURL;
 
@@ -444,21 +447,21 @@ public class ImageServerService {
         return request.toResponseEntity(proxy, byte[].class);
     }
 
-    public ResponseEntity<byte[]> thumb(
+    public ResponseEntity<Resource> thumb(
         ImageInstance image, ImageParameter params, String etag,
         ProxyExchange<byte[]> proxy
     ) {
         return thumb(sliceCoordinatesService.getReferenceSlice(image), params, etag, proxy);
     }
 
-    public ResponseEntity<byte[]> thumb(
+    public ResponseEntity<Resource> thumb(
         SliceInstance slice, ImageParameter params, String etag,
         ProxyExchange<byte[]> proxy
     ) {
         return thumb(slice.getBaseSlice(), params, etag, proxy);
     }
 
-    public ResponseEntity<byte[]> thumb(
+    public ResponseEntity<Resource> thumb(
         AbstractSlice slice, ImageParameter params, String etag,
         ProxyExchange<byte[]> proxy
     ) {
@@ -510,20 +513,17 @@ public class ImageServerService {
                 org.springframework.http.HttpHeaders.ACCEPT,
                 formatToMediaType(params.getFormat())
             );
-        if (etag != null) {
-            request.getHeaders().add(org.springframework.http.HttpHeaders.IF_NONE_MATCH, etag);
-        }
-        return request.toResponseEntity(proxy, byte[].class);
+        return imageResponseCache.fetch(request, etag, proxy);
     }
 
-    public ResponseEntity<byte[]> normalizedTile(
+    public ResponseEntity<Resource> normalizedTile(
         SliceInstance slice, TileParameters params,
         String etag, ProxyExchange<byte[]> proxy
     ) {
         return normalizedTile(slice.getBaseSlice(), params, etag, proxy);
     }
 
-    public ResponseEntity<byte[]> normalizedTile(
+    public ResponseEntity<Resource> normalizedTile(
         AbstractSlice slice, TileParameters params,
         String etag, ProxyExchange<byte[]> proxy
     ) {
@@ -573,11 +573,8 @@ public class ImageServerService {
                 org.springframework.http.HttpHeaders.ACCEPT,
                 formatToMediaType(params.getFormat())
             );
-        if (etag != null) {
-            request.getHeaders().add(org.springframework.http.HttpHeaders.IF_NONE_MATCH, etag);
-        }
 
-        return request.toResponseEntity(proxy, byte[].class);
+        return imageResponseCache.fetch(request, etag, proxy);
     }
 
     private static String retrieveWindowFormat(WindowParameter params) {
@@ -604,7 +601,7 @@ public class ImageServerService {
         };
     }
 
-    public ResponseEntity<byte[]> crop(
+    public ResponseEntity<Resource> crop(
         AnnotationDomain annotation, CropParameter params,
         String etag, ProxyExchange<byte[]> proxy
     ) throws UnsupportedEncodingException, ParseException {
@@ -612,14 +609,14 @@ public class ImageServerService {
         return crop(annotation.getSlice().getBaseSlice(), params, etag, proxy);
     }
 
-    public ResponseEntity<byte[]> crop(
+    public ResponseEntity<Resource> crop(
         SliceInstance slice, CropParameter params, String etag,
         ProxyExchange<byte[]> proxy
     ) throws UnsupportedEncodingException, ParseException {
         return crop(slice.getBaseSlice(), params, etag, proxy);
     }
 
-    public ResponseEntity<byte[]> crop(
+    public ResponseEntity<Resource> crop(
         AbstractSlice slice, CropParameter params, String etag,
         ProxyExchange<byte[]> proxy
     )
@@ -722,17 +719,14 @@ public class ImageServerService {
         String format = retrieveCropFormat(params);
         request.getHeaders()
             .add(org.springframework.http.HttpHeaders.ACCEPT, formatToMediaType(format));
-        if (etag != null) {
-            request.getHeaders().add(org.springframework.http.HttpHeaders.IF_NONE_MATCH, etag);
-        }
         if (params.getSafe() != null && params.getSafe()) {
             request.getHeaders().add("X-Image-Size-Safety", "SAFE_RESIZE");
         }
 
-        return request.toResponseEntity(proxy, byte[].class);
+        return imageResponseCache.fetch(request, etag, proxy);
     }
 
-    public ResponseEntity<byte[]> window(
+    public ResponseEntity<Resource> window(
         AbstractSlice slice, WindowParameter params, String etag,
         ProxyExchange<byte[]> proxy
     )
@@ -849,14 +843,11 @@ public class ImageServerService {
         String format = retrieveWindowFormat(params);
         request.getHeaders()
             .add(org.springframework.http.HttpHeaders.ACCEPT, formatToMediaType(format));
-        if (etag != null) {
-            request.getHeaders().add(org.springframework.http.HttpHeaders.IF_NONE_MATCH, etag);
-        }
         if (params.getSafe() != null && params.getSafe()) {
             request.getHeaders().add("X-Image-Size-Safety", "SAFE_RESIZE");
         }
 
-        return request.toResponseEntity(proxy, byte[].class);
+        return imageResponseCache.fetch(request, etag, proxy);
     }
 
     private static String invertColormap(String colormap) {
@@ -0,0 +1,167 @@
+package be.cytomine.service.ontology;
+
+import java.util.Date;
+import java.util.List;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.springframework.stereotype.Service;
+
+import be.cytomine.domain.image.AbstractImage;
+import be.cytomine.domain.image.SliceInstance;
+import be.cytomine.dto.annotation.AnnotationIndexLightDTO;
+import be.cytomine.dto.annotation.AnnotationTileParameters;
+import be.cytomine.exceptions.WrongArgumentException;
+import be.cytomine.service.security.SecurityACLService;
+
+import static org.springframework.security.acls.domain.BasePermission.READ;
+
+/**
+ * Build Mapbox Vector Tiles (MVT) of the annotations of a slice with PostGIS.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Service
+@Transactional
+public class AnnotationTileService {
+
+    public static final String MVT_CONTENT_TYPE = "application/vnd.mapbox-vector-tile";
+
+    public static final String LAYER_NAME = "annotations";
+
+    /**
+     * Size of a tile in the tile coordinate space
+     */
+    private static final int EXTENT = 4096;
+
+    /**
+     * Geometries are clipped with a margin (in tile coordinate space) so that borders do not show at tile edges
+     */
+    private static final int BUFFER = 64;
+
+    private final EntityManager entityManager;
+
+    private final SecurityACLService securityACLService;
+
+    private final AnnotationIndexService annotationIndexService;
+
+    /**
+     * Fingerprint of a tile: it changes as soon as an annotation of the layer is added, deleted, moved or has its
+     * terms changed in the slice (annotation index version) or is updated in the tile area.
+     */
+    public String getTileETag(SliceInstance slice, AnnotationTileParameters tile) {
+        securityACLService.check(slice.container(), READ);
+        double[] bounds = getTileBounds(slice, tile);
+
+        StringBuilder fingerprint = new StringBuilder()
+            .append(slice.getId()).append('/')
+            .append(tile.zoom()).append('/').append(tile.tx()).append('/').append(tile.ty()).append('/')
+            .append(tile.users()).append('/').append(tile.reviewed());
+
+        for (AnnotationIndexLightDTO index : annotationIndexService.list(slice)) {
+            if (tile.reviewed() || tile.users() == null || tile.users().contains(index.getUser())) {
+                fingerprint.append('|').append(index.getUser())
+                    .append(':').append(index.getCountAnnotation())
+                    .append(':').append(index.getCountReviewedAnnotation())
+                    .append(':').append(index.getVersion());
+            }
+        }
+
+        Query query = entityManager.createNativeQuery(
+            "SELECT max(COALESCE(a.updated, a.created)) "
+                + "FROM " + getTable(tile) + " a "
+                + "WHERE " + getFilters(tile)
+        );
+        bindFilters(query, slice, tile, bounds);
+        Date lastUpdate = (Date) query.getSingleResult();
+        fingerprint.append('|').append(lastUpdate != null ? lastUpdate.getTime() : 0);
+
+        return "\"" + DigestUtils.md5Hex(fingerprint.toString()) + "\"";
+    }
+
+    /**
+     * Encode the annotations intersecting the tile as a vector tile.
+     * Geometries are simplified according to the zoom level: a vertex is kept only if it is visible at this zoom.
+     */
+    public byte[] getTile(SliceInstance slice, AnnotationTileParameters tile) {
+        securityACLService.check(slice.container(), READ);
+        double[] bounds = getTileBounds(slice, tile);
+        double resolution = (bounds[2] - bounds[0]) / EXTENT;
+
+        String request = "SELECT ST_AsMVT(t, '" + LAYER_NAME + "', " + EXTENT + ", 'geom') FROM ("
+            + "SELECT a.id, a.user_id AS user, " + getTerms(tile) + " AS terms, "
+            + "ST_AsMVTGeom("
+            + "ST_SimplifyPreserveTopology(a.location, :tolerance), "
+            + "ST_MakeEnvelope(:xmin, :ymin, :xmax, :ymax, 0), "
+            + EXTENT + ", " + BUFFER + ", true"
+            + ") AS geom "
+            + "FROM " + getTable(tile) + " a "
+            + "WHERE " + getFilters(tile)
+            + ") t WHERE t.geom IS NOT NULL";
+
+        Query query = entityManager.createNativeQuery(request);
+        bindFilters(query, slice, tile, bounds);
+        query.setParameter("tolerance", resolution > 1 ? resolution : 0d);
+        byte[] result = (byte[]) query.getSingleResult();
+        return result != null ? result : new byte[0];
+    }
+
+    /**
+     * Tile area in image coordinates (xmin, ymin, xmax, ymax), whose origin is bottom-left
+     */
+    double[] getTileBounds(SliceInstance slice, AnnotationTileParameters tile) {
+        AbstractImage image = slice.getImage().getBaseImage();
+        if (image.getWidth() == null || image.getHeight() == null) {
+            throw new WrongArgumentException("Image " + image.getId() + " has no dimension");
+        }
+        int zoomLevels = image.getZoomLevels();
+        if (tile.zoom() < 0 || tile.zoom() > zoomLevels || tile.tx() < 0 || tile.ty() < 0) {
+            throw new WrongArgumentException("Tile " + tile.zoom() + "/" + tile.tx() + "/" + tile.ty()
+                + " is out of the tile grid of image " + image.getId());
+        }
+
+        double tileSize = image.getTileSize() * Math.pow(2, zoomLevels - tile.zoom());
+        double xmin = tile.tx() * tileSize;
+        double ymax = image.getHeight() - tile.ty() * tileSize;
+        return new double[] {xmin, ymax - tileSize, xmin + tileSize, ymax};
+    }
+
+    private String getTable(AnnotationTileParameters tile) {
+        return tile.reviewed() ? "reviewed_annotation" : "user_annotation";
+    }
+
+    private String getTerms(AnnotationTileParameters tile) {
+        if (tile.reviewed()) {
+            return "(SELECT string_agg(at.term_id::text, ',') FROM reviewed_annotation_term at "
+                + "WHERE at.reviewed_annotation_terms_id = a.id)";
+        }
+        return "(SELECT string_agg(at.term_id::text, ',') FROM annotation_term at "
+            + "WHERE at.user_annotation_id = a.id AND at.deleted IS NULL)";
+    }
+
+    private String getFilters(AnnotationTileParameters tile) {
+        return "a.slice_id = :slice "
+            + "AND a.location && ST_MakeEnvelope(:xmin, :ymin, :xmax, :ymax, 0) "
+            + (hasUserFilter(tile) ? "AND a.user_id IN (:users) " : "");
+    }
+
+    private void bindFilters(Query query, SliceInstance slice, AnnotationTileParameters tile, double[] bounds) {
+        query.setParameter("slice", slice.getId());
+        query.setParameter("xmin", bounds[0]);
+        query.setParameter("ymin", bounds[1]);
+        query.setParameter("xmax", bounds[2]);
+        query.setParameter("ymax", bounds[3]);
+        if (hasUserFilter(tile)) {
+            query.setParameter("users", tile.users());
+        }
+    }
+
+    private boolean hasUserFilter(AnnotationTileParameters tile) {
+        List<Long> users = tile.users();
+        return !tile.reviewed() && users != null && !users.isEmpty();
+    }
+}
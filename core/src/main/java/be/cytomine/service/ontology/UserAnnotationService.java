@@ -1,23 +1,34 @@
 package be.cytomine.service.ontology;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.FlushModeType;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.locationtech.jts.geom.Envelope;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.FlushEvent;
+import org.hibernate.event.spi.FlushEventListener;
 import org.locationtech.jts.geom.Geometry;
 import org.locationtech.jts.io.ParseException;
-import org.locationtech.jts.io.WKTReader;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
 import org.springframework.web.client.HttpClientErrorException;
 
 import be.cytomine.common.repository.model.command.payload.response.UserResponse;
@@ -27,6 +38,7 @@ import be.cytomine.domain.command.Command;
 import be.cytomine.domain.command.DeleteCommand;
 import be.cytomine.domain.command.EditCommand;
 import be.cytomine.domain.command.Transaction;
+import be.cytomine.domain.image.AbstractImage;
 import be.cytomine.domain.image.ImageInstance;
 import be.cytomine.domain.image.SliceInstance;
 import be.cytomine.domain.ontology.AnnotationDomain;
@@ -39,7 +51,6 @@ import be.cytomine.domain.project.Project;
 import be.cytomine.domain.security.User;
 import be.cytomine.dto.annotation.AnnotationLight;
 import be.cytomine.dto.annotation.SimplifiedAnnotation;
-import be.cytomine.dto.image.BoundariesCropParameter;
 import be.cytomine.exceptions.ForbiddenException;
 import be.cytomine.exceptions.ObjectNotFoundException;
 import be.cytomine.exceptions.WrongArgumentException;
@@ -56,12 +67,14 @@ import be.cytomine.service.command.TransactionService;
 import be.cytomine.service.image.SliceCoordinatesService;
 import be.cytomine.service.image.SliceInstanceService;
 import be.cytomine.service.meta.PropertyService;
+import be.cytomine.service.search.RetrievalIndexingService;
 import be.cytomine.service.search.RetrievalService;
 import be.cytomine.service.security.SecurityACLService;
+import be.cytomine.service.utils.GeometryPipelineService;
+import be.cytomine.service.utils.GeometryPipelineService.ImageBounds;
 import be.cytomine.service.utils.SimplifyGeometryService;
 import be.cytomine.service.utils.ValidateGeometryService;
 import be.cytomine.utils.CommandResponse;
-import be.cytomine.utils.GeometryUtils;
 import be.cytomine.utils.JsonObject;
 import be.cytomine.utils.Task;
 
@@ -73,6 +86,11 @@ import static org.springframework.security.acls.domain.BasePermission.READ;
 @Transactional
 public class UserAnnotationService extends ModelService {
 
+    /**
+     * Number of annotations written between two flushes in addMultiple (the JDBC batch size)
+     */
+    private static final int FLUSH_CHUNK_SIZE = 50;
+
     private final EntityManager entityManager;
 
     private final AnnotationLinkService annotationLinkService;
@@ -93,6 +111,8 @@ public class UserAnnotationService extends ModelService {
 
     private final RetrievalService retrievalService;
 
+    private final RetrievalIndexingService retrievalIndexingService;
+
     private final SecurityACLService securityACLService;
 
     private final SharedAnnotationRepository sharedAnnotationRepository;
@@ -101,6 +121,8 @@ public class UserAnnotationService extends ModelService {
 
     private final SimplifyGeometryService simplifyGeometryService;
 
+    private final GeometryPipelineService geometryPipelineService;
+
     private final SliceCoordinatesService sliceCoordinatesService;
 
     private final SliceInstanceRepository sliceInstanceRepository;
@@ -197,21 +219,221 @@ public class UserAnnotationService extends ModelService {
      */
     @Override
     public CommandResponse add(JsonObject jsonObject) {
+        UserResponse currentUser = currentUserService.getCurrentUser();
+        ImageInstance image = resolveContext(jsonObject, currentUser, new AnnotationBatch());
+        prepareLocation(
+            jsonObject,
+            geometryPipelineService.imageBounds(image.getBaseImage().getWidth(), image.getBaseImage().getHeight())
+        );
+        validateLocation(jsonObject);
+
+        //Start transaction
+        Transaction transaction = transactionService.start();
+        return addPrepared(jsonObject, currentUser, transaction);
+    }
+
+    /**
+     * Add a batch of annotations, reporting the errors of each annotation like addOne.
+     * The slices, images and permissions shared by the annotations are resolved once, the geometries are prepared
+     * in parallel, and the annotations are written with JDBC batches in chunks, in a single undoable transaction.
+     * A chunk whose flush fails is rolled back to a savepoint and replayed annotation by annotation.
+     */
+    @Override
+    public JsonObject addMultiple(List<JsonObject> json) {
+        UserResponse currentUser = currentUserService.getCurrentUser();
+        AnnotationBatch batch = new AnnotationBatch();
+        Map<JsonObject, RuntimeException> failures = Collections.synchronizedMap(new IdentityHashMap<>());
+        Map<JsonObject, ImageBounds> bounds = new IdentityHashMap<>();
+        Map<Long, ImageBounds> imageBounds = new HashMap<>();
+
+        for (JsonObject jsonObject : json) {
+            try {
+                ImageInstance image = resolveContext(jsonObject, currentUser, batch);
+                // the lazy image entities cannot be loaded from the geometry workers
+                AbstractImage baseImage = image.getBaseImage();
+                bounds.put(jsonObject, imageBounds.computeIfAbsent(
+                    image.getId(),
+                    id -> geometryPipelineService.imageBounds(baseImage.getWidth(), baseImage.getHeight())
+                ));
+            } catch (RuntimeException e) {
+                failures.put(jsonObject, e);
+            }
+        }
+
+        geometryPipelineService.processAll(bounds.entrySet(), entry -> {
+            try {
+                prepareLocation(entry.getKey(), entry.getValue());
+            } catch (RuntimeException e) {
+                failures.put(entry.getKey(), e);
+            }
+        });
+
+        Transaction transaction = transactionService.start();
+        // the transaction is written before the first savepoint, a rolled back chunk must not remove it
+        entityManager.flush();
+
+        Function<JsonObject, CommandResponse> addOne = jsonObject -> {
+            RuntimeException failure = failures.get(jsonObject);
+            if (failure != null) {
+                throw failure;
+            }
+            validateLocation(jsonObject);
+            return addPrepared(jsonObject, currentUser, transaction);
+        };
+
+        List<JsonObject> result = new ArrayList<>();
+        List errors = new ArrayList();
+        FlushModeType flushMode = entityManager.getFlushMode();
+        entityManager.setFlushMode(FlushModeType.COMMIT);
+        try {
+            for (int from = 0; from < json.size(); from += FLUSH_CHUNK_SIZE) {
+                List<JsonObject> chunk = json.subList(from, Math.min(from + FLUSH_CHUNK_SIZE, json.size()));
+                if (addChunk(chunk, addOne, result, errors) == null) {
+                    continue;
+                }
+
+                List<JsonObject> remaining = json.subList(from, json.size());
+                reattachContext(remaining);
+                for (JsonObject jsonObject : chunk) {
+                    RuntimeException flushFailure = addChunk(List.of(jsonObject), addOne, result, errors);
+                    if (flushFailure != null) {
+                        result.add(failedEntry(
+                            jsonObject,
+                            new WrongArgumentException("Cannot persist object:" + flushFailure),
+                            errors
+                        ));
+                        reattachContext(remaining);
+                    }
+                }
+            }
+        } finally {
+            entityManager.setFlushMode(flushMode);
+        }
+        return multipleResponse(result, errors);
+    }
+
+    /**
+     * Replace the slices, images and projects resolved for the annotations by managed entities,
+     * once the session has been cleared after a rolled back chunk
+     */
+    private void reattachContext(List<JsonObject> json) {
+        Map<String, Object> managed = new HashMap<>();
+        for (JsonObject jsonObject : json) {
+            reattach(jsonObject, "sliceObject", SliceInstance.class, managed);
+            reattach(jsonObject, "imageObject", ImageInstance.class, managed);
+            reattach(jsonObject, "projectObject", Project.class, managed);
+        }
+    }
+
+    private void reattach(JsonObject jsonObject, String key, Class<?> domainClass, Map<String, Object> managed) {
+        if (!(jsonObject.get(key) instanceof CytomineDomain domain) || entityManager.contains(domain)) {
+            return;
+        }
+        jsonObject.put(key, managed.computeIfAbsent(
+            key + domain.getId(),
+            id -> entityManager.find(domainClass, domain.getId())
+        ));
+    }
+
+    /**
+     * Add a chunk of annotations and flush it.
+     * If the flush fails, the chunk is rolled back to a savepoint and its results are discarded.
+     *
+     * @return the flush failure, null if the chunk is written
+     */
+    private RuntimeException addChunk(
+        List<JsonObject> chunk,
+        Function<JsonObject, CommandResponse> addOne,
+        List<JsonObject> result,
+        List errors
+    ) {
+        TransactionStatus status = TransactionAspectSupport.currentTransactionStatus();
+        Object savepoint = status.createSavepoint();
+
+        List<JsonObject> chunkResult = new ArrayList<>();
+        List chunkErrors = new ArrayList();
+        for (JsonObject jsonObject : chunk) {
+            chunkResult.add(addEntry(jsonObject, addOne, chunkErrors));
+        }
+
+        try {
+            flushChunk();
+        } catch (RuntimeException e) {
+            log.info("Cannot write a chunk of {} annotations: {}", chunk.size(), e.toString());
+            status.rollbackToSavepoint(savepoint);
+            // the entities of the chunk are not in the database anymore
+            entityManager.clear();
+            return e;
+        }
+
+        status.releaseSavepoint(savepoint);
+        result.addAll(chunkResult);
+        errors.addAll(chunkErrors);
+        return null;
+    }
+
+    /**
+     * Flush the session with the flush listeners.
+     * EntityManager.flush marks the transaction as rollback-only when a statement fails,
+     * which would forbid rolling back to the savepoint of the chunk and committing the other chunks.
+     */
+    private void flushChunk() {
+        EventSource session = entityManager.unwrap(EventSource.class);
+        session.getFactory()
+            .getServiceRegistry()
+            .requireService(EventListenerRegistry.class)
+            .getEventListenerGroup(EventType.FLUSH)
+            .fireEventOnEachListener(new FlushEvent(session), FlushEventListener::onFlush);
+    }
+
+    /**
+     * Slices, images and permissions already resolved for a batch of annotations
+     */
+    private static class AnnotationBatch {
+
+        final Map<Long, SliceInstance> slices = new HashMap<>();
+
+        final Map<Long, ImageInstance> images = new HashMap<>();
+
+        final Map<Long, SliceInstance> referenceSlices = new HashMap<>();
+
+        final Set<Long> writableProjects = new HashSet<>();
+
+        final Set<Long> projectsWritableForOthers = new HashSet<>();
+
+        boolean guestChecked = false;
+    }
+
+    /**
+     * Find the slice, image and project of the new annotation and check that the current user can add it
+     *
+     * @return the image of the annotation
+     */
+    private ImageInstance resolveContext(JsonObject jsonObject, UserResponse currentUser, AnnotationBatch batch) {
         SliceInstance slice = null;
         ImageInstance image = null;
-        // TODO perf: we load twice slice/image/... : here + in userannotation domain "build from json" method
-        // Same for user
-        // We could provide "sliceObject", "imageObject", "userObject" in JSON
-        // and first check for them in the userannotation class
         if (!jsonObject.isMissing("slice")) {
-            slice = sliceInstanceService.find(jsonObject.getJSONAttrLong("slice"))
-                .orElseThrow(() -> new ObjectNotFoundException("SliceInstance with id " + jsonObject.get("slice")));
+            Long sliceId = jsonObject.getJSONAttrLong("slice");
+            slice = batch.slices.get(sliceId);
+            if (slice == null) {
+                slice = sliceInstanceService.find(sliceId)
+                    .orElseThrow(() -> new ObjectNotFoundException("SliceInstance with id " + jsonObject.get("slice")));
+                batch.slices.put(sliceId, slice);
+            }
             image = slice.getImage();
         } else if (!jsonObject.isMissing("image")) {
-            image = imageInstanceRepository.findById(jsonObject.getJSONAttrLong("image"))
-                .orElseThrow(() -> new ObjectNotFoundException("ImageInstance with id " + jsonObject.get("image")));
-            slice = sliceCoordinatesService.getReferenceSlice(image);
-
+            Long imageId = jsonObject.getJSONAttrLong("image");
+            image = batch.images.get(imageId);
+            if (image == null) {
+                image = imageInstanceRepository.findById(imageId)
+                    .orElseThrow(() -> new ObjectNotFoundException("ImageInstance with id " + jsonObject.get("image")));
+                batch.images.put(imageId, image);
+            }
+            slice = batch.referenceSlices.get(imageId);
+            if (slice == null) {
+                slice = sliceCoordinatesService.getReferenceSlice(image);
+                batch.referenceSlices.put(imageId, slice);
+            }
         } else {
             throw new WrongArgumentException("Cannot retrieve slice or image");
         }
@@ -225,84 +447,50 @@ public class UserAnnotationService extends ModelService {
         jsonObject.put("imageObject", image);
         jsonObject.put("projectObject", project);
 
-        UserResponse currentUser = currentUserService.getCurrentUser();
-
-        //Check if user has at least READ permission for the project
-        securityACLService.check(project, READ, currentUser);
-        //Check if project EditingMode is not READ_ONLY
-        securityACLService.checkIsNotReadOnly(project);
-        //Check if user has a role that allows to create annotations
-        securityACLService.checkGuest(currentUser);
+        if (!batch.writableProjects.contains(project.getId())) {
+            //Check if user has at least READ permission for the project
+            securityACLService.check(project, READ, currentUser);
+            //Check if project EditingMode is not READ_ONLY
+            securityACLService.checkIsNotReadOnly(project);
+            batch.writableProjects.add(project.getId());
+        }
+        if (!batch.guestChecked) {
+            //Check if user has a role that allows to create annotations
+            securityACLService.checkGuest(currentUser);
+            batch.guestChecked = true;
+        }
         //If user info is missing from input, add it
         if (jsonObject.isMissing("user")) {
             jsonObject.put("user", currentUser.id());
             jsonObject.put("userObject", currentUser);
             // check if user is the owner of the annotation, if not check project editing mode and user role
-        } else if (!Objects.equals(jsonObject.getJSONAttrLong("user"), currentUser.id())) {
+        } else if (!Objects.equals(jsonObject.getJSONAttrLong("user"), currentUser.id())
+            && !batch.projectsWritableForOthers.contains(project.getId())) {
             securityACLService.checkFullOrRestrictedForOwner(project, null);
+            batch.projectsWritableForOthers.add(project.getId());
         }
+        return image;
+    }
 
-        Geometry annotationShape;
-        try {
-            annotationShape = new WKTReader().read(jsonObject.getJSONAttrStr("location"));
-        } catch (Exception ignored) {
-            throw new WrongArgumentException("Annotation location is not valid");
-        }
-
-        if (!annotationShape.isValid()) {
-            throw new WrongArgumentException("Annotation location is not valid");
-        }
-
-        Envelope envelope = annotationShape.getEnvelopeInternal();
-        boolean isSizeDefined = image.getBaseImage().getWidth() != null && image.getBaseImage().getHeight() != null;
-        if (isSizeDefined && (envelope.getMinX() < 0 || envelope.getMinY() < 0
-            || envelope.getMaxX() > image.getBaseImage().getWidth()
-            || envelope.getMaxY() > image.getBaseImage().getHeight())) {
-            double maxX = Math.min(envelope.getMaxX(), image.getBaseImage().getWidth());
-            double maxY = Math.min(envelope.getMaxY(), image.getBaseImage().getHeight());
-            Geometry insideBounds = null;
-            try {
-                insideBounds = new WKTReader().read("POLYGON((0 0,0 "
-                    + maxY
-                    + ","
-                    + maxX
-                    + " "
-                    + maxY
-                    + ","
-                    + maxX
-                    + " 0,0 0))");
-            } catch (ParseException e) {
-                throw new WrongArgumentException("Annotation cannot be parsed with maxX/maxY:" + e.getMessage());
-            }
-            annotationShape = annotationShape.intersection(insideBounds);
-        }
-
-        if (!(annotationShape.getGeometryType().equals("LineString"))) {
-            BoundariesCropParameter boundaries = GeometryUtils.getGeometryBoundaries(annotationShape);
-            if (boundaries == null || boundaries.getWidth() == 0 || boundaries.getHeight() == 0) {
-                throw new WrongArgumentException("Annotation dimension not valid");
-            }
-        }
-
-        //simplify annotation
-        try {
-            SimplifiedAnnotation simplifiedAnnotation =
-                simplifyGeometryService.simplifyPolygon(
-                    annotationShape,
-                    jsonObject.getJSONAttrLong("minPoint", null),
-                    jsonObject.getJSONAttrLong("maxPoint", null)
-                );
-            jsonObject.put("location", simplifiedAnnotation.getNewAnnotation());
-            jsonObject.put("geometryCompression", simplifiedAnnotation.getRate());
-        } catch (Exception e) {
-            log.error("Cannot simplify annotation location:" + e);
-        }
-
-        if (jsonObject.isMissing("location")) {
-            jsonObject.put("location", annotationShape);
-            jsonObject.put("geometryCompression", 0.0d);
-        }
+    /**
+     * Parse, clip to the image bounds and simplify the location of the new annotation.
+     * Only works on the geometry so that the locations of a batch can be prepared in parallel.
+     */
+    private void prepareLocation(JsonObject jsonObject, ImageBounds bounds) {
+        SimplifiedAnnotation simplifiedAnnotation = geometryPipelineService.prepare(
+            jsonObject.getJSONAttrStr("location"),
+            bounds,
+            jsonObject.getJSONAttrLong("minPoint", null),
+            jsonObject.getJSONAttrLong("maxPoint", null)
+        );
+        jsonObject.put("location", simplifiedAnnotation.getNewAnnotation());
+        jsonObject.put("geometryCompression", simplifiedAnnotation.getRate());
+    }
 
+    /**
+     * Make the prepared location of the new annotation valid
+     */
+    private void validateLocation(JsonObject jsonObject) {
         if (jsonObject.get("location") instanceof Geometry) {
             jsonObject.put(
                 "location",
@@ -314,10 +502,9 @@ public class UserAnnotationService extends ModelService {
                 validateGeometryService.tryToMakeItValidIfNotValid(jsonObject.getJSONAttrStr("location"))
             );
         }
+    }
 
-        //Start transaction
-        Transaction transaction = transactionService.start();
-
+    private CommandResponse addPrepared(JsonObject jsonObject, UserResponse currentUser, Transaction transaction) {
         CommandResponse commandResponse =
             executeCommand(new AddCommand(currentUser.id(), transaction), null, jsonObject);
         UserAnnotation addedAnnotation = (UserAnnotation) commandResponse.getObject();
@@ -425,12 +612,7 @@ public class UserAnnotationService extends ModelService {
         response.getData().put("annotation", response.getData().get("userannotation"));
         response.getData().remove("userannotation");
 
-        try {
-            AnnotationDomain annotation = (AnnotationDomain) domain;
-            retrievalService.indexAnnotation(annotation);
-        } catch (HttpClientErrorException e) {
-            log.warn("Indexing annotation failed: " + e.getMessage());
-        }
+        retrievalIndexingService.enqueue((AnnotationDomain) domain);
     }
 
     /**
@@ -452,13 +634,7 @@ public class UserAnnotationService extends ModelService {
 
         // TODO: what about image/project ??
 
-        Geometry annotationShape;
-        try {
-            annotationShape = new WKTReader().read(jsonNewData.getJSONAttrStr("location"));
-        } catch (ParseException ignored) {
-            throw new WrongArgumentException("Annotation location is not valid");
-        }
-
+        Geometry annotationShape = geometryPipelineService.read(jsonNewData.getJSONAttrStr("location"));
         if (!annotationShape.isValid()) {
             throw new WrongArgumentException("Annotation location is not valid");
         }
@@ -466,29 +642,10 @@ public class UserAnnotationService extends ModelService {
         ImageInstance image = imageInstanceRepository.findById(jsonNewData.getJSONAttrLong("image"))
             .orElseThrow(() -> new WrongArgumentException("Annotation not associated with a valid image"));
 
-        Envelope envelope = annotationShape.getEnvelopeInternal();
-        boolean isSizeDefined = image.getBaseImage().getWidth() != null && image.getBaseImage().getHeight() != null;
-        if (isSizeDefined && (envelope.getMinX() < 0 || envelope.getMinY() < 0
-            || envelope.getMaxX() > image.getBaseImage().getWidth()
-            || envelope.getMaxY() > image.getBaseImage().getHeight())) {
-            double maxX = Math.min(envelope.getMaxX(), image.getBaseImage().getWidth());
-            double maxY = Math.min(envelope.getMaxY(), image.getBaseImage().getHeight());
-            Geometry insideBounds = null;
-            try {
-                insideBounds = new WKTReader().read("POLYGON((0 0,0 "
-                    + maxY
-                    + ","
-                    + maxX
-                    + " "
-                    + maxY
-                    + ","
-                    + maxX
-                    + " 0,0 0))");
-            } catch (ParseException e) {
-                throw new WrongArgumentException("Annotation cannot be parsed with maxX/maxY:" + e.getMessage());
-            }
-            annotationShape = annotationShape.intersection(insideBounds);
-        }
+        annotationShape = geometryPipelineService.clip(
+            annotationShape,
+            geometryPipelineService.imageBounds(image.getBaseImage().getWidth(), image.getBaseImage().getHeight())
+        );
 
         //simplify annotation
         try {
@@ -511,7 +668,7 @@ public class UserAnnotationService extends ModelService {
                 validateGeometryService.tryToMakeItValidIfNotValid(jsonNewData.getJSONAttrStr("location"))
             );
         }
-        CommandResponse result = executeCommand(new EditCommand(currentUser.id(), null), domain, jsonNewData);
+        CommandResponse result = executeCommand(new EditCommand(currentUser.id(), transaction), domain, jsonNewData);
 
         return result;
     }
@@ -544,6 +701,7 @@ public class UserAnnotationService extends ModelService {
         //Check if user is admin, the project mode and if is the owner of the annotation
         securityACLService.checkFullOrRestrictedForOwner(domain, ((UserAnnotation) domain).getUser());
 
+        retrievalIndexingService.dequeue((AnnotationDomain) domain);
         try {
             retrievalService.deleteIndex((AnnotationDomain) domain);
         } catch (HttpClientErrorException e) {
@@ -648,45 +806,64 @@ public class UserAnnotationService extends ModelService {
         );
 
         //Create the new geometry
-        Geometry newGeometry = new WKTReader().read(newLocation);
+        Geometry newGeometry = geometryPipelineService.read(newLocation);
         if (!newGeometry.isValid()) {
             throw new WrongArgumentException("Your annotation cannot be self-intersected.");
         }
 
-        CommandResponse result = null;
+        // all the updated and deleted annotations are undone at once, and written at the end with JDBC batches
+        Transaction transaction = transactionService.start();
+        CommandResponse result;
         Geometry oldLocation = based.getLocation();
-        if (remove) {
-            log.info("doCorrectUserAnnotation : remove");
-            //diff will be made
-            //-remove the new geometry from the based annotation location
-            //-remove the new geometry from all other annotation location
-            based.setLocation(based.getLocation().difference(newGeometry));
-            if (based.getLocation().getNumPoints() < 2) {
-                throw new WrongArgumentException(
-                    "You cannot delete an annotation with substract! Use reject or delete tool.");
-            }
-
-            JsonObject jsonObject = based.toJsonObject(urlApi);
-            based.setLocation(oldLocation);
-            result = update(based, jsonObject);
-
-            for (UserAnnotation other : allAnnotationWithSameTerm) {
-                other.setLocation(other.getLocation().difference(newGeometry));
-                update(other, other.toJsonObject(urlApi));
-            }
-        } else {
-            log.info("doCorrectUserAnnotation : union");
-            //union will be made:
-            // -add the new geometry to the based annotation location.
-            // -add all other annotation geometry to the based annotation location (and delete other annotation)
-            based.setLocation(based.getLocation().union(newGeometry));
-            for (UserAnnotation other : allAnnotationWithSameTerm) {
-                based.setLocation(based.getLocation().union(other.getLocation()));
-                delete(other, null, null, false);
+        FlushModeType flushMode = entityManager.getFlushMode();
+        entityManager.setFlushMode(FlushModeType.COMMIT);
+        try {
+            if (remove) {
+                log.info("doCorrectUserAnnotation : remove");
+                //diff will be made
+                //-remove the new geometry from the based annotation location
+                //-remove the new geometry from all other annotation location
+                Map<Long, Geometry> locations = new HashMap<>();
+                locations.put(based.getId(), based.getLocation());
+                for (UserAnnotation other : allAnnotationWithSameTerm) {
+                    locations.put(other.getId(), other.getLocation());
+                }
+                Map<Long, Geometry> corrected = geometryPipelineService.difference(locations, newGeometry);
+
+                based.setLocation(corrected.getOrDefault(based.getId(), oldLocation));
+                if (based.getLocation().getNumPoints() < 2) {
+                    throw new WrongArgumentException(
+                        "You cannot delete an annotation with substract! Use reject or delete tool.");
+                }
+
+                JsonObject jsonObject = based.toJsonObject(urlApi);
+                based.setLocation(oldLocation);
+                result = update(based, jsonObject, transaction);
+
+                for (UserAnnotation other : allAnnotationWithSameTerm) {
+                    other.setLocation(corrected.getOrDefault(other.getId(), other.getLocation()));
+                    update(other, other.toJsonObject(urlApi), transaction);
+                }
+            } else {
+                log.info("doCorrectUserAnnotation : union");
+                //union will be made:
+                // -add the new geometry to the based annotation location.
+                // -add all other annotation geometry to the based annotation location (and delete other annotation)
+                List<Geometry> locations = new ArrayList<>();
+                locations.add(based.getLocation());
+                locations.add(newGeometry);
+                for (UserAnnotation other : allAnnotationWithSameTerm) {
+                    locations.add(other.getLocation());
+                    delete(other, transaction, null, false);
+                }
+                based.setLocation(geometryPipelineService.union(locations));
+                JsonObject jsonObject = based.toJsonObject(urlApi);
+                based.setLocation(oldLocation);
+                result = update(based, jsonObject, transaction);
             }
-            JsonObject jsonObject = based.toJsonObject(urlApi);
-            based.setLocation(oldLocation);
-            result = update(based, jsonObject);
+            entityManager.flush();
+        } finally {
+            entityManager.setFlushMode(flushMode);
         }
         return result;
     }
@@ -55,7 +55,6 @@ import be.cytomine.repository.command.CommandRepository;
 import be.cytomine.repository.command.RedoStackItemRepository;
 import be.cytomine.repository.command.UndoStackItemRepository;
 import be.cytomine.repository.image.ImageInstanceRepository;
-import be.cytomine.repository.ontology.AnnotationDomainRepository;
 import be.cytomine.repository.project.ProjectRepository;
 import be.cytomine.repository.project.ProjectRepresentativeUserRepository;
 import be.cytomine.repository.security.UserRepository;
@@ -122,8 +121,6 @@ public class ProjectService extends ModelService {
 
     private final ProjectRepresentativeUserService projectRepresentativeUserService;
 
-    private final AnnotationDomainRepository annotationDomainRepository;
-
     private final ImageInstanceRepository imageInstanceRepository;
 
     private final CommandRepository commandRepository;
@@ -1027,10 +1024,6 @@ public class ProjectService extends ModelService {
 
     protected void beforeUpdate(CytomineDomain domain) {
         Project project = (Project) domain;
-        project.setCountAnnotations(annotationDomainRepository.countAllUserAnnotationAndProject(domain.getId()));
-        project.setCountReviewedAnnotations(
-            annotationDomainRepository.countAllReviewedAnnotationAndProject(domain.getId())
-        );
         project.setCountImages(imageInstanceRepository.countAllByProject(project));
     }
 
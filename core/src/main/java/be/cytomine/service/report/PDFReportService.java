@@ -1,18 +1,18 @@
 package be.cytomine.service.report;
 
 import java.awt.Color;
-import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.Arrays;
-import java.util.List;
 
 import be.quodlibet.boxable.BaseTable;
 import be.quodlibet.boxable.Cell;
 import be.quodlibet.boxable.HorizontalAlignment;
 import be.quodlibet.boxable.Row;
-import be.quodlibet.boxable.datatable.DataTable;
+import be.quodlibet.boxable.VerticalAlignment;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.io.MemoryUsageSetting;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.pdmodel.PDPageContentStream;
@@ -33,20 +33,20 @@ public class PDFReportService {
     static final int PAGINATION_TOP_POSITION = 20;
     static final int PAGINATION_BOTTOM_POSITION = 20;
     static final int FONT_SIZE = 12;
+    static final float ROW_HEIGHT = 10;
 
-    private PDDocument document;
-    private PDPage page;
-    private PDRectangle pageSize;
-    private float contentWidth;
-    private float contentHeight;
-    private float maxPercentWidth;
-    private boolean documentIsUsed = false;
+    static final PDRectangle PAGE_SIZE = new PDRectangle(PDRectangle.A4.getHeight(), PDRectangle.A4.getWidth());
+    static final float CONTENT_WIDTH = PAGE_SIZE.getWidth() - MARGIN * 2;
+    static final float TABLE_TOP = PAGE_SIZE.getHeight() - MARGIN * 2;
+    static final float TABLE_BOTTOM = MARGIN * 2;
+
+    private final float maxPercentWidth;
 
     /**
      * PDFWriter constructor
      */
     public PDFReportService() {
-        initPDFWriterService();
+        this(MAX_COLUMN_WIDTH);
     }
 
     /**
@@ -57,31 +57,9 @@ public class PDFReportService {
      *                        to obtain uniform column width.
      */
     public PDFReportService(float maxPercentWidth) {
-        initPDFWriterService();
         this.maxPercentWidth = maxPercentWidth;
     }
 
-    /**
-     * Init PDFWriter variables
-     */
-    private void initPDFWriterService() {
-        log.info("Initializing PDF document");
-        document = new PDDocument();
-        page = new PDPage();
-        page.setMediaBox(new PDRectangle(PDRectangle.A4.getHeight(), PDRectangle.A4.getWidth()));
-        document.addPage(page);
-
-        pageSize = page.getMediaBox();
-        contentWidth = pageSize.getWidth() - MARGIN * 2;
-        contentHeight = pageSize.getHeight() - MARGIN;
-
-        if (MAX_COLUMN_WIDTH <= (float) 0) {
-            this.maxPercentWidth = (float) 0.1;
-        } else {
-            this.maxPercentWidth = MAX_COLUMN_WIDTH;
-        }
-    }
-
     /**
      * Write a PDF from given data array (all types allowed)
      *
@@ -96,115 +74,206 @@ public class PDFReportService {
         boolean hasPagination,
         boolean hasHeader
     ) throws ServerException {
+        if (dataArray == null) {
+            log.error("Cannot generate pdf report with null data, expected type: Object[][].");
+            throw new ServerException("Cannot generate pdf report with null data, expected type: Object[][].");
+        }
 
-        checkData(dataArray);
-        if (documentIsUsed) {
-            initPDFWriterService();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (ReportWriter writer = createPDFWriter(title, columnWidth, hasPagination, hasHeader, output)) {
+            writer.writeAll(dataArray);
         }
-        drawDataTable(arrayToString(dataArray), columnWidth, hasHeader);
+        return output.toByteArray();
+    }
 
+    /**
+     * Create a writer drawing the report rows page by page.
+     * Drawn pages are kept in a temporary file until the document is written on the output, once finished.
+     */
+    public ReportWriter createPDFWriter(
+        String title,
+        float[] columnWidth,
+        boolean hasPagination,
+        boolean hasHeader,
+        OutputStream output
+    ) throws ServerException {
         if (title == null) {
             log.error("Cannot generate pdf report with null title, expected type: String.");
             throw new ServerException("Cannot generate pdf report with null title, expected type: String.");
         }
-        if (!title.isEmpty()) {
-            writeMessage(document.getPage(0), TOP_POSITION, pageSize.getHeight() - BOTTOM_POSITION, title);
-        }
-        if (hasPagination) {
-            setPagination();
-        }
+        log.info("Initializing PDF document");
+        return new PDFReportWriter(title, columnWidth, hasPagination, hasHeader, output);
+    }
 
-        try {
-            ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-            document.save(byteArrayOutputStream);
-            document.close();
+    private final class PDFReportWriter implements ReportWriter {
 
-            // Convert inputStream to byte array
-            ByteArrayInputStream pdfInputStream = new ByteArrayInputStream(byteArrayOutputStream.toByteArray());
-            byte[] pdfByteArray = new byte[pdfInputStream.available()];
-            pdfInputStream.read(pdfByteArray);
+        private final String title;
 
-            log.info("PDF file has been generated");
-            return pdfByteArray;
-        } catch (IOException e) {
-            log.error("Could not save and close pdf document. Error: ".format(e.getMessage()));
-            throw new ServerException("Cannot generate pdf report with title=%s. Error: %s".format(
-                title,
-                e.getMessage()
-            ));
+        private final float[] columnWidth;
+
+        private final boolean hasPagination;
+
+        private final boolean hasHeader;
+
+        private final OutputStream output;
+
+        private final PDDocument document = new PDDocument(MemoryUsageSetting.setupTempFileOnly());
+
+        private Object[] firstRow;
+
+        private float[] cellsSizePercent;
+
+        private BaseTable table;
+
+        private float tableHeight;
+
+        private long dataRows = 0;
+
+        PDFReportWriter(String title, float[] columnWidth, boolean hasPagination, boolean hasHeader,
+            OutputStream output) {
+            this.title = title;
+            this.columnWidth = columnWidth;
+            this.hasPagination = hasPagination;
+            this.hasHeader = hasHeader;
+            this.output = output;
         }
-    }
 
-    /**
-     * Verify that all rows have the same number of cells Throw a Report Generation error if not
-     */
-    private void checkData(Object[][] dataArray) throws ServerException {
-        if (dataArray != null) {
-            int nbOfCell = dataArray[0].length;
-            for (Object[] row : dataArray) {
-                if (row.length != nbOfCell) {
-                    log.error("All data rows should have the same number of cells");
-                    throw new ServerException("All data rows should have the same number of cells");
+        @Override
+        public void writeRow(Object[] row) {
+            if (firstRow == null) {
+                firstRow = row;
+                if (hasHeader) {
+                    // Columns are sized on the first data row
+                    return;
                 }
+            } else if (row.length != firstRow.length) {
+                log.error("All data rows should have the same number of cells");
+                throw new ServerException("All data rows should have the same number of cells");
+            }
+            if (row.length == 0) {
+                return;
             }
-        }
-    }
 
-    /**
-     * Transform given data array in a string Value delimiter is space and row break is '\r\n'
-     *
-     * @return String
-     */
-    private String arrayToString(Object[][] dataArray) throws ServerException {
-        if (dataArray == null) {
-            log.error("Cannot generate pdf report with null data, expected type: Object[][].");
-            throw new ServerException("Cannot generate pdf report with null data, expected type: Object[][].");
-        }
-        String stringArray = "";
-        for (Object[] row : dataArray) {
-            stringArray += Arrays.toString(row).replace('[', ' ').replace(']', ' ') + "\r\n";
+            try {
+                if (table == null) {
+                    startTable(row);
+                }
+                addDataRow(row);
+            } catch (IOException e) {
+                throw drawError(e);
+            }
         }
-        return stringArray;
-    }
 
-    /**
-     * Draw the data table on PDF document
-     */
-    private void drawDataTable(String data, float[] columnWidth, boolean hasHeader) throws ServerException {
-        log.info("Drawing data table");
-        try {
-            float yStart = contentHeight - MARGIN;
-            float bottomMargin = MARGIN * 2;
-            BaseTable baseTable = new BaseTable(
-                yStart,
-                contentHeight,
-                bottomMargin,
-                contentWidth,
-                MARGIN,
-                document,
-                page,
-                true,
-                true
-            );
-            DataTable dataTable = new DataTable(baseTable, page);
+        @Override
+        public void finish() {
+            try {
+                if (table == null && firstRow != null && firstRow.length > 0) {
+                    startTable(firstRow);
+                }
+                if (table != null) {
+                    table.draw();
+                }
+                if (document.getNumberOfPages() == 0) {
+                    document.addPage(new PDPage(PAGE_SIZE));
+                }
+            } catch (IOException e) {
+                throw drawError(e);
+            }
 
-            setDatatableColor(dataTable);
-            dataTable.addCsvToTable(data, hasHeader, ',');
+            if (!title.isEmpty()) {
+                writeMessage(document, document.getPage(0), TOP_POSITION, PAGE_SIZE.getHeight() - BOTTOM_POSITION,
+                    title);
+            }
+            if (hasPagination) {
+                setPagination(document);
+            }
 
-            List<Row<PDPage>> rows = dataTable.getTable().getRows();
+            try {
+                document.save(output);
+                log.info("PDF file has been generated");
+            } catch (IOException e) {
+                log.error("Could not save pdf document. Error: {}", e.getMessage());
+                throw new ServerException(String.format(
+                    "Cannot generate pdf report with title=%s. Error: %s",
+                    title,
+                    e.getMessage()
+                ));
+            }
+        }
+
+        @Override
+        public void close() {
+            try {
+                document.close();
+            } catch (IOException e) {
+                log.warn("Could not close pdf document: {}", e.getMessage());
+            }
+        }
+
+        private void startTable(Object[] row) throws IOException {
+            log.info("Drawing data table");
             if (columnWidth != null) {
                 checkPercentArraySum(columnWidth);
-                checkColumnWidthSize(columnWidth, rows.get(0).getCells().size());
-                setColumnWidth(rows, columnWidth);
+                checkColumnWidthSize(columnWidth, row.length);
+                cellsSizePercent = columnWidth;
             } else {
-                autoSetColumnWidth(rows);
+                cellsSizePercent = autoColumnWidth(row);
             }
+            startPage();
+        }
 
-            baseTable.draw();
-            documentIsUsed = true;
-        } catch (IOException e) {
-            log.error("Failed to create or draw the data table: %s".format(e.getMessage()));
-            throw new ServerException("Cannot draw data table: s".format(e.getMessage()));
+        /**
+         * Draw the rows of the current page and start a table on a new page, headed by the column titles
+         */
+        private void startPage() throws IOException {
+            if (table != null) {
+                table.draw();
+            }
+            PDPage page = new PDPage(PAGE_SIZE);
+            document.addPage(page);
+            table = new BaseTable(TABLE_TOP, TABLE_TOP, TABLE_BOTTOM, CONTENT_WIDTH, MARGIN, document, page,
+                true, true);
+            tableHeight = 0;
+
+            if (hasHeader) {
+                Row<PDPage> header = createRow(firstRow, Color.BLACK, Color.WHITE);
+                table.addHeaderRow(header);
+                tableHeight += header.getHeight();
+            }
+        }
+
+        private void addDataRow(Object[] row) throws IOException {
+            Color fillColor = dataRows++ % 2 == 0 ? Color.WHITE : Color.LIGHT_GRAY;
+            Row<PDPage> dataRow = createRow(row, fillColor, Color.BLACK);
+
+            int headerRows = hasHeader ? 1 : 0;
+            if (tableHeight + dataRow.getHeight() > TABLE_TOP - TABLE_BOTTOM
+                && table.getRows().size() > headerRows + 1) {
+                table.getRows().remove(dataRow);
+                startPage();
+                dataRow = createRow(row, fillColor, Color.BLACK);
+            }
+            tableHeight += dataRow.getHeight();
+        }
+
+        private Row<PDPage> createRow(Object[] values, Color fillColor, Color textColor) {
+            Row<PDPage> row = table.createRow(ROW_HEIGHT);
+            for (int i = 0; i < values.length; i++) {
+                Cell<PDPage> cell = row.createCell(
+                    cellsSizePercent[i] * 100,
+                    values[i] != null ? values[i].toString() : "",
+                    HorizontalAlignment.CENTER,
+                    VerticalAlignment.TOP
+                );
+                cell.setFillColor(fillColor);
+                cell.setTextColor(textColor);
+            }
+            return row;
+        }
+
+        private ServerException drawError(IOException e) {
+            log.error("Failed to create or draw the data table: {}", e.getMessage());
+            return new ServerException(String.format("Cannot draw data table: %s", e.getMessage()));
         }
     }
 
@@ -235,47 +304,27 @@ public class PDFReportService {
     }
 
     /**
-     * Set the row colors of the given datable
-     */
-    private void setDatatableColor(DataTable dataTable) {
-        dataTable.getDataCellTemplateEven().setFillColor(Color.LIGHT_GRAY);
-        dataTable.getDataCellTemplateOdd().setFillColor(Color.WHITE);
-        dataTable.getHeaderCellTemplate().setFillColor(Color.BLACK);
-        dataTable.getHeaderCellTemplate().setTextColor(Color.WHITE);
-    }
-
-    /**
-     * Set column width of the given rows in proportion to the number of characters contained in the cell. (Only based
-     * on the first row of the table, excluding headers).
+     * Get column width in proportion to the number of characters contained in the cells of the given row
+     * (the first data row of the table).
      * <br> <br>
      * If the maximum percentage of width that a cell can reach is reached, then the difference between the desired size
      * (proportional to the number of characters) and the maximum size is redistributed to the other cells.
      */
-    private void autoSetColumnWidth(List<Row<PDPage>> rows) {
-        // Take second index (second row) if exists, to avoid possible headers.
-        int secondIndex = 1;
-        if (rows.size() == 1) {
-            secondIndex = 0;
-        }
-        List<Cell<PDPage>> cells = rows.get(secondIndex).getCells();
-        int nbOfCellPerRow = cells.size();
-
-        float totalTextLength = cells.stream().mapToInt(c -> c.getText().length()).sum();
-        // For each cell, get the percent of text it has compared to total text
-        double[] cellsSizePercentDoubles = cells
-            .stream()
-            .mapToDouble(c -> (c.getText().length() / totalTextLength))
+    private float[] autoColumnWidth(Object[] row) {
+        int nbOfCellPerRow = row.length;
+        int[] textLengths = Arrays.stream(row).mapToInt(value -> value != null ? value.toString().length() : 0)
             .toArray();
+        float totalTextLength = Arrays.stream(textLengths).sum();
 
-        float[] cellsSizePercent = new float[cellsSizePercentDoubles.length];
-        for (int i = 0; i < cellsSizePercentDoubles.length; i++) {
-            cellsSizePercent[i] = (float) cellsSizePercentDoubles[i];
+        // For each cell, get the percent of text it has compared to total text
+        float[] cellsSizePercent = new float[nbOfCellPerRow];
+        for (int i = 0; i < nbOfCellPerRow; i++) {
+            cellsSizePercent[i] = totalTextLength > 0 ? textLengths[i] / totalTextLength : 1f / nbOfCellPerRow;
         }
 
         int[] maxPercentIndexes = updateCellsSize(cellsSizePercent, nbOfCellPerRow);
         dispatchUnusedWidth(cellsSizePercent, nbOfCellPerRow, maxPercentIndexes);
-
-        setColumnWidth(rows, cellsSizePercent);
+        return cellsSizePercent;
     }
 
     /**
@@ -309,9 +358,9 @@ public class PDFReportService {
     private void dispatchUnusedWidth(float[] cellsSizePercent, float nbOfCellPerRow, int[] maxPercentIndexes) {
         float actualWidth = 0;
         for (float percent : cellsSizePercent) {
-            actualWidth += percent * contentWidth;
+            actualWidth += percent * CONTENT_WIDTH;
         }
-        float unusedWidth = (contentWidth - actualWidth) / contentWidth;
+        float unusedWidth = (CONTENT_WIDTH - actualWidth) / CONTENT_WIDTH;
         dispatch(cellsSizePercent, unusedWidth / nbOfCellPerRow, maxPercentIndexes);
     }
 
@@ -326,55 +375,41 @@ public class PDFReportService {
         }
     }
 
-    /**
-     * Set column width according to column width percent values.
-     */
-    private void setColumnWidth(List<Row<PDPage>> rows, float[] cellsSizePercent) {
-        for (Row<PDPage> row : rows) {
-            for (int i = 0; i < row.getCells().size(); i++) {
-                Cell<PDPage> cell = row.getCells().get(i);
-                cell.setWidth(cellsSizePercent[i] * contentWidth);
-                cell.setAlign(HorizontalAlignment.CENTER);
-            }
-        }
-    }
-
     /**
      * Write a given message at a given position on a given page.
      */
-    private void writeMessage(PDPage page, float topPosition, float bottomPosition, String message)
-        throws ServerException {
-        try {
-            PDPageContentStream contentStream = new PDPageContentStream(
-                document,
-                page,
-                PDPageContentStream.AppendMode.APPEND,
-                true,
-                true
-            );
+    private void writeMessage(PDDocument document, PDPage page, float topPosition, float bottomPosition,
+        String message) throws ServerException {
+        try (PDPageContentStream contentStream = new PDPageContentStream(
+            document,
+            page,
+            PDPageContentStream.AppendMode.APPEND,
+            true,
+            true
+        )) {
             contentStream.setFont(PDType1Font.HELVETICA_BOLD, FONT_SIZE);
             contentStream.beginText();
             contentStream.newLineAtOffset(topPosition, bottomPosition);
             contentStream.showText(message);
             contentStream.endText();
-            contentStream.close();
         } catch (IOException e) {
-            log.error("Failed to write message: %s".format(e.getMessage()));
-            throw new ServerException("Cannot write message: %s".format(e.getMessage()));
+            log.error("Failed to write message: {}", e.getMessage());
+            throw new ServerException(String.format("Cannot write message: %s", e.getMessage()));
         }
     }
 
     /**
      * Write the n° of page for each page of the PDF document.
      */
-    private void setPagination() throws ServerException {
+    private void setPagination(PDDocument document) throws ServerException {
         log.info("Setting pagination");
         int nbOfPages = document.getNumberOfPages();
         for (int i = 0; i < nbOfPages; i++) {
             PDPage nthPage = document.getPage(i);
             writeMessage(
+                document,
                 nthPage,
-                pageSize.getWidth() - PAGINATION_TOP_POSITION,
+                PAGE_SIZE.getWidth() - PAGINATION_TOP_POSITION,
                 PAGINATION_BOTTOM_POSITION,
                 String.valueOf(i + 1)
             );
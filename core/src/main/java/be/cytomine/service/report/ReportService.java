@@ -1,10 +1,13 @@
 package be.cytomine.service.report;
 
+import java.io.OutputStream;
 import java.time.LocalDateTime;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -73,20 +76,20 @@ public class ReportService {
 
     private final ReportFormatService reportFormatService;
 
-    public byte[] generateConnectionHistoryReport(
+    public void writeConnectionHistoryReport(
         String projectName, String userName,
-        List<JsonObject> data
+        Stream<JsonObject> data, OutputStream output
     ) {
         String title = getConnectionHistoryReportTitle(projectName, userName);
-        return generateJsonObjectReport(title, data, CONNECTION_HISTORY_REPORT_COLUMNS);
+        writeJsonObjectReport(title, data, CONNECTION_HISTORY_REPORT_COLUMNS, output);
     }
 
-    public byte[] generateImageConsultationReport(
+    public void writeImageConsultationReport(
         String projectName, String userName,
-        List<JsonObject> data
+        Stream<JsonObject> data, OutputStream output
     ) {
         String title = getImageConsultationReportTitle(projectName, userName);
-        return generateJsonObjectReport(title, data, IMAGE_CONSULTATION_COLUMNS);
+        writeJsonObjectReport(title, data, IMAGE_CONSULTATION_COLUMNS, output);
     }
 
     public byte[] generateUsersReport(
@@ -101,25 +104,53 @@ public class ReportService {
         );
     }
 
-    public byte[] generateAnnotationsReport(
+    /**
+     * Write the annotations report on the output while the annotations are produced
+     *
+     * @param annotations producer handing the annotations of the report to the given consumer
+     */
+    public void writeAnnotationsReport(
         String projectName, Set<String> terms,
-        Set<String> users, List<Map<String, Object>> data,
-        String format, long userId
+        Set<String> users, Consumer<Consumer<Map<String, Object>>> annotations,
+        String format, long userId, OutputStream output
     ) throws ServerException {
-        Object[][] dataForReport =
-            reportFormatService.formatAnnotationsForReport(ANNOTATION_REPORT_COLUMNS, data, userId);
-        return generateReport(
-            getAnnotationReportTitle(projectName, terms, users), dataForReport,
-            ANNOTATION_REPORT_COLUMNS, format
-        );
+        String title = getAnnotationReportTitle(projectName, terms, users);
+        try (ReportWriter writer = createReportWriter(title, ANNOTATION_REPORT_COLUMNS, format, output)) {
+            annotations.accept(annotation -> writer.writeRow(
+                reportFormatService.formatAnnotationRow(ANNOTATION_REPORT_COLUMNS, annotation, userId)
+            ));
+            writer.finish();
+        }
     }
 
-    private byte[] generateJsonObjectReport(
-        String title, List<JsonObject> data,
-        List<ReportColumn> columns
+    private void writeJsonObjectReport(
+        String title, Stream<JsonObject> data,
+        List<ReportColumn> columns, OutputStream output
     ) {
-        Object[][] dataForReport = reportFormatService.formatJsonObjectForReport(columns, data);
-        return generateReport(title, dataForReport, columns, "csv");
+        try (ReportWriter writer = createReportWriter(title, columns, "csv", output)) {
+            data.forEach(json -> writer.writeRow(reportFormatService.formatJsonObjectRow(columns, json)));
+            writer.finish();
+        }
+    }
+
+    /**
+     * Create a writer for a report with the given columns, their titles are written as the first row
+     */
+    public ReportWriter createReportWriter(
+        String title, List<ReportColumn> columns, String format,
+        OutputStream output
+    ) throws ServerException {
+        ReportWriter writer = switch (format) {
+            case "csv" -> spreadsheetReportService.createSpreadsheetWriter(output);
+            case "xls" -> spreadsheetReportService.createSpreadsheetXLSWriter(output);
+            case "pdf" -> pdfReportService.createPDFWriter(
+                title, reportFormatService.getColumnWidth(columns), HAS_PAGINATION,
+                HAS_HEADER, output
+            );
+            default -> throw invalidFormat();
+        };
+        writer.writeRow(ReportFormatService.getColumnTitles(columns));
+        return writer;
     }
 
     public byte[] generateReport(
@@ -138,13 +169,17 @@ public class ReportService {
                     HAS_HEADER
                 );
             default:
-                log.error("Format should be one of these types: 'pdf', 'csv' or 'xls'.");
-                throw new ServerException(
-                    "Failed to generate report, invalid format. Format should be one of these "
-                        + "types: 'pdf', 'csv' or 'xls'.");
+                throw invalidFormat();
         }
     }
 
+    private ServerException invalidFormat() {
+        log.error("Format should be one of these types: 'pdf', 'csv' or 'xls'.");
+        return new ServerException(
+            "Failed to generate report, invalid format. Format should be one of these "
+                + "types: 'pdf', 'csv' or 'xls'.");
+    }
+
     private String getConnectionHistoryReportTitle(String projectName, String userName) {
         return "Connections of user " + userName + " to project " + projectName;
     }
@@ -0,0 +1,26 @@
+package be.cytomine.service.report;
+
+/**
+ * Write the rows of a report to its output as they are produced, so that the whole report is never held in memory.
+ * The writer must be finished once all the rows are written, and closed to release its resources.
+ */
+public interface ReportWriter extends AutoCloseable {
+
+    void writeRow(Object[] row);
+
+    /**
+     * Write the end of the report on the output
+     */
+    void finish();
+
+    @Override
+    default void close() {
+    }
+
+    default void writeAll(Object[][] rows) {
+        for (Object[] row : rows) {
+            writeRow(row);
+        }
+        finish();
+    }
+}
@@ -2,12 +2,16 @@ package be.cytomine.service.report;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVPrinter;
+import org.apache.poi.hssf.usermodel.HSSFCell;
+import org.apache.poi.hssf.usermodel.HSSFRow;
 import org.apache.poi.hssf.usermodel.HSSFSheet;
 import org.apache.poi.hssf.usermodel.HSSFWorkbook;
 import org.springframework.stereotype.Service;
@@ -18,76 +22,152 @@ import be.cytomine.exceptions.ServerException;
 @Slf4j
 public class SpreadsheetReportService {
 
+    private static final CSVFormat CSV_FORMAT = CSVFormat.EXCEL.withDelimiter(';');
+
     /**
-     * Write a spreadsheet report (xls)
+     * Write a spreadsheet report (csv)
      *
      * @return Spreadsheet byte array report encoded in base 64
      */
     public byte[] writeSpreadsheet(Object[][] dataArray) throws ServerException {
-        log.info(String.format("Generating spread sheet with delimiter: '%s'", ";"));
-        CSVFormat format = CSVFormat.EXCEL.withDelimiter(';');
         ByteArrayOutputStream output = new ByteArrayOutputStream();
-        try (CSVPrinter csvPrinter = new CSVPrinter(new OutputStreamWriter(output), format)) {
+        try (ReportWriter writer = createSpreadsheetWriter(output)) {
+            writer.writeAll(dataArray);
+        }
+        return output.toByteArray();
+    }
+
+    /**
+     * Write a spreadsheet report (xls)
+     *
+     * @return Spreadsheet byte array report encoded in base 64
+     */
+    public byte[] writeSpreadsheetXLS(Object[][] dataArray) throws ServerException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (ReportWriter writer = createSpreadsheetXLSWriter(output)) {
+            writer.writeAll(dataArray);
+        }
+        return output.toByteArray();
+    }
+
+    /**
+     * Create a writer printing the report rows (csv) on the output as they come
+     */
+    public ReportWriter createSpreadsheetWriter(OutputStream output) throws ServerException {
+        log.info(String.format("Generating spread sheet with delimiter: '%s'", ";"));
+        try {
+            return new CsvReportWriter(new CSVPrinter(
+                new OutputStreamWriter(output, StandardCharsets.UTF_8),
+                CSV_FORMAT
+            ));
+        } catch (IOException e) {
+            throw CsvReportWriter.error(e);
+        }
+    }
+
+    /**
+     * Create a writer adding the report rows to a workbook (xls), written on the output once finished.
+     * Unlike xlsx, the xls format cannot be written row by row, but a sheet is limited to 65536 rows.
+     */
+    public ReportWriter createSpreadsheetXLSWriter(OutputStream output) throws ServerException {
+        log.info("Generating spreadsheet (xls)");
+        return new XlsReportWriter(output);
+    }
+
+    private static final class CsvReportWriter implements ReportWriter {
+
+        private final CSVPrinter csvPrinter;
 
-            for (Object[] row : dataArray) {
+        CsvReportWriter(CSVPrinter csvPrinter) {
+            this.csvPrinter = csvPrinter;
+        }
+
+        @Override
+        public void writeRow(Object[] row) {
+            try {
                 csvPrinter.printRecord(row);
+            } catch (IOException e) {
+                throw error(e);
             }
-            csvPrinter.flush();
+        }
 
-            log.info("Spread sheet file has been generated");
-            return output.toByteArray();
-        } catch (IOException e) {
-            log.error("Failed to generate spread sheet. Error: %s".format(e.getMessage()));
-            throw new ServerException(String.format(
+        @Override
+        public void finish() {
+            try {
+                csvPrinter.flush();
+                log.info("Spread sheet file has been generated");
+            } catch (IOException e) {
+                throw error(e);
+            }
+        }
+
+        private static ServerException error(IOException e) {
+            log.error("Failed to generate spread sheet. Error: {}", e.getMessage());
+            return new ServerException(String.format(
                 "Cannot generate spread sheet with params: format=%s. Error: %s",
-                format,
+                CSV_FORMAT,
                 e.getMessage()
             ));
         }
     }
 
+    private static final class XlsReportWriter implements ReportWriter {
 
-    /**
-     * Write a spreadsheet report (xls)
-     *
-     * @return Spreadsheet byte array report encoded in base 64
-     */
-    public byte[] writeSpreadsheetXLS(Object[][] dataArray) throws ServerException {
-        log.info(String.format("Generating spread sheet with delimiter: '%s'", ";"));
-        HSSFWorkbook workbook = new HSSFWorkbook();
-        HSSFSheet sheet = workbook.createSheet("Sheet1");
-        int rowNum = 0;
-        for (var row : dataArray) {
-            var currentRow = sheet.createRow(rowNum++);
+        private final OutputStream output;
+
+        private final HSSFWorkbook workbook = new HSSFWorkbook();
+
+        private final HSSFSheet sheet = workbook.createSheet("Sheet1");
+
+        private int rowNum = 0;
+
+        XlsReportWriter(OutputStream output) {
+            this.output = output;
+        }
+
+        @Override
+        public void writeRow(Object[] row) {
+            HSSFRow currentRow = sheet.createRow(rowNum++);
             int colNum = 0;
-            for (var field : row) {
-                var currentCell = currentRow.createCell(colNum++);
-                if (field instanceof String) {
-                    currentCell.setCellValue((String) field);
-                } else if (field instanceof Integer) {
-                    currentCell.setCellValue((Integer) field);
-                } else if (field instanceof Double) {
-                    currentCell.setCellValue((Double) field);
-                } else if (field instanceof Boolean) {
-                    currentCell.setCellValue((Boolean) field);
-                } else if (field instanceof Long) {
-                    currentCell.setCellValue((Long) field);
-                } else if (field instanceof BigDecimal) {
-                    currentCell.setCellValue(((BigDecimal) field).doubleValue());
-                }
+            for (Object field : row) {
+                setCellValue(currentRow.createCell(colNum++), field);
             }
         }
 
-        try (ByteArrayOutputStream output = new ByteArrayOutputStream()) {
-            workbook.write(output);
-            log.info("Spreadsheet file has been generated");
-            return output.toByteArray();
-        } catch (IOException e) {
-            log.error("Failed to generate spreadsheet. Error: %s".format(e.getMessage()));
-            throw new ServerException(String.format("Cannot generate spreadsheet. Error: %s", e.getMessage()));
+        @Override
+        public void finish() {
+            try {
+                workbook.write(output);
+                log.info("Spreadsheet file has been generated");
+            } catch (IOException e) {
+                log.error("Failed to generate spreadsheet. Error: {}", e.getMessage());
+                throw new ServerException(String.format("Cannot generate spreadsheet. Error: %s", e.getMessage()));
+            }
         }
 
-    }
+        @Override
+        public void close() {
+            try {
+                workbook.close();
+            } catch (IOException e) {
+                log.warn("Cannot close spreadsheet: {}", e.getMessage());
+            }
+        }
 
+        private static void setCellValue(HSSFCell cell, Object field) {
+            if (field instanceof String) {
+                cell.setCellValue((String) field);
+            } else if (field instanceof Integer) {
+                cell.setCellValue((Integer) field);
+            } else if (field instanceof Double) {
+                cell.setCellValue((Double) field);
+            } else if (field instanceof Boolean) {
+                cell.setCellValue((Boolean) field);
+            } else if (field instanceof Long) {
+                cell.setCellValue((Long) field);
+            } else if (field instanceof BigDecimal) {
+                cell.setCellValue(((BigDecimal) field).doubleValue());
+            }
+        }
+    }
 }
-
@@ -0,0 +1,92 @@
+package be.cytomine.service.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import be.cytomine.config.properties.ApplicationProperties;
+
+/**
+ * Workers indexing the queued annotations in the CBIR.
+ * A poller claims batches of annotations, which are cropped and sent to the CBIR by a pool of workers.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Component
+public class RetrievalIndexer {
+
+    private final RetrievalIndexingService retrievalIndexingService;
+
+    private final ApplicationProperties applicationProperties;
+
+    private ScheduledExecutorService poller;
+
+    private ExecutorService workers;
+
+    @PostConstruct
+    public void start() {
+        ApplicationProperties.RetrievalIndexing properties = applicationProperties.getRetrievalIndexing();
+        if (properties.getWorkers() <= 0) {
+            log.info("CBIR indexing workers are disabled");
+            return;
+        }
+        workers = Executors.newFixedThreadPool(properties.getWorkers());
+        poller = Executors.newSingleThreadScheduledExecutor();
+        poller.scheduleWithFixedDelay(
+            this::indexPendingAnnotations,
+            properties.getPollInterval(),
+            properties.getPollInterval(),
+            TimeUnit.MILLISECONDS
+        );
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (poller != null) {
+            poller.shutdownNow();
+            workers.shutdownNow();
+        }
+    }
+
+    /**
+     * Index batches of annotations until the queue has no annotation ready
+     */
+    void indexPendingAnnotations() {
+        int batchSize = applicationProperties.getRetrievalIndexing().getBatchSize();
+        try {
+            List<Long> annotationIds;
+            do {
+                annotationIds = retrievalIndexingService.claim(batchSize);
+                List<Future<?>> results = new ArrayList<>();
+                for (Long annotationId : annotationIds) {
+                    results.add(workers.submit(() -> index(annotationId)));
+                }
+                for (Future<?> result : results) {
+                    result.get();
+                }
+            } while (annotationIds.size() == batchSize && !Thread.currentThread().isInterrupted());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("CBIR indexing failed: {}", e.getMessage());
+        }
+    }
+
+    private void index(Long annotationId) {
+        try {
+            retrievalIndexingService.index(annotationId);
+        } catch (Exception e) {
+            retrievalIndexingService.retry(annotationId, e);
+        }
+    }
+}
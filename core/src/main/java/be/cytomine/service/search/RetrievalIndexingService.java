@@ -0,0 +1,174 @@
+package be.cytomine.service.search;
+
+import java.util.Date;
+import java.util.List;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.stereotype.Service;
+
+import be.cytomine.config.properties.ApplicationProperties;
+import be.cytomine.domain.ontology.AnnotationDomain;
+import be.cytomine.domain.project.Project;
+import be.cytomine.exceptions.ObjectNotFoundException;
+import be.cytomine.utils.JsonObject;
+
+/**
+ * Persistent queue of the annotations to index in the CBIR.
+ * Annotations are queued in the transaction that creates them and indexed later by the RetrievalIndexer workers,
+ * so that annotation creation does not wait for the crop and the CBIR.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Service
+@Transactional
+public class RetrievalIndexingService {
+
+    /**
+     * Time (ms) a claimed annotation is hidden from other workers before it can be claimed again
+     */
+    static final long CLAIM_LEASE = 10 * 60 * 1000;
+
+    private final EntityManager entityManager;
+
+    private final RetrievalService retrievalService;
+
+    private final ApplicationProperties applicationProperties;
+
+    public void enqueue(AnnotationDomain annotation) {
+        entityManager.createNativeQuery(
+                "INSERT INTO cbir_indexing_task(annotation_id, project_id) VALUES (:annotation, :project) "
+                    + "ON CONFLICT (annotation_id) DO UPDATE SET attempts = 0, next_attempt = now()"
+            )
+            .setParameter("annotation", annotation.getId())
+            .setParameter("project", annotation.getProject().getId())
+            .executeUpdate();
+    }
+
+    public void dequeue(AnnotationDomain annotation) {
+        remove(annotation.getId());
+    }
+
+    /**
+     * Queue all the user annotations of the project (e.g. to backfill the CBIR index)
+     *
+     * @return the indexing progress of the project
+     */
+    public JsonObject enqueueProject(Project project) {
+        int queued = entityManager.createNativeQuery(
+                "INSERT INTO cbir_indexing_task(annotation_id, project_id) "
+                    + "SELECT id, project_id FROM user_annotation WHERE project_id = :project AND deleted IS NULL "
+                    + "ON CONFLICT (annotation_id) DO UPDATE SET attempts = 0, next_attempt = now()"
+            )
+            .setParameter("project", project.getId())
+            .executeUpdate();
+        log.info("{} annotations of project {} queued for CBIR indexing", queued, project.getId());
+        return progress(project);
+    }
+
+    public JsonObject progress(Project project) {
+        Tuple counts = (Tuple) entityManager.createNativeQuery(
+                "SELECT "
+                    + "(SELECT count(*) FROM user_annotation "
+                    + "WHERE project_id = :project AND deleted IS NULL) AS total, "
+                    + "count(t.annotation_id) AS pending, "
+                    + "count(t.annotation_id) FILTER (WHERE t.attempts > 0) AS retrying "
+                    + "FROM cbir_indexing_task t WHERE t.project_id = :project",
+                Tuple.class
+            )
+            .setParameter("project", project.getId())
+            .getSingleResult();
+
+        long total = ((Number) counts.get("total")).longValue();
+        long pending = ((Number) counts.get("pending")).longValue();
+        return JsonObject.of(
+            "project", project.getId(),
+            "total", total,
+            "pending", pending,
+            "retrying", ((Number) counts.get("retrying")).longValue(),
+            "progress", total > 0 ? Math.max(0, (total - pending) * 100 / total) : 100
+        );
+    }
+
+    /**
+     * Claim the next annotations to index.
+     * Claimed annotations are postponed by a lease so that other workers (or other core instances) skip them.
+     */
+    @SuppressWarnings("unchecked")
+    public List<Long> claim(int max) {
+        List<Number> ids = entityManager.createNativeQuery(
+                "UPDATE cbir_indexing_task SET next_attempt = :lease "
+                    + "WHERE annotation_id IN ("
+                    + "SELECT annotation_id FROM cbir_indexing_task WHERE next_attempt <= now() "
+                    + "ORDER BY next_attempt LIMIT :max FOR UPDATE SKIP LOCKED"
+                    + ") RETURNING annotation_id"
+            )
+            .setParameter("lease", new Date(System.currentTimeMillis() + CLAIM_LEASE))
+            .setParameter("max", max)
+            .getResultList();
+        return ids.stream().map(Number::longValue).toList();
+    }
+
+    /**
+     * Crop the annotation, send it to the CBIR and remove it from the queue
+     */
+    public void index(Long annotationId) {
+        try {
+            AnnotationDomain annotation = AnnotationDomain.getAnnotationDomain(entityManager, annotationId);
+            if (annotation.getDeleted() == null) {
+                retrievalService.indexAnnotation(annotation);
+            }
+        } catch (ObjectNotFoundException e) {
+            log.debug("Annotation {} was deleted before being indexed", annotationId);
+        }
+        remove(annotationId);
+    }
+
+    /**
+     * Retry the annotation later with an exponential backoff, or give up after the maximum number of attempts
+     */
+    public void retry(Long annotationId, Exception error) {
+        ApplicationProperties.RetrievalIndexing properties = applicationProperties.getRetrievalIndexing();
+        Number attempts = (Number) entityManager.createNativeQuery(
+                "SELECT attempts FROM cbir_indexing_task WHERE annotation_id = :annotation"
+            )
+            .setParameter("annotation", annotationId)
+            .getResultStream()
+            .findFirst()
+            .orElse(null);
+        if (attempts == null) {
+            return;
+        }
+
+        int attempt = attempts.intValue() + 1;
+        if (attempt >= properties.getMaxAttempts()) {
+            log.error("Give up CBIR indexing of annotation {} after {} attempts: {}",
+                annotationId, attempt, error.getMessage());
+            remove(annotationId);
+            return;
+        }
+
+        long delay = properties.getRetryDelay() * (1L << Math.min(attempt - 1, 20));
+        log.warn("CBIR indexing of annotation {} failed (attempt {}), retry in {} ms: {}",
+            annotationId, attempt, delay, error.getMessage());
+        entityManager.createNativeQuery(
+                "UPDATE cbir_indexing_task SET attempts = :attempts, next_attempt = :next, last_error = :error "
+                    + "WHERE annotation_id = :annotation"
+            )
+            .setParameter("attempts", attempt)
+            .setParameter("next", new Date(System.currentTimeMillis() + delay))
+            .setParameter("error", StringUtils.abbreviate(String.valueOf(error.getMessage()), 1000))
+            .setParameter("annotation", annotationId)
+            .executeUpdate();
+    }
+
+    private void remove(Long annotationId) {
+        entityManager.createNativeQuery("DELETE FROM cbir_indexing_task WHERE annotation_id = :annotation")
+            .setParameter("annotation", annotationId)
+            .executeUpdate();
+    }
+}
@@ -11,6 +11,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
@@ -107,8 +108,8 @@ public class RetrievalService {
         parameters.setMaxSize(256);
 
         try {
-            ResponseEntity<byte[]> response = imageServerService.crop(annotation, parameters, null, null);
-            return response.getBody();
+            ResponseEntity<Resource> response = imageServerService.crop(annotation, parameters, null, null);
+            return response.getBody() != null ? response.getBody().getContentAsByteArray() : null;
         } catch (Exception e) {
             return null;
         }
@@ -0,0 +1,163 @@
+package be.cytomine.service.security;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import be.cytomine.config.properties.ApplicationProperties;
+
+/**
+ * Cache of the ACL masks granted to a user (sid) on a domain (object identity).
+ * Every permission decision for a (sid, object identity, mask) is computed from these masks,
+ * so a single SQL request answers all the checks of a user on a domain.
+ * <p>
+ * Masks are memoised for the current HTTP request and kept in a shared map with a short time to live.
+ * Entries must be invalidated as soon as an ACL entry is added or removed.
+ */
+@Slf4j
+@Component
+public class AclDecisionCache {
+
+    private static final String REQUEST_ATTRIBUTE = AclDecisionCache.class.getName();
+
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong requestHits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final AtomicLong evictions = new AtomicLong();
+
+    private final long timeToLive;
+
+    private final int maxSize;
+
+    public AclDecisionCache(ApplicationProperties applicationProperties) {
+        this.timeToLive = applicationProperties.getAcl().getCacheTimeToLive();
+        this.maxSize = applicationProperties.getAcl().getCacheMaxSize();
+    }
+
+    public List<Integer> getMasks(Long domainId, String username, Supplier<List<Integer>> loader) {
+        Key key = new Key(domainId, username);
+
+        Map<Key, List<Integer>> memo = getRequestMemo();
+        if (memo != null && memo.containsKey(key)) {
+            requestHits.incrementAndGet();
+            return memo.get(key);
+        }
+
+        long now = System.currentTimeMillis();
+        Entry entry = timeToLive > 0 ? entries.get(key) : null;
+        List<Integer> masks;
+        if (entry != null && entry.expiration() > now) {
+            hits.incrementAndGet();
+            masks = entry.masks();
+        } else {
+            misses.incrementAndGet();
+            masks = List.copyOf(loader.get());
+            if (timeToLive > 0) {
+                ensureCapacity(now);
+                entries.put(key, new Entry(masks, now + timeToLive));
+            }
+        }
+
+        if (memo != null) {
+            memo.put(key, masks);
+        }
+        return masks;
+    }
+
+    /**
+     * Forget the masks of a user on a domain.
+     * The entry is forgotten again when the current transaction ends, so that a decision read before the commit
+     * (or a rollback) is never served to other requests.
+     */
+    public void invalidate(Long domainId, String username) {
+        Key key = new Key(domainId, username);
+        entries.remove(key);
+        Map<Key, List<Integer>> memo = getRequestMemo();
+        if (memo != null) {
+            memo.remove(key);
+        }
+        afterTransaction(() -> entries.remove(key));
+    }
+
+    /**
+     * Forget all the masks, used when an ACL entry is changed without knowing its domain or user
+     */
+    public void invalidateAll() {
+        entries.clear();
+        Map<Key, List<Integer>> memo = getRequestMemo();
+        if (memo != null) {
+            memo.clear();
+        }
+        afterTransaction(entries::clear);
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("size", entries.size());
+        statistics.put("maxSize", maxSize);
+        statistics.put("timeToLive", timeToLive);
+        statistics.put("hits", hits.get());
+        statistics.put("requestHits", requestHits.get());
+        statistics.put("misses", misses.get());
+        statistics.put("evictions", evictions.get());
+        return statistics;
+    }
+
+    private void ensureCapacity(long now) {
+        if (entries.size() < maxSize) {
+            return;
+        }
+        entries.values().removeIf(entry -> entry.expiration() <= now);
+        if (entries.size() >= maxSize) {
+            log.debug("ACL cache is full ({} entries), clear it", entries.size());
+            entries.clear();
+        }
+        evictions.incrementAndGet();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<Key, List<Integer>> getRequestMemo() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return null;
+        }
+        Map<Key, List<Integer>> memo =
+            (Map<Key, List<Integer>>) attributes.getAttribute(REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (memo == null) {
+            memo = new HashMap<>();
+            attributes.setAttribute(REQUEST_ATTRIBUTE, memo, RequestAttributes.SCOPE_REQUEST);
+        }
+        return memo;
+    }
+
+    private void afterTransaction(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    action.run();
+                }
+            });
+        }
+    }
+
+    private record Key(Long domainId, String username) {}
+
+    private record Entry(List<Integer> masks, long expiration) {}
+}
@@ -154,7 +154,7 @@ public class SecurityACLService {
      * @return true if user has this permission on current domain
      */
     public boolean hasPermission(CytomineDomain domain, Permission permission, boolean isAdmin) {
-        return permissionService.hasACLPermission(domain, permission) || isAdmin;
+        return isAdmin || permissionService.hasACLPermission(domain, permission);
     }
 
     public boolean hasPermission(CytomineDomain domain, Permission permission) {
@@ -0,0 +1,58 @@
+package be.cytomine.service.social;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.stereotype.Component;
+
+import be.cytomine.config.properties.ApplicationProperties;
+import be.cytomine.domain.social.LastUserPosition;
+
+/**
+ * Latest position of each user on each image, kept in memory so that followers do not have to query Mongo.
+ * Positions older than the live time to live are forgotten, lookups then fall back on the position history.
+ * The registry only knows the positions received by this server.
+ */
+@Component
+public class LivePositionRegistry {
+
+    private final Map<String, LastUserPosition> positions = new ConcurrentHashMap<>();
+
+    private final long timeToLive;
+
+    public LivePositionRegistry(ApplicationProperties applicationProperties) {
+        this.timeToLive = applicationProperties.getUserPosition().getLiveTimeToLive();
+    }
+
+    public void update(LastUserPosition position) {
+        positions.merge(getKey(position.getUser(), position.getImage()), position, (current, candidate) ->
+            candidate.getCreated().before(current.getCreated()) ? current : candidate
+        );
+    }
+
+    public Optional<LastUserPosition> get(Long userId, Long imageId) {
+        LastUserPosition position = positions.get(getKey(userId, imageId));
+        if (position == null || isExpired(position, System.currentTimeMillis())) {
+            return Optional.empty();
+        }
+        return Optional.of(position);
+    }
+
+    public void removeExpired() {
+        long now = System.currentTimeMillis();
+        positions.values().removeIf(position -> isExpired(position, now));
+    }
+
+    public int size() {
+        return positions.size();
+    }
+
+    private boolean isExpired(LastUserPosition position, long now) {
+        return position.getCreated().getTime() + timeToLive < now;
+    }
+
+    private String getKey(Long userId, Long imageId) {
+        return userId + "/" + imageId;
+    }
+}
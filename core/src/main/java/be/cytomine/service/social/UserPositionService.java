@@ -40,8 +40,6 @@ import be.cytomine.domain.security.User;
 import be.cytomine.domain.social.LastUserPosition;
 import be.cytomine.domain.social.PersistentUserPosition;
 import be.cytomine.dto.image.AreaDTO;
-import be.cytomine.repositorynosql.social.LastUserPositionRepository;
-import be.cytomine.repositorynosql.social.PersistentUserPositionRepository;
 import be.cytomine.service.database.SequenceService;
 import be.cytomine.service.security.SecurityACLService;
 import be.cytomine.utils.JsonObject;
@@ -72,9 +70,9 @@ public class UserPositionService {
 
     private final MongoTemplate mongoTemplate;
 
-    private final PersistentUserPositionRepository persistentUserPositionRepository;
+    private final UserPositionWriter userPositionWriter;
 
-    private final LastUserPositionRepository lastUserPositionRepository;
+    private final LivePositionRegistry livePositionRegistry;
 
     private final SequenceService sequenceService;
 
@@ -112,7 +110,6 @@ public class UserPositionService {
         position.setCreated(created);
         position.setUpdated(created);
         position.setImageName(imageInstance.getBlindInstanceFilename());
-        lastUserPositionRepository.insert(position);
 
         PersistentUserPosition persistedPosition = new PersistentUserPosition();
         persistedPosition.setId(sequenceService.generateID());
@@ -127,7 +124,8 @@ public class UserPositionService {
         persistedPosition.setCreated(created);
         persistedPosition.setUpdated(created);
         persistedPosition.setImageName(imageInstance.getBlindInstanceFilename());
-        persistentUserPositionRepository.insert(persistedPosition);
+        userPositionWriter.write(position, persistedPosition);
+        livePositionRegistry.update(position);
 
         return persistedPosition;
     }
@@ -183,6 +181,13 @@ public class UserPositionService {
         User user,
         boolean broadcast
     ) {
+        Optional<LastUserPosition> livePosition = livePositionRegistry.get(user.getId(), image.getId())
+            .filter(position -> slice == null || slice.getId().equals(position.getSlice()))
+            .filter(position -> !broadcast || position.isBroadcast());
+        if (livePosition.isPresent()) {
+            return livePosition;
+        }
+
         Query query = new Query();
         query.addCriteria(Criteria.where("user").is(user.getId()));
         query.addCriteria(Criteria.where("image").is(image.getId()));
@@ -438,6 +443,7 @@ public class UserPositionService {
         );
         delegatedScheduler.scheduleAtFixedRate(
             () -> {
+                livePositionRegistry.removeExpired();
                 for (Map.Entry<String, Boolean> entry : followers.entrySet()) {
                     if (!entry.getValue()) {
                         followers.remove(entry.getKey());
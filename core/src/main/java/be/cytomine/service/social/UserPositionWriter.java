@@ -0,0 +1,172 @@
+package be.cytomine.service.social;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import be.cytomine.config.properties.ApplicationProperties;
+import be.cytomine.domain.social.LastUserPosition;
+import be.cytomine.domain.social.PersistentUserPosition;
+import be.cytomine.repositorynosql.social.LastUserPositionRepository;
+import be.cytomine.repositorynosql.social.PersistentUserPositionRepository;
+
+/**
+ * Write-behind persistence of the user positions.
+ * <p>
+ * Positions are kept in memory and inserted in bulk every flush interval, or as soon as a batch is full:
+ * <ul>
+ *     <li>only the most recent last position of a user on a slice is kept between two flushes;</li>
+ *     <li>persistent positions wait in a bounded queue. When the queue is full, the caller flushes it
+ *     itself (backpressure) and the oldest positions are dropped if it is still full.</li>
+ * </ul>
+ * With a flush interval of 0, positions are written synchronously.
+ */
+@Slf4j
+@Component
+public class UserPositionWriter {
+
+    private final LastUserPositionRepository lastUserPositionRepository;
+
+    private final PersistentUserPositionRepository persistentUserPositionRepository;
+
+    private final long flushInterval;
+
+    private final int batchSize;
+
+    private final Map<String, LastUserPosition> lastPositions = new ConcurrentHashMap<>();
+
+    private final BlockingQueue<PersistentUserPosition> persistentPositions;
+
+    private final AtomicLong flushes = new AtomicLong();
+
+    private final AtomicLong written = new AtomicLong();
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    private final AtomicLong lastFlushDuration = new AtomicLong();
+
+    private final AtomicLong maxFlushDuration = new AtomicLong();
+
+    private ScheduledExecutorService scheduler;
+
+    public UserPositionWriter(
+        LastUserPositionRepository lastUserPositionRepository,
+        PersistentUserPositionRepository persistentUserPositionRepository,
+        ApplicationProperties applicationProperties
+    ) {
+        this.lastUserPositionRepository = lastUserPositionRepository;
+        this.persistentUserPositionRepository = persistentUserPositionRepository;
+        ApplicationProperties.UserPosition properties = applicationProperties.getUserPosition();
+        this.flushInterval = properties.getFlushInterval();
+        this.batchSize = Math.max(1, properties.getBatchSize());
+        this.persistentPositions = new ArrayBlockingQueue<>(Math.max(batchSize, properties.getQueueCapacity()));
+    }
+
+    @PostConstruct
+    public void startScheduler() {
+        if (flushInterval > 0) {
+            scheduler = Executors.newSingleThreadScheduledExecutor();
+            scheduler.scheduleWithFixedDelay(this::flush, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void drain() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+        flush();
+    }
+
+    public void write(LastUserPosition lastPosition, PersistentUserPosition persistentPosition) {
+        if (scheduler == null) {
+            lastUserPositionRepository.insert(lastPosition);
+            persistentUserPositionRepository.insert(persistentPosition);
+            written.incrementAndGet();
+            return;
+        }
+
+        lastPositions.put(
+            lastPosition.getUser() + "/" + lastPosition.getImage() + "/" + lastPosition.getSlice(),
+            lastPosition
+        );
+
+        if (!persistentPositions.offer(persistentPosition)) {
+            flush();
+            while (!persistentPositions.offer(persistentPosition)) {
+                if (persistentPositions.poll() != null) {
+                    dropped.incrementAndGet();
+                }
+            }
+        }
+
+        if (persistentPositions.size() >= batchSize) {
+            scheduler.execute(this::flush);
+        }
+    }
+
+    public synchronized void flush() {
+        if (lastPositions.isEmpty() && persistentPositions.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+
+        List<LastUserPosition> lastBatch = new ArrayList<>();
+        for (Map.Entry<String, LastUserPosition> entry : lastPositions.entrySet()) {
+            if (lastPositions.remove(entry.getKey(), entry.getValue())) {
+                lastBatch.add(entry.getValue());
+            }
+        }
+        try {
+            if (!lastBatch.isEmpty()) {
+                lastUserPositionRepository.insert(lastBatch);
+            }
+        } catch (Exception e) {
+            log.error("Cannot write {} last user positions: {}", lastBatch.size(), e.getMessage());
+        }
+
+        List<PersistentUserPosition> batch = new ArrayList<>(batchSize);
+        while (persistentPositions.drainTo(batch, batchSize) > 0) {
+            try {
+                persistentUserPositionRepository.insert(batch);
+                written.addAndGet(batch.size());
+            } catch (Exception e) {
+                log.error("Cannot write {} user positions, they are dropped: {}", batch.size(), e.getMessage());
+                dropped.addAndGet(batch.size());
+            }
+            batch.clear();
+        }
+
+        long duration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        flushes.incrementAndGet();
+        lastFlushDuration.set(duration);
+        maxFlushDuration.accumulateAndGet(duration, Math::max);
+        log.debug("Flushed user positions in {} ms", duration);
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("writeBehind", scheduler != null);
+        statistics.put("queueDepth", persistentPositions.size());
+        statistics.put("pendingLastPositions", lastPositions.size());
+        statistics.put("written", written.get());
+        statistics.put("dropped", dropped.get());
+        statistics.put("flushes", flushes.get());
+        statistics.put("lastFlushDuration", lastFlushDuration.get());
+        statistics.put("maxFlushDuration", maxFlushDuration.get());
+        return statistics;
+    }
+}
@@ -206,10 +206,18 @@ public class WebSocketUserPositionHandler extends CytomineWebSocketHandler {
         }
     }
 
+    /**
+     * Fan out a position from the broadcaster thread. Decorated sessions do not block: while a message is being
+     * sent to a follower, the next ones are buffered and sent together by the thread that holds the session.
+     */
     private void sendPosition(ConcurrentWebSocketSessionDecorator[] sessions, String position) {
         TextMessage message = new TextMessage(position);
         for (ConcurrentWebSocketSessionDecorator s : sessions) {
-            new Thread(() -> sendPosition(s, message)).start();
+            try {
+                sendPosition(s, message);
+            } catch (ServerException e) {
+                log.error("Failed to send position to follower session {}: {}", s.getId(), e.getMessage());
+            }
         }
     }
 
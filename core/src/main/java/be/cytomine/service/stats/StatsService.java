@@ -1,6 +1,7 @@
 package be.cytomine.service.stats;
 
 import java.io.IOException;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.ArrayList;
@@ -11,10 +12,15 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Optional;
 import java.util.Set;
+import java.util.SortedMap;
+import java.util.TimeZone;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 
+import com.mongodb.client.model.Accumulators;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.Tuple;
 import jakarta.persistence.TypedQuery;
@@ -24,10 +30,10 @@ import jakarta.persistence.criteria.Path;
 import jakarta.persistence.criteria.Predicate;
 import jakarta.persistence.criteria.Root;
 import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.bson.conversions.Bson;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.core.MongoTemplate;
-import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -43,7 +49,6 @@ import be.cytomine.domain.social.AnnotationAction;
 import be.cytomine.domain.social.PersistentImageConsultation;
 import be.cytomine.domain.social.PersistentProjectConnection;
 import be.cytomine.dto.StorageStats;
-import be.cytomine.repository.ontology.UserAnnotationRepository;
 import be.cytomine.service.CurrentUserService;
 import be.cytomine.service.middleware.ImageServerService;
 import be.cytomine.service.project.ProjectService;
@@ -51,6 +56,12 @@ import be.cytomine.service.security.SecurityACLService;
 import be.cytomine.service.security.UserService;
 import be.cytomine.utils.JsonObject;
 
+import static com.mongodb.client.model.Aggregates.group;
+import static com.mongodb.client.model.Aggregates.match;
+import static com.mongodb.client.model.Filters.and;
+import static com.mongodb.client.model.Filters.eq;
+import static com.mongodb.client.model.Filters.gte;
+import static com.mongodb.client.model.Filters.lte;
 import static java.util.stream.Collectors.toSet;
 import static org.springframework.security.acls.domain.BasePermission.READ;
 
@@ -77,8 +88,6 @@ public class StatsService {
 
     private final TermRelationHttpContract termRelationHttpContract;
 
-    private final UserAnnotationRepository userAnnotationRepository;
-
     private final UserService userService;
 
     public Long total(Class domain) {
@@ -98,28 +107,46 @@ public class StatsService {
             .max(Comparator.comparing(x -> x.getJSONAttrLong("users"))).stream().findFirst();
     }
 
+    /**
+     * Count, for each project of the ontology, the annotations associated with the term in the visible layers.
+     * The annotations are counted per project and user in a single query,
+     * so that the layers only have to be resolved for the projects having such annotations.
+     */
     public List<JsonObject> statAnnotationTermedByProject(long termId, long ontologyId) {
         List<Project> projects = projectService.listByOntology(ontologyId);
 
-        JsonObject counts = new JsonObject();
-        JsonObject percentage = new JsonObject();
+        if (projects.isEmpty()) {
+            return List.of();
+        }
+
+        List<Tuple> rows = entityManager.createNativeQuery(
+                "SELECT ua.project_id AS project_id, ua.user_id AS user_id, count(DISTINCT ua.id) AS count "
+                    + "FROM user_annotation ua JOIN annotation_term at ON at.user_annotation_id = ua.id "
+                    + "WHERE at.term_id = :term AND ua.project_id IN (:projects) "
+                    + "GROUP BY ua.project_id, ua.user_id",
+                Tuple.class
+            )
+            .setParameter("term", termId)
+            .setParameter("projects", projects.stream().map(Project::getId).toList())
+            .getResultList();
+
+        Map<Long, Map<Long, Long>> countsByProjectAndUser = new HashMap<>();
+        for (Tuple row : rows) {
+            countsByProjectAndUser
+                .computeIfAbsent(((Number) row.get("project_id")).longValue(), id -> new HashMap<>())
+                .put(((Number) row.get("user_id")).longValue(), ((Number) row.get("count")).longValue());
+        }
 
+        JsonObject counts = new JsonObject();
         for (Project project : projects) {
             counts.put(project.getName(), 0);
-            percentage.put(project.getName(), 0);
-
-            List<Long> layers = userService.listLayers(project).stream().map(x -> x.getJSONAttrLong("id"))
-                .collect(Collectors.toList());
-
-            if (!layers.isEmpty()) {
-                List<UserAnnotation> annotations =
-                    userAnnotationRepository.findAllByProjectAndUserIdIn(project, layers);
-                for (UserAnnotation annotation : annotations) {
-                    if (annotation.getTerms().stream().anyMatch(t -> t.getId().equals(termId))) {
-                        Long currentValue = counts.getJSONAttrLong(project.getName(), 0L);
-                        counts.put(project.getName(), currentValue + 1);
-                    }
-                }
+
+            Map<Long, Long> countsByUser = countsByProjectAndUser.get(project.getId());
+            if (countsByUser != null) {
+                long count = userService.listLayers(project).stream()
+                    .mapToLong(layer -> countsByUser.getOrDefault(layer.getJSONAttrLong("id"), 0L))
+                    .sum();
+                counts.put(project.getName(), count);
             }
         }
 
@@ -131,41 +158,45 @@ public class StatsService {
     public List<JsonObject> statAnnotationEvolution(Project project, Optional<Long> maybeTermId, int daysRange,
         Date startDate, Date endDate, boolean reverseOrder, boolean accumulate) {
         securityACLService.check(project, READ);
-        String request =
-            "SELECT created FROM UserAnnotation WHERE project.id = " + project.getId() + " " + (maybeTermId.map(
-                    termId -> "AND id IN (SELECT userAnnotation.id FROM AnnotationTerm WHERE term.id = "
-                        + termId + ") ")
-                .orElse("")) + (startDate != null ? " AND created > cast(date('" + startDate + "') as timestamp)" : "")
-                + (endDate != null ? " AND created < cast(date('" + endDate + "') as timestamp)" : "")
-                + " ORDER BY created ASC";
-
-        List<Date> annotationsDates = entityManager.createQuery(request, Date.class).getResultList();
-
-        List<JsonObject> data =
-            aggregateByPeriods(annotationsDates, daysRange, (startDate == null ? project.getCreated() : startDate),
-                (endDate == null ? new Date() : endDate), accumulate);
-        if (reverseOrder) {
-            Collections.reverse(data);
-        }
-
-        return data;
+        return annotationEvolution(project, false, maybeTermId, daysRange, startDate, endDate, reverseOrder,
+            accumulate);
     }
 
     public List<JsonObject> statReviewedAnnotationEvolution(Project project, Optional<Long> termId, int daysRange,
         Date startDate, Date endDate, boolean reverseOrder, boolean accumulate) {
         securityACLService.check(project, READ);
+        return annotationEvolution(project, true, termId, daysRange, startDate, endDate, reverseOrder, accumulate);
+    }
 
-        String request =
-            "SELECT created FROM reviewed_annotation WHERE project_id = " + project.getId() + " " + (termId.isPresent()
-                ? "AND id IN (SELECT reviewed_annotation_terms_id " + "FROM reviewed_annotation_term WHERE term_id = "
-                + termId.get() + ") " : "") + (startDate != null ? "AND created > '" + startDate + "'" : "") + (
-                endDate != null ? "AND created < '" + endDate + "'" : "") + "ORDER BY created ASC";
-
-        List<java.util.Date> annotationsDates = entityManager.createNativeQuery(request).getResultList();
+    /**
+     * Compute the annotation evolution from the daily counts maintained by the annotation_daily_count triggers,
+     * so that the annotations themselves are never loaded.
+     * The start and end days are fully included.
+     */
+    private List<JsonObject> annotationEvolution(Project project, boolean reviewed, Optional<Long> termId,
+        int daysRange, Date startDate, Date endDate, boolean reverseOrder, boolean accumulate) {
+        Date start = (startDate == null ? project.getCreated() : startDate);
+        Date end = (endDate == null ? new Date() : endDate);
+
+        List<Tuple> rows = entityManager.createNativeQuery(
+                "SELECT to_char(day, 'YYYY-MM-DD') AS day, count FROM annotation_daily_count "
+                    + "WHERE project_id = :project AND reviewed = :reviewed AND term_id = :term "
+                    + "AND day BETWEEN :start AND :end AND count <> 0",
+                Tuple.class
+            )
+            .setParameter("project", project.getId())
+            .setParameter("reviewed", reviewed)
+            .setParameter("term", termId.orElse(0L))
+            .setParameter("start", toDay(start))
+            .setParameter("end", toDay(end))
+            .getResultList();
+
+        NavigableMap<LocalDate, Long> dailyCounts = new TreeMap<>();
+        for (Tuple row : rows) {
+            dailyCounts.put(LocalDate.parse((String) row.get("day")), ((Number) row.get("count")).longValue());
+        }
 
-        List<JsonObject> data =
-            aggregateByPeriods(annotationsDates, daysRange, (startDate == null ? project.getCreated() : startDate),
-                (endDate == null ? new Date() : endDate), accumulate);
+        List<JsonObject> data = aggregateByPeriods(dailyCounts, daysRange, start, end, accumulate);
         if (reverseOrder) {
             Collections.reverse(data);
         }
@@ -354,23 +385,9 @@ public class StatsService {
     public List<JsonObject> statConnectionsEvolution(Project project, int daysRange, Date startDate, Date endDate,
         boolean accumulate) {
         securityACLService.check(project, READ);
-        Query query = new Query();
-        query.addCriteria(org.springframework.data.mongodb.core.query.Criteria.where("project").is(project.getId()));
-        if (startDate != null && endDate != null) {
-            query.addCriteria(
-                org.springframework.data.mongodb.core.query.Criteria.where("created").gte(startDate).lte(endDate));
-        } else if (startDate != null) {
-            query.addCriteria(org.springframework.data.mongodb.core.query.Criteria.where("created").gte(startDate));
-        } else if (endDate != null) {
-            query.addCriteria(org.springframework.data.mongodb.core.query.Criteria.where("created").lte(endDate));
-        }
-        query.with(Sort.by(Sort.Direction.ASC, "created"));
-
-        List<PersistentProjectConnection> persistentProjectConnections =
-            mongoTemplate.find(query, PersistentProjectConnection.class);
-        List<Date> createdDates = persistentProjectConnections.stream().map(PersistentProjectConnection::getCreated)
-            .collect(Collectors.toList());
-        return this.aggregateByPeriods(createdDates, daysRange, (startDate == null ? project.getCreated() : startDate),
+        NavigableMap<LocalDate, Long> dailyCounts =
+            countByDay(PersistentProjectConnection.class, creationFilters(project, startDate, endDate));
+        return this.aggregateByPeriods(dailyCounts, daysRange, (startDate == null ? project.getCreated() : startDate),
             (endDate == null ? new Date() : endDate), accumulate);
     }
 
@@ -378,59 +395,65 @@ public class StatsService {
     public List<JsonObject> statImageConsultationsEvolution(Project project, int daysRange, Date startDate,
         Date endDate, boolean accumulate) {
         securityACLService.check(project, READ);
-        Query query = new Query();
-        query.addCriteria(org.springframework.data.mongodb.core.query.Criteria.where("project").is(project.getId()));
-        if (startDate != null && endDate != null) {
-            query.addCriteria(
-                org.springframework.data.mongodb.core.query.Criteria.where("created").gte(startDate).lte(endDate));
-        } else if (startDate != null) {
-            query.addCriteria(org.springframework.data.mongodb.core.query.Criteria.where("created").gte(startDate));
-        } else if (endDate != null) {
-            query.addCriteria(org.springframework.data.mongodb.core.query.Criteria.where("created").lte(endDate));
-        }
-        query.with(Sort.by(Sort.Direction.ASC, "created"));
-
-        List<PersistentImageConsultation> persistentProjectConnections =
-            mongoTemplate.find(query, PersistentImageConsultation.class);
-        List<Date> createdDates = persistentProjectConnections.stream().map(PersistentImageConsultation::getCreated)
-            .collect(Collectors.toList());
-        return this.aggregateByPeriods(createdDates, daysRange, (startDate == null ? project.getCreated() : startDate),
+        NavigableMap<LocalDate, Long> dailyCounts =
+            countByDay(PersistentImageConsultation.class, creationFilters(project, startDate, endDate));
+        return this.aggregateByPeriods(dailyCounts, daysRange, (startDate == null ? project.getCreated() : startDate),
             (endDate == null ? new Date() : endDate), accumulate);
     }
 
     public List<JsonObject> statAnnotationActionsEvolution(Project project, int daysRange, Date startDate, Date endDate,
         boolean accumulate, String type) {
         securityACLService.check(project, READ);
-        Query query = new Query();
-        query.addCriteria(org.springframework.data.mongodb.core.query.Criteria.where("project").is(project.getId()));
-        if (startDate != null && endDate != null) {
-            query.addCriteria(
-                org.springframework.data.mongodb.core.query.Criteria.where("created").gte(startDate).lte(endDate));
-        } else if (startDate != null) {
-            query.addCriteria(org.springframework.data.mongodb.core.query.Criteria.where("created").gte(startDate));
-        } else if (endDate != null) {
-            query.addCriteria(org.springframework.data.mongodb.core.query.Criteria.where("created").lte(endDate));
-        }
+        List<Bson> filters = creationFilters(project, startDate, endDate);
         if (type != null) {
-            query.addCriteria(org.springframework.data.mongodb.core.query.Criteria.where("action").is(type));
+            filters.add(eq("action", type));
         }
-        query.with(Sort.by(Sort.Direction.ASC, "created"));
-
-        List<AnnotationAction> persistentProjectConnections = mongoTemplate.find(query, AnnotationAction.class);
-        List<Date> createdDates =
-            persistentProjectConnections.stream().map(AnnotationAction::getCreated).collect(Collectors.toList());
-        return this.aggregateByPeriods(createdDates, daysRange, (startDate == null ? project.getCreated() : startDate),
+        NavigableMap<LocalDate, Long> dailyCounts = countByDay(AnnotationAction.class, filters);
+        return this.aggregateByPeriods(dailyCounts, daysRange, (startDate == null ? project.getCreated() : startDate),
             (endDate == null ? new Date() : endDate), accumulate);
     }
 
-    private List<JsonObject> aggregateByPeriods(List<Date> creationDates, int daysRange, Date startDate, Date endDate,
-        boolean accumulate) {
+    private List<Bson> creationFilters(Project project, Date startDate, Date endDate) {
+        List<Bson> filters = new ArrayList<>();
+        filters.add(eq("project", project.getId()));
+        if (startDate != null) {
+            filters.add(gte("created", startDate));
+        }
+        if (endDate != null) {
+            filters.add(lte("created", endDate));
+        }
+        return filters;
+    }
+
+    /**
+     * Count the documents created each day in mongo, so that only one document per day is sent back
+     */
+    private NavigableMap<LocalDate, Long> countByDay(Class<?> documentClass, List<Bson> filters) {
+        Document day = new Document("$dateToString", new Document("format", "%Y-%m-%d")
+            .append("date", "$created")
+            .append("timezone", TimeZone.getDefault().getID()));
+
+        NavigableMap<LocalDate, Long> dailyCounts = new TreeMap<>();
+        mongoTemplate.getCollection(mongoTemplate.getCollectionName(documentClass))
+            .aggregate(List.of(match(and(filters)), group(day, Accumulators.sum("count", 1))))
+            .forEach(result -> dailyCounts.put(
+                LocalDate.parse(result.getString("_id")),
+                ((Number) result.get("count")).longValue()
+            ));
+        return dailyCounts;
+    }
+
+    /**
+     * Sum the daily counts for each period (of duration daysRange) between the start and end dates.
+     * A day is counted in the period starting on or before that day.
+     */
+    private List<JsonObject> aggregateByPeriods(NavigableMap<LocalDate, Long> dailyCounts, int daysRange,
+        Date startDate, Date endDate, boolean accumulate) {
         List<JsonObject> data = new ArrayList<>();
-        int nbItems = creationDates.size();
-        int count = 0;
-        int idx = 0;
+        long count = 0;
 
         java.util.Date current = startDate;
+        LocalDate nextPeriodDay = toDay(startDate);
         Long endTime = endDate.getTime();
         Calendar cal = Calendar.getInstance();
 
@@ -443,15 +466,15 @@ public class StatsService {
             cal.setTime(current);
             cal.add(Calendar.DATE, daysRange);
             current = cal.getTime();
+            nextPeriodDay = nextPeriodDay.plusDays(daysRange);
 
             if (!accumulate) {
                 count = 0;
             }
 
-            while (idx < nbItems && creationDates.get(idx).getTime() < current.getTime()) {
-                idx++;
-                count++;
-            }
+            SortedMap<LocalDate, Long> periodCounts = dailyCounts.headMap(nextPeriodDay);
+            count += periodCounts.values().stream().mapToLong(Long::longValue).sum();
+            periodCounts.clear();
 
             item.put("endDate", Math.min(current.getTime(), endTime));
             item.put("size", count);
@@ -459,4 +482,8 @@ public class StatsService {
         }
         return data;
     }
+
+    private static LocalDate toDay(Date date) {
+        return date.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+    }
 }
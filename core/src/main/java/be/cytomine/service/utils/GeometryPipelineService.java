@@ -0,0 +1,201 @@
+package be.cytomine.service.utils;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.prep.PreparedGeometry;
+import org.locationtech.jts.geom.prep.PreparedGeometryFactory;
+import org.locationtech.jts.index.strtree.STRtree;
+import org.locationtech.jts.io.WKTReader;
+import org.locationtech.jts.operation.union.UnaryUnionOp;
+import org.springframework.stereotype.Service;
+
+import be.cytomine.config.properties.ApplicationProperties;
+import be.cytomine.dto.annotation.SimplifiedAnnotation;
+import be.cytomine.dto.image.BoundariesCropParameter;
+import be.cytomine.exceptions.ServerException;
+import be.cytomine.exceptions.WrongArgumentException;
+import be.cytomine.utils.GeometryUtils;
+
+/**
+ * Prepare the geometries of the annotations before they are written: parse, check, clip to the image and simplify.
+ * Batches of geometries are processed on a pool bounded by the number of CPUs, each worker reusing its own reader.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Service
+public class GeometryPipelineService {
+
+    private static final GeometryFactory GEOMETRY_FACTORY = new GeometryFactory();
+
+    /**
+     * WKTReader is not thread-safe, each thread keeps its own reader
+     */
+    private static final ThreadLocal<WKTReader> READERS =
+        ThreadLocal.withInitial(() -> new WKTReader(GEOMETRY_FACTORY));
+
+    private final SimplifyGeometryService simplifyGeometryService;
+
+    private final ApplicationProperties applicationProperties;
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void start() {
+        int threads = applicationProperties.getAnnotation().getGeometryThreads();
+        if (threads <= 0) {
+            threads = Runtime.getRuntime().availableProcessors();
+        }
+        executor = Executors.newFixedThreadPool(threads);
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    public Geometry read(String location) {
+        try {
+            return READERS.get().read(location);
+        } catch (Exception ignored) {
+            throw new WrongArgumentException("Annotation location is not valid");
+        }
+    }
+
+    /**
+     * Bounds of an image, prepared once to clip all the annotations of the image
+     *
+     * @return null if the image size is unknown
+     */
+    public ImageBounds imageBounds(Integer width, Integer height) {
+        if (width == null || height == null) {
+            return null;
+        }
+        return new ImageBounds(new Envelope(0, width, 0, height));
+    }
+
+    /**
+     * Keep the part of the geometry inside the image
+     */
+    public Geometry clip(Geometry geometry, ImageBounds bounds) {
+        if (bounds == null || bounds.envelope.covers(geometry.getEnvelopeInternal())) {
+            return geometry;
+        }
+        if (!bounds.prepared.intersects(geometry)) {
+            return geometry.getFactory().createEmpty(geometry.getDimension());
+        }
+        return geometry.intersection(bounds.prepared.getGeometry());
+    }
+
+    /**
+     * Parse, clip to the image bounds and simplify the location of a new annotation
+     *
+     * @return the simplified location and the rate used for the simplification
+     */
+    public SimplifiedAnnotation prepare(String location, ImageBounds bounds, Long minPoint, Long maxPoint) {
+        Geometry annotationShape = read(location);
+        if (!annotationShape.isValid()) {
+            throw new WrongArgumentException("Annotation location is not valid");
+        }
+
+        annotationShape = clip(annotationShape, bounds);
+
+        if (!(annotationShape.getGeometryType().equals("LineString"))) {
+            BoundariesCropParameter boundaries = GeometryUtils.getGeometryBoundaries(annotationShape);
+            if (boundaries == null || boundaries.getWidth() == 0 || boundaries.getHeight() == 0) {
+                throw new WrongArgumentException("Annotation dimension not valid");
+            }
+        }
+
+        try {
+            return simplifyGeometryService.simplifyPolygon(annotationShape, minPoint, maxPoint);
+        } catch (Exception e) {
+            log.error("Cannot simplify annotation location:" + e);
+            return new SimplifiedAnnotation(annotationShape, 0.0d);
+        }
+    }
+
+    /**
+     * Union of all the geometries in a single cascaded union
+     */
+    public Geometry union(Collection<Geometry> geometries) {
+        return UnaryUnionOp.union(geometries).norm();
+    }
+
+    /**
+     * Remove a geometry from each candidate geometry.
+     * The candidates are indexed in an STRtree so that only the ones intersecting the removed geometry are computed.
+     *
+     * @return the new geometry of the candidates intersecting the removed geometry
+     */
+    public <T> Map<T, Geometry> difference(Map<T, Geometry> candidates, Geometry removed) {
+        STRtree index = new STRtree();
+        candidates.forEach((key, geometry) -> index.insert(geometry.getEnvelopeInternal(), key));
+
+        PreparedGeometry preparedRemoved = PreparedGeometryFactory.prepare(removed);
+        List<T> intersecting = ((List<T>) index.query(removed.getEnvelopeInternal())).stream()
+            .filter(key -> preparedRemoved.intersects(candidates.get(key)))
+            .toList();
+
+        Map<T, Geometry> differences = new ConcurrentHashMap<>();
+        processAll(intersecting, key -> differences.put(key, candidates.get(key).difference(removed).norm()));
+        return differences;
+    }
+
+    /**
+     * Run the action on each item with the geometry pool and wait for all of them.
+     * The action must only work on geometries: the workers have no persistence session.
+     */
+    public <T> void processAll(Collection<T> items, Consumer<T> action) {
+        if (items.size() <= 1) {
+            items.forEach(action);
+            return;
+        }
+        List<Callable<Void>> tasks = items.stream()
+            .map(item -> (Callable<Void>) () -> {
+                action.accept(item);
+                return null;
+            })
+            .toList();
+        try {
+            for (Future<Void> result : executor.invokeAll(tasks)) {
+                result.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServerException("Geometry processing interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new ServerException("Geometry processing failed", e.getCause());
+        }
+    }
+
+    public static class ImageBounds {
+
+        private final Envelope envelope;
+
+        private final PreparedGeometry prepared;
+
+        ImageBounds(Envelope envelope) {
+            this.envelope = envelope;
+            this.prepared = PreparedGeometryFactory.prepare(GEOMETRY_FACTORY.toGeometry(envelope));
+        }
+    }
+}
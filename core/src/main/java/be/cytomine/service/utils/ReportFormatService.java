@@ -1,6 +1,5 @@
 package be.cytomine.service.utils;
 
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -26,22 +25,13 @@ public class ReportFormatService {
     private Map<Long, String> termNameCache;
 
     /**
-     * Get report column headers from a list of ReportColumn
+     * Get report column titles from a list of ReportColumn, written in the first row of a report
      *
      * @param columns list of ReportColumn
-     * @return ReportColumn headers
+     * @return ReportColumn titles
      */
-    public static Object[] getColumnHeaders(List<ReportColumn> columns) {
-        return columns.stream().map(reportColumn -> reportColumn.property).toArray();
-    }
-
-    /**
-     * Convert data headers (actually property values of columns list) to columns titles.
-     */
-    private static void headerPropertyToTitle(List<ReportColumn> columns, Object[][] data) {
-        for (int i = 0; i < data[0].length; i++) {
-            data[0][i] = columns.get(i).title;
-        }
+    public static Object[] getColumnTitles(List<ReportColumn> columns) {
+        return columns.stream().map(reportColumn -> reportColumn.title).toArray();
     }
 
     /**
@@ -51,34 +41,11 @@ public class ReportFormatService {
      * @return {@code Object[][]}
      */
     public Object[][] formatJsonObjectForReport(List<ReportColumn> columns, List<JsonObject> data) {
-        List<Map<String, Object>> imageConsultations = new ArrayList<>();
-        for (JsonObject json : data) {
-            Map<String, Object> imageConsultation = new HashMap<>();
-            for (ReportColumn column : columns) {
-                String key = column.property;
-                switch (key) {
-                    case "time":
-                        long time = Long.parseLong(json.getJSONAttrStr("time"));
-                        imageConsultation.put(key, Math.abs(time));
-                        break;
-                    case "imageId":
-                        imageConsultation.put(key, json.getJSONAttrStr("image"));
-                        break;
-                    case "numberOfCreatedAnnotations":
-                        imageConsultation.put(key, json.getJSONAttrStr("countCreatedAnnotations"));
-                        break;
-                    case "created":
-                        long millis = Long.parseLong(json.getJSONAttrStr("created"));
-                        imageConsultation.put("created", DateUtils.computeMillisInDate(millis));
-                        break;
-                    default:
-                        imageConsultation.put(key, json.getJSONAttrStr(key));
-                        break;
-                }
-            }
-            imageConsultations.add(imageConsultation);
+        Object[][] report = initReport(data, columns);
+        for (int i = 0; i < data.size(); i++) {
+            report[i + 1] = formatJsonObjectRow(columns, data.get(i));
         }
-        return formatMapForReport(columns, imageConsultations);
+        return report;
     }
 
     /**
@@ -88,22 +55,10 @@ public class ReportFormatService {
      * @return {@code Object[][]}
      */
     public Object[][] formatMapForReport(List<ReportColumn> columns, List<Map<String, Object>> data) {
-        Object[] headers = getColumnHeaders(columns);
-        Object[][] report = initReport(data, headers);
-
+        Object[][] report = initReport(data, columns);
         for (int i = 0; i < data.size(); i++) {
-            Map<String, Object> element = data.get(i);
-            for (int j = 0; j < headers.length; j++) {
-
-                Object value = element.get(headers[j]);
-
-                if (value == null) {
-                    value = "";
-                }
-                report[i + 1][j] = value;
-            }
+            report[i + 1] = formatMapRow(columns, data.get(i));
         }
-        headerPropertyToTitle(columns, report);
         return report;
     }
 
@@ -115,23 +70,66 @@ public class ReportFormatService {
      */
     public Object[][] formatAnnotationsForReport(List<ReportColumn> columns, List<Map<String, Object>> data,
         long userId) {
-        Object[] headers = getColumnHeaders(columns);
-        Object[][] report = initReport(data, headers);
-
+        Object[][] report = initReport(data, columns);
         for (int i = 0; i < data.size(); i++) {
-            Map<String, Object> element = data.get(i);
-            for (int j = 0; j < headers.length; j++) {
-
-                Object value = getAnnotationValue(element.get(headers[j]), element, headers[j].toString(), userId);
+            report[i + 1] = formatAnnotationRow(columns, data.get(i), userId);
+        }
+        return report;
+    }
 
-                if (value == null) {
-                    value = "";
-                }
-                report[i + 1][j] = value;
+    /**
+     * Transform a {@link JsonObject} (image consultation, connection) into a report row
+     */
+    public Object[] formatJsonObjectRow(List<ReportColumn> columns, JsonObject json) {
+        Map<String, Object> element = new HashMap<>();
+        for (ReportColumn column : columns) {
+            String key = column.property;
+            switch (key) {
+                case "time":
+                    long time = Long.parseLong(json.getJSONAttrStr("time"));
+                    element.put(key, Math.abs(time));
+                    break;
+                case "imageId":
+                    element.put(key, json.getJSONAttrStr("image"));
+                    break;
+                case "numberOfCreatedAnnotations":
+                    element.put(key, json.getJSONAttrStr("countCreatedAnnotations"));
+                    break;
+                case "created":
+                    long millis = Long.parseLong(json.getJSONAttrStr("created"));
+                    element.put("created", DateUtils.computeMillisInDate(millis));
+                    break;
+                default:
+                    element.put(key, json.getJSONAttrStr(key));
+                    break;
             }
         }
-        headerPropertyToTitle(columns, report);
-        return report;
+        return formatMapRow(columns, element);
+    }
+
+    /**
+     * Transform a {@code Map<String,Object>} into a report row
+     */
+    public Object[] formatMapRow(List<ReportColumn> columns, Map<String, Object> element) {
+        Object[] row = new Object[columns.size()];
+        for (int j = 0; j < row.length; j++) {
+            Object value = element.get(columns.get(j).property);
+            row[j] = value != null ? value : "";
+        }
+        return row;
+    }
+
+    /**
+     * Transform an annotation into a report row
+     */
+    public Object[] formatAnnotationRow(List<ReportColumn> columns, Map<String, Object> annotation, long userId) {
+        Object[] row = new Object[columns.size()];
+        for (int j = 0; j < row.length; j++) {
+            String header = columns.get(j).property;
+            Object value = getAnnotationValue(annotation.get(header), annotation, header, userId);
+            row[j] = value != null ? value : "";
+        }
+        return row;
     }
 
     /**
@@ -215,9 +213,9 @@ public class ReportFormatService {
 
     }
 
-    private Object[][] initReport(List<Map<String, Object>> data, Object[] headers) {
-        Object[][] report = new Object[data.size() + 1][headers.length];
-        report[0] = headers;
+    private Object[][] initReport(List<?> data, List<ReportColumn> columns) {
+        Object[][] report = new Object[data.size() + 1][columns.size()];
+        report[0] = getColumnTitles(columns);
         return report;
     }
 }
@@ -1,7 +1,16 @@
 package be.cytomine.service.utils;
 
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+import org.locationtech.jts.algorithm.Distance;
+import org.locationtech.jts.geom.Coordinate;
 import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryComponentFilter;
+import org.locationtech.jts.geom.LineString;
 import org.locationtech.jts.geom.MultiPolygon;
+import org.locationtech.jts.geom.Point;
 import org.locationtech.jts.geom.Polygon;
 import org.locationtech.jts.geom.PrecisionModel;
 import org.locationtech.jts.io.ParseException;
@@ -30,7 +39,9 @@ public class SimplifyGeometryService {
     }
 
     /**
-     * Simplify form (limit point number) Return simplify polygon and the rate used for simplification
+     * Simplify form (limit point number) Return simplify polygon and the rate used for simplification.
+     * The rate is computed from the significance of the vertices instead of being searched step by step,
+     * so that big geometries are only simplified once.
      */
     public SimplifiedAnnotation simplifyPolygon(Geometry geometry, Long minPoint, Long maxPoint) {
         // Fast response for simple geometries
@@ -85,36 +96,102 @@ public class SimplifyGeometryService {
             rateLimitMin = Math.min(Math.max(numberOfPoint / ratioMin, 10), numOfGeometry * minNumberOfPoint);
         }
 
-        /* Increase value for the increment (allow to converge faster) */
-        double incrThreshold = 0.25d;
-        double i = 0;
-        double rate = 0;
-
-        /* Max number of loop (prevent infinite loop) */
-        int maxLoop = 1000;
+        if (numberOfPoint <= rateLimitMax) {
+            return new SimplifiedAnnotation(geometry.copy(), 0.0d);
+        }
 
-        Geometry newGeometry = (Geometry) geometry.clone();
-        Boolean isPolygonAndNotValid = (geometry instanceof Polygon && !((Polygon) geometry).isValid());
-        Boolean isMultiPolygon = (geometry instanceof MultiPolygon);
-        while (numberOfPoint > rateLimitMax && maxLoop > 0) {
-            rate = i;
-            if (isPolygonAndNotValid || isMultiPolygon) {
-                newGeometry = TopologyPreservingSimplifier.simplify(geometry, rate);
-            } else {
-                newGeometry = DouglasPeuckerSimplifier.simplify(geometry, rate);
-            }
+        boolean preserveTopology = (geometry instanceof Polygon && !geometry.isValid())
+            || geometry instanceof MultiPolygon;
 
-            if (newGeometry.getNumPoints() < rateLimitMin) {
+        // Tolerance keeping at most rateLimitMax points with Douglas-Peucker, found in a single pass over the vertices
+        double[] significances = vertexSignificances(geometry);
+        Arrays.sort(significances);
+        int toleranceIndex = Math.max(0, significances.length - (int) rateLimitMax - 1);
+        while (toleranceIndex > 0 && Double.isInfinite(significances[toleranceIndex])) {
+            toleranceIndex--;
+        }
+        double rate = Double.isInfinite(significances[toleranceIndex]) ? 0.0d : significances[toleranceIndex];
+        Geometry newGeometry = simplify(geometry, rate, preserveTopology);
+
+        /* The topology preserving simplifier may keep more points: increase the tolerance (max 20 loops) */
+        int maxLoop = 20;
+        while (newGeometry.getNumPoints() > rateLimitMax && maxLoop > 0) {
+            Geometry simplified = simplify(geometry, Math.max(rate * 1.5d, 0.25d), preserveTopology);
+            if (simplified.getNumPoints() < rateLimitMin) {
                 break;
             }
-
-            i = i + ((incrThreshold));
-            numberOfPoint = newGeometry.getNumPoints();
+            rate = Math.max(rate * 1.5d, 0.25d);
+            newGeometry = simplified;
             maxLoop--;
         }
         return new SimplifiedAnnotation(newGeometry, rate);
     }
 
+    private Geometry simplify(Geometry geometry, double rate, boolean preserveTopology) {
+        if (preserveTopology) {
+            return TopologyPreservingSimplifier.simplify(geometry, rate);
+        }
+        return DouglasPeuckerSimplifier.simplify(geometry, rate);
+    }
+
+    /**
+     * Douglas-Peucker significance of each vertex of the geometry: a vertex is kept by the simplification
+     * as long as the tolerance is lower than its significance.
+     * The end points of the lines and rings are always kept.
+     */
+    static double[] vertexSignificances(Geometry geometry) {
+        double[] significances = new double[geometry.getNumPoints()];
+        int[] offset = {0};
+        geometry.apply((GeometryComponentFilter) component -> {
+            if (component instanceof LineString) {
+                Coordinate[] coordinates = ((LineString) component).getCoordinates();
+                addLineSignificances(coordinates, significances, offset[0]);
+                offset[0] += coordinates.length;
+            } else if (component instanceof Point && !component.isEmpty()) {
+                significances[offset[0]++] = Double.POSITIVE_INFINITY;
+            }
+        });
+        return significances;
+    }
+
+    private static void addLineSignificances(Coordinate[] coordinates, double[] significances, int offset) {
+        if (coordinates.length == 0) {
+            return;
+        }
+        int last = coordinates.length - 1;
+        significances[offset] = Double.POSITIVE_INFINITY;
+        significances[offset + last] = Double.POSITIVE_INFINITY;
+
+        // Iterative Douglas-Peucker splitting every segment on its farthest vertex (no recursion on huge lines).
+        // A vertex is only kept if the vertices splitting the parent segments are kept as well, so its
+        // significance is bounded by the significance of the segment ends.
+        Deque<int[]> segments = new ArrayDeque<>();
+        segments.push(new int[] {0, last});
+        while (!segments.isEmpty()) {
+            int[] segment = segments.pop();
+            int start = segment[0];
+            int end = segment[1];
+            if (end - start < 2) {
+                continue;
+            }
+            int farthest = start + 1;
+            double maxDistance = -1;
+            for (int i = start + 1; i < end; i++) {
+                double distance = Distance.pointToSegment(coordinates[i], coordinates[start], coordinates[end]);
+                if (distance > maxDistance) {
+                    maxDistance = distance;
+                    farthest = i;
+                }
+            }
+            significances[offset + farthest] = Math.min(
+                maxDistance,
+                Math.min(significances[offset + start], significances[offset + end])
+            );
+            segments.push(new int[] {start, farthest});
+            segments.push(new int[] {farthest, end});
+        }
+    }
+
 
     public SimplifiedAnnotation simplifyPolygon(String form, double rate) {
         try {
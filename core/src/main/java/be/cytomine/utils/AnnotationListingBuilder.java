@@ -1,11 +1,12 @@
 package be.cytomine.utils;
 
-import java.util.ArrayList;
+import java.io.OutputStream;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
 
 import jakarta.persistence.EntityManager;
 import lombok.AllArgsConstructor;
@@ -46,35 +47,31 @@ public class AnnotationListingBuilder {
 
     private final ProjectService projectService;
 
-    public byte[] buildAnnotationReport(Long project, String users, JsonObject params, String terms, String format,
-        long requesterId) {
-        List<Map<String, Object>> annotations = buildAnnotationList(params, users);
+    public void writeAnnotationReport(Long project, String users, JsonObject params, String terms, String format,
+        long requesterId, OutputStream output) {
         Set<String> termNames = getTermNames(terms, requesterId);
         Set<String> userNames = getUserNames(users);
-        return reportService.generateAnnotationsReport(projectService.get(project).getName(), termNames, userNames,
-            annotations, format, requesterId);
+        reportService.writeAnnotationsReport(projectService.get(project).getName(), termNames, userNames,
+            annotations -> streamAnnotationList(params, users, annotations), format, requesterId, output);
     }
 
-    public List<Map<String, Object>> buildAnnotationList(JsonObject params, String users) {
+    /**
+     * Hand the annotations of the given users to the consumer as they are read from the database
+     */
+    public void streamAnnotationList(JsonObject params, String users, Consumer<Map<String, Object>> consumer) {
         AnnotationListing annotationListing = buildAnnotationListing(params);
         annotationListing.getColumnsToPrint().add("gis");
         annotationListing.getColumnsToPrint().add("image");
         annotationListing.getColumnsToPrint().add("user");
-        return filterAnnotationByUsers(annotationListingService.listGeneric(annotationListing), users);
-    }
 
-    private List<Map<String, Object>> filterAnnotationByUsers(List<AnnotationResult> annotations, String users) {
-        List<Map<String, Object>> filteredAnnotations = new ArrayList<>();
         List<Long> userIds =
             Arrays.stream(users.split(",")).sequential().filter(id -> !id.isEmpty()).map(Long::parseLong).toList();
-
-        for (AnnotationResult annotation : annotations) {
+        annotationListingService.streamGeneric(annotationListing, item -> {
+            AnnotationResult annotation = (AnnotationResult) item;
             if (userIds.contains((long) annotation.get("user"))) {
-                filteredAnnotations.add(annotation);
+                consumer.accept(annotation);
             }
-        }
-
-        return filteredAnnotations;
+        });
     }
 
     public AnnotationListing buildAnnotationListing(JsonObject params) {
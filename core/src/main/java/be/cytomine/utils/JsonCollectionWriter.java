@@ -0,0 +1,73 @@
+package be.cytomine.utils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Write a paginated collection as JSON while its items are produced.
+ * The envelope is the same as the one built for lists by RestCytomineController
+ * ("collection", "offset", "perPage", "size", "totalPages"), only the counters are written after the collection.
+ * Nothing is written to the output before the first item (or the end), so errors raised while preparing
+ * the request can still be answered with a regular error response.
+ */
+public class JsonCollectionWriter implements Consumer<Object> {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final OutputStream outputStream;
+
+    private final int offset;
+
+    private final int max;
+
+    private JsonGenerator generator;
+
+    private long size = 0;
+
+    public JsonCollectionWriter(OutputStream outputStream, Long offset, Long max) {
+        this.outputStream = outputStream;
+        this.offset = offset != null ? offset.intValue() : 0;
+        this.max = (max != null && max != 0) ? max.intValue() : Integer.MAX_VALUE;
+    }
+
+    @Override
+    public void accept(Object item) {
+        try {
+            start();
+            if (size >= offset && size - offset < max) {
+                generator.writeObject(item);
+            }
+            size++;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Close the collection and write the pagination counters
+     */
+    public void finish() throws IOException {
+        start();
+        generator.writeEndArray();
+        generator.writeNumberField("offset", offset);
+        generator.writeNumberField("perPage", Math.min(max, size));
+        generator.writeNumberField("size", size);
+        generator.writeNumberField("totalPages", (int) Math.ceil((double) size / (double) max));
+        generator.writeEndObject();
+        generator.flush();
+    }
+
+    private void start() throws IOException {
+        if (generator == null) {
+            generator = MAPPER.getFactory().createGenerator(outputStream, JsonEncoding.UTF8);
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("collection");
+        }
+    }
+}
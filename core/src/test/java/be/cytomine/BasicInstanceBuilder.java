@@ -315,6 +315,45 @@ public class BasicInstanceBuilder {
         return instance;
     }
 
+    /**
+     * The annotation counters are not updatable from the entity, they are written directly in the database.
+     */
+    public Project givenAnnotationCounters(Project project, long annotations, long jobAnnotations, long reviewed) {
+        em.flush();
+        em.createNativeQuery("UPDATE project SET count_annotations = :annotations, "
+                + "count_job_annotations = :jobAnnotations, count_reviewed_annotations = :reviewed WHERE id = :id")
+            .setParameter("annotations", annotations)
+            .setParameter("jobAnnotations", jobAnnotations)
+            .setParameter("reviewed", reviewed)
+            .setParameter("id", project.getId())
+            .executeUpdate();
+        project.setCountAnnotations(annotations);
+        project.setCountJobAnnotations(jobAnnotations);
+        project.setCountReviewedAnnotations(reviewed);
+        return project;
+    }
+
+    public ImageInstance givenAnnotationCounters(
+        ImageInstance image,
+        long annotations,
+        long jobAnnotations,
+        long reviewed
+    ) {
+        em.flush();
+        em.createNativeQuery("UPDATE image_instance SET count_image_annotations = :annotations, "
+                + "count_image_job_annotations = :jobAnnotations, count_image_reviewed_annotations = :reviewed "
+                + "WHERE id = :id")
+            .setParameter("annotations", annotations)
+            .setParameter("jobAnnotations", jobAnnotations)
+            .setParameter("reviewed", reviewed)
+            .setParameter("id", image.getId())
+            .executeUpdate();
+        image.setCountImageAnnotations(annotations);
+        image.setCountImageJobAnnotations(jobAnnotations);
+        image.setCountImageReviewedAnnotations(reviewed);
+        return image;
+    }
+
     public UploadedFile givenAUploadedFile() {
         UploadedFile uploadedFile = givenANotPersistedUploadedFile();
         return persistAndReturn(uploadedFile);
@@ -1024,7 +1063,11 @@ public class BasicInstanceBuilder {
     public Annotation givenANotPersistedAnnotation(AnnotationLayer annotationLayer) {
         Annotation annotation = new Annotation();
         annotation.setAnnotationLayer(annotationLayer);
-        annotation.setLocation("{\"type\": \"Point\",\"coordinates\": [0, 0]}".getBytes());
+        try {
+            annotation.setLocation(new WKTReader().read("POINT (0 0)"));
+        } catch (ParseException ignored) {
+            // Ignored
+        }
         return annotation;
     }
 
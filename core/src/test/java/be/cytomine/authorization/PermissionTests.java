@@ -73,6 +73,19 @@ public class PermissionTests {
         assertThat(acEntry).isNull();
     }
 
+    @Test
+    public void permissionDecisionFollowsAddAndDelete() {
+        Ontology ontology = builder.givenAnOntology();
+
+        assertThat(permissionService.hasACLPermission(ontology, "superadmin", BasePermission.WRITE)).isFalse();
+
+        permissionService.addPermission(ontology, "superadmin", BasePermission.WRITE);
+        assertThat(permissionService.hasACLPermission(ontology, "superadmin", BasePermission.WRITE)).isTrue();
+
+        permissionService.deletePermission(ontology, "superadmin", BasePermission.WRITE);
+        assertThat(permissionService.hasACLPermission(ontology, "superadmin", BasePermission.WRITE)).isFalse();
+    }
+
     @Test
     public void deletePermissionThatDoesNotExist() {
         Ontology ontology = builder.givenAnOntology();
@@ -28,7 +28,7 @@ import be.cytomine.service.appengine.TaskRunService;
 import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
 import static com.github.tomakehurst.wiremock.client.WireMock.configureFor;
 import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
-import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
 import static org.springframework.security.acls.domain.BasePermission.READ;
 
 @AutoConfigureMockMvc
@@ -119,7 +119,7 @@ public class TaskRunAuthorizationTest extends CRDAuthorizationTest {
             }""";
 
         configureFor("localhost", wireMockServer.port());
-        stubFor(WireMock.post(urlEqualTo("/api/v1/tasks/" + taskId + "/runs"))
+        stubFor(WireMock.post(urlPathEqualTo("/api/v1/tasks/" + taskId + "/runs"))
             .willReturn(
                 aResponse().withBody(mockResponse)
             )
@@ -3,6 +3,7 @@ package be.cytomine.controller.annotation;
 import jakarta.persistence.EntityManager;
 import jakarta.transaction.Transactional;
 import org.junit.jupiter.api.Test;
+import org.locationtech.jts.io.WKTReader;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -76,6 +77,33 @@ public class AnnotationLayerResourceTest {
             .andExpect(jsonPath("$[*].annotationLayer.id", everyItem(is(annotationLayer.getId().intValue()))));
     }
 
+    @Test
+    public void getAnnotationsByLayerInBboxShouldReturnVisibleAnnotations() throws Exception {
+        AnnotationLayer annotationLayer = builder.givenAPersistedAnnotationLayer();
+        Annotation inside = builder.givenANotPersistedAnnotation(annotationLayer);
+        inside.setLocation(new WKTReader().read("POLYGON ((10 10, 20 10, 20 20, 10 20, 10 10))"));
+        Annotation outside = builder.givenANotPersistedAnnotation(annotationLayer);
+        outside.setLocation(new WKTReader().read("POINT (500 500)"));
+        manager.persist(inside);
+        manager.persist(outside);
+        manager.flush();
+
+        mockMvc.perform(get("/api/annotation-layers/{id}/annotations", annotationLayer.getId())
+                .param("bbox", "0,0,15,15"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(jsonPath("$[0].id").value(inside.getId().intValue()));
+    }
+
+    @Test
+    public void getAnnotationsByLayerWithInvalidBboxShouldFail() throws Exception {
+        AnnotationLayer annotationLayer = builder.givenAPersistedAnnotationLayer();
+
+        mockMvc.perform(get("/api/annotation-layers/{id}/annotations", annotationLayer.getId())
+                .param("bbox", "0,0,15"))
+            .andExpect(status().isBadRequest());
+    }
+
     @Test
     public void getAnnotationsByLayerShouldReturnNotFound() throws Exception {
         mockMvc.perform(get("/api/annotation-layers/{id}/annotations", 42))
@@ -30,7 +30,9 @@ import be.cytomine.repository.appengine.TaskRunRepository;
 
 import static be.cytomine.authorization.AbstractAuthorizationTest.SUPERADMIN;
 import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
 import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
@@ -90,7 +92,8 @@ public class TaskRunResourceTests {
         );
         String mockResponse = objectMapper.writeValueAsString(mockResponseMap);
 
-        WiremockRepository.SERVER.stubFor(WireMock.post(urlEqualTo(apiBasePath + "tasks/" + taskId + "/runs"))
+        WiremockRepository.SERVER.stubFor(WireMock.post(urlPathEqualTo(apiBasePath + "tasks/" + taskId + "/runs"))
+            .withQueryParam("project", equalTo(taskRun.getProject().getId().toString()))
             .willReturn(aResponse().withBody(mockResponse).withHeader("Content-Type", "application/json"))
         );
 
@@ -404,9 +404,9 @@ public class ImageInstanceResourceTests {
         Project project = builder.givenAProject();
         // we add width filter to get only the image set defined in this test
         ImageInstance image1 = builder.givenAnImageInstance(builder.givenAnAbstractImage(), project);
-        image1.setCountImageAnnotations(2L);
+        builder.givenAnnotationCounters(image1, 2L, 0L, 0L);
         ImageInstance image2 = builder.givenAnImageInstance(builder.givenAnAbstractImage(), project);
-        image2.setCountImageAnnotations(4L);
+        builder.givenAnnotationCounters(image2, 4L, 0L, 0L);
 
         restImageInstanceControllerMockMvc.perform(get("/api/project/{id}/imageinstance.json", project.getId())
                 .param("offset", "0")
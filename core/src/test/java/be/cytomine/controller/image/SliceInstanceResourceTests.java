@@ -29,6 +29,7 @@ import be.cytomine.config.MongoTestConfiguration;
 import be.cytomine.config.WiremockRepository;
 import be.cytomine.domain.image.AbstractSlice;
 import be.cytomine.domain.image.SliceInstance;
+import be.cytomine.domain.ontology.UserAnnotation;
 import be.cytomine.service.UrlApi;
 import be.cytomine.utils.JsonObject;
 
@@ -47,6 +48,7 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -483,6 +485,38 @@ public class SliceInstanceResourceTests {
             .andExpect(jsonPath("$.collection[0].color").value("#f00"));
     }
 
+    @Test
+    @Transactional
+    public void getAnnotationVectorTileOfSlice() throws Exception {
+        UserAnnotation annotation = builder.givenAUserAnnotation();
+        SliceInstance sliceInstance = annotation.getSlice();
+
+        MvcResult result = restSliceInstanceControllerMockMvc.perform(get(
+                "/api/sliceinstance/{id}/annotations/tile/{z}/{tx}/{ty}.mvt", sliceInstance.getId(), 0, 0, 0
+            ))
+            .andExpect(status().isOk())
+            .andExpect(header().string("Content-Type", "application/vnd.mapbox-vector-tile"))
+            .andExpect(header().exists("ETag"))
+            .andReturn();
+        assertThat(result.getResponse().getContentAsByteArray()).isNotEmpty();
+
+        restSliceInstanceControllerMockMvc.perform(get(
+                "/api/sliceinstance/{id}/annotations/tile/{z}/{tx}/{ty}.mvt", sliceInstance.getId(), 0, 0, 0
+            ).header("If-None-Match", result.getResponse().getHeader("ETag")))
+            .andExpect(status().isNotModified());
+    }
+
+    @Test
+    @Transactional
+    public void getAnnotationVectorTileOutOfTileGrid() throws Exception {
+        SliceInstance sliceInstance = builder.givenAUserAnnotation().getSlice();
+
+        restSliceInstanceControllerMockMvc.perform(get(
+                "/api/sliceinstance/{id}/annotations/tile/{z}/{tx}/{ty}.mvt", sliceInstance.getId(), 42, 0, 0
+            ))
+            .andExpect(status().isBadRequest());
+    }
+
     private SliceInstance givenTestSliceInstance() {
         AbstractSlice image = builder.givenAnAbstractSlice();
         image.getImage().setWidth(109240);
@@ -1,5 +1,6 @@
 package be.cytomine.controller.ontology;
 
+import java.io.ByteArrayInputStream;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
@@ -7,7 +8,9 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.zip.GZIPInputStream;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.tomakehurst.wiremock.WireMockServer;
 import com.github.tomakehurst.wiremock.client.RequestPatternBuilder;
@@ -1017,6 +1020,26 @@ public class AnnotationDomainResourceTests {
             .andExpect(jsonPath("$.features[*].properties.path_class_name", hasItem(term.getName())));
     }
 
+    @Test
+    public void shouldExportGzipCompressedGeoJsonWhenAccepted() throws Exception {
+        wiremockRepository.stubTermsByProject(project.getId(), term);
+        byte[] content = restAnnotationDomainControllerMockMvc.perform(get(
+                "/api/project/{projectId}/annotations/export",
+                project.getId()
+            ).header("Accept-Encoding", "gzip, deflate"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("Content-Encoding", "gzip"))
+            .andReturn()
+            .getResponse()
+            .getContentAsByteArray();
+
+        try (GZIPInputStream inputStream = new GZIPInputStream(new ByteArrayInputStream(content))) {
+            JsonNode geoJson = new ObjectMapper().readTree(inputStream);
+            assertThat(geoJson.get("type").asText()).isEqualTo("FeatureCollection");
+            assertThat(geoJson.get("features").findValuesAsText("path_class_name")).contains(term.getName());
+        }
+    }
+
     @Test
     public void shouldReturnCsvWithAnnotationsForAllUsers() throws Exception {
         String csvContent = performDownload(ReportType.CSV, "", false)
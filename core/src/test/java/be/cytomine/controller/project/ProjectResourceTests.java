@@ -256,7 +256,7 @@ public class ProjectResourceTests {
     @Transactional
     public void listAllProjectsWithFiltersNumberOfAnnotations() throws Exception {
         Project projectWithCriteria = builder.givenAProject();
-        projectWithCriteria.setCountAnnotations(500);
+        builder.givenAnnotationCounters(projectWithCriteria, 500, 0, 0);
         builder.persistAndReturn(projectWithCriteria);
         Project projectWithoutCriteria = builder.givenAProject();
 
@@ -276,7 +276,7 @@ public class ProjectResourceTests {
     @Transactional
     public void listAllProjectsWithFiltersNumberOfJobAnnotations() throws Exception {
         Project projectWithCriteria = builder.givenAProject();
-        projectWithCriteria.setCountJobAnnotations(500);
+        builder.givenAnnotationCounters(projectWithCriteria, 0, 500, 0);
         builder.persistAndReturn(projectWithCriteria);
         Project projectWithoutCriteria = builder.givenAProject();
 
@@ -973,9 +973,7 @@ public class ProjectResourceTests {
         Project project = builder.givenAProject();
         project.setName("0001");
         project.setCountImages(10);
-        project.setCountAnnotations(20);
-        project.setCountJobAnnotations(30);
-        project.setCountReviewedAnnotations(40);
+        builder.givenAnnotationCounters(project, 20, 30, 40);
         builder.addUserToProject(project, builder.givenAUser().getUsername());
         builder.addUserToProject(project, currentUserService.getCurrentUsername());
         builder.persistAndReturn(project);
@@ -1,10 +1,12 @@
 package be.cytomine.service.appengine;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
@@ -199,10 +201,13 @@ public class TaskRunServiceTest {
         when(taskRunRepository.findByProjectIdAndTaskRunId(projectId, taskRunId)).thenReturn(Optional.of(taskRun));
         when(taskRunLayerRepository.findAllByTaskRunAndImage(any(), any())).thenReturn(Set.of(taskRunLayer));
 
+        List<Geometry> createdGeometries = captureCreatedGeometries(annotationLayer);
+
         String result = taskRunService.getOutputs(projectId, taskRunId);
 
         assertEquals(outputsJson, result);
-        verify(annotationService, times(2)).createAnnotation(eq(annotationLayer), any(String.class));
+        assertEquals(2, createdGeometries.size());
+        verify(annotationService, times(1)).createAnnotations(eq(annotationLayer), any());
         verify(asyncService, times(1)).launchImageAdditionJob(ArgumentMatchers.any(), eq(projectId), eq(currentUser));
     }
 
@@ -308,10 +313,13 @@ public class TaskRunServiceTest {
             .thenReturn(Optional.of(outputGeometry1))
             .thenReturn(Optional.of(outputGeometry2));
 
+        List<Geometry> createdGeometries = captureCreatedGeometries(annotationLayer);
+
         String result = taskRunService.getOutputs(projectId, taskRunId);
 
         assertEquals(outputsJson, result);
-        verify(annotationService, times(2)).createAnnotation(eq(annotationLayer), any(String.class));
+        assertEquals(List.of(outputGeometry1, outputGeometry2), createdGeometries);
+        verify(annotationService, times(1)).createAnnotations(eq(annotationLayer), any());
         verify(asyncService, times(1)).launchImageAdditionJob(
             ArgumentMatchers.any(), eq(projectId), eq(currentUser)
         );
@@ -370,4 +378,14 @@ public class TaskRunServiceTest {
         assertTrue(resultNode.isArray());
         assertEquals(2, resultNode.size());
     }
+
+    @SuppressWarnings("unchecked")
+    private List<Geometry> captureCreatedGeometries(AnnotationLayer annotationLayer) {
+        List<Geometry> createdGeometries = new ArrayList<>();
+        when(annotationService.createAnnotations(eq(annotationLayer), any())).thenAnswer(invocation -> {
+            ((Stream<Geometry>) invocation.getArgument(1)).forEach(createdGeometries::add);
+            return (long) createdGeometries.size();
+        });
+        return createdGeometries;
+    }
 }
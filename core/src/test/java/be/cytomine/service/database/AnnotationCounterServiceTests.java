@@ -0,0 +1,57 @@
+package be.cytomine.service.database;
+
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import be.cytomine.BasicInstanceBuilder;
+import be.cytomine.CytomineCoreApplication;
+import be.cytomine.common.PostGisTestConfiguration;
+import be.cytomine.config.MongoTestConfiguration;
+import be.cytomine.config.WiremockRepository;
+import be.cytomine.domain.image.ImageInstance;
+import be.cytomine.domain.ontology.UserAnnotation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(classes = CytomineCoreApplication.class)
+@Import({MongoTestConfiguration.class, PostGisTestConfiguration.class, WiremockRepository.class})
+@Transactional
+public class AnnotationCounterServiceTests {
+
+    @Autowired
+    AnnotationCounterService annotationCounterService;
+
+    @Autowired
+    BasicInstanceBuilder builder;
+
+    @Autowired
+    EntityManager entityManager;
+
+    @Test
+    public void annotationCountersAreUpdatedOnceDeltasAreFolded() {
+        ImageInstance image = builder.givenAnImageInstance();
+        UserAnnotation annotation = builder.givenAUserAnnotation(builder.givenASliceInstance(image, 0, 0, 0));
+        builder.givenAUserAnnotation(annotation.getSlice());
+
+        entityManager.refresh(image);
+        assertThat(image.getCountImageAnnotations()).isEqualTo(0);
+
+        annotationCounterService.fold(1000);
+        entityManager.refresh(image);
+        entityManager.refresh(image.getProject());
+        assertThat(image.getCountImageAnnotations()).isEqualTo(2);
+        assertThat(image.getProject().getCountAnnotations()).isEqualTo(2);
+
+        entityManager.remove(annotation);
+        entityManager.flush();
+        annotationCounterService.fold(1000);
+        entityManager.refresh(image);
+        entityManager.refresh(image.getProject());
+        assertThat(image.getCountImageAnnotations()).isEqualTo(1);
+        assertThat(image.getProject().getCountAnnotations()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,77 @@
+package be.cytomine.service.database;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import be.cytomine.CytomineCoreApplication;
+import be.cytomine.common.PostGisTestConfiguration;
+import be.cytomine.config.MongoTestConfiguration;
+import be.cytomine.config.WiremockRepository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(classes = CytomineCoreApplication.class)
+@Import({MongoTestConfiguration.class, PostGisTestConfiguration.class, WiremockRepository.class})
+@Transactional
+public class SequenceServiceTests {
+
+    @Autowired
+    SequenceService sequenceService;
+
+    @Autowired
+    EntityManager entityManager;
+
+    @Test
+    public void generatedIdsAreNotReturnedByTheSequenceAnymore() {
+        Long id = sequenceService.generateID();
+
+        Long next = ((Number) entityManager
+            .createNativeQuery("select nextval('" + SequenceService.SEQ_NAME + "');")
+            .getSingleResult()).longValue();
+
+        assertThat(next).isGreaterThan(id);
+        for (int i = 0; i < SequenceService.ID_BLOCK_SIZE * 2; i++) {
+            assertThat(sequenceService.generateID()).isNotEqualTo(next);
+        }
+    }
+
+    @Test
+    public void generateUniqueIdsFromConcurrentThreads() throws Exception {
+        int threads = 8;
+        int idsByThread = SequenceService.ID_BLOCK_SIZE * 3;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Callable<List<Long>>> tasks = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                tasks.add(() -> {
+                    List<Long> ids = new ArrayList<>();
+                    for (int j = 0; j < idsByThread; j++) {
+                        ids.add(sequenceService.generateID());
+                    }
+                    return ids;
+                });
+            }
+
+            Set<Long> ids = new HashSet<>();
+            for (Future<List<Long>> result : executor.invokeAll(tasks)) {
+                ids.addAll(result.get());
+            }
+            assertThat(ids).hasSize(threads * idsByThread);
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -166,9 +166,7 @@ public class ImageInstanceServiceTests {
 
                 imageInstance.getBaseImage().getUploadedFile().setContentType(stringChoices.get(i));
 
-                imageInstance.setCountImageAnnotations((long) intChoices.get(i));
-                imageInstance.setCountImageReviewedAnnotations((long) intChoices.get(i));
-                imageInstance.setCountImageJobAnnotations((long) intChoices.get(i));
+                builder.givenAnnotationCounters(imageInstance, intChoices.get(i), intChoices.get(i), intChoices.get(i));
 
                 imageInstance.getBaseImage().setWidth(intChoices.get(i));
                 imageInstance.getBaseImage().setHeight(intChoices.get(i));
@@ -367,7 +365,7 @@ public class ImageInstanceServiceTests {
         ImageInstance img1 = builder.givenAnImageInstance(project);
         img1.getBaseImage().setWidth(499);
         img1.setInstanceFilename("TEST");
-        img1.setCountImageAnnotations(1000L);
+        builder.givenAnnotationCounters(img1, 1000L, 0L, 0L);
 
         ImageInstance img2 = builder.givenAnImageInstance(project);
         img2.getBaseImage().setWidth(501);
@@ -435,7 +433,7 @@ public class ImageInstanceServiceTests {
         ImageInstance img1 = builder.givenAnImageInstance(project);
         img1.getBaseImage().setWidth(499);
         img1.setInstanceFilename("TEST");
-        img1.setCountImageAnnotations(1000L);
+        builder.givenAnnotationCounters(img1, 1000L, 0L, 0L);
         TagDomainAssociation tagForImage1 = builder.givenATagAssociation(builder.givenATag("xxx"), img1);
 
         ImageInstance img2 = builder.givenAnImageInstance(project);
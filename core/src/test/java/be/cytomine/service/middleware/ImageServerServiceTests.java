@@ -1,7 +1,6 @@
 package be.cytomine.service.middleware;
 
 import java.io.IOException;
-import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
@@ -303,7 +302,7 @@ public class ImageServerServiceTests {
     }
 
     @Test
-    void getThumbForAbstractImage() {
+    void getThumbForAbstractImage() throws IOException {
         AbstractImage image = builder.givenAnAbstractImage();
         image.getUploadedFile().setFilename("1636379100999/CMU-2/CMU-2.mrxs");
         image.getUploadedFile().setContentType("MRXS");
@@ -329,7 +328,7 @@ public class ImageServerServiceTests {
         imageParameter.setMaxSize(256);
         imageParameter.setFormat("png");
 
-        byte[] data = imageServerService.thumb(slice, imageParameter, null, null).getBody();
+        byte[] data = imageServerService.thumb(slice, imageParameter, null, null).getBody().getContentAsByteArray();
         assertThat(data).isEqualTo(mockResponse);
 
         byte[] mockResponse2 = UUID.randomUUID()
@@ -347,12 +346,12 @@ public class ImageServerServiceTests {
 
         imageParameter.setMaxSize(512);
         imageParameter.setFormat("png");
-        data = imageServerService.thumb(slice, imageParameter, null, null).getBody();
+        data = imageServerService.thumb(slice, imageParameter, null, null).getBody().getContentAsByteArray();
         assertThat(data).isEqualTo(mockResponse2);
     }
 
     @Test
-    void getNormalizedTileForAbstractImage() {
+    void getNormalizedTileForAbstractImage() throws IOException {
         AbstractImage image = builder.givenAnAbstractImage();
         image.getUploadedFile().setFilename("1636379100999/CMU-2/CMU-2.mrxs");
         image.getUploadedFile().setContentType("MRXS");
@@ -381,7 +380,9 @@ public class ImageServerServiceTests {
         tileParameters.setFormat("webp");
         tileParameters.setFilters("binary");
 
-        byte[] data = imageServerService.normalizedTile(slice, tileParameters, null, null).getBody();
+        byte[] data = imageServerService.normalizedTile(slice, tileParameters, null, null)
+            .getBody()
+            .getContentAsByteArray();
         assertThat(data).isEqualTo(mockResponse);
 
         byte[] mockResponse2 = UUID.randomUUID()
@@ -400,7 +401,7 @@ public class ImageServerServiceTests {
         tileParameters.setFilters("otsu");
         tileParameters.setTimepoints("3");
         tileParameters.setChannels("1");
-        data = imageServerService.normalizedTile(slice, tileParameters, null, null).getBody();
+        data = imageServerService.normalizedTile(slice, tileParameters, null, null).getBody().getContentAsByteArray();
         assertThat(data).isEqualTo(mockResponse2);
     }
 
@@ -446,7 +447,7 @@ public class ImageServerServiceTests {
 
         byte[] crop = null;
         try {
-            crop = imageServerService.crop(slice, cropParameter, null, null).getBody();
+            crop = imageServerService.crop(slice, cropParameter, null, null).getBody().getContentAsByteArray();
         } catch (Exception exception) {
             exception.printStackTrace();
         }
@@ -454,7 +455,7 @@ public class ImageServerServiceTests {
     }
 
     @Test
-    void getWindowForAbstractImage() throws UnsupportedEncodingException, ParseException {
+    void getWindowForAbstractImage() throws IOException, ParseException {
         AbstractImage image = builder.givenAnAbstractImage();
         image.setWidth(109240);
         image.setHeight(220696);
@@ -484,7 +485,7 @@ public class ImageServerServiceTests {
         windowParameter.setW(30);
         windowParameter.setH(40);
         windowParameter.setFormat("png");
-        byte[] crop = imageServerService.window(slice, windowParameter, null, null).getBody();
+        byte[] crop = imageServerService.window(slice, windowParameter, null, null).getBody().getContentAsByteArray();
         assertThat(crop).isEqualTo(mockResponse);
     }
 
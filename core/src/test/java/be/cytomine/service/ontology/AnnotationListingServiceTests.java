@@ -16,6 +16,7 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.context.annotation.Import;
 import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import be.cytomine.BasicInstanceBuilder;
 import be.cytomine.CytomineCoreApplication;
@@ -31,6 +32,7 @@ import be.cytomine.domain.ontology.UserAnnotation;
 import be.cytomine.domain.security.User;
 import be.cytomine.dto.annotation.AnnotationResult;
 import be.cytomine.exceptions.WrongArgumentException;
+import be.cytomine.repository.AnnotationListing;
 import be.cytomine.repository.ReviewedAnnotationListing;
 import be.cytomine.repository.UserAnnotationListing;
 import be.cytomine.repository.ontology.UserAnnotationRepository;
@@ -391,4 +393,68 @@ public class AnnotationListingServiceTests {
             .contains(a3.getId())
             .contains(a4.getId());
     }
+
+    @Test
+    void searchUserAnnotationBindsFilterValuesInsteadOfInliningThem() {
+        String bbox = "POLYGON ((1 1, 2 1, 2 2, 1 2, 1 1))') OR ('1'='1";
+
+        UserAnnotationListing userAnnotationListing = new UserAnnotationListing(entityManager);
+        userAnnotationListing.setBbox(bbox);
+        String request = userAnnotationListing.getAnnotationsRequest();
+
+        assertThat(request)
+            .contains("ST_GeometryFromText(:bbox,0)")
+            .doesNotContain("'1'='1")
+            .doesNotContain("POLYGON");
+        assertThat(userAnnotationListing.getParameters()).containsEntry("bbox", bbox);
+    }
+
+    @Test
+    void searchUserAnnotationWithSameShapeReusesCompiledRequest() {
+        UserAnnotation userAnnotation = builder.givenAUserAnnotation();
+        UserAnnotation userAnnotationFromAnotherSlice = builder.givenAUserAnnotation();
+
+        UserAnnotationListing userAnnotationListing = new UserAnnotationListing(entityManager);
+        userAnnotationListing.setSlice(userAnnotation.getSlice().getId());
+        assertThat(annotationListingService.listGeneric(userAnnotationListing)
+            .stream().map(x -> ((AnnotationResult) x).get("id")))
+            .contains(userAnnotation.getId())
+            .doesNotContain(userAnnotationFromAnotherSlice.getId());
+        int compiledRequestCount = getCompiledRequests().size();
+
+        UserAnnotationListing otherUserAnnotationListing = new UserAnnotationListing(entityManager);
+        otherUserAnnotationListing.setSlice(userAnnotationFromAnotherSlice.getSlice().getId());
+        assertThat(annotationListingService.listGeneric(otherUserAnnotationListing)
+            .stream().map(x -> ((AnnotationResult) x).get("id")))
+            .contains(userAnnotationFromAnotherSlice.getId())
+            .doesNotContain(userAnnotation.getId());
+
+        assertThat(getCompiledRequests()).hasSize(compiledRequestCount);
+        assertThat(otherUserAnnotationListing.getAnnotationsRequest())
+            .isSameAs(userAnnotationListing.getAnnotationsRequest());
+    }
+
+    @Test
+    void searchUserAnnotationEvictsCompiledRequestsPastTheirBound() {
+        Map<String, String> compiledRequests = getCompiledRequests();
+        compiledRequests.clear();
+        for (int i = 0; i < 1023; i++) {
+            compiledRequests.put("shape-" + i, "request-" + i);
+        }
+
+        UserAnnotationListing userAnnotationListing = new UserAnnotationListing(entityManager);
+        userAnnotationListing.setBbox(POLYGONES.get("a"));
+        String request = userAnnotationListing.getAnnotationsRequest();
+        assertThat(compiledRequests).hasSize(1024).containsValue(request);
+
+        UserAnnotationListing otherUserAnnotationListing = new UserAnnotationListing(entityManager);
+        otherUserAnnotationListing.setBboxAnnotation(POLYGONES.get("a"));
+        String otherRequest = otherUserAnnotationListing.getAnnotationsRequest();
+        assertThat(compiledRequests).hasSize(1).containsValue(otherRequest);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, String> getCompiledRequests() {
+        return (Map<String, String>) ReflectionTestUtils.getField(AnnotationListing.class, "compiledRequests");
+    }
 }
@@ -45,6 +45,7 @@ import be.cytomine.repository.ontology.ReviewedAnnotationRepository;
 import be.cytomine.repository.ontology.UserAnnotationRepository;
 import be.cytomine.service.CommandService;
 import be.cytomine.service.UrlApi;
+import be.cytomine.service.database.AnnotationCounterService;
 import be.cytomine.service.image.ImageInstanceService;
 import be.cytomine.utils.CommandResponse;
 import be.cytomine.utils.JsonObject;
@@ -73,6 +74,8 @@ public class ReviewedAnnotationServiceTests {
     @Autowired
     BasicInstanceBuilder builder;
     @Autowired
+    AnnotationCounterService annotationCounterService;
+    @Autowired
     CommandService commandService;
     @Autowired
     EntityManager entityManager;
@@ -663,6 +666,7 @@ public class ReviewedAnnotationServiceTests {
 
         reviewedAnnotationService.reviewAnnotation(userAnnotation.getId(), null);
 
+        annotationCounterService.fold(1000);
         entityManager.refresh(userAnnotation);
         entityManager.refresh(image);
         entityManager.refresh(image.getProject());
@@ -673,6 +677,7 @@ public class ReviewedAnnotationServiceTests {
 
         reviewedAnnotationService.unReviewAnnotation(userAnnotation.getId());
 
+        annotationCounterService.fold(1000);
         entityManager.refresh(userAnnotation);
         entityManager.refresh(image);
         entityManager.refresh(image.getProject());
@@ -1,5 +1,6 @@
 package be.cytomine.service.ontology;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -351,6 +352,51 @@ public class UserAnnotationServiceTests {
         assertThat(userAnnotation.terms()).hasSize(2);
     }
 
+    @Test
+    void addMultipleUserAnnotationsWithInvalidEntry() {
+        UserAnnotation userAnnotation1 = builder.givenANotPersistedUserAnnotation();
+        UserAnnotation userAnnotation2 = builder.givenANotPersistedUserAnnotation();
+        JsonObject invalid = builder.givenANotPersistedUserAnnotation().toJsonObject(urlApi);
+        invalid.put("location", "POINT(BAD GEOMETRY)");
+
+        long countBefore = userAnnotationRepository.count();
+        JsonObject response = userAnnotationService.addMultiple(List.of(
+            userAnnotation1.toJsonObject(urlApi),
+            invalid,
+            userAnnotation2.toJsonObject(urlApi)
+        ));
+
+        assertThat(response.getJSONAttrInteger("status")).isEqualTo(206);
+        assertThat(userAnnotationRepository.count()).isEqualTo(countBefore + 2);
+
+        commandService.undo();
+
+        assertThat(userAnnotationRepository.count()).isEqualTo(countBefore);
+    }
+
+    @Test
+    void addMultipleUserAnnotationsWithEntryRejectedByDatabase() {
+        UserAnnotation userAnnotation1 = builder.givenANotPersistedUserAnnotation();
+        UserAnnotation userAnnotation2 = builder.givenANotPersistedUserAnnotation();
+        JsonObject rejected = builder.givenANotPersistedUserAnnotation().toJsonObject(urlApi);
+        // the key column is limited to 255 characters, the entry only fails when the chunk is flushed
+        rejected.put("properties", Map.of("k".repeat(300), "value"));
+
+        long countBefore = userAnnotationRepository.count();
+        JsonObject response = userAnnotationService.addMultiple(List.of(
+            userAnnotation1.toJsonObject(urlApi),
+            rejected,
+            userAnnotation2.toJsonObject(urlApi)
+        ));
+
+        assertThat(response.getJSONAttrInteger("status")).isEqualTo(206);
+        assertThat(userAnnotationRepository.count()).isEqualTo(countBefore + 2);
+
+        commandService.undo();
+
+        assertThat(userAnnotationRepository.count()).isEqualTo(countBefore);
+    }
+
     @Test
     void addUserAnnotationBadGeom() {
         UserAnnotation userAnnotation = builder.givenANotPersistedUserAnnotation();
@@ -593,6 +639,40 @@ public class UserAnnotationServiceTests {
         assertThat(userAnnotationRepository.findById(anotherAnnotation.getId())).isEmpty();
     }
 
+    @Test
+    void undoAnnotationCorrectionsAtOnce() throws ParseException {
+        UserAnnotation based = builder.givenAUserAnnotation();
+        based.setLocation(
+            new WKTReader().read("POLYGON ((0 0, 0 5000, 10000 5000, 10000 0, 0 0))")
+        );
+        builder.persistAndReturn(based);
+
+        List<Long> annotationIds = new ArrayList<>(List.of(based.getId()));
+        for (int i = 1; i <= 3; i++) {
+            UserAnnotation other = builder.givenAUserAnnotation();
+            other.setLocation(new WKTReader().read(
+                "POLYGON ((" + (i * 1000) + " 1, " + (i * 1000) + " 6000, " + (i * 1000 + 500) + " 6000, "
+                    + (i * 1000 + 500) + " 1, " + (i * 1000) + " 1))"));
+            other.setImage(based.getImage());
+            builder.persistAndReturn(other);
+            annotationIds.add(other.getId());
+        }
+
+        userAnnotationService.doCorrectUserAnnotation(
+            annotationIds,
+            "POLYGON ((0 5000, 10000 5000, 10000 10000, 0 10000, 0 5000))",
+            false
+        );
+
+        assertThat(userAnnotationRepository.findAllById(annotationIds)).hasSize(1);
+
+        commandService.undo();
+
+        assertThat(userAnnotationRepository.findAllById(annotationIds)).hasSize(4);
+        assertThat(userAnnotationRepository.findById(based.getId()).get().getLocation())
+            .isEqualTo(new WKTReader().read("POLYGON ((0 0, 0 5000, 10000 5000, 10000 0, 0 0))"));
+    }
+
     @Test
     void doAnnotationCorrectionsWithRemove() throws ParseException {
         UserAnnotation based = builder.givenAUserAnnotation();
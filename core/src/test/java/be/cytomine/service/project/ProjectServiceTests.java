@@ -240,9 +240,7 @@ public class ProjectServiceTests {
                 project.setMode(editingChoices.get(i));
                 project.setName("project" + k + i);
 
-                project.setCountAnnotations((long) intChoices.get(i));
-                project.setCountReviewedAnnotations((long) intChoices.get(i));
-                project.setCountJobAnnotations((long) intChoices.get(i));
+                builder.givenAnnotationCounters(project, intChoices.get(i), intChoices.get(i), intChoices.get(i));
                 project.setCountImages((long) intChoices.get(i));
                 for (int j = 0; j < intChoices.size(); j++) {
                     builder.addUserToProject(project, builder.givenAUser().getUsername());
@@ -344,9 +342,7 @@ public class ProjectServiceTests {
         builder.addUserToProject(project1, builder.givenSuperAdmin().getUsername());
 
         project1.setCountImages(100L);
-        project1.setCountAnnotations(200L);
-        project1.setCountReviewedAnnotations(300L);
-        project1.setCountJobAnnotations(400L);
+        builder.givenAnnotationCounters(project1, 200L, 400L, 300L);
 
         builder.persistAndReturn(project1);
 
@@ -19,6 +19,7 @@ import be.cytomine.exceptions.ServerException;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @SpringBootTest(classes = CytomineCoreApplication.class)
 @AutoConfigureMockMvc
@@ -161,6 +162,20 @@ public class PDFReportServiceTests {
         testData(validData, "title", null, true, false);
     }
 
+    @Test
+    public void generatePdfWithRowsOnSeveralPagesWorks() throws IOException {
+        Object[][] data = new Object[500][];
+        data[0] = validData[0];
+        for (int i = 1; i < data.length; i++) {
+            data[i] = validData[1];
+        }
+
+        byte[] pdfByteArray = pdfReportService.writePDF(data, "title", customColumnWidth, true, true);
+        try (PDDocument document = PDDocument.load(pdfByteArray)) {
+            assertTrue(document.getNumberOfPages() > 1);
+        }
+    }
+
     private void testData(
         Object[][] dataArray,
         String title,
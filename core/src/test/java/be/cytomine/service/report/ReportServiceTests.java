@@ -1,6 +1,7 @@
 package be.cytomine.service.report;
 
-import java.util.ArrayList;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
@@ -29,6 +30,7 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -53,7 +55,10 @@ public class ReportServiceTests {
         mockSpreadsheetWriterService,
         mockReportFormatService
     );
-    List<JsonObject> jsonObjectData = new ArrayList<>();
+    List<JsonObject> jsonObjectData = List.of(
+        JsonObject.of("id", 1L),
+        JsonObject.of("id", 2L)
+    );
     List<Map<String, Object>> dataMap = List.of(
         Map.of("id", "Hello"),
         Map.of("id", "World")
@@ -61,72 +66,54 @@ public class ReportServiceTests {
     Set<String> terms = new HashSet<>(Arrays.asList("term1", "term2"));
     Set<String> users = new HashSet<>(Arrays.asList("user1", "user2"));
     byte[] returnedReport = {1};
+    ReportWriter mockReportWriter = mock(ReportWriter.class);
+    OutputStream output = new ByteArrayOutputStream();
 
     @Test
     public void generateCsvReportWithConnectionHistory() throws ServerException {
-        when(mockSpreadsheetWriterService.writeSpreadsheet(any())).thenReturn(returnedReport);
-        byte[] generatedReport = reportService.generateConnectionHistoryReport(
-            "projectName",
-            "userName",
-            jsonObjectData
-        );
-        verify(mockReportFormatService, times(1))
-            .formatJsonObjectForReport(ReportService.CONNECTION_HISTORY_REPORT_COLUMNS, jsonObjectData);
-        verify(mockSpreadsheetWriterService, times(1)).writeSpreadsheet(any());
-        assertArrayEquals(returnedReport, generatedReport);
+        when(mockSpreadsheetWriterService.createSpreadsheetWriter(output)).thenReturn(mockReportWriter);
+        reportService.writeConnectionHistoryReport("projectName", "userName", jsonObjectData.stream(), output);
+        for (JsonObject json : jsonObjectData) {
+            verify(mockReportFormatService, times(1))
+                .formatJsonObjectRow(ReportService.CONNECTION_HISTORY_REPORT_COLUMNS, json);
+        }
+        verifyReportWritten(jsonObjectData.size());
     }
 
     @Test
     public void generateCsvReportWithImageConsultation() throws ServerException {
-        when(mockSpreadsheetWriterService.writeSpreadsheet(any())).thenReturn(returnedReport);
-        byte[] generatedReport = reportService.generateImageConsultationReport(
-            "projectName",
-            "userName",
-            jsonObjectData
-        );
-        verify(mockReportFormatService, times(1))
-            .formatJsonObjectForReport(ReportService.IMAGE_CONSULTATION_COLUMNS, jsonObjectData);
-        verify(mockSpreadsheetWriterService, times(1)).writeSpreadsheet(any());
-        assertArrayEquals(returnedReport, generatedReport);
+        when(mockSpreadsheetWriterService.createSpreadsheetWriter(output)).thenReturn(mockReportWriter);
+        reportService.writeImageConsultationReport("projectName", "userName", jsonObjectData.stream(), output);
+        for (JsonObject json : jsonObjectData) {
+            verify(mockReportFormatService, times(1))
+                .formatJsonObjectRow(ReportService.IMAGE_CONSULTATION_COLUMNS, json);
+        }
+        verifyReportWritten(jsonObjectData.size());
     }
 
     @Test
     public void generatePdfReportWithAnnotations() throws ServerException {
-        when(mockPdfWriterService.writePDF(any(), any(), any(), anyBoolean(), anyBoolean()))
-            .thenReturn(returnedReport);
-        byte[] generatedReport =
-            reportService.generateAnnotationsReport("projectName", terms, users, dataMap, "pdf", 1);
-        verify(mockReportFormatService, times(1))
-            .formatAnnotationsForReport(ReportService.ANNOTATION_REPORT_COLUMNS, dataMap, 1);
-        verify(mockPdfWriterService, times(1))
-            .writePDF(any(), any(), any(), anyBoolean(), anyBoolean());
-        assertArrayEquals(returnedReport, generatedReport);
+        when(mockPdfWriterService.createPDFWriter(any(), any(), anyBoolean(), anyBoolean(), eq(output)))
+            .thenReturn(mockReportWriter);
+        reportService.writeAnnotationsReport("projectName", terms, users, dataMap::forEach, "pdf", 1, output);
+        verifyAnnotationRowsFormatted();
+        verifyReportWritten(dataMap.size());
     }
 
     @Test
     public void generateCsvReportWithAnnotations() throws ServerException {
-        when(mockSpreadsheetWriterService.writeSpreadsheet(any()))
-            .thenReturn(returnedReport);
-        byte[] generatedReport =
-            reportService.generateAnnotationsReport("projectName", terms, users, dataMap, "csv", 1);
-        verify(mockReportFormatService, times(1))
-            .formatAnnotationsForReport(ReportService.ANNOTATION_REPORT_COLUMNS, dataMap, 1);
-        verify(mockSpreadsheetWriterService, times(1))
-            .writeSpreadsheet(any());
-        assertArrayEquals(returnedReport, generatedReport);
+        when(mockSpreadsheetWriterService.createSpreadsheetWriter(output)).thenReturn(mockReportWriter);
+        reportService.writeAnnotationsReport("projectName", terms, users, dataMap::forEach, "csv", 1, output);
+        verifyAnnotationRowsFormatted();
+        verifyReportWritten(dataMap.size());
     }
 
     @Test
     public void generateXlsReportWithAnnotations() throws ServerException {
-        when(mockSpreadsheetWriterService.writeSpreadsheetXLS(any()))
-            .thenReturn(returnedReport);
-        byte[] generatedReport =
-            reportService.generateAnnotationsReport("projectName", terms, users, dataMap, "xls", 1);
-        verify(mockReportFormatService, times(1))
-            .formatAnnotationsForReport(ReportService.ANNOTATION_REPORT_COLUMNS, dataMap, 1);
-        verify(mockSpreadsheetWriterService, times(1))
-            .writeSpreadsheetXLS(any());
-        assertArrayEquals(returnedReport, generatedReport);
+        when(mockSpreadsheetWriterService.createSpreadsheetXLSWriter(output)).thenReturn(mockReportWriter);
+        reportService.writeAnnotationsReport("projectName", terms, users, dataMap::forEach, "xls", 1, output);
+        verifyAnnotationRowsFormatted();
+        verifyReportWritten(dataMap.size());
     }
 
     @Test
@@ -177,4 +164,30 @@ public class ReportServiceTests {
         );
         assertEquals(expectedError.getMessage(), error.getMessage());
     }
+
+    @Test
+    public void invalidStreamedReportFormatReturnServerError() {
+        ServerException error = assertThrows(
+            ServerException.class,
+            () -> reportService.createReportWriter("title", columns, "invalidFormat", output)
+        );
+        assertEquals(
+            "Failed to generate report, invalid format. Format should be one of these types: 'pdf', 'csv' or 'xls'.",
+            error.getMessage()
+        );
+    }
+
+    private void verifyAnnotationRowsFormatted() {
+        for (Map<String, Object> annotation : dataMap) {
+            verify(mockReportFormatService, times(1))
+                .formatAnnotationRow(ReportService.ANNOTATION_REPORT_COLUMNS, annotation, 1);
+        }
+    }
+
+    private void verifyReportWritten(int dataRows) {
+        // The column titles are written before the data rows
+        verify(mockReportWriter, times(dataRows + 1)).writeRow(any());
+        verify(mockReportWriter, times(1)).finish();
+        verify(mockReportWriter, times(1)).close();
+    }
 }
@@ -9,6 +9,7 @@ import org.locationtech.jts.io.ParseException;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.ByteArrayResource;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -96,7 +97,7 @@ public class RetrievalServiceTests {
         when(annotation.getId()).thenReturn(1L);
         when(annotation.getWktLocation()).thenReturn("POINT(1 1)");
         when(imageServerService.crop(eq(annotation), any(CropParameter.class), eq(null), eq(null)))
-            .thenReturn(ResponseEntity.ok("image".getBytes()));
+            .thenReturn(ResponseEntity.ok(new ByteArrayResource("image".getBytes())));
         when(restTemplate.exchange(
             any(URI.class),
             eq(HttpMethod.POST),
@@ -203,6 +203,30 @@ public class StatsServiceTests {
             DateUtils.addDays(new Date(), -30), DateUtils.addDays(new Date(), 0), true, false);
     }
 
+    @Test
+    void statsUserAnnotationEvolutionByTermFollowsTermChanges() {
+        Project project = builder.givenAProject();
+        UserAnnotation annotation = builder.givenAUserAnnotation(project);
+        AnnotationTerm annotationTerm = builder.givenAnAnnotationTerm(annotation);
+        Optional<Long> termId = Optional.of(annotationTerm.getTerm().getId());
+
+        List<JsonObject> jsonObjects = statsService.statAnnotationEvolution(project, termId, 7,
+            DateUtils.addDays(new Date(), -7), new Date(), false, true);
+        assertThat(jsonObjects).hasSize(2);
+        assertThat(jsonObjects.getLast().getJSONAttrLong("size")).isEqualTo(1);
+
+        entityManager.remove(annotationTerm);
+        entityManager.flush();
+
+        jsonObjects = statsService.statAnnotationEvolution(project, termId, 7, DateUtils.addDays(new Date(), -7),
+            new Date(), false, true);
+        assertThat(jsonObjects.getLast().getJSONAttrLong("size")).isEqualTo(0);
+
+        jsonObjects = statsService.statAnnotationEvolution(project, Optional.empty(), 7,
+            DateUtils.addDays(new Date(), -7), new Date(), false, true);
+        assertThat(jsonObjects.getLast().getJSONAttrLong("size")).isEqualTo(1);
+    }
+
     @Test
     void statsReviewedAnnotationEvolution() throws ParseException {
         Project project = builder.givenAProject();
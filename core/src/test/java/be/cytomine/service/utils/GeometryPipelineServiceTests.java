@@ -0,0 +1,88 @@
+package be.cytomine.service.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Geometry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import be.cytomine.CytomineCoreApplication;
+import be.cytomine.common.PostGisTestConfiguration;
+import be.cytomine.config.MongoTestConfiguration;
+import be.cytomine.config.WiremockRepository;
+import be.cytomine.dto.annotation.SimplifiedAnnotation;
+import be.cytomine.exceptions.WrongArgumentException;
+import be.cytomine.service.utils.GeometryPipelineService.ImageBounds;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(classes = CytomineCoreApplication.class)
+@Import({MongoTestConfiguration.class, PostGisTestConfiguration.class, WiremockRepository.class})
+public class GeometryPipelineServiceTests {
+
+    @Autowired
+    GeometryPipelineService geometryPipelineService;
+
+    @Test
+    void prepareLocationInsideImage() {
+        ImageBounds bounds = geometryPipelineService.imageBounds(100, 100);
+
+        SimplifiedAnnotation result = geometryPipelineService.prepare(
+            "POLYGON ((10 10, 20 10, 20 20, 10 20, 10 10))", bounds, null, null
+        );
+
+        assertThat(result.getNewAnnotation().toText()).isEqualTo("POLYGON ((10 10, 20 10, 20 20, 10 20, 10 10))");
+        assertThat(result.getRate()).isEqualTo(0.0d);
+    }
+
+    @Test
+    void prepareLocationClippedToImage() {
+        ImageBounds bounds = geometryPipelineService.imageBounds(100, 100);
+
+        SimplifiedAnnotation result = geometryPipelineService.prepare(
+            "POLYGON ((-10 -10, 50 -10, 50 50, -10 50, -10 -10))", bounds, null, null
+        );
+
+        assertThat(result.getNewAnnotation().getArea()).isEqualTo(2500.0d);
+    }
+
+    @Test
+    void prepareLocationOutsideImageFails() {
+        ImageBounds bounds = geometryPipelineService.imageBounds(100, 100);
+
+        Assertions.assertThrows(WrongArgumentException.class, () -> geometryPipelineService.prepare(
+            "POLYGON ((200 200, 250 200, 250 250, 200 250, 200 200))", bounds, null, null
+        ));
+    }
+
+    @Test
+    void prepareLocationWithBadGeometryFails() {
+        Assertions.assertThrows(WrongArgumentException.class, () -> geometryPipelineService.prepare(
+            "POINT(BAD GEOMETRY)", null, null, null
+        ));
+    }
+
+    @Test
+    void processAllLocationsOfABatch() {
+        List<String> locations = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            locations.add("POLYGON ((" + i + " 0, " + (i + 1) + " 0, " + (i + 1) + " 1, " + i + " 1, " + i + " 0))");
+        }
+        Map<String, Geometry> geometries = Collections.synchronizedMap(new HashMap<>());
+
+        geometryPipelineService.processAll(
+            locations,
+            location -> geometries.put(location, geometryPipelineService.read(location))
+        );
+
+        assertThat(geometries).hasSize(100);
+        assertThat(geometries.get(locations.get(3)).getArea()).isEqualTo(1.0d);
+    }
+}
@@ -1,8 +1,12 @@
 package be.cytomine.service.utils;
 
+import java.util.Random;
+
 import jakarta.transaction.Transactional;
 import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
 import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
 import org.locationtech.jts.geom.MultiPolygon;
 import org.locationtech.jts.geom.Polygon;
 import org.locationtech.jts.io.ParseException;
@@ -209,6 +213,26 @@ public class SimplifyGeometryServiceTests {
         ));
     }
 
+    @Test
+    public void simplifyFreehandAnnotationWithManyPoints() {
+        int numberOfPoints = 50000;
+        Coordinate[] coordinates = new Coordinate[numberOfPoints + 1];
+        Random random = new Random(42);
+        for (int i = 0; i < numberOfPoints; i++) {
+            double angle = 2 * Math.PI * i / numberOfPoints;
+            double radius = 10000 + random.nextDouble() * 5;
+            coordinates[i] = new Coordinate(20000 + radius * Math.cos(angle), 20000 + radius * Math.sin(angle));
+        }
+        coordinates[numberOfPoints] = coordinates[0];
+        Geometry freehand = new GeometryFactory().createPolygon(coordinates);
+
+        SimplifiedAnnotation result = simplifyGeometryService.simplifyPolygon(freehand, 100L, 150L);
+
+        assertThat(result.getNewAnnotation().getNumPoints()).isBetween(100, 150);
+        assertThat(result.getNewAnnotation().isValid()).isTrue();
+        assertThat(result.getRate()).isGreaterThan(0);
+    }
+
     @Test
     public void simplifyAnnotationWithRate() throws ParseException {
 
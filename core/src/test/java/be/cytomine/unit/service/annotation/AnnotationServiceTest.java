@@ -1,25 +1,36 @@
 package be.cytomine.unit.service.annotation;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.IntStream;
 
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.io.ParseException;
+import org.locationtech.jts.io.WKBReader;
+import org.locationtech.jts.io.WKTReader;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import be.cytomine.domain.annotation.Annotation;
 import be.cytomine.domain.annotation.AnnotationLayer;
+import be.cytomine.exceptions.WrongArgumentException;
 import be.cytomine.repository.annotation.AnnotationRepository;
+import be.cytomine.service.annotation.AnnotationBulkWriter;
 import be.cytomine.service.annotation.AnnotationService;
 
-import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -32,17 +43,19 @@ public class AnnotationServiceTest {
     private static String mockGeometry;
     @Mock
     private AnnotationRepository annotationRepository;
+    @Mock
+    private AnnotationBulkWriter annotationBulkWriter;
     @InjectMocks
     private AnnotationService annotationService;
 
     @BeforeAll
-    public static void setUp() {
+    public static void setUp() throws ParseException {
         mockAnnotationLayer = new AnnotationLayer();
 
-        mockGeometry = "{\"type\": \"Point\",\"coordinates\": [0, 0]}";
+        mockGeometry = "POINT (0 0)";
         mockAnnotation = new Annotation();
         mockAnnotation.setAnnotationLayer(mockAnnotationLayer);
-        mockAnnotation.setLocation(mockGeometry.getBytes());
+        mockAnnotation.setLocation(new WKTReader().read(mockGeometry));
     }
 
     @DisplayName("Successfully create an annotation")
@@ -55,11 +68,43 @@ public class AnnotationServiceTest {
         assertNotNull(result);
         assertEquals(mockAnnotation.getId(), result.getId());
         assertEquals(mockAnnotation.getAnnotationLayer(), result.getAnnotationLayer());
-        assertArrayEquals(mockAnnotation.getLocation(), result.getLocation());
+        assertEquals(mockAnnotation.getLocation(), result.getLocation());
 
         verify(annotationRepository, times(1)).saveAndFlush(any(Annotation.class));
     }
 
+    @DisplayName("Fail to create an annotation with an invalid geometry")
+    @Test
+    public void createAnnotationWithInvalidGeometryShouldFail() {
+        assertThrows(
+            WrongArgumentException.class,
+            () -> annotationService.createAnnotation(mockAnnotationLayer, "NOT A GEOMETRY")
+        );
+    }
+
+    @DisplayName("Successfully create annotations by chunks")
+    @Test
+    @SuppressWarnings("unchecked")
+    public void createAnnotationsShouldInsertByChunks() throws ParseException {
+        GeometryFactory geometryFactory = new GeometryFactory();
+        int count = AnnotationService.BULK_CHUNK_SIZE + 1;
+
+        long created = annotationService.createAnnotations(
+            mockAnnotationLayer,
+            IntStream.range(0, count).mapToObj(i -> geometryFactory.createPoint(new Coordinate(i, i)))
+        );
+
+        ArgumentCaptor<List<byte[]>> chunks = ArgumentCaptor.forClass(List.class);
+        verify(annotationBulkWriter, times(2)).insert(eq(mockAnnotationLayer), chunks.capture());
+        assertEquals(count, created);
+        assertEquals(AnnotationService.BULK_CHUNK_SIZE, chunks.getAllValues().get(0).size());
+        assertEquals(1, chunks.getAllValues().get(1).size());
+        assertEquals(
+            geometryFactory.createPoint(new Coordinate(count - 1, count - 1)),
+            new WKBReader().read(chunks.getAllValues().get(1).getFirst())
+        );
+    }
+
     @DisplayName("Successfully find an annotation given an ID")
     @Test
     public void findShouldReturnAnnotation() {
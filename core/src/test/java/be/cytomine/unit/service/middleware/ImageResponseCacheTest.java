@@ -0,0 +1,147 @@
+package be.cytomine.unit.service.middleware;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import be.cytomine.config.properties.ApplicationProperties;
+import be.cytomine.service.middleware.ImageResponseCache;
+import be.cytomine.utils.PreparedRequest;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class ImageResponseCacheTest {
+
+    private static final byte[] TILE = new byte[] {1, 2, 3};
+
+    @TempDir
+    Path diskPath;
+
+    @Test
+    public void serveIdenticalRequestsFromCache() throws IOException {
+        ImageResponseCache cache = buildCache(true, 1024, null);
+
+        PreparedRequest first = givenATileRequest(2);
+        PreparedRequest second = givenATileRequest(2);
+        assertArrayEquals(TILE, cache.fetch(first, null, null).getBody().getContentAsByteArray());
+        assertArrayEquals(TILE, cache.fetch(second, null, null).getBody().getContentAsByteArray());
+
+        verify(first, times(1)).toResponseEntity(any(), eq(byte[].class));
+        verify(second, never()).toResponseEntity(any(), eq(byte[].class));
+        assertEquals(1L, cache.getStatistics().get("hits"));
+    }
+
+    @Test
+    public void distinguishTileCoordinates() {
+        ImageResponseCache cache = buildCache(true, 1024, null);
+
+        cache.fetch(givenATileRequest(2), null, null);
+        PreparedRequest other = givenATileRequest(3);
+        cache.fetch(other, null, null);
+
+        verify(other, times(1)).toResponseEntity(any(), eq(byte[].class));
+    }
+
+    @Test
+    public void answerMatchingEtagLocally() {
+        ImageResponseCache cache = buildCache(true, 1024, null);
+
+        PreparedRequest request = givenATileRequest(2);
+        ResponseEntity<Resource> response = cache.fetch(request, "\"abc\"", null);
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertNull(response.getBody());
+        assertEquals("\"abc\"", response.getHeaders().getETag());
+        assertNull(request.getHeaders().get(HttpHeaders.IF_NONE_MATCH));
+    }
+
+    @Test
+    public void evictLeastRecentlyUsedWhenMemoryBudgetIsExceeded() {
+        ImageResponseCache cache = buildCache(true, 2 * TILE.length, null);
+
+        cache.fetch(givenATileRequest(1), null, null);
+        cache.fetch(givenATileRequest(2), null, null);
+        cache.fetch(givenATileRequest(1), null, null);
+        cache.fetch(givenATileRequest(3), null, null);
+
+        PreparedRequest evicted = givenATileRequest(2);
+        cache.fetch(evicted, null, null);
+        verify(evicted, times(1)).toResponseEntity(any(), eq(byte[].class));
+        assertEquals(2, cache.getStatistics().get("entries"));
+    }
+
+    @Test
+    public void serveFromDiskTierWhenEvictedFromMemory() throws IOException {
+        ImageResponseCache cache = buildCache(true, TILE.length, diskPath.toString());
+
+        cache.fetch(givenATileRequest(1), null, null);
+        cache.fetch(givenATileRequest(2), null, null);
+
+        PreparedRequest fromDisk = givenATileRequest(1);
+        ResponseEntity<Resource> response = cache.fetch(fromDisk, null, null);
+
+        verify(fromDisk, never()).toResponseEntity(any(), eq(byte[].class));
+        assertArrayEquals(TILE, response.getBody().getContentAsByteArray());
+        assertEquals(TILE.length, response.getBody().contentLength());
+        assertEquals("\"abc\"", response.getHeaders().getETag());
+        assertEquals(1L, cache.getStatistics().get("diskHits"));
+
+        // the disk entry did not evict the memory one
+        cache.fetch(givenATileRequest(2), null, null);
+        assertEquals(1L, cache.getStatistics().get("hits"));
+    }
+
+    @Test
+    public void forwardEtagToImageServerWhenDisabled() {
+        ImageResponseCache cache = buildCache(false, 1024, null);
+
+        PreparedRequest request = givenATileRequest(2);
+        cache.fetch(request, "\"abc\"", null);
+        cache.fetch(request, "\"abc\"", null);
+
+        verify(request, times(2)).toResponseEntity(any(), eq(byte[].class));
+        assertEquals("\"abc\"", request.getHeaders().getFirst(HttpHeaders.IF_NONE_MATCH));
+    }
+
+    private PreparedRequest givenATileRequest(int zoom) {
+        PreparedRequest request = spy(new PreparedRequest());
+        request.setMethod(HttpMethod.GET);
+        request.setUrl("http://localhost/ims");
+        request.addPathFragment("image");
+        request.addPathFragment("1636379100999/CMU-2/CMU-2.mrxs", true);
+        request.addPathFragment("normalized-tile");
+        request.addPathFragment("zoom");
+        request.addPathFragment(String.valueOf(zoom));
+        request.getHeaders().add(HttpHeaders.ACCEPT, "image/webp");
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag("\"abc\"");
+        doReturn(new ResponseEntity<>(TILE, headers, HttpStatus.OK))
+            .when(request).toResponseEntity(any(), eq(byte[].class));
+        return request;
+    }
+
+    private ImageResponseCache buildCache(boolean enabled, long memorySize, String diskPath) {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getImageCache().setEnabled(enabled);
+        applicationProperties.getImageCache().setMemorySize(memorySize);
+        applicationProperties.getImageCache().setDiskPath(diskPath);
+        return new ImageResponseCache(applicationProperties);
+    }
+}
@@ -0,0 +1,71 @@
+package be.cytomine.unit.service.search;
+
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import be.cytomine.config.properties.ApplicationProperties;
+import be.cytomine.exceptions.ServerException;
+import be.cytomine.service.search.RetrievalIndexer;
+import be.cytomine.service.search.RetrievalIndexingService;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class RetrievalIndexerTest {
+
+    @Mock
+    private RetrievalIndexingService retrievalIndexingService;
+
+    private RetrievalIndexer indexer;
+
+    @AfterEach
+    public void stopIndexer() {
+        if (indexer != null) {
+            indexer.stop();
+        }
+    }
+
+    @Test
+    public void indexClaimedAnnotationsAndRetryFailures() {
+        when(retrievalIndexingService.claim(anyInt())).thenReturn(List.of(1L, 2L), List.of());
+        doThrow(new ServerException("CBIR unavailable")).when(retrievalIndexingService).index(2L);
+
+        indexer = buildIndexer(2);
+        indexer.start();
+
+        verify(retrievalIndexingService, timeout(5000)).index(1L);
+        verify(retrievalIndexingService, timeout(5000)).retry(eq(2L), any(ServerException.class));
+        verify(retrievalIndexingService, never()).retry(eq(1L), any());
+    }
+
+    @Test
+    public void doNotPollWithoutWorkers() throws InterruptedException {
+        indexer = buildIndexer(0);
+        indexer.start();
+
+        Thread.sleep(100);
+
+        verify(retrievalIndexingService, never()).claim(anyInt());
+    }
+
+    private RetrievalIndexer buildIndexer(int workers) {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        ApplicationProperties.RetrievalIndexing properties = applicationProperties.getRetrievalIndexing();
+        properties.setWorkers(workers);
+        properties.setBatchSize(2);
+        properties.setPollInterval(10);
+        return new RetrievalIndexer(retrievalIndexingService, applicationProperties);
+    }
+}
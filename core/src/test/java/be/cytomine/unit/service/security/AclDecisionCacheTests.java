@@ -0,0 +1,97 @@
+package be.cytomine.unit.service.security;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import be.cytomine.config.properties.ApplicationProperties;
+import be.cytomine.service.security.AclDecisionCache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AclDecisionCacheTests {
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @AfterEach
+    public void resetRequest() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    public void loadMasksOnlyOnceWhileNotExpired() {
+        AclDecisionCache cache = buildCache(60000, 100);
+
+        assertThat(cache.getMasks(1L, "user", this::load)).containsExactly(1, 16);
+        assertThat(cache.getMasks(1L, "user", this::load)).containsExactly(1, 16);
+        assertThat(cache.getMasks(1L, "other", this::load)).containsExactly(1, 16);
+
+        assertThat(loads.get()).isEqualTo(2);
+        assertThat(cache.getStatistics().get("hits")).isEqualTo(1L);
+        assertThat(cache.getStatistics().get("misses")).isEqualTo(2L);
+    }
+
+    @Test
+    public void reloadMasksAfterInvalidation() {
+        AclDecisionCache cache = buildCache(60000, 100);
+
+        cache.getMasks(1L, "user", this::load);
+        cache.getMasks(2L, "user", this::load);
+        cache.invalidate(1L, "user");
+        cache.getMasks(1L, "user", this::load);
+        cache.getMasks(2L, "user", this::load);
+        assertThat(loads.get()).isEqualTo(3);
+
+        cache.invalidateAll();
+        cache.getMasks(2L, "user", this::load);
+        assertThat(loads.get()).isEqualTo(4);
+    }
+
+    @Test
+    public void memoiseMasksForTheCurrentRequestWithoutSharedCache() {
+        AclDecisionCache cache = buildCache(0, 100);
+
+        cache.getMasks(1L, "user", this::load);
+        cache.getMasks(1L, "user", this::load);
+        assertThat(loads.get()).isEqualTo(2);
+
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        cache.getMasks(1L, "user", this::load);
+        cache.getMasks(1L, "user", this::load);
+        assertThat(loads.get()).isEqualTo(3);
+        assertThat(cache.getStatistics().get("requestHits")).isEqualTo(1L);
+
+        cache.invalidate(1L, "user");
+        cache.getMasks(1L, "user", this::load);
+        assertThat(loads.get()).isEqualTo(4);
+    }
+
+    @Test
+    public void clearCacheWhenFull() {
+        AclDecisionCache cache = buildCache(60000, 2);
+
+        cache.getMasks(1L, "user", this::load);
+        cache.getMasks(2L, "user", this::load);
+        cache.getMasks(3L, "user", this::load);
+
+        assertThat(cache.getStatistics().get("size")).isEqualTo(1);
+        assertThat(cache.getStatistics().get("evictions")).isEqualTo(1L);
+    }
+
+    private List<Integer> load() {
+        loads.incrementAndGet();
+        return List.of(1, 16);
+    }
+
+    private AclDecisionCache buildCache(long timeToLive, int maxSize) {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getAcl().setCacheTimeToLive(timeToLive);
+        applicationProperties.getAcl().setCacheMaxSize(maxSize);
+        return new AclDecisionCache(applicationProperties);
+    }
+}
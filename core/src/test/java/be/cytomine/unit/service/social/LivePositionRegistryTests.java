@@ -0,0 +1,49 @@
+package be.cytomine.unit.service.social;
+
+import java.util.Date;
+
+import org.apache.commons.lang3.time.DateUtils;
+import org.junit.jupiter.api.Test;
+
+import be.cytomine.config.properties.ApplicationProperties;
+import be.cytomine.domain.social.LastUserPosition;
+import be.cytomine.service.social.LivePositionRegistry;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LivePositionRegistryTests {
+
+    private final LivePositionRegistry registry = new LivePositionRegistry(new ApplicationProperties());
+
+    @Test
+    public void keepMostRecentPositionOfUserOnImage() {
+        LastUserPosition recent = position(1L, 2L, new Date());
+        registry.update(recent);
+        registry.update(position(1L, 2L, DateUtils.addSeconds(new Date(), -5)));
+
+        assertThat(registry.get(1L, 2L).get()).isSameAs(recent);
+        assertThat(registry.get(1L, 3L)).isEmpty();
+        assertThat(registry.get(4L, 2L)).isEmpty();
+    }
+
+    @Test
+    public void forgetExpiredPositions() {
+        registry.update(position(1L, 2L, DateUtils.addHours(new Date(), -1)));
+        registry.update(position(1L, 3L, new Date()));
+
+        assertThat(registry.get(1L, 2L)).isEmpty();
+        assertThat(registry.size()).isEqualTo(2);
+
+        registry.removeExpired();
+        assertThat(registry.size()).isEqualTo(1);
+        assertThat(registry.get(1L, 3L)).isPresent();
+    }
+
+    private LastUserPosition position(Long user, Long image, Date created) {
+        LastUserPosition position = new LastUserPosition();
+        position.setUser(user);
+        position.setImage(image);
+        position.setCreated(created);
+        return position;
+    }
+}
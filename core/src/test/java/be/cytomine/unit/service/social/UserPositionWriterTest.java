@@ -0,0 +1,130 @@
+package be.cytomine.unit.service.social;
+
+import java.util.Date;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import be.cytomine.config.properties.ApplicationProperties;
+import be.cytomine.domain.social.LastUserPosition;
+import be.cytomine.domain.social.PersistentUserPosition;
+import be.cytomine.repositorynosql.social.LastUserPositionRepository;
+import be.cytomine.repositorynosql.social.PersistentUserPositionRepository;
+import be.cytomine.service.social.UserPositionWriter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class UserPositionWriterTest {
+
+    @Mock
+    private LastUserPositionRepository lastUserPositionRepository;
+
+    @Mock
+    private PersistentUserPositionRepository persistentUserPositionRepository;
+
+    private UserPositionWriter writer;
+
+    @AfterEach
+    public void stopWriter() {
+        if (writer != null) {
+            writer.drain();
+        }
+    }
+
+    @Test
+    public void writeSynchronouslyWithoutFlushInterval() {
+        writer = buildWriter(0);
+        LastUserPosition lastPosition = lastPosition(1L, 2L, 3L);
+        PersistentUserPosition persistentPosition = new PersistentUserPosition();
+
+        writer.write(lastPosition, persistentPosition);
+
+        verify(lastUserPositionRepository).insert(lastPosition);
+        verify(persistentUserPositionRepository).insert(persistentPosition);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void coalesceLastPositionsAndWritePersistentPositionsInBulk() {
+        writer = buildWriter(3600000);
+        LastUserPosition latest = lastPosition(1L, 2L, 3L);
+        writer.write(lastPosition(1L, 2L, 3L), new PersistentUserPosition());
+        writer.write(lastPosition(1L, 2L, 3L), new PersistentUserPosition());
+        writer.write(latest, new PersistentUserPosition());
+        writer.write(lastPosition(4L, 2L, 3L), new PersistentUserPosition());
+
+        verify(lastUserPositionRepository, never()).insert(anyIterable());
+        assertEquals(4, writer.getStatistics().get("queueDepth"));
+
+        writer.flush();
+
+        ArgumentCaptor<List<LastUserPosition>> lastBatch = ArgumentCaptor.forClass(List.class);
+        verify(lastUserPositionRepository).insert(lastBatch.capture());
+        assertEquals(2, lastBatch.getValue().size());
+        assertEquals(true, lastBatch.getValue().contains(latest));
+
+        ArgumentCaptor<List<PersistentUserPosition>> batch = ArgumentCaptor.forClass(List.class);
+        verify(persistentUserPositionRepository).insert(batch.capture());
+        assertEquals(0, writer.getStatistics().get("queueDepth"));
+        assertEquals(4L, writer.getStatistics().get("written"));
+    }
+
+    @Test
+    public void dropPositionsThatCannotBeWritten() {
+        writer = buildWriter(3600000);
+        when(persistentUserPositionRepository.insert(anyIterable())).thenThrow(new RuntimeException("down"));
+
+        writer.write(lastPosition(1L, 2L, 3L), new PersistentUserPosition());
+        writer.write(lastPosition(1L, 2L, 3L), new PersistentUserPosition());
+        writer.flush();
+
+        assertEquals(2L, writer.getStatistics().get("dropped"));
+        assertEquals(0, writer.getStatistics().get("queueDepth"));
+    }
+
+    @Test
+    public void drainPendingPositionsOnShutdown() {
+        writer = buildWriter(3600000);
+        writer.write(lastPosition(1L, 2L, 3L), new PersistentUserPosition());
+
+        writer.drain();
+        writer = null;
+
+        verify(lastUserPositionRepository).insert(anyIterable());
+        verify(persistentUserPositionRepository).insert(anyIterable());
+        verify(persistentUserPositionRepository, never()).insert(any(PersistentUserPosition.class));
+    }
+
+    private UserPositionWriter buildWriter(long flushInterval) {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getUserPosition().setFlushInterval(flushInterval);
+        applicationProperties.getUserPosition().setBatchSize(100);
+        UserPositionWriter userPositionWriter = new UserPositionWriter(
+            lastUserPositionRepository,
+            persistentUserPositionRepository,
+            applicationProperties
+        );
+        userPositionWriter.startScheduler();
+        return userPositionWriter;
+    }
+
+    private LastUserPosition lastPosition(Long user, Long image, Long slice) {
+        LastUserPosition position = new LastUserPosition();
+        position.setUser(user);
+        position.setImage(image);
+        position.setSlice(slice);
+        position.setCreated(new Date());
+        return position;
+    }
+}
@@ -0,0 +1,55 @@
+package be.cytomine.unit.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import be.cytomine.utils.JsonCollectionWriter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class JsonCollectionWriterTests {
+
+    @Test
+    public void writeAllItemsWithoutPagination() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        JsonCollectionWriter writer = new JsonCollectionWriter(outputStream, 0L, 0L);
+        writer.accept(Map.of("id", 1));
+        writer.accept(Map.of("id", 2));
+        writer.finish();
+
+        assertThat(outputStream.toString(StandardCharsets.UTF_8)).isEqualTo(
+            "{\"collection\":[{\"id\":1},{\"id\":2}],\"offset\":0,\"perPage\":2,\"size\":2,\"totalPages\":1}"
+        );
+    }
+
+    @Test
+    public void writeOnlyRequestedPageButCountAllItems() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        JsonCollectionWriter writer = new JsonCollectionWriter(outputStream, 1L, 2L);
+        for (int i = 0; i < 5; i++) {
+            writer.accept(Map.of("id", i));
+        }
+        writer.finish();
+
+        assertThat(outputStream.toString(StandardCharsets.UTF_8)).isEqualTo(
+            "{\"collection\":[{\"id\":1},{\"id\":2}],\"offset\":1,\"perPage\":2,\"size\":5,\"totalPages\":3}"
+        );
+    }
+
+    @Test
+    public void writeEmptyCollection() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        JsonCollectionWriter writer = new JsonCollectionWriter(outputStream, 0L, 10L);
+
+        assertThat(outputStream.size()).isEqualTo(0);
+        writer.finish();
+
+        assertThat(outputStream.toString(StandardCharsets.UTF_8)).isEqualTo(
+            "{\"collection\":[],\"offset\":0,\"perPage\":0,\"size\":0,\"totalPages\":0}"
+        );
+    }
+}
@@ -59,6 +59,10 @@ public class RegistryClient {
         Configurer.url(url);
     }
 
+    public static void configUpload(int parallelism, int chunkSize, int retries) {
+        Configurer.upload(parallelism, chunkSize, retries);
+    }
+
     public static void pull(String image, String filePath) throws IOException {
         try (OutputStream os = new BufferedOutputStream(Files.newOutputStream(Paths.get(filePath)))) {
             pull(image, os);
@@ -11,6 +11,9 @@ public class Configurer {
     private String userName;
     private String password;
     private boolean authenticated;
+    private int uploadParallelism = 4;
+    private int uploadChunkSize = 16 * 1024 * 1024;
+    private int uploadRetries = 5;
 
     private Configurer() {
     }
@@ -43,4 +46,29 @@ public class Configurer {
     public static boolean authenticated() {
         return configurer.authenticated;
     }
+
+    /**
+     * Configure blob uploads
+     *
+     * @param parallelism maximum number of blobs uploaded in parallel
+     * @param chunkSize   size (bytes) of the upload chunks, each uploading blob buffers one chunk in memory
+     * @param retries     number of times a failed chunk is resumed before the push fails
+     */
+    public static void upload(int parallelism, int chunkSize, int retries) {
+        instance().uploadParallelism = Math.max(1, parallelism);
+        instance().uploadChunkSize = Math.max(1, chunkSize);
+        instance().uploadRetries = Math.max(0, retries);
+    }
+
+    public static int uploadParallelism() {
+        return instance().uploadParallelism;
+    }
+
+    public static int uploadChunkSize() {
+        return instance().uploadChunkSize;
+    }
+
+    public static int uploadRetries() {
+        return instance().uploadRetries;
+    }
 }
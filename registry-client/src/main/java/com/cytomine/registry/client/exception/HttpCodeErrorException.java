@@ -6,4 +6,8 @@ public class HttpCodeErrorException extends RegistryException {
     public HttpCodeErrorException(String message) {
         super(message);
     }
+
+    public HttpCodeErrorException(String message, int statusCode) {
+        super(message, statusCode);
+    }
 }
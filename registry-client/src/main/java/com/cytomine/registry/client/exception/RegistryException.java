@@ -4,15 +4,38 @@ import java.io.IOException;
 
 public class RegistryException extends IOException {
 
+    // HTTP status of the registry response, 0 when the error does not come from a response
+    private final int statusCode;
+
     public RegistryException(String message, Throwable cause) {
         super(message, cause);
+        this.statusCode = 0;
     }
 
     public RegistryException(String message) {
+        this(message, 0);
+    }
+
+    public RegistryException(String message, int statusCode) {
         super(message);
+        this.statusCode = statusCode;
     }
 
     public RegistryException(Throwable cause) {
         super(cause);
+        this.statusCode = 0;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * A client error is not fixed by sending the same request again, except for a timeout, a rate limit or an
+     * upload offset that the registry does not expect
+     */
+    public boolean isClientError() {
+        return statusCode >= 400 && statusCode < 500 && statusCode != 408 && statusCode != 416
+            && statusCode != 429;
     }
-}
\ No newline at end of file
+}
@@ -8,7 +8,6 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.UUID;
 
 import com.cytomine.registry.client.constant.Constants;
 import com.cytomine.registry.client.image.Blob;
@@ -53,21 +52,28 @@ public class FileUtils {
         return blobs;
     }
 
-    public static Blob gzCompress(InputStream is) throws IOException {
-        Path temp = Files.createTempFile(UUID.randomUUID().toString(), ".tar.gz");
-        byte[] buffer = new byte[4096];
-        Path compressed;
-        Sha256HashOutputStream sha256HashOutputStream;
-        try (OutputStream os = new BufferedOutputStream(Files.newOutputStream(temp))) {
-            sha256HashOutputStream = new Sha256HashOutputStream(os);
-            GzipCompressorOutputStream gzOS =
-                new GzipCompressorOutputStream(sha256HashOutputStream);
+    /**
+     * Gzip compress the content of the blob into the output stream, without closing it.
+     *
+     * @return the stream that received the compressed bytes, giving their digest and size
+     */
+    public static Sha256HashOutputStream gzCompress(Blob blob, OutputStream os) throws IOException {
+        Sha256HashOutputStream sha256HashOutputStream = new Sha256HashOutputStream(os);
+        try (InputStream is = blob.getContent().get()) {
+            GzipCompressorOutputStream gzOS = new GzipCompressorOutputStream(sha256HashOutputStream);
             org.apache.commons.compress.utils.IOUtils.copy(is, gzOS);
             gzOS.finish();
         }
-        String sha256 = sha256HashOutputStream.hash();
-        return new Blob(temp.toFile().getName(), Files.size(temp), Constants.SHA256_PREFIX + sha256,
-            () -> Files.newInputStream(temp));
+        return sha256HashOutputStream;
+    }
+
+    /**
+     * Compute the digest and size of a blob to compress, the compressed content is not stored.
+     */
+    public static void gzDigest(Blob blob) throws IOException {
+        Sha256HashOutputStream compressed = gzCompress(blob, OutputStream.nullOutputStream());
+        blob.setDigest(Constants.SHA256_PREFIX + compressed.hash());
+        blob.setSize(compressed.size());
     }
 
     public static String replacePathChar(String str) {
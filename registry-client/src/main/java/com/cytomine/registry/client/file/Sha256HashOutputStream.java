@@ -9,6 +9,7 @@ import java.security.NoSuchAlgorithmException;
 public class Sha256HashOutputStream extends OutputStream {
     OutputStream os;
     MessageDigest sha256Digest;
+    long size;
 
     public Sha256HashOutputStream(OutputStream os) {
         this.os = os;
@@ -23,12 +24,14 @@ public class Sha256HashOutputStream extends OutputStream {
     public void write(int b) throws IOException {
         sha256Digest.update((byte) b);
         os.write(b);
+        size++;
     }
 
     @Override
     public void write(byte[] b, int off, int len) throws IOException {
         sha256Digest.update(b, off, len);
         os.write(b, off, len);
+        size += len;
     }
 
     @Override
@@ -37,6 +40,10 @@ public class Sha256HashOutputStream extends OutputStream {
         os.close();
     }
 
+    public long size() {
+        return size;
+    }
+
     public String hash() {
         BigInteger number = new BigInteger(1, sha256Digest.digest());
         StringBuilder hexString = new StringBuilder(number.toString(16));
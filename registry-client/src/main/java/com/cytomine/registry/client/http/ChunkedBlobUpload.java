@@ -0,0 +1,123 @@
+package com.cytomine.registry.client.http;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+
+import com.cytomine.registry.client.exception.RegistryException;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Upload a blob with the chunked upload protocol: each chunk is sent with a PATCH and the upload is
+ * committed with a PUT giving the digest.
+ * The current chunk is kept in memory until the registry acknowledges it, so that a failed PATCH is resumed
+ * from the last offset acknowledged by the registry instead of restarting the whole blob.
+ */
+@Slf4j
+public class ChunkedBlobUpload extends OutputStream {
+
+    private static final long RETRY_DELAY = 500;
+
+    private final RegistryApi api;
+    private final String token;
+    private final int maxRetries;
+    private final byte[] chunk;
+    private String location;
+    // bytes of the chunk buffer
+    private int count;
+    // offset of the chunk buffer in the blob
+    private long offset;
+
+    public ChunkedBlobUpload(RegistryApi api, String location, String token, int chunkSize, int maxRetries) {
+        this.api = api;
+        this.location = location;
+        this.token = token;
+        this.maxRetries = maxRetries;
+        this.chunk = new byte[chunkSize];
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (count == chunk.length) {
+            sendChunk();
+        }
+        chunk[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            if (count == chunk.length) {
+                sendChunk();
+            }
+            int l = Math.min(len, chunk.length - count);
+            System.arraycopy(b, off, chunk, count, l);
+            count += l;
+            off += l;
+            len -= l;
+        }
+    }
+
+    /**
+     * Send the remaining bytes and commit the upload
+     */
+    public void complete(String digest) throws IOException {
+        sendChunk();
+        api.completeUpload(location, digest, token);
+    }
+
+    public long size() {
+        return offset + count;
+    }
+
+    private void sendChunk() throws IOException {
+        int sent = 0;
+        int attempt = 0;
+        while (sent < count) {
+            try {
+                location = api.uploadChunk(location, chunk, sent, count - sent, offset + sent, token);
+                sent = count;
+            } catch (IOException e) {
+                if (e instanceof RegistryException registryException && registryException.isClientError()) {
+                    throw e;
+                }
+                if (++attempt > maxRetries) {
+                    throw e;
+                }
+                log.warn("upload of chunk at offset {} failed (attempt {}): {}", offset + sent, attempt,
+                    e.getMessage());
+                pause(attempt);
+                sent = acknowledged(sent);
+            }
+        }
+        offset += count;
+        count = 0;
+    }
+
+    /**
+     * Ask the registry how many bytes of the current chunk it received
+     */
+    private int acknowledged(int sent) {
+        try {
+            RegistryApi.UploadStatus status = api.getUploadStatus(location, token);
+            if (status.offset() < offset || status.offset() > offset + count) {
+                log.warn("registry acknowledged offset {} outside of the current chunk", status.offset());
+                return sent;
+            }
+            location = status.location();
+            return (int) (status.offset() - offset);
+        } catch (IOException e) {
+            log.warn("cannot get upload status: {}", e.getMessage());
+            return sent;
+        }
+    }
+
+    private void pause(int attempt) throws InterruptedIOException {
+        try {
+            Thread.sleep(RETRY_DELAY << Math.min(attempt - 1, 6));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("upload interrupted");
+        }
+    }
+}
@@ -36,6 +36,7 @@ public class RegistryApi {
     private static final String BLOB = "%s/v2/%s/blobs/%s";
     private static final String BLOB_UPLOAD = "%s/v2/%s/blobs/uploads/";
     private static final Pattern AUTH_URL_PATTERN = Pattern.compile("Bearer realm=\"(.*?)\",service=\"(.*?)\"");
+    private static final Pattern RANGE_PATTERN = Pattern.compile("^(?:bytes=)?(\\d+)-(\\d+)$");
 
     public int base(String endpoint) throws IOException {
         try (Response response = HttpClient.execute(HttpClient.METHOD_HEAD, String.format(BASE,
@@ -191,6 +192,69 @@ public class RegistryApi {
         }
     }
 
+    /**
+     * Send a chunk of a blob upload
+     *
+     * @return the location of the next chunk
+     */
+    public String uploadChunk(String url, byte[] content, int offset, int length, long start, String token)
+        throws IOException {
+        Map<String, String> headers = new HashMap<>();
+        Optional.ofNullable(token).ifPresent(t -> headers.put(HttpHeaders.AUTHORIZATION, t));
+        headers.put(HttpHeaders.CONTENT_RANGE, String.format("%d-%d", start, start + length - 1));
+        RequestBody body = RequestBody.create(content, MediaType.parse("application/octet-stream"), offset,
+            length);
+        try (Response response = HttpClient.execute(HttpClient.METHOD_PATCH, url,
+            Headers.of(headers), body)) {
+            if (!response.isSuccessful()) {
+                throw responseException(response);
+            }
+            return HttpClient.getLocation(response, url);
+        }
+    }
+
+    /**
+     * Get the number of bytes of a blob upload received by the registry
+     */
+    public UploadStatus getUploadStatus(String url, String token) throws IOException {
+        Map<String, String> headers = new HashMap<>();
+        Optional.ofNullable(token).ifPresent(t -> headers.put(HttpHeaders.AUTHORIZATION, t));
+        try (Response response = HttpClient.execute(HttpClient.METHOD_GET, url,
+            Headers.of(headers), null)) {
+            if (!response.isSuccessful()) {
+                throw responseException(response);
+            }
+            long offset = 0;
+            Matcher matcher = RANGE_PATTERN.matcher(Optional.ofNullable(response.header(HttpHeaders.RANGE))
+                .orElse(""));
+            if (matcher.matches()) {
+                // the registry answers 0-0 for an empty upload
+                long end = Long.parseLong(matcher.group(2));
+                offset = end > 0 ? end + 1 : 0;
+            }
+            String location = response.header(HttpHeaders.LOCATION) != null
+                ? HttpClient.getLocation(response, url) : url;
+            return new UploadStatus(location, offset);
+        }
+    }
+
+    /**
+     * Commit a chunked blob upload
+     */
+    public void completeUpload(String url, String digest, String token) throws IOException {
+        Map<String, String> headers = new HashMap<>();
+        Optional.ofNullable(token).ifPresent(t -> headers.put(HttpHeaders.AUTHORIZATION, t));
+        String appendQuery = new URL(url).getQuery() == null ? "?" : "&";
+        appendQuery += "digest=" + digest;
+        RequestBody body = RequestBody.create(new byte[0], MediaType.parse("application/octet-stream"));
+        try (Response response = HttpClient.execute(HttpClient.METHOD_PUT, url + appendQuery,
+            Headers.of(headers), body)) {
+            if (!response.isSuccessful()) {
+                throw responseException(response);
+            }
+        }
+    }
+
     public void deleteLayer(Reference reference, String digest, String token) throws IOException {
         Map<String, String> headers = new HashMap<>();
         Optional.ofNullable(token).ifPresent(t -> headers.put(HttpHeaders.AUTHORIZATION, t));
@@ -252,12 +316,15 @@ public class RegistryApi {
 
     private IOException responseException(Response response) throws IOException {
         if (response.body() == null) {
-            throw new HttpCodeErrorException("status code:" + response.code());
+            throw new HttpCodeErrorException("status code:" + response.code(), response.code());
         }
         ErrorResponse error = JsonUtil.fromJson(response.body().string(), ErrorResponse.class);
         if (error == null || error.getErrors() == null || error.getErrors().isEmpty()) {
-            throw new HttpCodeErrorException("status code:" + response.code());
+            throw new HttpCodeErrorException("status code:" + response.code(), response.code());
         }
-        throw new RegistryException(error.toString());
+        throw new RegistryException(error.toString(), response.code());
+    }
+
+    public record UploadStatus(String location, long offset) {
     }
 }
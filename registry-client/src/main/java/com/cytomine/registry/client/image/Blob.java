@@ -16,4 +16,10 @@ public class Blob {
     private Long size;
     private String digest;
     private Supplier<InputStream> content;
+    // content is an uncompressed layer, gzip compressed on the fly. Digest and size are set once compressed
+    private boolean gzip;
+
+    public Blob(String name, Long size, String digest, Supplier<InputStream> content) {
+        this(name, size, digest, content, false);
+    }
 }
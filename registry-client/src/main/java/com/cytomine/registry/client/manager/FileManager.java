@@ -53,6 +53,14 @@ public class FileManager {
     }
 
     public void save(Context context, OutputStream os) throws IOException {
+        List<Blob> blobs = new ArrayList<>(context.getLayers());
+        blobs.add(context.getConfig());
+        for (Blob blob : blobs) {
+            if (blob.isGzip() && blob.getDigest() == null) {
+                FileUtils.gzDigest(blob);
+                blob.setName(blob.getDigest().replace(Constants.SHA256_PREFIX, "") + FileConstant.EXTENSION_TAR_GZ);
+            }
+        }
         try (TarArchiveOutputStream tos = new TarArchiveOutputStream(os)) {
             TarArchiveEntry manifestEntry = new TarArchiveEntry(FileConstant.MANIFEST);
             byte[] manifestContent =
@@ -61,32 +69,32 @@ public class FileManager {
             tos.putArchiveEntry(manifestEntry);
             tos.write(manifestContent);
             tos.closeArchiveEntry();
-            List<Blob> blobs = new ArrayList<>(context.getLayers());
-            blobs.add(context.getConfig());
             for (Blob blob : blobs) {
                 TarArchiveEntry layerEntry = new TarArchiveEntry(blob.getName());
                 layerEntry.setSize(blob.getSize());
                 tos.putArchiveEntry(layerEntry);
-                try (InputStream is = blob.getContent().get()) {
-                    org.apache.commons.compress.utils.IOUtils.copy(is, tos);
+                if (blob.isGzip()) {
+                    FileUtils.gzCompress(blob, tos);
+                } else {
+                    try (InputStream is = blob.getContent().get()) {
+                        org.apache.commons.compress.utils.IOUtils.copy(is, tos);
+                    }
                 }
                 tos.closeArchiveEntry();
             }
         }
     }
 
-    private List<Blob> gzTarItem(List<Blob> layers) throws IOException {
-        List<Blob> result = new ArrayList<>();
+    private List<Blob> gzTarItem(List<Blob> layers) {
         for (Blob blob : layers) {
             if (blob.getName().endsWith(FileConstant.EXTENSION_TAR)) {
-                Blob compressedBlob = FileUtils.gzCompress(blob.getContent().get());
-                compressedBlob.setName(blob.getName());
-                result.add(compressedBlob);
-            } else {
-                result.add(blob);
+                // compressed on the fly when pushed or saved
+                blob.setGzip(true);
+                blob.setDigest(null);
+                blob.setSize(null);
             }
         }
-        return result;
+        return layers;
     }
 
 
@@ -147,7 +155,7 @@ public class FileManager {
             throw new TarFileErrException("file missing");
         }
         config.setName(config.getDigest().replace(Constants.SHA256_PREFIX, "") + FileConstant.EXTENSION_TAR_GZ);
-        layers.forEach(layer ->
+        layers.stream().filter(layer -> !layer.isGzip()).forEach(layer ->
             layer.setName(layer.getDigest().replace(Constants.SHA256_PREFIX, "") + FileConstant.EXTENSION_TAR_GZ));
 
         return new Context(Reference.parse(manifestFiles.get(0).getRepoTags().get(0)), config,
@@ -3,16 +3,24 @@ package com.cytomine.registry.client.manager;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import javax.net.ssl.SSLException;
 
 import com.cytomine.registry.client.config.Configurer;
 import com.cytomine.registry.client.constant.Constants;
 import com.cytomine.registry.client.constant.FileConstant;
 import com.cytomine.registry.client.exception.RegistryException;
+import com.cytomine.registry.client.file.FileUtils;
+import com.cytomine.registry.client.file.Sha256HashOutputStream;
+import com.cytomine.registry.client.http.ChunkedBlobUpload;
 import com.cytomine.registry.client.http.RegistryApi;
 import com.cytomine.registry.client.http.resp.CatalogResp;
 import com.cytomine.registry.client.image.Blob;
@@ -20,6 +28,7 @@ import com.cytomine.registry.client.image.Context;
 import com.cytomine.registry.client.image.registry.ManifestHttp;
 import com.cytomine.registry.client.name.Reference;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.compress.utils.IOUtils;
 
 @Slf4j
 public class RegistryManager {
@@ -51,23 +60,82 @@ public class RegistryManager {
     public void push(Context context, Reference reference) throws IOException {
         List<Blob> blobList = new ArrayList<>(context.getLayers());
         blobList.add(context.getConfig());
-        for (Blob blob : blobList) {
-            if (!api.isBlobExists(reference, blob.getDigest(), context.getToken())) {
-                String uploadUrl = api.startPush(reference, context.getToken());
-                try (InputStream is = blob.getContent().get()) {
-                    api.uploadBlob(uploadUrl, blob.getDigest(), is, blob.getSize(),
-                        context.getToken());
-                }
-                if (!api.isBlobExists(reference, blob.getDigest(), context.getToken())) {
-                    throw new RegistryException("upload blob failed");
-                }
+        ExecutorService executor = Executors.newFixedThreadPool(
+            Math.min(blobList.size(), Configurer.uploadParallelism()));
+        try {
+            List<Future<Void>> uploads = new ArrayList<>();
+            for (Blob blob : blobList) {
+                uploads.add(executor.submit(() -> {
+                    pushBlob(context, reference, blob);
+                    return null;
+                }));
+            }
+            for (Future<Void> upload : uploads) {
+                await(upload);
             }
+        } finally {
+            executor.shutdownNow();
         }
         ManifestHttp manifestHttp = context.manifestHttp();
         api.uploadManifest(reference, manifestHttp, manifestHttp.getMediaType(),
             context.getToken());
     }
 
+    private void pushBlob(Context context, Reference reference, Blob blob) throws IOException {
+        // the digest of a layer to compress is computed by a first compression pass, without storing it,
+        // so that the layers already in the registry are not uploaded again
+        if (blob.isGzip() && blob.getDigest() == null) {
+            FileUtils.gzDigest(blob);
+        }
+        if (api.isBlobExists(reference, blob.getDigest(), context.getToken())) {
+            return;
+        }
+        String uploadUrl = api.startPush(reference, context.getToken());
+        uploadBlob(uploadUrl, blob, context.getToken());
+        if (!api.isBlobExists(reference, blob.getDigest(), context.getToken())) {
+            throw new RegistryException("upload blob failed");
+        }
+    }
+
+    /**
+     * Stream the blob to the registry by chunks, compressing it and computing its digest on the fly if needed
+     */
+    private void uploadBlob(String uploadUrl, Blob blob, String token) throws IOException {
+        ChunkedBlobUpload upload = new ChunkedBlobUpload(api, uploadUrl, token, Configurer.uploadChunkSize(),
+            Configurer.uploadRetries());
+        Sha256HashOutputStream uploaded;
+        if (blob.isGzip()) {
+            uploaded = FileUtils.gzCompress(blob, upload);
+        } else {
+            uploaded = new Sha256HashOutputStream(upload);
+            try (InputStream is = blob.getContent().get()) {
+                IOUtils.copy(is, uploaded);
+            }
+        }
+        String digest = Constants.SHA256_PREFIX + uploaded.hash();
+        if (blob.getDigest() != null && !blob.getDigest().equals(digest)) {
+            throw new RegistryException(String.format("digest of %s is %s, expected %s", blob.getName(), digest,
+                blob.getDigest()));
+        }
+        upload.complete(digest);
+        blob.setDigest(digest);
+        blob.setSize(upload.size());
+    }
+
+    private void await(Future<Void> upload) throws IOException {
+        try {
+            upload.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("push interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException cause) {
+                throw cause;
+            }
+            throw new RegistryException(e.getCause());
+        }
+    }
+
     public Optional<String> digest(Context context, Reference reference) throws IOException {
         return api.digest(reference, context.getToken());
     }
@@ -93,10 +161,7 @@ public class RegistryManager {
                 Optional<String> uploadUrl = api.mountBlob(dstReference, blob.getDigest(),
                     context.getReference().getName(), context.getToken());
                 if (uploadUrl.isPresent()) {
-                    try (InputStream is = blob.getContent().get()) {
-                        api.uploadBlob(uploadUrl.get(), blob.getDigest(), is, blob.getSize(),
-                            context.getToken());
-                    }
+                    uploadBlob(uploadUrl.get(), blob, context.getToken());
                 }
                 if (!api.isBlobExists(dstReference, blob.getDigest(), context.getToken())) {
                     throw new RegistryException("upload blob failed");
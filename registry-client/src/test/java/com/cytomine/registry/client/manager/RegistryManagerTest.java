@@ -5,6 +5,7 @@ import java.io.IOException;
 import com.cytomine.registry.client.RegistryClient;
 import com.cytomine.registry.client.RegistryClientTest;
 import com.cytomine.registry.client.TestConfig;
+import com.cytomine.registry.client.config.Configurer;
 import com.cytomine.registry.client.image.Context;
 import com.cytomine.registry.client.name.Reference;
 import org.junit.jupiter.api.Assertions;
@@ -47,4 +48,21 @@ public class RegistryManagerTest {
         Assertions.assertEquals(expectedDigest, context.getConfig().getDigest());
         Assertions.assertEquals(2, context.getLayers().size());
     }
+
+    @Test
+    void shouldPushLayersByChunks() throws Exception {
+        Configurer.upload(2, 64 * 1024, 3);
+        try {
+            ClassLoader classLoader = RegistryClientTest.class.getClassLoader();
+            RegistryClient.push(classLoader.getResourceAsStream("postomine.tar"), "postomine:chunked");
+        } finally {
+            Configurer.upload(4, 16 * 1024 * 1024, 5);
+        }
+
+        Context context = new Context();
+        registryManager.load(context, Reference.prepareReference("postomine:chunked"));
+
+        Assertions.assertEquals(2, context.getLayers().size());
+        Assertions.assertEquals(RegistryClient.digest("postomine:1.3"), RegistryClient.digest("postomine:chunked"));
+    }
 }